@@ -0,0 +1,155 @@
+#!/bin/bash
+
+set -euo pipefail
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(cd "${BENCH_DIR}/.." && pwd)"
+BENCH_JAR="${BENCH_DIR}/target/benchmarks.jar"
+
+OUTPUT_FILE="${BENCH_DIR}/jmh-latest.json"
+BASELINE_FILE=""
+MAX_REGRESSION_PCT=""
+REBUILD=false
+JMH_ARGS=()
+
+usage() {
+    cat <<'EOF'
+Usage: benchmarks/run-benchmarks.sh [options] [-- <JMH options>]
+
+Runs the JMH microbenchmarks and writes JMH's JSON results. Builds LuCLI
+and the benchmark jar first when benchmarks/target/benchmarks.jar is missing.
+
+Options:
+  --output <path>             JSON output file (default: benchmarks/jmh-latest.json)
+  --baseline <path>           Earlier JSON output to compare against
+  --max-regression-pct <pct>  Fail if any benchmark is slower than the baseline by more than pct
+  --rebuild                   Rebuild LuCLI and the benchmark jar
+  --help                      Show this help
+
+Anything after -- goes to JMH, for example a benchmark filter and shorter runs:
+  benchmarks/run-benchmarks.sh -- Preprocessor -wi 1 -i 3
+EOF
+}
+
+while [[ $# -gt 0 ]]; do
+    case "$1" in
+        --output)
+            OUTPUT_FILE="$2"
+            shift 2
+            ;;
+        --baseline)
+            BASELINE_FILE="$2"
+            shift 2
+            ;;
+        --max-regression-pct)
+            MAX_REGRESSION_PCT="$2"
+            shift 2
+            ;;
+        --rebuild)
+            REBUILD=true
+            shift
+            ;;
+        --help|-h)
+            usage
+            exit 0
+            ;;
+        --)
+            shift
+            JMH_ARGS=("$@")
+            break
+            ;;
+        *)
+            echo "Unknown option: $1" >&2
+            usage
+            exit 1
+            ;;
+    esac
+done
+
+if [[ -n "${MAX_REGRESSION_PCT}" ]] && ! [[ "${MAX_REGRESSION_PCT}" =~ ^[0-9]+([.][0-9]+)?$ ]]; then
+    echo "--max-regression-pct must be a non-negative number" >&2
+    exit 1
+fi
+
+if [[ -n "${BASELINE_FILE}" && ! -f "${BASELINE_FILE}" ]]; then
+    echo "Baseline file not found: ${BASELINE_FILE}" >&2
+    exit 1
+fi
+
+if ! command -v python3 >/dev/null 2>&1; then
+    echo "python3 is required for benchmarking" >&2
+    exit 1
+fi
+
+if [[ "${REBUILD}" == "true" || ! -f "${BENCH_JAR}" ]]; then
+    echo "ℹ️ Building LuCLI and benchmarks/target/benchmarks.jar..."
+    (
+        cd "${ROOT_DIR}"
+        mvn install -q -DskipTests -Djarsigner.skip=true -Djreleaser.dry.run=true
+        # Benchmark exactly what was just installed, even if benchmarks/pom.xml lags behind.
+        LUCLI_VERSION="$(mvn help:evaluate -Dexpression=project.version -q -DforceStdout)"
+        cd "${BENCH_DIR}"
+        mvn package -q -Dlucli.version="${LUCLI_VERSION}"
+    )
+fi
+
+mkdir -p "$(dirname "${OUTPUT_FILE}")"
+
+java -jar "${BENCH_JAR}" -rf json -rff "${OUTPUT_FILE}" ${JMH_ARGS[@]+"${JMH_ARGS[@]}"}
+
+python3 - "${OUTPUT_FILE}" "${BASELINE_FILE}" "${MAX_REGRESSION_PCT}" <<'PY'
+import json
+import sys
+from pathlib import Path
+
+output_file = sys.argv[1]
+baseline_file = sys.argv[2]
+max_regression = float(sys.argv[3]) if sys.argv[3] else None
+
+def load(path):
+    """Map 'Class.method[param=value,...]' to (score, error, unit)."""
+    results = {}
+    for entry in json.loads(Path(path).read_text(encoding="utf-8")):
+        params = entry.get("params") or {}
+        key = ".".join(entry["benchmark"].rsplit(".", 2)[-2:])
+        if params:
+            key += "[" + ",".join(f"{k}={v}" for k, v in sorted(params.items())) + "]"
+        metric = entry["primaryMetric"]
+        results[key] = (metric["score"], metric.get("scoreError") or 0.0, metric["scoreUnit"])
+    return results
+
+current = load(output_file)
+print(f"Saved benchmark JSON: {output_file}")
+
+if baseline_file:
+    baseline = load(baseline_file)
+    failing = []
+
+    print("")
+    print(f"Comparison against baseline: {baseline_file}")
+    for name, (score, error, unit) in sorted(current.items()):
+        if name not in baseline or baseline[name][0] == 0:
+            print(f"{name}: baseline missing; skipped")
+            continue
+        base_score, base_error, base_unit = baseline[name]
+        if base_unit != unit:
+            print(f"{name}: unit changed ({base_unit} -> {unit}); skipped")
+            continue
+
+        # All benchmarks report time per operation, so higher is slower.
+        delta_pct = (score - base_score) / base_score * 100.0
+        direction = "slower" if delta_pct > 0 else "faster"
+        # Differences inside both runs' error margins are noise, not regressions.
+        significant = abs(score - base_score) > (error + base_error)
+        note = "" if significant else " (within error)"
+        print(
+            f"{name}: {base_score:.3f} -> {score:.3f} {unit} "
+            f"({abs(delta_pct):.2f}% {direction}){note}"
+        )
+        if max_regression is not None and significant and delta_pct > max_regression:
+            failing.append((name, delta_pct))
+
+    if failing:
+        labels = ", ".join(f"{name} ({pct:.2f}%)" for name, pct in failing)
+        raise SystemExit(f"Regression threshold exceeded ({max_regression}%): {labels}")
+PY
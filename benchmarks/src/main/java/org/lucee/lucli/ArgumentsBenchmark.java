@@ -0,0 +1,40 @@
+package org.lucee.lucli;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Argument handling done for every script and module invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArgumentsBenchmark {
+
+    private static final String[] MODULE_ARGS = {
+        "generate", "model", "name=User", "--force", "--no-tests", "fields=\"name,email,role\"", "-verbose=true", "extra"
+    };
+
+    @Benchmark
+    public Object parseArguments() {
+        return LuceeScriptEngine.parseArguments(MODULE_ARGS);
+    }
+
+    @Benchmark
+    public Map<String, String> createNamedArgumentMap() {
+        return BuiltinVariableManager.createNamedArgumentMap(MODULE_ARGS);
+    }
+}
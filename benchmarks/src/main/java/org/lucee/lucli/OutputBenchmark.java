@@ -0,0 +1,55 @@
+package org.lucee.lucli;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-line output work: placeholder processing on every printed line and
+ * syntax highlighting on every REPL keystroke.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputBenchmark {
+
+    private static final String PLAIN_LINE = "Server dev started on http://localhost:8080 (pid 41234)";
+    private static final String PLACEHOLDER_LINE = "${EMOJI_SUCCESS} Started ${NOW} in ${USER_HOME} :rocket:";
+    private static final String CFML = "var total = 0; // running sum\n"
+        + "for (var i = 1; i <= arrayLen(items); i++) { total += items[i].price * 1.2; }\n"
+        + "writeOutput(\"Total: \" & numberFormat(total, \"9.99\"));";
+
+    private StringOutput output;
+
+    @Setup
+    public void setUp() {
+        output = StringOutput.getInstance();
+    }
+
+    @Benchmark
+    public String processPlainLine() {
+        return output.process(PLAIN_LINE);
+    }
+
+    @Benchmark
+    public String processPlaceholderLine() {
+        return output.process(PLACEHOLDER_LINE);
+    }
+
+    @Benchmark
+    public String highlightCfml() {
+        return CfmlSyntaxHighlighter.highlight(CFML, true);
+    }
+}
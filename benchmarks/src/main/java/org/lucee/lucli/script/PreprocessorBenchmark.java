@@ -0,0 +1,129 @@
+package org.lucee.lucli.script;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.secrets.SecretStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Each stage of {@link LucliScriptPreprocessor} and the whole pipeline, on a
+ * generated {@code .lucli} script mixing comments, continuations,
+ * environment blocks, secrets and placeholders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreprocessorBenchmark {
+
+    @Param({"50", "500"})
+    int blocks;
+
+    private List<String> script;
+    private List<String> joined;
+    private List<String> uncommented;
+    private List<String> envResolved;
+    private StringOutput output;
+    private SecretStore secrets;
+
+    @Setup
+    public void setUp() throws Exception {
+        script = new ArrayList<>();
+        for (int i = 0; i < blocks; i++) {
+            script.add("# step " + i + ": deploy");
+            script.add("server start \\");
+            script.add("  --name app" + i + " \\");
+            script.add("  --port " + (8000 + i));
+            script.add("#@env:prod");
+            script.add("set DB_PASSWORD=${secret:db_password}");
+            script.add("#@end");
+            script.add("#@dev");
+            script.add("echo ${EMOJI_INFO} running in ${USER_HOME}");
+            script.add("#@end");
+            script.add("echo done " + i);
+        }
+        output = StringOutput.getInstance();
+        secrets = new FixedSecretStore(Map.of("db_password", "s3cr3t"));
+
+        joined = LucliScriptPreprocessor.joinContinuationLines(script);
+        uncommented = LucliScriptPreprocessor.stripComments(joined);
+        envResolved = LucliScriptPreprocessor.processEnvBlocks(uncommented, "prod");
+    }
+
+    @Benchmark
+    public List<String> joinContinuationLines() {
+        return LucliScriptPreprocessor.joinContinuationLines(script);
+    }
+
+    @Benchmark
+    public List<String> stripComments() {
+        return LucliScriptPreprocessor.stripComments(joined);
+    }
+
+    @Benchmark
+    public List<String> processEnvBlocks() {
+        return LucliScriptPreprocessor.processEnvBlocks(uncommented, "prod");
+    }
+
+    @Benchmark
+    public List<String> resolveSecrets() throws Exception {
+        return LucliScriptPreprocessor.resolveSecrets(envResolved, secrets);
+    }
+
+    @Benchmark
+    public List<String> resolvePlaceholders() {
+        return LucliScriptPreprocessor.resolvePlaceholders(envResolved, output);
+    }
+
+    @Benchmark
+    public List<String> fullPipeline() throws Exception {
+        return LucliScriptPreprocessor.preprocess(script, "prod", output, secrets);
+    }
+
+    /** Read-only in-memory store, so the benchmark measures the preprocessor and not decryption. */
+    private static final class FixedSecretStore implements SecretStore {
+
+        private final Map<String, String> values;
+
+        FixedSecretStore(Map<String, String> values) {
+            this.values = values;
+        }
+
+        @Override
+        public void put(String name, char[] value, String description) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<char[]> get(String name) {
+            return Optional.ofNullable(values.get(name)).map(String::toCharArray);
+        }
+
+        @Override
+        public void delete(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<SecretMetadata> list() {
+            return List.of();
+        }
+    }
+}
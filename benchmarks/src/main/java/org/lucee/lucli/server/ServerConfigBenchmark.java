@@ -0,0 +1,121 @@
+package org.lucee.lucli.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Configuration work done by every {@code server} command: merging an
+ * environment into lucee.json, resolving {@code #project:path#}, and
+ * patching Tomcat's server.xml.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServerConfigBenchmark {
+
+    private static final String LUCEE_JSON = """
+        {
+          "name": "bench-app",
+          "port": 8080,
+          "webroot": "./public",
+          "jvm": { "maxMemory": "512m", "minMemory": "128m", "additionalArgs": ["-Dapp.mode=dev"] },
+          "urlRewrite": { "enabled": true, "routerFile": "index.cfm" },
+          "configuration": {
+            "datasources": {
+              "main": { "class": "org.sqlite.JDBC", "connectionString": "jdbc:sqlite:#project:path#/db/app.db" },
+              "logs": { "class": "org.sqlite.JDBC", "connectionString": "jdbc:sqlite:#project:path#/db/logs.db" }
+            },
+            "mappings": {
+              "/app": { "physical": "#project:path#/app" },
+              "/lib": { "physical": "#project:path#/lib" },
+              "/tests": { "physical": "#project:path#/tests" }
+            },
+            "customTags": [ { "physical": "#project:path#/tags" } ]
+          },
+          "environments": {
+            "prod": {
+              "port": 80,
+              "jvm": { "maxMemory": "2048m" },
+              "urlRewrite": { "enabled": true },
+              "configuration": { "debugging": { "enabled": false } }
+            }
+          }
+        }
+        """;
+
+    private Path projectDir;
+    private Path serverInstanceDir;
+    private LuceeServerConfig.ServerConfig base;
+    private JsonNode configuration;
+    private String serverXml;
+    private TomcatServerXmlPatcher patcher;
+
+    @Setup
+    public void setUp() throws IOException {
+        projectDir = Files.createTempDirectory("lucli-bench-project");
+        serverInstanceDir = Files.createTempDirectory("lucli-bench-instance");
+        Files.writeString(projectDir.resolve("lucee.json"), LUCEE_JSON);
+        base = LuceeServerConfig.loadConfig(projectDir);
+        configuration = new ObjectMapper().readTree(LUCEE_JSON).get("configuration");
+
+        try (InputStream in = LuceeServerConfig.class.getClassLoader()
+                .getResourceAsStream("tomcat_template/conf/server.xml")) {
+            if (in == null) {
+                throw new IOException("tomcat_template/conf/server.xml not on the classpath");
+            }
+            serverXml = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        patcher = new TomcatServerXmlPatcher();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path dir : new Path[] {projectDir, serverInstanceDir}) {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public LuceeServerConfig.ServerConfig applyEnvironment() {
+        return LuceeServerConfig.applyEnvironment(base, "prod", projectDir);
+    }
+
+    @Benchmark
+    public JsonNode resolveProjectPlaceholders() {
+        return LuceeServerConfig.resolveProjectPlaceholders(configuration, projectDir);
+    }
+
+    @Benchmark
+    public String patchServerXml() throws IOException {
+        // writeFiles=false keeps the patch side-effect free
+        return patcher.patchContent(serverXml, base, projectDir, serverInstanceDir, false);
+    }
+}
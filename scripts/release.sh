@@ -186,6 +186,14 @@ bump_version() {
     
     # Remove backup files
     find . -name "pom.xml.versionsBackup" -delete
+    sync_benchmarks_version
+}
+
+# The JMH module in benchmarks/ is a separate Maven project that benchmarks
+# the LuCLI version matching its own, so it has to move with the root pom.
+sync_benchmarks_version() {
+    local version=$(get_current_version)
+    mvn -q -f "$PROJECT_ROOT/benchmarks/pom.xml" versions:set -DnewVersion="$version" -DgenerateBackupPoms=false
 }
 
 prepare_release() {
@@ -206,12 +214,13 @@ prepare_release() {
     # Set release version
     mvn versions:set -DnewVersion="$release_version" -q
     find . -name "pom.xml.versionsBackup" -delete
+    sync_benchmarks_version
     
     log_success "Release version set to: $release_version"
     echo
     log_info "Next steps:"
     echo "1. Review the changes: git diff"
-    echo "2. Commit the version change: git add pom.xml && git commit -m 'Prepare release $release_version'"
+    echo "2. Commit the version change: git add pom.xml benchmarks/pom.xml && git commit -m 'Prepare release $release_version'"
     echo "3. Push to trigger release: git push"
     echo "4. After release, run: $0 next-snapshot"
 }
@@ -228,6 +237,7 @@ set_next_snapshot() {
     cd "$PROJECT_ROOT"
     mvn build-helper:parse-version versions:set -DnewVersion=\${parsedVersion.majorVersion}.\${parsedVersion.minorVersion}.\${parsedVersion.nextIncrementalVersion}-SNAPSHOT -q
     find . -name "pom.xml.versionsBackup" -delete
+    sync_benchmarks_version
     
     local new_version=$(get_current_version)
     log_success "Next development version set to: $new_version"
@@ -330,12 +340,12 @@ Typical Release Workflow:
     1. $0 bump patch               # or minor/major
     2. Make your changes and commit them
     3. $0 release                  # Remove SNAPSHOT suffix
-    4. git add pom.xml && git commit -m "Prepare release X.X.X"
+    4. git add pom.xml benchmarks/pom.xml && git commit -m "Prepare release X.X.X"
     5. git push                    # Optional: push tags/commits
     6. export JRELEASER_GITHUB_TOKEN=...   # Ensure GitHub token is set
     7. $0 jreleaser-release        # Run JReleaser full-release
     8. $0 next-snapshot           # Set next development version
-    9. git add pom.xml && git commit -m "Prepare for next development iteration"
+    9. git add pom.xml benchmarks/pom.xml && git commit -m "Prepare for next development iteration"
    10. git push
 
 Notes:
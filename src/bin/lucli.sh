@@ -122,6 +122,41 @@ case "$binary_name" in
     *.exe) binary_name=`echo "$binary_name" | sed 's/\.exe$//'` ;;
 esac
 
+##############################################################################
+##  APPCDS ARCHIVE                                                           ##
+##############################################################################
+
+# Use the class-data sharing archive from `lucli system cds` when one exists
+# for this exact binary (size + mtime) and JDK. The key must match
+# CdsArchiveManager.archiveFileName(). Set LUCLI_CDS=0 to disable.
+case "$LUCLI_CDS" in
+    0|false|off|no) ;;
+    *)
+        jar_size=`wc -c < "$this_script" 2>/dev/null | tr -d ' '`
+        jar_mtime=`stat -c %Y "$this_script" 2>/dev/null || stat -f %m "$this_script" 2>/dev/null`
+        cds_name=`echo "$jar_size-$jar_mtime-$java_version" | sed 's/[^A-Za-z0-9._-]/_/g'`
+        for cds_home in "$LUCLI_HOME" "$HOME/.$binary_name" "$HOME/.lucli"
+        do
+            if [ -n "$cds_home" ] && [ -f "$cds_home/cds/lucli-$cds_name.jsa" ]
+            then
+                java_args="$java_args -XX:SharedArchiveFile=$cds_home/cds/lucli-$cds_name.jsa -Xlog:cds=off -Xlog:cds+dynamic=off"
+                break
+            fi
+        done
+        ;;
+esac
+
+##############################################################################
+##  WARM DAEMON                                                              ##
+##############################################################################
+
+# One-shot CFML commands are served by a resident warm engine when available
+# (see `lucli daemon --warm`). Set LUCLI_WARM=0 to always boot in-process.
+case "$LUCLI_WARM" in
+    0|false|off|no) ;;
+    *) java_args="$java_args -Dlucli.warm=auto" ;;
+esac
+
 ##############################################################################
 ##  EXECUTION                                                                ##
 ##############################################################################
@@ -134,11 +134,11 @@ public class BuiltinVariableManager {
         variables.put(NAMED_ARGUMENTS, createNamedArgumentMap(scriptArgs));
         
         // Environment variables.
-        // For .lucli script execution, include dynamic values from LuCLI.scriptEnvironment
+        // For .lucli script execution, include dynamic values from LuCLI.getScriptEnvironment()
         // (e.g., set FOO=bar / source .env) layered over the process environment.
         Map<String, String> mergedEnv = new HashMap<>(System.getenv());
-        if (LuCLI.scriptEnvironment != null && !LuCLI.scriptEnvironment.isEmpty()) {
-            mergedEnv.putAll(LuCLI.scriptEnvironment);
+        if (LuCLI.getScriptEnvironment() != null && !LuCLI.getScriptEnvironment().isEmpty()) {
+            mergedEnv.putAll(LuCLI.getScriptEnvironment());
         }
         variables.put(ENV, mergedEnv);
         
@@ -0,0 +1,201 @@
+package org.lucee.lucli;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.lucee.lucli.paths.LucliFiles;
+import org.lucee.lucli.paths.LucliPaths;
+
+/**
+ * Content-addressed cache of transformed CFML sources for {@code lucli run}.
+ *
+ * Instead of handing Lucee a fresh string to {@code eval} on every run (which
+ * recompiles it), the transformed source is written once to
+ * {@code <lucli home>/cache/compiled/<sha256>.<ext>} and executed with
+ * {@code include} through the {@code /luclihome} mapping. Lucee then keeps the
+ * compiled class for that template in its own class cache, so unchanged
+ * scripts skip both the LuCLI transformation and bytecode generation.
+ *
+ * The key covers the source text, the Lucee version, and
+ * {@link #FORMAT_VERSION} plus the LuCLI version (wrapper templates ship in
+ * the JAR), so any of those changing produces a new entry.
+ *
+ * A cached copy runs from the cache directory, so anything that resolves
+ * against the calling template (relative {@code include}, {@code createObject},
+ * {@code new}, {@code expandPath}, file functions, {@code getCurrentTemplatePath})
+ * would see the cache directory instead of the script's own. Sources that
+ * use these directly are not cached; see {@link #isCacheable(String)}. That
+ * check only reads the source text, so error output does not rely on it:
+ * {@link #toSourcePaths} maps the cached template back to the script in
+ * messages and stack traces.
+ *
+ * Entries older than {@link #MAX_AGE} are pruned on each miss, and the oldest
+ * are dropped once more than {@link #MAX_ENTRIES} remain.
+ *
+ * Disable with {@code --no-compile-cache}, {@code LUCLI_COMPILE_CACHE=0}, or
+ * {@code -Dlucli.compile.cache=false}.
+ */
+public final class CompiledScriptCache {
+
+    public static final String ENABLE_ENV = "LUCLI_COMPILE_CACHE";
+    public static final String ENABLE_PROPERTY = "lucli.compile.cache";
+
+    public static final String HIT_COUNTER = "Compile Cache Hit";
+    public static final String MISS_COUNTER = "Compile Cache Miss";
+
+    /** Bump when the way sources are transformed or included changes. */
+    static final int FORMAT_VERSION = 1;
+
+    static final int MAX_ENTRIES = 500;
+    static final Duration MAX_AGE = Duration.ofDays(30);
+
+    /**
+     * Functions and tags whose result depends on the calling template's
+     * location. Deliberately broad: a false match only costs a recompile.
+     */
+    private static final Pattern LOCATION_SENSITIVE = Pattern.compile(
+        "\\b(?:cf)?(?:include|module|import|invoke|file|directory)\\b"
+            + "|\\bcreateObject\\b|\\bnew\\s+[\\w.$]+\\s*\\("
+            + "|\\b(?:getCurrentTemplatePath|getBaseTemplatePath|expandPath|contractPath|file\\w+|directory\\w+)\\s*\\(",
+        Pattern.CASE_INSENSITIVE);
+
+    /** Mapping defined in initializeEngine.cfs that points at the LuCLI home. */
+    private static final String HOME_MAPPING = "/luclihome";
+
+    private final Path home;
+    private final Path cacheDir;
+
+    public CompiledScriptCache(LucliPaths.ResolvedPaths paths) {
+        this.home = paths.home();
+        this.cacheDir = paths.compileCacheDir();
+    }
+
+    /**
+     * True unless disabled by the CLI flag, environment, or system property.
+     */
+    public static boolean isEnabled() {
+        return LuCLI.compileCache
+            && !isDisabledValue(System.getenv(ENABLE_ENV))
+            && !isDisabledValue(System.getProperty(ENABLE_PROPERTY));
+    }
+
+    static boolean isDisabledValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        return v.equals("0") || v.equals("false") || v.equals("off") || v.equals("no");
+    }
+
+    /**
+     * True when running the source from the cache directory behaves the same
+     * as evaluating it directly, i.e. it does not resolve anything relative to
+     * its own template path.
+     */
+    public static boolean isCacheable(String source) {
+        return !LOCATION_SENSITIVE.matcher(source).find();
+    }
+
+    /**
+     * Cache key for a source/extension pair under the given Lucee version.
+     */
+    static String key(String source, String extension, String luceeVersion) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("v" + FORMAT_VERSION + "\n" + LuCLI.getVersion() + "\n" + luceeVersion + "\n" + extension + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Return the mapped template path (e.g. {@code /luclihome/cache/compiled/ab12….cfs})
+     * for the given source, writing the file on a miss.
+     *
+     * @param extension {@code cfs} or {@code cfm}
+     */
+    public String templateFor(String source, String extension, String luceeVersion) throws IOException {
+        Path file = cacheDir.resolve(key(source, extension, luceeVersion) + "." + extension);
+        if (Files.isRegularFile(file)) {
+            Timer.increment(HIT_COUNTER);
+        } else {
+            Timer.increment(MISS_COUNTER);
+            write(file, source);
+            prune(file);
+        }
+        return HOME_MAPPING + "/" + home.relativize(file).toString().replace('\\', '/');
+    }
+
+    /**
+     * Replace references to a cached {@code template} in error output (its
+     * mapped path, its physical path, and its bare file name) with the path
+     * of the script it was cached from.
+     */
+    public String toSourcePaths(String text, String template, String sourcePath) {
+        if (text == null || template == null || !template.startsWith(HOME_MAPPING + "/")) {
+            return text;
+        }
+        Path file = home.resolve(template.substring(HOME_MAPPING.length() + 1));
+        return text.replace(file.toString(), sourcePath)
+            .replace(file.toString().replace('\\', '/'), sourcePath)
+            .replace(template, sourcePath)
+            .replace(file.getFileName().toString(), sourcePath);
+    }
+
+    private void write(Path file, String source) throws IOException {
+        // Entries are content-addressed, so a concurrent run writing the same
+        // one replaces it with identical bytes.
+        LucliFiles.writeAtomically(file, temp -> Files.writeString(temp, source, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Drop entries older than {@link #MAX_AGE}, then the oldest beyond
+     * {@link #MAX_ENTRIES}. Age is the write time: entries are never touched on
+     * a hit, because Lucee would treat a newer mtime as a changed template.
+     */
+    void prune(Path keep) {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            entries = files.filter(file -> !file.equals(keep) && !file.getFileName().toString().endsWith(".tmp")).toList();
+        } catch (IOException e) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - MAX_AGE.toMillis();
+        List<Map.Entry<Path, Long>> byAge = new ArrayList<>();
+        for (Path file : entries) {
+            try {
+                byAge.add(Map.entry(file, Files.getLastModifiedTime(file).toMillis()));
+            } catch (IOException ignored) {
+                // Removed concurrently.
+            }
+        }
+        byAge.sort(Map.Entry.comparingByValue());
+        int excess = byAge.size() + 1 - MAX_ENTRIES;
+        for (Map.Entry<Path, Long> entry : byAge) {
+            if (excess <= 0 && entry.getValue() >= cutoff) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.getKey());
+            } catch (IOException ignored) {
+                // Best effort; the next miss tries again.
+            }
+            excess--;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package org.lucee.lucli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.lucee.lucli.cli.EngineFree;
+import org.lucee.lucli.cli.commands.BenchCommand;
+import org.lucee.lucli.daemon.ThreadOutputRouter;
+import org.lucee.lucli.paths.LucliPaths;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.ParseResult;
+
+/**
+ * Starts the Lucee engine on a virtual thread while picocli parses the
+ * command line, so CFML commands find it (partly) booted when they first call
+ * {@link LuceeScriptEngine#getInstance()}.
+ *
+ * The boot is skipped when the raw arguments already name a command marked
+ * {@link EngineFree}, and abandoned once picocli resolves such a command.
+ * Lucee's boot cannot be interrupted safely, so an abandoned boot that has
+ * already begun keeps running on its daemon thread and is discarded at exit.
+ *
+ * The first boot of a LuCLI home extracts and writes the Lucee server
+ * context, which must not be cut short by a quick command's
+ * {@code System.exit}. Speculation is therefore skipped until that context
+ * exists. Later boots still rewrite the context config while running the
+ * initialisation script; the boot marks that step with
+ * {@link #beginContextWrite()} / {@link #endContextWrite()}. A cancelled
+ * boot, or one running when the JVM starts to exit, never enters it, and the
+ * shutdown hook only waits (for at most {@link #EXIT_WAIT}) for a write that
+ * is already in progress. A command that never asked for the engine
+ * therefore exits without waiting for the rest of the boot.
+ *
+ * Root flags that the engine bakes in at boot ({@code --verbose},
+ * {@code --debug}, {@code --whitespace}) disable speculation so the engine is
+ * configured exactly as it would be when booted on demand.
+ *
+ * Disable with {@code LUCLI_SPECULATIVE_BOOT=0} or
+ * {@code -Dlucli.speculative.boot=false}.
+ */
+public final class EngineBootstrap {
+
+    public static final String ENABLE_ENV = "LUCLI_SPECULATIVE_BOOT";
+    public static final String ENABLE_PROPERTY = "lucli.speculative.boot";
+
+    private static final AtomicBoolean started = new AtomicBoolean(false);
+    private static final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private static final CompletableFuture<Void> boot = new CompletableFuture<>();
+    private static volatile Thread bootThread;
+
+    private static final Object contextWrite = new Object();
+    private static boolean writingContext;
+    private static boolean exiting;
+
+    /** Upper bound on how long exit waits for an in-flight boot. */
+    static final Duration EXIT_WAIT = Duration.ofSeconds(60);
+
+    private EngineBootstrap() {
+    }
+
+    /**
+     * Begin booting the engine in the background unless the arguments show
+     * it will not be needed. Only the first call per JVM has any effect.
+     */
+    public static void startSpeculative(String[] args) {
+        if (!isEnabled() || LuceeScriptEngine.isInitialized() || !shouldSpeculate(args)
+                || !isLuceeContextInitialized(LucliPaths.resolve().home())) {
+            return;
+        }
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        // Timing is normally switched on after parsing; enable it first so the
+        // boot's own timers are not started disabled and stopped enabled.
+        if (requestsTiming(args)) {
+            Timer.setTraceFile(requestedTraceFile(args));
+            Timer.setEnabled(true);
+        }
+
+        // Lucee keeps the streams it finds at boot, so a command that silences
+        // output per thread needs the router in place before the boot starts.
+        if (routesOutput(args)) {
+            ThreadOutputRouter.install();
+        }
+
+        bootThread = Thread.ofVirtual().name("lucli-engine-boot").start(() -> {
+            try {
+                if (!cancelled.get()) {
+                    Timer.start("Speculative Engine Boot");
+                    LuceeScriptEngine.getInstance();
+                    Timer.stop("Speculative Engine Boot");
+                }
+                boot.complete(null);
+            } catch (Throwable t) {
+                boot.completeExceptionally(t);
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(EngineBootstrap::awaitBootBeforeExit, "lucli-engine-boot-exit"));
+    }
+
+    /**
+     * Shutdown hook: a command that did not need the engine may exit while the
+     * boot is writing to the Lucee server context; let that write finish
+     * first. Any other part of the boot is simply discarded.
+     */
+    static void awaitBootBeforeExit() {
+        long deadline = System.nanoTime() + EXIT_WAIT.toNanos();
+        synchronized (contextWrite) {
+            exiting = true;
+            try {
+                while (writingContext) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(contextWrite, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Called by the engine before it rewrites the Lucee server context. On
+     * the speculative boot thread this refuses (with a
+     * {@link CancellationException}) once the boot is cancelled or the JVM is
+     * exiting; otherwise it marks the write so exit waits for it. A no-op on
+     * any other thread.
+     */
+    static void beginContextWrite() {
+        if (Thread.currentThread() != bootThread) {
+            return;
+        }
+        synchronized (contextWrite) {
+            if (cancelled.get() || exiting) {
+                throw new CancellationException("Speculative engine boot abandoned");
+            }
+            writingContext = true;
+        }
+    }
+
+    static void endContextWrite() {
+        if (Thread.currentThread() != bootThread) {
+            return;
+        }
+        synchronized (contextWrite) {
+            writingContext = false;
+            contextWrite.notifyAll();
+        }
+    }
+
+    /**
+     * True once a previous boot has written the Lucee server context under
+     * {@code <lucli home>/lucee-server}. Before that, the first boot extracts
+     * and writes the whole context and is left to run on demand.
+     */
+    static boolean isLuceeContextInitialized(Path lucliHome) {
+        Path serverDir = lucliHome.resolve("lucee-server");
+        return Files.isRegularFile(serverDir.resolve("lucee-server").resolve("context").resolve(".CFConfig.json"))
+            || Files.isRegularFile(serverDir.resolve("context").resolve(".CFConfig.json"));
+    }
+
+    /**
+     * Abandon the speculative boot when the resolved command (or a parent)
+     * is {@link EngineFree}, or is picocli's {@code help}.
+     */
+    public static void onCommandResolved(ParseResult parseResult) {
+        if (!started.get() || parseResult == null) {
+            return;
+        }
+        ParseResult leaf = parseResult;
+        while (leaf.hasSubcommand()) {
+            leaf = leaf.subcommand();
+        }
+        for (CommandSpec spec = leaf.commandSpec(); spec != null; spec = spec.parent()) {
+            Object userObject = spec.userObject();
+            if (userObject instanceof CommandLine.HelpCommand
+                    || userObject != null && userObject.getClass().isAnnotationPresent(EngineFree.class)) {
+                cancel();
+                return;
+            }
+        }
+    }
+
+    public static void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Block until a speculative boot in flight has finished. Returns
+     * immediately when none was started, or when called from the boot thread
+     * itself. Boot failures are ignored here; the caller's own
+     * {@code getInstance()} surfaces them.
+     */
+    static void awaitSpeculativeBoot() {
+        if (!started.get() || boot.isDone() || Thread.currentThread() == bootThread) {
+            return;
+        }
+        Timer.start("Engine Boot Wait");
+        try {
+            boot.join();
+        } catch (Exception e) {
+            // Fall through to an on-demand boot.
+        } finally {
+            Timer.stop("Engine Boot Wait");
+        }
+    }
+
+    static boolean isEnabled() {
+        return !isDisabledValue(System.getenv(ENABLE_ENV))
+            && !isDisabledValue(System.getProperty(ENABLE_PROPERTY));
+    }
+
+    private static boolean isDisabledValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        return v.equals("0") || v.equals("false") || v.equals("off") || v.equals("no");
+    }
+
+    /**
+     * Decide from the raw arguments whether booting ahead is worthwhile.
+     * Errs towards speculating: anything not recognised as engine-free boots.
+     */
+    static boolean shouldSpeculate(String[] args) {
+        if (args == null) {
+            return true;
+        }
+        for (String arg : args) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (isRootFlag(arg, "verbose", 'v') || isRootFlag(arg, "debug", 'd') || isRootFlag(arg, "whitespace", 'w')) {
+                return false;
+            }
+            if ("-h".equals(arg) || "--help".equals(arg)
+                    || "--version-short".equals(arg) || "--build-info".equals(arg)) {
+                return false;
+            }
+        }
+        return !isEngineFreeCommand(args);
+    }
+
+    static boolean requestsTiming(String[] args) {
+        if (args == null) {
+            return false;
+        }
+        for (String arg : args) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (isRootFlag(arg, "timing", 't') || arg.startsWith("--timing=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether the command is {@code bench}, which captures each iteration's output. */
+    static boolean routesOutput(String[] args) {
+        for (String arg : args) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (!arg.startsWith("-")) {
+                return findSubcommand(LuCLI.class, arg) == BenchCommand.class;
+            }
+        }
+        return false;
+    }
+
+    /** The file of {@code --timing=<file>}, so a JFR recording starts before the boot. */
+    static String requestedTraceFile(String[] args) {
+        for (String arg : args) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (arg.startsWith("--timing=")) {
+                return arg.substring("--timing=".length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Match {@code --<name>} or a short option cluster containing
+     * {@code shortName} (e.g. {@code -vt}). Over-matching only costs the
+     * head start, never correctness.
+     */
+    private static boolean isRootFlag(String arg, String longName, char shortName) {
+        if (arg.equals("--" + longName)) {
+            return true;
+        }
+        return arg.length() > 1 && arg.charAt(0) == '-' && arg.charAt(1) != '-'
+            && arg.substring(1).chars().allMatch(Character::isLetter)
+            && arg.indexOf(shortName) > 0;
+    }
+
+    /**
+     * Walk the {@code @Command(subcommands=...)} declarations from the root
+     * along the positional arguments and report whether any matched command
+     * is {@link EngineFree}, or is the root {@code help} command. Uses
+     * annotations only, so it costs far less than building the picocli model.
+     */
+    static boolean isEngineFreeCommand(String[] args) {
+        Class<?> current = LuCLI.class;
+        for (String arg : args) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            if (current == LuCLI.class && "help".equals(arg)) {
+                return true;
+            }
+            Class<?> sub = findSubcommand(current, arg);
+            if (sub == null) {
+                return false;
+            }
+            if (sub.isAnnotationPresent(EngineFree.class)) {
+                return true;
+            }
+            current = sub;
+        }
+        return false;
+    }
+
+    private static Class<?> findSubcommand(Class<?> parent, String name) {
+        Command command = parent.getAnnotation(Command.class);
+        if (command == null) {
+            return null;
+        }
+        for (Class<?> sub : command.subcommands()) {
+            Command subCommand = sub.getAnnotation(Command.class);
+            if (subCommand == null) {
+                continue;
+            }
+            if (name.equals(subCommand.name())) {
+                return sub;
+            }
+            for (String alias : subCommand.aliases()) {
+                if (name.equals(alias)) {
+                    return sub;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -168,8 +168,8 @@ public class ExternalCommandProcessor {
             ProcessBuilder pb = new ProcessBuilder(normalizedCommandParts);
             pb.directory(fileSystemProcessor.getFileSystemState().getCurrentWorkingDirectory().toFile());
             pb.redirectErrorStream(true); // Merge stderr with stdout
-            if (LuCLI.scriptEnvironment != null && !LuCLI.scriptEnvironment.isEmpty()) {
-                pb.environment().putAll(LuCLI.scriptEnvironment);
+            if (LuCLI.getScriptEnvironment() != null && !LuCLI.getScriptEnvironment().isEmpty()) {
+                pb.environment().putAll(LuCLI.getScriptEnvironment());
             }
             
             Process process = pb.start();
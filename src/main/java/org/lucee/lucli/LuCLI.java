@@ -14,13 +14,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.Stack;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.lucee.lucli.cli.LuCLIVersionProvider;
 import org.lucee.lucli.profile.CliProfile;
 import org.lucee.lucli.profile.DefaultProfile;
+import org.lucee.lucli.cli.commands.BenchCommand;
 import org.lucee.lucli.cli.commands.CfmlCommand;
 import org.lucee.lucli.cli.commands.CompletionCommand;
 import org.lucee.lucli.cli.commands.DaemonCommand;
@@ -39,6 +42,7 @@ import org.lucee.lucli.cli.commands.deps.DepsCommand;
 import org.lucee.lucli.cli.commands.deps.InstallCommand;
 import org.lucee.lucli.cli.commands.logic.IfCommand;
 import org.lucee.lucli.cli.commands.logic.XSetCommand;
+import org.lucee.lucli.daemon.WarmDaemonClient;
 import org.lucee.lucli.modules.ModuleCommand;
 import org.lucee.lucli.modules.BundledModuleInstaller;
 import org.lucee.lucli.script.LucliScriptPreprocessor;
@@ -48,6 +52,8 @@ import org.lucee.lucli.secrets.SecretStoreException;
 
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.IParameterPreprocessor;
+import picocli.CommandLine.Model.ArgSpec;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -76,6 +82,7 @@ import picocli.CommandLine.Spec;
         SystemCommand.class,
         CommandLine.HelpCommand.class,
         RunCommand.class,
+        BenchCommand.class,
         DaemonCommand.class,
         McpCommand.class,
         AiCommand.class,
@@ -97,6 +104,7 @@ import picocli.CommandLine.Spec;
         "  lucli --version-long            # Show version details including build metadata",
         "  lucli --build-info              # Show build metadata only",
         "  lucli --timing script.cfs       # Execute script with timing analysis",
+        "  lucli --timing=trace.json a.cfs # Also write a Chrome trace (.jfr for JFR)",
         "  lucli script.cfs arg1 arg2      # Execute CFML script with arguments",
         "  lucli myscript.lucli            # Execute a LuCLI command script",
         "  lucli cfml 'now()'              # Execute CFML expression",
@@ -123,14 +131,20 @@ public class LuCLI implements Callable<Integer> {
             description = "Enable debug output") 
     private boolean debugOption = false;
 
-    @Option(names = {"-t", "--timing"}, 
-            description = "Enable timing output for performance analysis")
-    private boolean timingOption = false;
+    @Option(names = {"-t", "--timing"}, arity = "0..1", paramLabel = "<file>",
+            preprocessor = TimingFileOption.class,
+            description = "Enable timing output for performance analysis; with =<file>, also write a "
+                + "Chrome trace (.json) or JFR recording (.jfr)")
+    private String timingOption = null;
 
     @Option(names = {"-w", "--whitespace"}, 
             description = "Preserve whitespace in script output")
     private boolean preserveWhitespaceOption = false;
 
+    @Option(names = {"--no-compile-cache"},
+            description = "Do not reuse cached compiled CFML for scripts (also LUCLI_COMPILE_CACHE=0)")
+    private boolean noCompileCacheOption = false;
+
     @Option(names = {"-h", "--help"},
             usageHelp = true,
             description = "Show this help message and exit")
@@ -200,13 +214,17 @@ public class LuCLI implements Callable<Integer> {
     public static boolean debug = false;
     public static boolean timing = false;
     public static boolean preserveWhitespace = false;
+    public static boolean compileCache = true;
     public static String currentEnvironment = null;
     public static String envFilePath = null;
     private static boolean lucliScript = false;
     private static volatile Path runtimeCwd = null;
+    private static final ThreadLocal<Path> threadRuntimeCwd = new ThreadLocal<>();
     private static CliProfile activeProfile = new DefaultProfile();
 
-    public static Map<String, String> scriptEnvironment = new HashMap<>(System.getenv());
+    /** Shared script environment; read it through {@link #getScriptEnvironment()}. */
+    public static Map<String, String> scriptEnvironment = new ConcurrentHashMap<>(System.getenv());
+    private static final ThreadLocal<Map<String, String>> threadScriptEnvironment = new ThreadLocal<>();
 
     /**
      * The active CLI profile, determined by the binary name at startup.
@@ -268,10 +286,11 @@ public class LuCLI implements Callable<Integer> {
         // Set global flags for backward compatibility
         LuCLI.verbose = verboseOption;
         LuCLI.debug = debugOption;
-        LuCLI.timing = timingOption;
+        LuCLI.timing = isTiming();
         LuCLI.preserveWhitespace = preserveWhitespaceOption;
 
         // Initialize timing if requested
+        Timer.setTraceFile(getTimingFile());
         Timer.setEnabled(timing);
         Timer.start("Total Execution");
 
@@ -459,12 +478,21 @@ public class LuCLI implements Callable<Integer> {
     }
     
     public boolean isTiming() {
-        return timingOption;
+        return timingOption != null;
+    }
+
+    /** File given with {@code --timing=<file>}, or null. */
+    public String getTimingFile() {
+        return timingOption == null || timingOption.isEmpty() ? null : timingOption;
     }
     
     public boolean isPreserveWhitespace() {
         return preserveWhitespaceOption;
     }
+
+    public boolean isNoCompileCache() {
+        return noCompileCacheOption;
+    }
     
     public String getEnvOption() {
         return envOption;
@@ -520,10 +548,50 @@ public class LuCLI implements Callable<Integer> {
         runtimeCwd = null;
     }
 
+    /**
+     * Set (or clear with null) a runtime CWD for the current thread only.
+     * Takes precedence over {@link #setRuntimeCwd(Path)}; used by pooled
+     * engine leases so concurrent executions each see their own directory.
+     */
+    public static void setThreadRuntimeCwd(Path cwd) {
+        if (cwd == null) {
+            threadRuntimeCwd.remove();
+            return;
+        }
+        threadRuntimeCwd.set(cwd.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Variables visible to scripts ({@code __env}, {@code ${NAME}} in .lucli
+     * scripts, external commands). Daemon requests each see their own copy
+     * (see {@link #setThreadScriptEnvironment(Map)}), so a {@code set} in one
+     * request never leaks into another running at the same time.
+     */
+    public static Map<String, String> getScriptEnvironment() {
+        Map<String, String> threadEnv = threadScriptEnvironment.get();
+        return threadEnv != null ? threadEnv : scriptEnvironment;
+    }
+
+    /**
+     * Give the current thread its own copy of {@code env} as script
+     * environment, or clear it with null to fall back to the shared one.
+     */
+    public static void setThreadScriptEnvironment(Map<String, String> env) {
+        if (env == null) {
+            threadScriptEnvironment.remove();
+            return;
+        }
+        threadScriptEnvironment.set(new ConcurrentHashMap<>(env));
+    }
+
     /**
      * Resolve effective runtime CWD, falling back to JVM user.dir.
      */
     public static Path getEffectiveRuntimeCwd() {
+        Path threadCwd = threadRuntimeCwd.get();
+        if (threadCwd != null) {
+            return threadCwd;
+        }
         Path cwd = runtimeCwd;
         if (cwd != null) {
             return cwd;
@@ -554,6 +622,13 @@ public class LuCLI implements Callable<Integer> {
             System.getProperty("lucli.binary.name", "lucli")
         );
 
+        // One-shot CFML commands can be served by a resident warm engine,
+        // skipping the Lucee/OSGi boot. Falls back to in-process execution.
+        Integer warmExitCode = WarmDaemonClient.tryExecute(args);
+        if (warmExitCode != null) {
+            System.exit(warmExitCode);
+        }
+
         int exitCode = executeInProcess(args);
         System.exit(exitCode);
     }
@@ -593,6 +668,10 @@ public class LuCLI implements Callable<Integer> {
         // `--version=<tag>` a module wants (e.g. `wheels deploy --version=v1`).
         args = preprocessModuleVersion(args);
 
+        // Overlap the Lucee boot with building the picocli model and parsing;
+        // skipped for commands marked @EngineFree.
+        EngineBootstrap.startSpeculative(args);
+
         // Create Picocli CommandLine with our main command
         CommandLine cmd = new CommandLine(new LuCLI());
         cmd.setExpandAtFiles(false);
@@ -618,6 +697,7 @@ public class LuCLI implements Callable<Integer> {
         
         // Print timing results if enabled
         Timer.printResults();
+        Timer.exportTrace();
         
         return exitCode;
     }
@@ -1025,7 +1105,7 @@ public class LuCLI implements Callable<Integer> {
 
     /**
      * Load a .env-style file and inject all variables into
-     * {@link #scriptEnvironment} and {@link StringOutput} placeholders.
+     * {@link #getScriptEnvironment()} and {@link StringOutput} placeholders.
      *
      * @param filePath  Path to the env file (absolute or relative)
      * @param resolveDir If non-null and filePath is relative, resolve against this directory;
@@ -1050,7 +1130,7 @@ public class LuCLI implements Callable<Integer> {
             Map<String, String> vars = loadEnvFileToMap(resolved);
             StringOutput stringOutput = StringOutput.getInstance();
             for (Map.Entry<String, String> entry : vars.entrySet()) {
-                scriptEnvironment.put(entry.getKey(), entry.getValue());
+                getScriptEnvironment().put(entry.getKey(), entry.getValue());
                 stringOutput.addPlaceholder(entry.getKey(), entry.getValue());
             }
             verbose("Loaded " + vars.size() + " variable(s) from " + resolved);
@@ -1082,7 +1162,7 @@ public class LuCLI implements Callable<Integer> {
 
             // Also keep the most recent result available in scriptEnvironment
             // so it can be referenced as ${_} from .lucli scripts.
-            scriptEnvironment.put("_", trimmed);
+            getScriptEnvironment().put("_", trimmed);
         }
     }
 
@@ -1342,7 +1422,7 @@ public class LuCLI implements Callable<Integer> {
             verbose("Executing with environment: " + env);
             // Expose the resolved execution environment to script consumers
             // through the mutable script environment map used by __env.
-            scriptEnvironment.put("LUCLI_ENV", env);
+            getScriptEnvironment().put("LUCLI_ENV", env);
         }
 
         // Pre-load --envfile if specified (covers the RunCommand path)
@@ -1399,7 +1479,7 @@ public class LuCLI implements Callable<Integer> {
         // Make the latest history entry available as ${_} before script lines run
         if (!lucliResultHistory.isEmpty()) {
             String last = lucliResultHistory.get(0);
-            scriptEnvironment.put("_", last);
+            getScriptEnvironment().put("_", last);
         }
 
         for (String line : lines) {
@@ -1502,7 +1582,7 @@ public class LuCLI implements Callable<Integer> {
 
                         debug("SET directive: " + key + " = " + resolvedValue);
 
-                        scriptEnvironment.put(key, resolvedValue);
+                        getScriptEnvironment().put(key, resolvedValue);
                         stringOutput.addPlaceholder(key, resolvedValue);
                     } catch (Exception e) {
                         StringOutput.Quick.error("Error processing SET value for '" + key + "': " + e.getMessage());
@@ -1899,7 +1979,7 @@ public class LuCLI implements Callable<Integer> {
 
         debug("LuCLIScript", "Captured output for variable '" + varName + "': " + captured);
 
-        scriptEnvironment.put(varName, captured);
+        getScriptEnvironment().put(varName, captured);
         stringOutput.addPlaceholder(varName, captured);
 
         // Also update the generic result history so ${_} and last(n)
@@ -2116,12 +2196,19 @@ public class LuCLI implements Callable<Integer> {
         }
     }
 
-
-
-
-
-
-
-
-
+    /**
+     * Lets {@code --timing} take an optional file, but only attached
+     * ({@code --timing=trace.json}), so {@code lucli --timing script.cfs}
+     * still runs the script.
+     */
+    static final class TimingFileOption implements IParameterPreprocessor {
+        @Override
+        public boolean preprocess(Stack<String> args, CommandSpec commandSpec, ArgSpec argSpec, Map<String, Object> info) {
+            if ("=".equals(info.get("separator"))) {
+                return false;
+            }
+            argSpec.setValue("");
+            return true;
+        }
+    }
 }
@@ -0,0 +1,300 @@
+package org.lucee.lucli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.lucee.lucli.metrics.MetricsRegistry;
+
+/**
+ * Fixed-size pool of independent {@link LuceeScriptEngine}s for running CFML
+ * concurrently.
+ *
+ * The singleton returned by {@link LuceeScriptEngine#getInstance()} has one
+ * ScriptEngine whose ENGINE_SCOPE bindings are replaced wholesale on every
+ * execution, so two threads using it would overwrite each other's variables.
+ * Each pooled engine has its own ScriptEngine/PageContext and bindings; a
+ * caller checks one out with {@link #acquire()}, uses it from a single thread,
+ * and returns it by closing the {@link Lease}:
+ *
+ * <pre>
+ * try (LuceeEnginePool.Lease lease = pool.acquire()) {
+ *     lease.setCwd(projectDir);
+ *     lease.engine().executeScript(file, args);
+ * }
+ * </pre>
+ *
+ * A lease can also be bound to its thread so that existing code calling
+ * {@link LuceeScriptEngine#getInstance()} (commands, modules) runs on the
+ * leased engine instead of the singleton.
+ *
+ * Engines are created on first demand, up to the pool size, and reset to
+ * their post-initialization bindings when returned; an engine whose lease
+ * was discarded is dropped and replaced on a later checkout. The Lucee
+ * runtime itself (OSGi, server context, compiled classes) is shared by all
+ * of them.
+ *
+ * Size defaults to the number of available processors and can be set with
+ * {@code LUCLI_ENGINE_POOL_SIZE} or {@code -Dlucli.engine.pool.size}.
+ *
+ * Checkout waits and engine creation times are recorded in the shared
+ * {@link MetricsRegistry}; the shared pool also publishes its size, created
+ * and in-use counts there as gauges (see {@link #publishGauges}).
+ */
+public final class LuceeEnginePool {
+
+    public static final String SIZE_ENV = "LUCLI_ENGINE_POOL_SIZE";
+    public static final String SIZE_PROPERTY = "lucli.engine.pool.size";
+
+    private static volatile LuceeEnginePool shared;
+    private static final ThreadLocal<Lease> threadLease = new ThreadLocal<>();
+
+    private final int size;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<LuceeScriptEngine> idle = new ConcurrentLinkedDeque<>();
+    private final List<LuceeScriptEngine> all = new ArrayList<>();
+    private final MetricsRegistry.Series checkoutWait = MetricsRegistry.getShared().series("lucli_engine_checkout_wait");
+    private final MetricsRegistry.Series engineCreate = MetricsRegistry.getShared().series("lucli_engine_create");
+
+    public LuceeEnginePool(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Engine pool size must be at least 1: " + size);
+        }
+        this.size = size;
+        this.permits = new Semaphore(size, true);
+    }
+
+    /**
+     * Process-wide pool sized from {@link #configuredSize()}.
+     */
+    public static LuceeEnginePool getShared() {
+        if (shared == null) {
+            synchronized (LuceeEnginePool.class) {
+                if (shared == null) {
+                    LuceeEnginePool pool = new LuceeEnginePool(configuredSize());
+                    pool.publishGauges(MetricsRegistry.getShared());
+                    shared = pool;
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Pool size from {@code -Dlucli.engine.pool.size}, then
+     * {@code LUCLI_ENGINE_POOL_SIZE}, then the processor count.
+     */
+    public static int configuredSize() {
+        Integer size = parseSize(System.getProperty(SIZE_PROPERTY));
+        if (size == null) {
+            size = parseSize(System.getenv(SIZE_ENV));
+        }
+        return size != null ? size : Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+
+    static Integer parseSize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            return parsed >= 1 ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Engines created so far (at most {@link #size()}). */
+    public int created() {
+        synchronized (all) {
+            return all.size();
+        }
+    }
+
+    /** Leases currently checked out. */
+    public int inUse() {
+        return size - permits.availablePermits();
+    }
+
+    /**
+     * Report this pool's size, created and in-use counts as gauges. Only one
+     * pool per process should do so; a later call replaces the gauges.
+     */
+    public void publishGauges(MetricsRegistry metrics) {
+        metrics.gauge("lucli_engine_pool_size", this::size);
+        metrics.gauge("lucli_engine_pool_created", this::created);
+        metrics.gauge("lucli_engine_pool_in_use", this::inUse);
+    }
+
+    /**
+     * Check out an engine, waiting as long as necessary for one to be returned.
+     */
+    public Lease acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        permits.acquire();
+        checkoutWait.record(System.nanoTime() - start);
+        return new Lease();
+    }
+
+    /**
+     * Check out an engine, waiting at most {@code timeout}.
+     *
+     * @throws TimeoutException if no engine became available in time
+     */
+    public Lease acquire(Duration timeout) throws InterruptedException, TimeoutException {
+        long start = System.nanoTime();
+        boolean acquired = permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        checkoutWait.record(System.nanoTime() - start);
+        if (!acquired) {
+            throw new TimeoutException("No CFML engine available within " + timeout.toMillis() + "ms (pool size " + size + ")");
+        }
+        return new Lease();
+    }
+
+    /**
+     * Engine of the lease bound to the current thread with
+     * {@link Lease#bindToCurrentThread()}, or null when there is none.
+     * {@link LuceeScriptEngine#getInstance()} consults this first, so code
+     * running under a bound lease uses the pooled engine transparently.
+     */
+    static LuceeScriptEngine currentThreadEngine() throws IOException {
+        Lease lease = threadLease.get();
+        return lease != null ? lease.engine() : null;
+    }
+
+    private LuceeScriptEngine checkout() throws IOException {
+        LuceeScriptEngine engine = idle.pollFirst();
+        if (engine == null) {
+            long start = engineCreate.begin();
+            boolean created = false;
+            try {
+                Timer.start("Engine Pool Create");
+                engine = LuceeScriptEngine.createIsolated();
+                created = true;
+            } finally {
+                Timer.stop("Engine Pool Create");
+                engineCreate.end(start, !created);
+            }
+            synchronized (all) {
+                all.add(engine);
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Drop an engine whose state can no longer be trusted and free its slot;
+     * the next checkout that finds no idle engine creates a fresh one.
+     */
+    private void forget(LuceeScriptEngine engine) {
+        try {
+            if (engine != null) {
+                synchronized (all) {
+                    all.remove(engine);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void giveBack(LuceeScriptEngine engine) {
+        try {
+            if (engine != null) {
+                engine.resetBindings();
+            }
+        } finally {
+            if (engine != null) {
+                // Most recently used first: its classes and caches are warmest.
+                idle.offerFirst(engine);
+            }
+            permits.release();
+        }
+    }
+
+    /**
+     * Exclusive use of one pooled engine. The engine itself is only taken
+     * (or created) on the first call to {@link #engine()}, so a lease held by
+     * work that never runs CFML costs a permit but no engine. Not
+     * thread-safe: use it from the thread that acquired it, and close it on
+     * that thread.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private LuceeScriptEngine engine;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private boolean cwdSet;
+        private boolean bound;
+        private boolean discard;
+
+        private Lease() {
+        }
+
+        public LuceeScriptEngine engine() throws IOException {
+            if (closed.get()) {
+                throw new IllegalStateException("Engine lease already returned");
+            }
+            if (engine == null) {
+                engine = checkout();
+            }
+            return engine;
+        }
+
+        /**
+         * Run this lease's executions with {@code cwd} as the runtime working
+         * directory (current thread only), without touching the process-wide
+         * value other callers see.
+         */
+        public void setCwd(Path cwd) {
+            LuCLI.setThreadRuntimeCwd(cwd);
+            cwdSet = true;
+        }
+
+        /**
+         * Make {@link LuceeScriptEngine#getInstance()} return this lease's
+         * engine on the current thread until the lease is closed.
+         */
+        public void bindToCurrentThread() {
+            threadLease.set(this);
+            bound = true;
+        }
+
+        /**
+         * Replace this lease's engine instead of returning it to the pool when
+         * the lease is closed. Use it after interrupting CFML mid-execution,
+         * which can leave the engine's PageContext in an unknown state.
+         */
+        public void discard() {
+            discard = true;
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (cwdSet) {
+                LuCLI.setThreadRuntimeCwd(null);
+            }
+            if (bound && threadLease.get() == this) {
+                threadLease.remove();
+            }
+            if (discard) {
+                forget(engine);
+            } else {
+                giveBack(engine);
+            }
+        }
+    }
+}
@@ -2,15 +2,22 @@ package org.lucee.lucli;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.script.Bindings;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
@@ -20,8 +27,10 @@ import org.lucee.lucli.modules.ModuleConfig;
 import org.lucee.lucli.modules.ModuleRuntimeConfigResolver;
 import org.lucee.lucli.secrets.LucliSecretProviderSupport;
 
+import lucee.loader.engine.CFMLEngineFactory;
 import lucee.runtime.script.LuceeScriptEngineFactory;
 import lucee.runtime.type.Array;
+import lucee.runtime.type.Struct;
 
 /**
  * Singleton ScriptEngine wrapper for Lucee CFML that handles all script execution responsibilities.
@@ -38,7 +47,7 @@ import lucee.runtime.type.Array;
 public class LuceeScriptEngine {
     
     
-    private static LuceeScriptEngine instance;
+    private static volatile LuceeScriptEngine instance;
     private static final Object lock = new Object();
     
     private ScriptEngine engine;
@@ -46,6 +55,12 @@ public class LuceeScriptEngine {
     // Ensure we only perform BaseModule synchronization once per JVM
     private boolean baseModuleEnsured = false;
 
+    // Lucee version used in compile cache keys; resolved once per JVM
+    private String cachedLuceeVersion;
+
+    // Post-initialization ENGINE_SCOPE snapshot for pooled engines
+    private Map<String, Object> baseBindings;
+
     // Helper methods - moved from LuCLI
     
     private boolean isVerboseMode() {
@@ -130,6 +145,9 @@ public class LuceeScriptEngine {
         
         try {
             this.engine = initializeEngine();
+        } catch (CancellationException e) {
+            // An abandoned speculative boot; nobody is waiting for this engine.
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -140,16 +158,26 @@ public class LuceeScriptEngine {
     }
     
     /**
-     * Get the singleton instance of LuceeScriptEngine
+     * Get the singleton instance of LuceeScriptEngine, or the pooled engine
+     * leased to the current thread (see {@link LuceeEnginePool.Lease#bindToCurrentThread()}).
      * @throws IOException 
      */
     public static LuceeScriptEngine getInstance() throws IOException {
+        LuceeScriptEngine leased = LuceeEnginePool.currentThreadEngine();
+        if (leased != null) {
+            return leased;
+        }
+        if (instance == null) {
+            // A speculative boot may already be under way; wait for it rather
+            // than queueing on the lock so the wait shows up in --timing.
+            EngineBootstrap.awaitSpeculativeBoot();
+        }
         Timer.start("LuceeScriptEngine Initialization");
         if (instance == null) {
             synchronized (lock) {
-                // if (instance == null) {
+                if (instance == null) {
                     instance = new LuceeScriptEngine();
-                // }
+                }
             }
         }
         Timer.stop("LuceeScriptEngine Initialization");
@@ -157,6 +185,47 @@ public class LuceeScriptEngine {
         // CFMLEngineFactory.getInstance().getClassUtil().loadBIF(null, ENGINE_NAME, ENGINE_NAME, null)
         return instance;
     }
+    /**
+     * Create a new engine that is independent of the singleton: its own
+     * JSR223 ScriptEngine, PageContext and ENGINE_SCOPE bindings on top of the
+     * shared Lucee runtime. Used by {@link LuceeEnginePool}.
+     */
+    static LuceeScriptEngine createIsolated() throws IOException {
+        // Never race the singleton (or a speculative boot) through Lucee's startup.
+        EngineBootstrap.awaitSpeculativeBoot();
+        LuceeScriptEngine created;
+        synchronized (lock) {
+            created = new LuceeScriptEngine();
+        }
+        if (created.engine == null) {
+            throw new IOException("CFML ScriptEngine could not be initialized");
+        }
+        created.baseBindings = new HashMap<>(created.engine.getBindings(ScriptContext.ENGINE_SCOPE));
+        return created;
+    }
+
+    /**
+     * Restore the ENGINE_SCOPE bindings captured after initialization,
+     * dropping anything a previous execution left behind. Only meaningful for
+     * engines from {@link #createIsolated()}.
+     */
+    void resetBindings() {
+        if (engine == null || baseBindings == null) {
+            return;
+        }
+        Bindings bindings = engine.createBindings();
+        bindings.putAll(baseBindings);
+        engine.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+    }
+
+    /**
+     * True once the singleton has been created (by a command or the
+     * speculative boot).
+     */
+    public static boolean isInitialized() {
+        return instance != null;
+    }
+
     /**
      * Initialize the JSR223 ScriptEngine for CFML
      * @throws Exception 
@@ -192,9 +261,15 @@ public class LuceeScriptEngine {
         
         Timer.stop("Setup Engine Variables");
         
-        Timer.start("Execute Initialization Script");
+        // The script imports the server config, rewriting the Lucee context.
         String script = readScriptTemplate("/script_engine/initializeEngine.cfs");
-        engine.eval(script);
+        EngineBootstrap.beginContextWrite();
+        Timer.start("Execute Initialization Script");
+        try {
+            engine.eval(script);
+        } finally {
+            EngineBootstrap.endContextWrite();
+        }
         Timer.stop("Execute Initialization Script");
         
         return engine;
@@ -302,7 +377,7 @@ public class LuceeScriptEngine {
 	}
     
 
-    class ParsedArguments {
+    static class ParsedArguments {
         String subCommand;
         Map<String, String> argsMap;
     }
@@ -311,7 +386,7 @@ public class LuceeScriptEngine {
      * Parse script arguments into subcommand and key=value map to pass to CFCs
      * @param scriptArgs Array of script arguments, comes from the command line as arg1 arg2 ... or key=value 
      */
-    public ParsedArguments parseArguments(String[] scriptArgs){
+    static ParsedArguments parseArguments(String[] scriptArgs){
 
             Timer.start("ParseArguments");
             String subCommand = "main";
@@ -388,15 +463,6 @@ public class LuceeScriptEngine {
      * "print-if-non-null" CLI behavior should use {@link #executeModule}.
      */
     public Object executeModuleAndReturn(String moduleName, String[] scriptArgs) throws Exception {
-        
-            // Ensure shared BaseModule.cfc in ~/.lucli/modules matches this LuCLI version
-            ensureBaseModuleUpToDate();
-            Path moduleDir = ModuleCommand.getModulesDirectory().resolve(moduleName);
-            ModuleConfig moduleConfig = ModuleConfig.load(moduleDir);
-            ModuleRuntimeConfigResolver resolver = ModuleRuntimeConfigResolver.fromSettings();
-            ModuleRuntimeConfigResolver.ResolutionResult runtimeResolution =
-                resolver.resolve(moduleName, moduleConfig, getEffectiveRuntimeCwd());
-            
             String subCommand = "main";
             ParsedArguments parsedArgs = parseArguments(scriptArgs);
             subCommand = parsedArgs.subCommand;
@@ -409,6 +475,62 @@ public class LuceeScriptEngine {
                 argsMap.remove("h");
             }
 
+            return invokeModule(moduleName, subCommand, argsMap, scriptArgs);
+    }
+
+    /**
+     * Call one module function with already-structured arguments, skipping the
+     * CLI {@code key=value} round trip. Maps and lists are converted once into
+     * CFML structs and arrays and passed as {@code argumentCollection}, so
+     * nested values reach the function as-is instead of as JSON strings.
+     * Null top-level values are left out, letting the function's defaults
+     * apply. Returns whatever the function returned (or null).
+     */
+    public Object executeModuleFunction(String moduleName, String functionName, Map<String, Object> arguments) throws Exception {
+        Struct argCollection = CFMLEngineFactory.getInstance().getCreationUtil().createStruct();
+        if (arguments != null) {
+            for (Map.Entry<String, Object> entry : arguments.entrySet()) {
+                if (entry.getKey() == null || entry.getKey().isBlank() || entry.getValue() == null) {
+                    continue;
+                }
+                argCollection.setEL(entry.getKey(), toCfmlValue(entry.getValue()));
+            }
+        }
+        return invokeModule(moduleName, functionName, argCollection, new String[0]);
+    }
+
+    /** Deep-converts JSON-shaped Java values (maps, lists, scalars) into CFML types. */
+    private static Object toCfmlValue(Object value) {
+        if (value instanceof Map) {
+            Struct struct = CFMLEngineFactory.getInstance().getCreationUtil().createStruct();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                struct.setEL(String.valueOf(entry.getKey()), toCfmlValue(entry.getValue()));
+            }
+            return struct;
+        }
+        if (value instanceof List) {
+            Array array = CFMLEngineFactory.getInstance().getCreationUtil().createArray();
+            for (Object item : (List<?>) value) {
+                array.appendEL(toCfmlValue(item));
+            }
+            return array;
+        }
+        if (value instanceof BigInteger) {
+            // CFML numbers are doubles or BigDecimals; BigInteger is not cast.
+            return new BigDecimal((BigInteger) value);
+        }
+        return value;
+    }
+
+    private Object invokeModule(String moduleName, String subCommand, Object argCollection, String[] scriptArgs) throws Exception {
+            // Ensure shared BaseModule.cfc in ~/.lucli/modules matches this LuCLI version
+            ensureBaseModuleUpToDate();
+            Path moduleDir = ModuleCommand.getModulesDirectory().resolve(moduleName);
+            ModuleConfig moduleConfig = ModuleConfig.load(moduleDir);
+            ModuleRuntimeConfigResolver resolver = ModuleRuntimeConfigResolver.fromSettings();
+            ModuleRuntimeConfigResolver.ResolutionResult runtimeResolution =
+                resolver.resolve(moduleName, moduleConfig, getEffectiveRuntimeCwd());
+
             Timer.start("Module Execution: " + moduleName);
             if (isVerboseMode() || isDebugMode()) {
                 System.out.println("=== Direct Module Execution Script ===");
@@ -429,7 +551,7 @@ public class LuceeScriptEngine {
             engine.put("moduleRuntimeContext", runtimeResolution.getRuntimeContext());
 
             // engine.put("args", Arrays.asList(scriptArgs));
-            engine.put("argCollection", argsMap);
+            engine.put("argCollection", argCollection);
 
             engine.put("verbose", LuCLI.verbose);
             engine.put("timing", LuCLI.timing);
@@ -596,6 +718,8 @@ public class LuceeScriptEngine {
             engine.put("componentPath", dottedComponentPath);
 
             // Script to run 
+            // Not run through the compile cache: createObject resolves componentPath
+            // relative to the calling template, which must not be the cache dir.
             String script = readScriptTemplate("/script_engine/executeComponentFromCWD.cfs");
 
             
@@ -622,6 +746,15 @@ public class LuceeScriptEngine {
             StringOutput.getInstance().println("${EMOJI_INFO} Arguments: " + Arrays.toString(scriptArgs));
         }
         
+        if (CompiledScriptCache.isEnabled() && CompiledScriptCache.isCacheable(scriptContent)) {
+            // Cache the template body as-is and set the argument-specific
+            // built-in variables in the small eval that includes it.
+            BuiltinVariableManager variableManager = BuiltinVariableManager.getInstance(isVerboseMode(), isDebugMode());
+            String variableSetup = variableManager.createVariableSetupScript(scriptFile, scriptArgs);
+            executeWrappedScript(scriptContent, scriptFile, scriptArgs, variableSetup);
+            return;
+        }
+
         // For CFS scripts, inject built-in variables directly into the script content
         // so they are available as CFML variables, not just engine bindings
         String scriptWithVariables = injectBuiltinVariables(scriptContent, scriptFile, scriptArgs);
@@ -639,6 +772,14 @@ public class LuceeScriptEngine {
     
 
     private void executeWrappedScript(String scriptContent, String scriptFile, String[] scriptArgs) throws Exception {
+        executeWrappedScript(scriptContent, scriptFile, scriptArgs, null);
+    }
+
+    /**
+     * @param cachedPreamble script evaluated before including a cached template
+     *                       (only used when the compile cache is enabled)
+     */
+    private void executeWrappedScript(String scriptContent, String scriptFile, String[] scriptArgs, String cachedPreamble) throws Exception {
         
         // Try internal component loading first, fall back to filesystem extraction if needed
         boolean useInternalComponents = tryInternalComponentLoading();
@@ -699,10 +840,23 @@ public class LuceeScriptEngine {
         
         // System.out.println("Executing CFML script: " + scriptContent);
         boolean isScript = scriptFile.toLowerCase().endsWith(".cfs") || scriptFile.toLowerCase().endsWith(".cfc");
+        String cachedTemplate = null;
         try {
+            if (CompiledScriptCache.isEnabled() && CompiledScriptCache.isCacheable(scriptContent)) {
+                cachedTemplate = cachedTemplateFor(scriptContent, isScript ? "cfs" : "cfm");
+            }
+            if (cachedTemplate == null && cachedPreamble != null) {
+                // The cache could not be used after all; inline the variables as the uncached path does.
+                scriptContent = cachedPreamble + "\n// === Original Script Content ===\n" + scriptContent;
+            }
+
             Timer.start("CFML Script Evaluation");
             Object result;
-            if(isScript){
+            if (cachedTemplate != null) {
+                String include = "include template=\"" + cachedTemplate + "\";";
+                result = engine.eval(cachedPreamble != null ? cachedPreamble + "\n" + include : include);
+            }
+            else if(isScript){
                 result = engine.eval(scriptContent);
             }
             else {
@@ -718,6 +872,18 @@ public class LuceeScriptEngine {
             }
             
         } catch (ScriptException e) {
+            if (cachedTemplate != null) {
+                // The error points into the compile cache; report the user's script instead.
+                CompiledScriptCache cache = new CompiledScriptCache(LucliPaths.resolve());
+                String sourcePath = Paths.get(scriptFile).toAbsolutePath().normalize().toString();
+                if (isDebugMode()) {
+                    java.io.StringWriter trace = new java.io.StringWriter();
+                    e.printStackTrace(new java.io.PrintWriter(trace));
+                    System.err.print(cache.toSourcePaths(trace.toString(), cachedTemplate, sourcePath));
+                }
+                throw new ScriptException("Error executing CFML script '" + scriptFile +  "': "
+                        + cache.toSourcePaths(e.getMessage(), cachedTemplate, sourcePath));
+            }
 
             if(isDebugMode()) {
                 e.printStackTrace();
@@ -767,7 +933,7 @@ public class LuceeScriptEngine {
         }
         
         // Environment variables
-        engine.put("__env", LuCLI.scriptEnvironment);
+        engine.put("__env", LuCLI.getScriptEnvironment());
         
         // System properties
         engine.put("__systemProps", System.getProperties());
@@ -1294,7 +1460,30 @@ public class LuceeScriptEngine {
         }
     }
 
-   
+    /**
+     * Resolve the compile-cache template for a transformed source, or null if
+     * the cache cannot be used (the caller then evals the source directly).
+     */
+    private String cachedTemplateFor(String source, String extension) {
+        Timer.start("Compile Cache Lookup");
+        try {
+            if (cachedLuceeVersion == null) {
+                // Use a private variable name so the lookup cannot clobber script variables.
+                engine.eval("__lucliLuceeVersion = SERVER.LUCEE.version");
+                cachedLuceeVersion = String.valueOf(engine.get("__lucliLuceeVersion"));
+                engine.getBindings(ScriptContext.ENGINE_SCOPE).remove("__lucliLuceeVersion");
+            }
+            return new CompiledScriptCache(LucliPaths.resolve()).templateFor(source, extension, cachedLuceeVersion);
+        } catch (Exception e) {
+            if (isDebugMode()) {
+                System.err.println("Warning: Compile cache unavailable, evaluating directly: " + e.getMessage());
+            }
+            return null;
+        } finally {
+            Timer.stop("Compile Cache Lookup");
+        }
+    }
+
     /**
      * Read a script template from resources
      */
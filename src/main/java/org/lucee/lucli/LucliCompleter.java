@@ -12,10 +12,7 @@ import org.jline.reader.Completer;
 import org.jline.reader.LineReader;
 import org.jline.reader.ParsedLine;
 import org.lucee.lucli.modules.ModuleCommand;
-
-import lucee.runtime.exp.PageException;
-import lucee.runtime.type.Array;
-import lucee.runtime.type.Struct;
+import org.lucee.lucli.modules.ModuleMetadataCache;
 
 /**
  * Tab completion for LuCLI internal terminal commands and file paths
@@ -112,14 +109,12 @@ public class LucliCompleter implements Completer {
     
 
     private void completeModuleCommand(ParsedLine line, List<Candidate> candidates, String command){
-        Array metadata = null;
         try {
-            metadata = LuceeScriptEngine.getInstance().getComponentMetadata("modules." + command + ".Module" );
-            // System.out.println("Metadata: " + metadata.toString());lint
-      
             if(line.toString().isEmpty() || line.words().size() == 1) {
-                // Get the module functions
-                addFunctionCandidatesFromMetadata(candidates, metadata);
+                // Function names come from the on-disk metadata cache, so repeated
+                // TABs only stat Module.cfc instead of introspecting it in Lucee.
+                ModuleMetadataCache.ModuleMetadata metadata = ModuleMetadataCache.getInstance().get(command, false);
+                addFunctionCandidates(candidates, metadata.functionNames());
             }
       
             
@@ -149,21 +144,16 @@ public class LucliCompleter implements Completer {
         
     }
 
-    private void addFunctionCandidatesFromMetadata(List<Candidate> candidates, Array metadata) throws PageException {
-        for (int i = 1; i <= metadata.size(); i++) {
-            Struct item = (Struct) metadata.get(i, null);
-            if (item != null) {
-                // System.out.println("Item: " + item.toString());
-                // Process each metadata item (likely a Struct containing function info)
-                candidates.add(
-                    new Candidate(
-                        item.get("name").toString(),
-                        item.get("name").toString(),
-                        "module-commands",
-                         null, null, null, true
-                    )
-                );
-            }
+    private void addFunctionCandidates(List<Candidate> candidates, List<String> functionNames) {
+        for (String name : functionNames) {
+            candidates.add(
+                new Candidate(
+                    name,
+                    name,
+                    "module-commands",
+                     null, null, null, true
+                )
+            );
         }
     }
 
@@ -672,23 +662,17 @@ public class LucliCompleter implements Completer {
      */
     private void completeServerNames(String partial, List<Candidate> candidates) {
         try {
-            // We'd need to integrate with LuceeServerManager to get actual server names
-            // For now, we'll add a simple implementation that could be enhanced later
-            
-            // You could integrate with the actual LuceeServerManager like this:
-            // org.lucee.lucli.server.LuceeServerManager serverManager = new org.lucee.lucli.server.LuceeServerManager();
-            // List<org.lucee.lucli.server.LuceeServerManager.ServerInfo> servers = serverManager.listServers();
-            
-            // For now, we'll suggest common server name patterns
-            String[] commonNames = {"my_server", "dev_server", "test_server", "local_server"};
-            
-            for (String name : commonNames) {
-                if (name.startsWith(partial.toLowerCase())) {
+            // listServers() is cached briefly, so repeated TAB presses stay instant.
+            org.lucee.lucli.server.LuceeServerManager serverManager = new org.lucee.lucli.server.LuceeServerManager();
+            for (org.lucee.lucli.server.LuceeServerManager.ServerInfo server : serverManager.listServers()) {
+                String name = server.getServerName();
+                if (name.toLowerCase().startsWith(partial.toLowerCase())) {
                     String displayValue = name;
                     if (commandProcessor.getSettings().showEmojis()) {
                         displayValue = "🖥️ " + name;
                     }
-                    candidates.add(new Candidate(name, displayValue, "server-names", "Server instance", null, null, true));
+                    String description = server.isRunning() ? "Running on port " + server.getPort() : "Stopped";
+                    candidates.add(new Candidate(name, displayValue, "server-names", description, null, null, true));
                 }
             }
         } catch (Exception e) {
@@ -1,34 +1,72 @@
 package org.lucee.lucli;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Utility class for tracking execution times of various operations in LuCLI.
- * Provides both simple single-operation timing and hierarchical timing for nested operations.
+ * Span tracer for LuCLI's {@code --timing} output.
+ *
+ * Each {@link #start}/{@link #stop} pair (or {@link #span} block) records a
+ * span nested under whatever span is open on the same thread, so the same
+ * operation run many times (a module executed by the daemon, an engine
+ * created by the pool) is kept as separate spans and summarised as one line
+ * with its count, total, average and maximum. When timing is disabled every
+ * call returns after a single volatile read and allocates nothing.
+ *
+ * Results are printed as a timeline by {@link #printResults()}; with
+ * {@code --timing=<file>} {@link #exportTrace()} also writes them as Chrome
+ * trace-event JSON (or a JFR recording for a {@code .jfr} file). While timing
+ * is enabled each span is also emitted as a JFR event, so a recording started
+ * with {@code -XX:StartFlightRecording} shows them alongside the JVM's own.
  */
 public class Timer {
-    
+
     private static Timer instance;
 
     private static final int MAX_OPERATION_NAME_LENGTH = 100;
     private static final int MIN_OPERATION_NAME_LENGTH = 20;
     private static final int BASE_LINE_WIDTH = 60;
     private static final int BAR_WIDTH = 40;
-    
+
+    /** Completed spans kept for the trace file; later ones only count towards the summary. */
+    static final int MAX_TRACE_SPANS = 200_000;
+
+    private static final Span NOOP = new Span(null, "", 0, null);
+
     // Instance fields (non-static so each instance has its own state)
-    private final Map<String, TimerEntry> timers = new ConcurrentHashMap<>();
-    private boolean enabled = false;
-    private final ThreadLocal<List<String>> timerStack = ThreadLocal.withInitial(ArrayList::new);
+    private final long originNanos = System.nanoTime();
+    private final AtomicLong spanIds = new AtomicLong();
+    private final Queue<Span> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final AtomicLong droppedSpans = new AtomicLong();
+    private final Map<String, SpanStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, Span> openByName = new ConcurrentHashMap<>();
+    private final Map<String, Duration> lastDurations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ThreadLocal<Deque<Span>> spanStack = ThreadLocal.withInitial(ArrayDeque::new);
+    private volatile boolean enabled = false;
+    private volatile Path traceFile;
+    private TraceExport.JfrRecording jfrRecording;
 
     private Timer() {
     }
 
-    
+
     /**
      * Enable or disable timing globally
      */
@@ -40,10 +78,10 @@ public class Timer {
     public void _setEnabled(boolean enable) {
         enabled = enable;
         if (!enabled) {
-            timers.clear();
+            _clear();
         }
     }
-    
+
     /**
      * Check if timing is enabled
      */
@@ -56,6 +94,31 @@ public class Timer {
         return enabled;
     }
 
+    /**
+     * Also write the spans to {@code file} on {@link #exportTrace()}: a JFR
+     * recording when it ends in {@code .jfr}, Chrome trace-event JSON
+     * otherwise. {@code null} or blank turns the export off.
+     */
+    public static void setTraceFile(String file) {
+        getInstance()._setTraceFile(file);
+    }
+
+    /** Instance implementation of setTraceFile */
+    public synchronized void _setTraceFile(String file) {
+        Path path = file == null || file.isBlank() ? null : Path.of(file).toAbsolutePath();
+        if (path != null && path.equals(traceFile)) {
+            return;
+        }
+        traceFile = path;
+        if (path != null && TraceExport.isJfr(path) && jfrRecording == null) {
+            try {
+                jfrRecording = TraceExport.JfrRecording.start();
+            } catch (Exception | LinkageError e) {
+                System.err.println("Warning: could not start a JFR recording for " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
 
     public static Timer getInstance(){
         if(instance == null){
@@ -67,13 +130,31 @@ public class Timer {
         }
         return instance;
     }
+
+    /**
+     * Open a span that ends when the returned handle is closed, for use with
+     * try-with-resources. Returns a shared no-op handle when timing is off.
+     */
+    public static Span span(String operationName) {
+        return getInstance()._span(operationName);
+    }
+
+    /** Instance implementation of span */
+    public Span _span(String operationName) {
+        if (!enabled) return NOOP;
+        Deque<Span> stack = spanStack.get();
+        Span parent = openParent(stack);
+        Span span = new Span(this, operationName, spanIds.incrementAndGet(), parent);
+        stack.push(span);
+        openByName.put(operationName, span);
+        return span;
+    }
+
     /**
      * Instance implementation for starting a timer
      */
     public void _start(String operationName) {
-        if (!enabled) return;
-        timers.put(operationName, new TimerEntry(operationName, Instant.now()));
-        timerStack.get().add(operationName);
+        _span(operationName);
     }
 
     /**
@@ -82,33 +163,30 @@ public class Timer {
     public static void start(String operationName) {
         getInstance()._start(operationName);
     }
-    
+
     /**
-     * Instance implementation for stopping a timer
+     * Instance implementation for stopping a timer. Ends the innermost open
+     * span of that name on this thread, or failing that the most recent one
+     * started on any thread.
      */
     public Duration _stop(String operationName) {
         if (!enabled) return Duration.ZERO;
-        
-        TimerEntry entry = timers.get(operationName);
-        
-        if (entry == null) {
-            // Only show warning if timing is enabled but no timer was found
-            if (enabled) {
-                System.err.println("Warning: Timer.stop() called for '" + operationName + "' but no corresponding start() was found");
+
+        Span span = null;
+        for (Span open : spanStack.get()) {
+            if (!open.isEnded() && open.name.equals(operationName)) {
+                span = open;
+                break;
             }
+        }
+        if (span == null) {
+            span = openByName.get(operationName);
+        }
+        if (span == null || span.isEnded()) {
+            System.err.println("Warning: Timer.stop() called for '" + operationName + "' but no corresponding start() was found");
             return Duration.ZERO;
         }
-        
-        Instant endTime = Instant.now();
-        Duration duration = Duration.between(entry.startTime, endTime);
-        entry.duration = duration;
-        entry.endTime = endTime;
-        
-        // Remove from stack
-        List<String> stack = timerStack.get();
-        stack.remove(operationName);
-        
-        return duration;
+        return span.end();
     }
 
     /**
@@ -117,27 +195,68 @@ public class Timer {
     public static Duration stop(String operationName) {
         return getInstance()._stop(operationName);
     }
-    
+
     /**
-     * Get a hierarchical operation name based on the current timer stack
+     * Increment a named counter (e.g. cache hits) shown alongside timing results (static facade)
      */
-    private static String getFullOperationName(String operationName) {
-        List<String> stack = getInstance().timerStack.get();
-        if (stack.isEmpty()) {
-            return operationName;
-        }
-        
-        StringBuilder sb = new StringBuilder();
-        for (String parent : stack) {
-            // Extract just the operation name part (after the last arrow)
-            String parentOp = parent.contains(" → ") ? 
-                parent.substring(parent.lastIndexOf(" → ") + 3) : parent;
-            sb.append(parentOp).append(" → ");
-        }
-        sb.append(operationName);
-        return sb.toString();
-    }
-    
+    public static void increment(String counterName) {
+        getInstance()._increment(counterName);
+    }
+
+    /** Instance implementation of increment */
+    public void _increment(String counterName) {
+        if (!enabled) return;
+        counters.computeIfAbsent(counterName, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Get the current value of a named counter (for programmatic access)
+     */
+    public static long getCount(String counterName) {
+        return getInstance()._getCount(counterName);
+    }
+
+    /** Instance implementation of getCount */
+    public long _getCount(String counterName) {
+        AtomicLong counter = counters.get(counterName);
+        return counter != null ? counter.get() : 0L;
+    }
+
+    /**
+     * Innermost span still open on this thread. Spans ended elsewhere (by a
+     * stop on another thread) are dropped from the stack on the way.
+     */
+    private static Span openParent(Deque<Span> stack) {
+        while (!stack.isEmpty() && stack.peek().isEnded()) {
+            stack.pop();
+        }
+        return stack.peek();
+    }
+
+    private void onEnd(Span span) {
+        // Children left open end with their parent.
+        Deque<Span> stack = spanStack.get();
+        if (stack.contains(span)) {
+            while (!stack.isEmpty()) {
+                Span top = stack.pop();
+                if (top == span) {
+                    break;
+                }
+                top.end(span.endNanos);
+            }
+        }
+        openByName.remove(span.name, span);
+
+        long nanos = span.endNanos - span.startNanos;
+        lastDurations.put(span.name, Duration.ofNanos(nanos));
+        stats.computeIfAbsent(span.path, path -> new SpanStats(span)).add(span);
+        if (completedCount.incrementAndGet() <= MAX_TRACE_SPANS) {
+            completed.add(span);
+        } else {
+            droppedSpans.incrementAndGet();
+        }
+    }
+
     /**
      * Output all timing results
      */
@@ -146,23 +265,48 @@ public class Timer {
     }
 
     /**
-     * Output timing results as a simple timeline/bar chart to visualize overlaps.
+     * Write the trace file set with {@link #setTraceFile}, if any. Failures
+     * are reported on stderr; timing output never fails a command.
      */
-    private static void printResultsBar() {
-        getInstance()._printResultsBar();
+    public static void exportTrace() {
+        getInstance()._exportTrace();
+    }
+
+    /** Instance implementation of exportTrace */
+    public synchronized void _exportTrace() {
+        Path file = traceFile;
+        if (!enabled || file == null) {
+            return;
+        }
+        try {
+            if (jfrRecording != null) {
+                jfrRecording.dump(file);
+                jfrRecording = null;
+            } else if (!TraceExport.isJfr(file)) {
+                TraceExport.writeChromeTrace(file, this);
+            } else {
+                return;
+            }
+            System.err.println("Trace written to " + file);
+        } catch (IOException e) {
+            System.err.println("Warning: could not write trace " + file + ": " + e.getMessage());
+        }
     }
 
     /** Instance implementation of printResults */
     public void _printResults() {
-        if (!enabled || timers.isEmpty()) {
+        if (!enabled) {
             return;
         }
-        
+        List<SpanStats> rows = treeOrder();
+        if (rows.isEmpty()) {
+            return;
+        }
+
         // Determine the column width based on the longest operation name,
         // but cap it so excessively long names don't break the layout.
-        int longestName = timers.values().stream()
-            .filter(timer -> timer.duration != null)
-            .mapToInt(timer -> timer.operationName.length())
+        int longestName = rows.stream()
+            .mapToInt(row -> row.depth * 2 + row.name.length())
             .max()
             .orElse(0);
 
@@ -172,68 +316,48 @@ public class Timer {
         );
 
         int lineWidth = Math.max(BASE_LINE_WIDTH, nameColumnWidth + 15);
-        String format = "%s%-" + nameColumnWidth + "." + nameColumnWidth + "s %8s%n";
-        
+        String format = "%-" + nameColumnWidth + "." + nameColumnWidth + "s %8s%s%n";
+
         System.out.println("\n⏱️  Timing Results:");
         System.out.println("─".repeat(lineWidth));
-        
-        // Sort by operation name for consistent output
-        timers.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .forEach(entry -> {
-                TimerEntry timer = entry.getValue();
-                if (timer.duration != null) {
-                    String indent = getIndentForOperation(entry.getKey());
-                    System.out.printf(
-                        format,
-                        indent,
-                        timer.operationName,
-                        formatDuration(timer.duration)
-                    );
-                }
-            });
-            
+
+        for (SpanStats row : rows) {
+            System.out.printf(
+                format,
+                "  ".repeat(row.depth) + row.name,
+                formatDuration(Duration.ofNanos(row.totalNanos)),
+                row.count > 1 ? "  " + repeatSummary(row) : ""
+            );
+        }
+
         System.out.println("─".repeat(lineWidth));
     }
 
     /**
-     * Instance implementation of the bar/timeline view.
+     * Instance implementation of the bar/timeline view. Spans are shown as a
+     * tree in start order; repeated spans are one row whose bar runs from
+     * the first start to the last end.
      */
     public void _printResultsBar() {
-        if (!enabled || timers.isEmpty()) {
+        if (!enabled) {
             return;
         }
+        List<SpanStats> rows = treeOrder();
 
-        // Only consider completed timers
-        List<TimerEntry> completed = timers.values().stream()
-            .filter(t -> t.duration != null)
-            .toList();
-
-        if (completed.isEmpty()) {
+        if (rows.isEmpty()) {
             return;
         }
 
         // Determine earliest start and latest end to build a global timeline
-        Instant earliestStart = completed.stream()
-            .map(t -> t.startTime)
-            .min(Instant::compareTo)
-            .orElse(null);
-
-        Instant latestEnd = completed.stream()
-            .map(t -> t.getEndTime())
-            .max(Instant::compareTo)
-            .orElse(null);
+        long earliestStart = rows.stream().mapToLong(row -> row.firstStartNanos).min().getAsLong();
+        long latestEnd = rows.stream().mapToLong(row -> row.lastEndNanos).max().getAsLong();
 
-        if (earliestStart == null || latestEnd == null) {
-            return;
-        }
-
-        long totalMillis = Math.max(1, Duration.between(earliestStart, latestEnd).toMillis());
+        long totalMillis = Math.max(1, Duration.ofNanos(latestEnd - earliestStart).toMillis());
 
 
         // Determine name column width similar to _printResults
-        int longestName = completed.stream()
-            .mapToInt(timer -> timer.operationName.length())
+        int longestName = rows.stream()
+            .mapToInt(row -> row.depth * 2 + row.name.length())
             .max()
             .orElse(0);
 
@@ -243,8 +367,8 @@ public class Timer {
         );
 
         // Determine duration column width so everything lines up nicely
-        int maxDurationWidth = completed.stream()
-            .map(timer -> formatDuration(timer.duration))
+        int maxDurationWidth = rows.stream()
+            .map(row -> formatDuration(Duration.ofNanos(row.totalNanos)))
             .mapToInt(String::length)
             .max()
             .orElse(0);
@@ -259,27 +383,12 @@ public class Timer {
         System.out.println("─".repeat(lineWidth));
         System.out.println("(▓ = wrapper, █ = inner/leaf (% of total wall-clock time))\n");
 
-        // Precompute which timers are wrappers: those that fully contain at least one other interval
-        Map<TimerEntry, Boolean> isWrapper = new ConcurrentHashMap<>();
-        for (TimerEntry outer : completed) {
-            boolean wrapper = completed.stream()
-                .filter(inner -> inner != outer)
-                .anyMatch(inner ->
-                    !outer.startTime.isAfter(inner.startTime) &&
-                    !outer.getEndTime().isBefore(inner.getEndTime())
-                );
-            isWrapper.put(outer, wrapper);
-        }
-
-        // Sort by start time so the visual order roughly follows execution order
-        completed.stream()
-            .sorted((a, b) -> a.startTime.compareTo(b.startTime))
-            .forEach(timer -> {
-                long offsetMillis = Duration.between(earliestStart, timer.startTime).toMillis();
-                long durationMillis = timer.duration.toMillis();
+        for (SpanStats row : rows) {
+                long offsetMillis = Duration.ofNanos(row.firstStartNanos - earliestStart).toMillis();
+                long extentMillis = Duration.ofNanos(row.lastEndNanos - row.firstStartNanos).toMillis();
 
                 int offsetChars = (int) Math.round((offsetMillis * 1.0 * BAR_WIDTH) / totalMillis);
-                int lenChars = (int) Math.max(1, Math.round((durationMillis * 1.0 * BAR_WIDTH) / totalMillis));
+                int lenChars = (int) Math.max(1, Math.round((extentMillis * 1.0 * BAR_WIDTH) / totalMillis));
 
                 // Clamp to bar width
                 if (offsetChars > BAR_WIDTH) {
@@ -289,12 +398,13 @@ public class Timer {
                     lenChars = Math.max(0, BAR_WIDTH - offsetChars);
                 }
 
-        boolean wrapper = Boolean.TRUE.equals(isWrapper.get(timer));
+        boolean wrapper = row.hasChildren;
         char blockChar = wrapper ? '▓' : '█';
 
-        // Percentage for this timer relative to overall wall-clock period
+        // Percentage for this span relative to overall wall-clock period
+        Duration total = Duration.ofNanos(row.totalNanos);
         double pct = (totalMillis > 0)
-            ? (timer.duration.toMillis() * 100.0) / totalMillis
+            ? (total.toMillis() * 100.0) / totalMillis
             : 0.0;
         String pctStr = String.format("%5.1f%%", pct);
 
@@ -343,34 +453,79 @@ public class Timer {
                     colouredBar = rawBar;
                 }
 
-                String durationStr = formatDuration(timer.duration);
+                String durationStr = formatDuration(total);
 
                 System.out.printf(
-                    "%-" + nameColumnWidth + "." + nameColumnWidth + "s |%s %" + maxDurationWidth + "s %" + percentColumnWidth + "s%n",
-                    timer.operationName,
+                    "%-" + nameColumnWidth + "." + nameColumnWidth + "s |%s %" + maxDurationWidth + "s %" + percentColumnWidth + "s%s%n",
+                    "  ".repeat(row.depth) + row.name,
                     colouredBar,
                     durationStr,
-                    pctStr
+                    pctStr,
+                    row.count > 1 ? "  " + repeatSummary(row) : ""
                 );
-            });
+        }
 
         System.out.println("─".repeat(lineWidth));
+        printCounters();
     }
-    
+
+    private void printCounters() {
+        if (counters.isEmpty() && droppedSpans.get() == 0) {
+            return;
+        }
+        System.out.println("\n🔢 Counters:");
+        counters.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> System.out.printf("  %-40s %d%n", entry.getKey(), entry.getValue().get()));
+        if (droppedSpans.get() > 0) {
+            System.out.printf("  %-40s %d%n", "Spans not kept for trace", droppedSpans.get());
+        }
+    }
+
     /**
-     * Get appropriate indentation for hierarchical display
+     * Aggregated spans in depth-first order, siblings sorted by first start.
      */
-    private static String getIndentForOperation(String fullName) {
-        int arrowCount = fullName.length() - fullName.replace(" → ", "").length();
-        return "  ".repeat(arrowCount / 3); // Each " → " is 3 characters
+    List<SpanStats> treeOrder() {
+        List<SpanStats> all = new ArrayList<>(stats.values());
+        all.sort(Comparator.comparingLong(row -> row.firstStartNanos));
+        Map<String, List<SpanStats>> children = new HashMap<>();
+        List<SpanStats> roots = new ArrayList<>();
+        for (SpanStats row : all) {
+            if (row.parentPath != null && stats.containsKey(row.parentPath)) {
+                children.computeIfAbsent(row.parentPath, k -> new ArrayList<>()).add(row);
+            } else {
+                roots.add(row);
+            }
+        }
+        List<SpanStats> ordered = new ArrayList<>();
+        Deque<SpanStats> pending = new ArrayDeque<>();
+        for (int i = roots.size() - 1; i >= 0; i--) {
+            pending.push(roots.get(i));
+        }
+        while (!pending.isEmpty()) {
+            SpanStats row = pending.pop();
+            List<SpanStats> kids = children.getOrDefault(row.path, List.of());
+            row.hasChildren = !kids.isEmpty();
+            ordered.add(row);
+            for (int i = kids.size() - 1; i >= 0; i--) {
+                pending.push(kids.get(i));
+            }
+        }
+        return ordered;
     }
-    
+
+    private static String repeatSummary(SpanStats row) {
+        return "x" + row.count
+            + ", avg " + formatDuration(Duration.ofNanos(row.totalNanos / row.count))
+            + ", max " + formatDuration(Duration.ofNanos(row.maxNanos));
+    }
+
     /**
      * Format duration for display
      */
     private static String formatDuration(Duration duration) {
         long millis = duration.toMillis();
-        
+
         if (millis < 1000) {
             return String.format("%d ms", millis);
         } else if (millis < 60000) {
@@ -381,7 +536,7 @@ public class Timer {
             return String.format("%d:%02d min", minutes, seconds);
         }
     }
-    
+
     /**
      * Clear all timing data
      */
@@ -391,12 +546,18 @@ public class Timer {
 
     /** Instance implementation of clear */
     public void _clear() {
-        timers.clear();
-        timerStack.remove();
+        completed.clear();
+        completedCount.set(0);
+        droppedSpans.set(0);
+        stats.clear();
+        openByName.clear();
+        lastDurations.clear();
+        counters.clear();
+        spanStack.remove();
     }
-    
+
     /**
-     * Get the duration of a specific operation (for programmatic access)
+     * Get the duration of the last completed run of an operation (for programmatic access)
      */
     public static Duration getDuration(String operationName) {
         return getInstance()._getDuration(operationName);
@@ -404,32 +565,116 @@ public class Timer {
 
     /** Instance implementation of getDuration */
     public Duration _getDuration(String operationName) {
-        TimerEntry entry = timers.get(operationName);
-        return entry != null ? entry.duration : Duration.ZERO;
+        return lastDurations.getOrDefault(operationName, Duration.ZERO);
+    }
+
+    /** Completed spans kept for export, in completion order. */
+    Iterator<Span> completedSpans() {
+        return completed.iterator();
     }
-    
+
+    long originNanos() {
+        return originNanos;
+    }
+
+    Map<String, Long> counterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, value) -> values.put(name, value.get()));
+        if (droppedSpans.get() > 0) {
+            values.put("Spans not kept for trace", droppedSpans.get());
+        }
+        return values;
+    }
+
     /**
-     * Internal class to hold timer information
+     * One timed operation. Close it (or call {@link Timer#stop}) to end it;
+     * ending it again has no effect.
      */
-    private static class TimerEntry {
-        final String operationName;
-        final Instant startTime;
-        Duration duration;
-        Instant endTime;
-        
-        TimerEntry(String operationName, Instant startTime) {
-            this.operationName = operationName;
-            this.startTime = startTime;
-        }
-
-        Instant getEndTime() {
-            if (endTime != null) {
-                return endTime;
+    public static final class Span implements AutoCloseable {
+        private final Timer owner;
+        final String name;
+        final String path;
+        final long id;
+        final long parentId;
+        final int depth;
+        final long threadId;
+        final String threadName;
+        final long startNanos;
+        volatile long endNanos = -1;
+        private final TraceExport.SpanEvent event;
+
+        private Span(Timer owner, String name, long id, Span parent) {
+            this.owner = owner;
+            this.name = name;
+            this.id = id;
+            this.parentId = parent != null ? parent.id : 0;
+            this.depth = parent != null ? parent.depth + 1 : 0;
+            this.path = parent != null ? parent.path + "\n" + name : name;
+            Thread thread = Thread.currentThread();
+            this.threadId = thread.threadId();
+            this.threadName = thread.getName();
+            this.event = owner != null ? TraceExport.SpanEvent.start() : null;
+            this.startNanos = System.nanoTime();
+        }
+
+        boolean isEnded() {
+            return endNanos >= 0;
+        }
+
+        @Override
+        public void close() {
+            if (owner != null && owner.enabled && !isEnded()) {
+                end();
+            }
+        }
+
+        private Duration end() {
+            return end(System.nanoTime());
+        }
+
+        private synchronized Duration end(long nanos) {
+            if (isEnded()) {
+                return Duration.ofNanos(endNanos - startNanos);
             }
-            if (duration != null) {
-                return startTime.plus(duration);
+            endNanos = nanos;
+            if (event != null) {
+                event.finish(name, path.replace("\n", " > "));
             }
-            return startTime;
+            owner.onEnd(this);
+            return Duration.ofNanos(endNanos - startNanos);
+        }
+    }
+
+    /**
+     * All completed runs of one operation at one place in the tree.
+     */
+    static final class SpanStats {
+        final String name;
+        final String path;
+        final String parentPath;
+        final int depth;
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long firstStartNanos = Long.MAX_VALUE;
+        long lastEndNanos = Long.MIN_VALUE;
+        boolean hasChildren;
+
+        SpanStats(Span first) {
+            this.name = first.name;
+            this.path = first.path;
+            int cut = first.path.lastIndexOf('\n');
+            this.parentPath = cut >= 0 ? first.path.substring(0, cut) : null;
+            this.depth = first.depth;
+        }
+
+        synchronized void add(Span span) {
+            long nanos = span.endNanos - span.startNanos;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            firstStartNanos = Math.min(firstStartNanos, span.startNanos);
+            lastEndNanos = Math.max(lastEndNanos, span.endNanos);
         }
     }
 }
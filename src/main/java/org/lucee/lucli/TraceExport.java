@@ -0,0 +1,162 @@
+package org.lucee.lucli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+/**
+ * Trace output for {@link Timer}: Chrome trace-event JSON (open in
+ * {@code chrome://tracing} or Perfetto) and JFR.
+ */
+final class TraceExport {
+
+    private TraceExport() {
+    }
+
+    static boolean isJfr(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jfr");
+    }
+
+    /**
+     * Write the completed spans of {@code timer} as complete ("X") events,
+     * one track per thread, with the counters as {@code otherData}.
+     */
+    static void writeChromeTrace(Path file, Timer timer) throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long pid = ProcessHandle.current().pid();
+        long origin = timer.originNanos();
+        Map<Long, String> threads = new LinkedHashMap<>();
+
+        try (OutputStream out = Files.newOutputStream(file);
+             JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("traceEvents");
+            for (Iterator<Timer.Span> it = timer.completedSpans(); it.hasNext();) {
+                Timer.Span span = it.next();
+                threads.putIfAbsent(span.threadId, span.threadName);
+                json.writeStartObject();
+                json.writeStringField("name", span.name);
+                json.writeStringField("cat", "lucli");
+                json.writeStringField("ph", "X");
+                json.writeNumberField("ts", (span.startNanos - origin) / 1000.0);
+                json.writeNumberField("dur", (span.endNanos - span.startNanos) / 1000.0);
+                json.writeNumberField("pid", pid);
+                json.writeNumberField("tid", span.threadId);
+                json.writeObjectFieldStart("args");
+                json.writeNumberField("id", span.id);
+                if (span.parentId != 0) {
+                    json.writeNumberField("parent", span.parentId);
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            for (Map.Entry<Long, String> thread : threads.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("name", "thread_name");
+                json.writeStringField("ph", "M");
+                json.writeNumberField("pid", pid);
+                json.writeNumberField("tid", thread.getKey());
+                json.writeObjectFieldStart("args");
+                json.writeStringField("name", thread.getValue().isEmpty() ? "thread-" + thread.getKey() : thread.getValue());
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeStringField("displayTimeUnit", "ms");
+            json.writeObjectFieldStart("otherData");
+            for (Map.Entry<String, Long> counter : timer.counterValues().entrySet()) {
+                json.writeNumberField(counter.getKey(), counter.getValue());
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+    }
+
+    /** A {@link Timer} span as a JFR event. */
+    @Name("org.lucee.lucli.Span")
+    @Label("LuCLI Span")
+    @Category("LuCLI")
+    @Description("An operation timed with --timing")
+    @StackTrace(false)
+    static final class SpanEvent extends Event {
+
+        @Label("Name")
+        String name;
+
+        @Label("Path")
+        @Description("Enclosing spans on the same thread, outermost first")
+        String path;
+
+        /** A started event, or null when no recording wants it. */
+        static SpanEvent start() {
+            SpanEvent event = new SpanEvent();
+            if (!event.isEnabled()) {
+                return null;
+            }
+            event.begin();
+            return event;
+        }
+
+        void finish(String name, String path) {
+            end();
+            if (shouldCommit()) {
+                this.name = name;
+                this.path = path;
+                commit();
+            }
+        }
+    }
+
+    /** A recording started for {@code --timing=<file>.jfr}. */
+    static final class JfrRecording {
+
+        private final Recording recording;
+
+        private JfrRecording(Recording recording) {
+            this.recording = recording;
+        }
+
+        /** Start recording with the JDK's "default" settings plus every span. */
+        static JfrRecording start() throws IOException, java.text.ParseException {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("lucli --timing");
+            recording.enable(SpanEvent.class).withoutThreshold();
+            recording.start();
+            return new JfrRecording(recording);
+        }
+
+        void dump(Path file) throws IOException {
+            try {
+                Path parent = file.getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                recording.stop();
+                recording.dump(file);
+            } finally {
+                recording.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.lucee.lucli.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A set of named {@link BenchResult}s, written as the same JSON document as
+ * {@code tests/perf/benchmark-startup.sh} so either tool's output can serve
+ * as the other's baseline. Comparison uses {@code median_ms}.
+ */
+public final class BenchReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int runs;
+    private final int warmupRuns;
+    private final Map<String, BenchResult> results = new LinkedHashMap<>();
+
+    public BenchReport(int runs, int warmupRuns) {
+        this.runs = runs;
+        this.warmupRuns = warmupRuns;
+    }
+
+    public BenchReport add(String name, BenchResult result) {
+        results.put(name, result);
+        return this;
+    }
+
+    public Map<String, BenchResult> results() {
+        return results;
+    }
+
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("generated_at_utc", OffsetDateTime.now(ZoneOffset.UTC).toString());
+        json.put("runs", runs);
+        json.put("warmup_runs", warmupRuns);
+        json.put("java_version", System.getProperty("java.version"));
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, BenchResult> entry : results.entrySet()) {
+            entries.put(entry.getKey(), entry.getValue().toJson());
+        }
+        json.put("results", entries);
+        return json;
+    }
+
+    public String toJsonString() throws IOException {
+        return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(toJson()) + "\n";
+    }
+
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, toJsonString());
+    }
+
+    /** One line per benchmark: median, tail latency, allocation and GC. */
+    public List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, BenchResult> entry : results.entrySet()) {
+            BenchResult r = entry.getValue();
+            String alloc = r.allocatedBytesPerOp() < 0
+                ? "n/a"
+                : String.format(Locale.ROOT, "%d B/op, %.1f MB/s", r.allocatedBytesPerOp(), r.allocationRateMbPerSec());
+            lines.add(String.format(Locale.ROOT,
+                "%s: median=%.3fms, p95=%.3fms, p99=%.3fms, mean=%.3fms, min=%.3fms, max=%.3fms, alloc=%s, gc=%d (%dms)",
+                entry.getKey(), r.medianMs(), r.percentileMs(0.95), r.percentileMs(0.99), r.meanMs(),
+                r.minMs(), r.maxMs(), alloc, r.gcCount(), r.gcTimeMs()));
+        }
+        return lines;
+    }
+
+    /**
+     * Compare medians against a baseline document. A benchmark missing from
+     * the baseline is reported and skipped.
+     */
+    public Comparison compare(Path baselineFile, Double maxRegressionPct) throws IOException {
+        JsonNode baseline = MAPPER.readTree(baselineFile.toFile()).path("results");
+        Comparison comparison = new Comparison();
+        for (Map.Entry<String, BenchResult> entry : results.entrySet()) {
+            String name = entry.getKey();
+            double current = BenchResult.round(entry.getValue().medianMs());
+            JsonNode baselineMedian = baseline.path(name).path("median_ms");
+            if (!baselineMedian.isNumber() || baselineMedian.asDouble() == 0) {
+                comparison.lines.add(name + ": baseline median missing; skipped");
+                continue;
+            }
+            double previous = baselineMedian.asDouble();
+            double deltaMs = current - previous;
+            double deltaPct = deltaMs / previous * 100.0;
+            comparison.lines.add(String.format(Locale.ROOT,
+                "%s: baseline=%.3fms -> current=%.3fms (%.3fms, %.2f%% %s)",
+                name, previous, current, Math.abs(deltaMs), Math.abs(deltaPct), deltaMs < 0 ? "faster" : "slower"));
+            if (maxRegressionPct != null && deltaPct > maxRegressionPct) {
+                comparison.regressions.add(String.format(Locale.ROOT, "%s (%.2f%%)", name, deltaPct));
+            }
+        }
+        return comparison;
+    }
+
+    /** Outcome of {@link #compare}. */
+    public static final class Comparison {
+
+        private final List<String> lines = new ArrayList<>();
+        private final List<String> regressions = new ArrayList<>();
+
+        public List<String> lines() {
+            return lines;
+        }
+
+        /** Benchmarks slower than the allowed regression, with their delta. */
+        public List<String> regressions() {
+            return regressions;
+        }
+    }
+}
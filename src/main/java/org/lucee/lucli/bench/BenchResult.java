@@ -0,0 +1,145 @@
+package org.lucee.lucli.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics for one benchmark, in the shape of the per-benchmark entries of
+ * {@code tests/perf/benchmark-startup.sh} output ({@code median_ms},
+ * {@code p95_ms}, ...), plus tail latency, allocation and GC figures.
+ */
+public final class BenchResult {
+
+    private final int warmupRuns;
+    private final double[] samplesMs;
+    private final double[] sortedMs;
+    private final long allocatedBytes;
+    private final long gcCount;
+    private final long gcTimeMs;
+
+    /**
+     * @param sampleNanos    duration of each measured iteration
+     * @param allocatedBytes bytes allocated by the benchmark thread over all
+     *                       measured iterations, or -1 if the JVM cannot tell
+     * @param gcCount        collections (all collectors) during measurement
+     * @param gcTimeMs       time spent in those collections
+     */
+    public BenchResult(int warmupRuns, long[] sampleNanos, long allocatedBytes, long gcCount, long gcTimeMs) {
+        if (sampleNanos.length == 0) {
+            throw new IllegalArgumentException("At least one measured iteration is required");
+        }
+        this.warmupRuns = warmupRuns;
+        this.samplesMs = new double[sampleNanos.length];
+        for (int i = 0; i < sampleNanos.length; i++) {
+            samplesMs[i] = sampleNanos[i] / 1_000_000.0;
+        }
+        this.sortedMs = samplesMs.clone();
+        Arrays.sort(sortedMs);
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcTimeMs = gcTimeMs;
+    }
+
+    public int runs() {
+        return samplesMs.length;
+    }
+
+    public double minMs() {
+        return sortedMs[0];
+    }
+
+    public double maxMs() {
+        return sortedMs[sortedMs.length - 1];
+    }
+
+    public double meanMs() {
+        return totalMs() / samplesMs.length;
+    }
+
+    /** The middle sample, or the mean of the two middle samples. */
+    public double medianMs() {
+        int n = sortedMs.length;
+        return n % 2 == 1 ? sortedMs[n / 2] : (sortedMs[n / 2 - 1] + sortedMs[n / 2]) / 2;
+    }
+
+    /** Nearest-rank percentile, as in benchmark-startup.sh. */
+    public double percentileMs(double q) {
+        int index = (int) Math.ceil(q * sortedMs.length) - 1;
+        return sortedMs[Math.max(0, Math.min(sortedMs.length - 1, index))];
+    }
+
+    /** Population standard deviation. */
+    public double stddevMs() {
+        double mean = meanMs();
+        double sum = 0;
+        for (double sample : samplesMs) {
+            sum += (sample - mean) * (sample - mean);
+        }
+        return Math.sqrt(sum / samplesMs.length);
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long gcCount() {
+        return gcCount;
+    }
+
+    public long gcTimeMs() {
+        return gcTimeMs;
+    }
+
+    /** Allocated bytes per measured iteration, or -1 if unknown. */
+    public long allocatedBytesPerOp() {
+        return allocatedBytes < 0 ? -1 : allocatedBytes / samplesMs.length;
+    }
+
+    /** Allocation rate over the measured iterations in MB/s, or -1 if unknown. */
+    public double allocationRateMbPerSec() {
+        double seconds = totalMs() / 1000.0;
+        if (allocatedBytes < 0 || seconds <= 0) {
+            return -1;
+        }
+        return allocatedBytes / (1024.0 * 1024.0) / seconds;
+    }
+
+    private double totalMs() {
+        double total = 0;
+        for (double sample : samplesMs) {
+            total += sample;
+        }
+        return total;
+    }
+
+    /** JSON-ready map; every latency is in milliseconds rounded to 3 places. */
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("runs", runs());
+        json.put("warmup_runs", warmupRuns);
+        json.put("mean_ms", round(meanMs()));
+        json.put("median_ms", round(medianMs()));
+        json.put("p95_ms", round(percentileMs(0.95)));
+        json.put("p99_ms", round(percentileMs(0.99)));
+        json.put("min_ms", round(minMs()));
+        json.put("max_ms", round(maxMs()));
+        json.put("stddev_ms", round(stddevMs()));
+        json.put("alloc_bytes_per_op", allocatedBytesPerOp());
+        json.put("alloc_rate_mb_per_sec", round(allocationRateMbPerSec()));
+        json.put("gc_count", gcCount);
+        json.put("gc_time_ms", gcTimeMs);
+        List<Double> samples = new ArrayList<>(samplesMs.length);
+        for (double sample : samplesMs) {
+            samples.add(round(sample));
+        }
+        json.put("samples_ms", samples);
+        return json;
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,78 @@
+package org.lucee.lucli.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Runs a task for a number of warmup iterations and then times each
+ * measured iteration, all on the calling thread.
+ *
+ * Allocation is read from the HotSpot {@code ThreadMXBean} for the calling
+ * thread only; work the task hands to other threads is not counted. GC
+ * counts cover the whole JVM.
+ */
+public final class BenchRunner {
+
+    /** One benchmark iteration. */
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private BenchRunner() {
+    }
+
+    public static BenchResult run(int warmup, int iterations, Task task) throws Exception {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be at least 1");
+        }
+        for (int i = 0; i < warmup; i++) {
+            task.run();
+        }
+
+        long[] samples = new long[iterations];
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMs();
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            task.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        long allocatedAfter = allocatedBytes();
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+
+        return new BenchResult(warmup, samples, allocated,
+            gcCount() - gcCountBefore, gcTimeMs() - gcTimeBefore);
+    }
+
+    /** Bytes allocated so far by the calling thread, or -1 if unsupported. */
+    static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot
+                && hotspot.isThreadAllocatedMemorySupported()) {
+            if (!hotspot.isThreadAllocatedMemoryEnabled()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+            }
+            return hotspot.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcTimeMs() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
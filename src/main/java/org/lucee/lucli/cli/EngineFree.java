@@ -0,0 +1,22 @@
+package org.lucee.lucli.cli;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a picocli command that never needs the Lucee engine.
+ *
+ * The speculative engine boot started by {@link org.lucee.lucli.EngineBootstrap}
+ * is skipped (or abandoned) when the invoked command, or any of its parent
+ * commands, carries this annotation. Putting it on a command that does use the
+ * engine is harmless for correctness: the engine is then booted on first use
+ * as before, just without the head start.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface EngineFree {
+}
@@ -1,5 +1,6 @@
 package org.lucee.lucli.cli;
 
+import org.lucee.lucli.EngineBootstrap;
 import org.lucee.lucli.LuCLI;
 import org.lucee.lucli.Timer;
 
@@ -11,7 +12,8 @@ import picocli.CommandLine.ParseResult;
 /**
  * Composite execution strategy that handles:
  * 1. Setting global flags from parsed command options
- * 2. Timing command execution when --timing flag is enabled
+ * 2. Cancelling the speculative engine boot for {@link EngineFree} commands
+ * 3. Timing command execution when --timing flag is enabled
  * 
  * This strategy walks the command hierarchy to find the root LuCLI command
  * and extracts global flags (verbose, debug, timing, preserveWhitespace) to
@@ -30,6 +32,9 @@ public class LuCLIExecutionStrategy implements IExecutionStrategy {
     public int execute(ParseResult parseResult) throws ExecutionException {
         // Extract and set global flags from the root command
         setGlobalFlagsFromParseResult(parseResult);
+
+        // Drop the speculative engine boot if this command never needs it
+        EngineBootstrap.onCommandResolved(parseResult);
         
         // Get command name for timing
         String commandName = parseResult.commandSpec().name();
@@ -72,8 +77,10 @@ public class LuCLIExecutionStrategy implements IExecutionStrategy {
                 LuCLI.debug = rootCmd.isDebug();
                 LuCLI.timing = rootCmd.isTiming();
                 LuCLI.preserveWhitespace = rootCmd.isPreserveWhitespace();
+                LuCLI.compileCache = !rootCmd.isNoCompileCache();
                 LuCLI.currentEnvironment = rootCmd.getEnvOption();
                 LuCLI.envFilePath = rootCmd.getEnvFileOption();
+                Timer.setTraceFile(rootCmd.getTimingFile());
                 Timer.setEnabled(rootCmd.isTiming());
             }
         }
@@ -0,0 +1,182 @@
+package org.lucee.lucli.cli.commands;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.LuceeScriptEngine;
+import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.bench.BenchReport;
+import org.lucee.lucli.bench.BenchResult;
+import org.lucee.lucli.bench.BenchRunner;
+import org.lucee.lucli.daemon.ThreadOutputRouter;
+import org.lucee.lucli.modules.ModuleCommand;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Benchmark a CFML script or a module function inside one engine, so the
+ * samples measure the CFML rather than JVM and engine boot as a
+ * {@code lucli run} shell loop would.
+ *
+ * The report uses the JSON layout of {@code tests/perf/benchmark-startup.sh}
+ * (see {@link BenchReport}), so its files work as each other's baselines.
+ */
+@Command(
+    name = "bench",
+    description = "Benchmark a CFML script (.cfs, .cfm) or module function in a warm engine",
+    footer = {
+        "",
+        "Examples:",
+        "  lucli bench script.cfs                       # 5 warmup + 20 measured runs",
+        "  lucli bench script.cfs -n 200 --warmup 50    # More samples",
+        "  lucli bench mymodule greet name=World        # Module function with arguments",
+        "  lucli bench script.cfs -o bench.json         # Save the JSON report",
+        "  lucli bench script.cfs --baseline bench.json --max-regression-pct 10",
+        "",
+        "Note:",
+        "  Output written by the script or module is discarded while benchmarking."
+    }
+)
+public class BenchCommand implements Callable<Integer> {
+
+    @Parameters(
+        index = "0",
+        paramLabel = "TARGET",
+        description = "CFML script file (.cfs, .cfm) or installed module name"
+    )
+    private String target;
+
+    @Parameters(
+        index = "1",
+        arity = "0..*",
+        paramLabel = "ARGS",
+        description = "Script arguments, or the module function (default: main) followed by key=value arguments"
+    )
+    private String[] targetArgs = new String[0];
+
+    @Option(names = {"-n", "--iterations"}, defaultValue = "20", description = "Measured iterations (default: ${DEFAULT-VALUE})")
+    private int iterations;
+
+    @Option(names = "--warmup", defaultValue = "5", description = "Warmup iterations, not measured (default: ${DEFAULT-VALUE})")
+    private int warmup;
+
+    @Option(names = "--name", paramLabel = "<name>", description = "Name of the result in the report (default: script file name or module.function)")
+    private String name;
+
+    @Option(names = {"-o", "--output"}, paramLabel = "<file>", description = "Write the JSON report to this file")
+    private Path output;
+
+    @Option(names = "--json", description = "Print the JSON report instead of the summary")
+    private boolean json;
+
+    @Option(names = "--baseline", paramLabel = "<file>", description = "Report (from lucli bench or benchmark-startup.sh) to compare medians against")
+    private Path baseline;
+
+    @Option(names = "--max-regression-pct", paramLabel = "<pct>", description = "With --baseline, fail if a median is slower by more than pct")
+    private Double maxRegressionPct;
+
+    @Override
+    public Integer call() throws Exception {
+        if (iterations < 1) {
+            StringOutput.Quick.error("--iterations must be at least 1");
+            return 1;
+        }
+        if (warmup < 0) {
+            StringOutput.Quick.error("--warmup must not be negative");
+            return 1;
+        }
+        if (maxRegressionPct != null && maxRegressionPct < 0) {
+            StringOutput.Quick.error("--max-regression-pct must be a non-negative number");
+            return 1;
+        }
+        if (baseline != null && !Files.isRegularFile(baseline)) {
+            StringOutput.Quick.error("Baseline not found: " + baseline);
+            return 1;
+        }
+
+        String resultName;
+        Path script = null;
+        String lower = target.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".cfs") || lower.endsWith(".cfm")) {
+            script = Paths.get(target);
+            if (!script.isAbsolute()) {
+                script = LuCLI.getEffectiveRuntimeCwd().resolve(script).normalize();
+            }
+            if (!Files.isRegularFile(script)) {
+                StringOutput.Quick.error("File not found: " + target);
+                return 1;
+            }
+            resultName = script.getFileName().toString();
+        } else if (ModuleCommand.moduleExists(target)) {
+            String function = targetArgs.length > 0 && !targetArgs[0].contains("=") && !targetArgs[0].startsWith("-")
+                ? targetArgs[0] : "main";
+            resultName = target + "." + function;
+        } else {
+            StringOutput.Quick.error("'" + target + "' is neither a .cfs/.cfm file nor an installed module");
+            return 1;
+        }
+        if (name != null && !name.isBlank()) {
+            resultName = name;
+        }
+
+        // Route output per thread so the iterations can be silenced without
+        // touching anyone else's output. A speculative boot has already
+        // installed the router before creating the engine; this covers runs
+        // that boot it here.
+        ThreadOutputRouter.install();
+        LuceeScriptEngine engine = LuceeScriptEngine.getInstance();
+        String scriptFile = script == null ? null : script.toString();
+        BenchRunner.Task task = scriptFile != null
+            ? () -> engine.executeScript(scriptFile, targetArgs)
+            : () -> engine.executeModuleAndReturn(target, targetArgs);
+
+        if (!json) {
+            LuCLI.info("Benchmarking " + resultName + ": " + warmup + " warmup + " + iterations + " measured iterations");
+        }
+        BenchResult result;
+        try (PrintStream discard = new PrintStream(OutputStream.nullOutputStream(), true);
+             ThreadOutputRouter.Capture capture = ThreadOutputRouter.capture(discard)) {
+            result = BenchRunner.run(warmup, iterations, task);
+        } catch (Exception e) {
+            StringOutput.Quick.error("Benchmark '" + resultName + "' failed: " + e.getMessage());
+            LuCLI.printDebugStackTrace(e);
+            return 1;
+        }
+
+        BenchReport report = new BenchReport(iterations, warmup).add(resultName, result);
+        if (output != null) {
+            report.write(output);
+        }
+        if (json) {
+            System.out.print(report.toJsonString());
+        } else {
+            report.summaryLines().forEach(System.out::println);
+            if (output != null) {
+                System.out.println("Saved benchmark JSON: " + output);
+            }
+        }
+
+        if (baseline != null) {
+            BenchReport.Comparison comparison = report.compare(baseline, maxRegressionPct);
+            // Keep stdout pure JSON when --json is used.
+            PrintStream out = json ? System.err : System.out;
+            out.println();
+            out.println("Comparison against baseline: " + baseline);
+            comparison.lines().forEach(out::println);
+            if (!comparison.regressions().isEmpty()) {
+                StringOutput.Quick.error("Regression threshold exceeded (" + maxRegressionPct + "%): "
+                    + String.join(", ", comparison.regressions()));
+                return 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -2,6 +2,8 @@ package org.lucee.lucli.cli.commands;
 
 import java.util.concurrent.Callable;
 
+import org.lucee.lucli.cli.EngineFree;
+
 import picocli.AutoComplete;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
@@ -16,6 +18,7 @@ import picocli.CommandLine.Command;
  *   lucli completion bash   # Generate bash completion script
  *   lucli completion zsh    # Generate zsh completion script
  */
+@EngineFree
 @Command(
     name = "completion",
     description = "Generate shell completion scripts for bash or zsh",
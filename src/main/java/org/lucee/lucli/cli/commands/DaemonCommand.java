@@ -2,24 +2,33 @@ package org.lucee.lucli.cli.commands;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.PrintStream;
-import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 
 import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.LuceeEnginePool;
 import org.lucee.lucli.LuceeScriptEngine;
-import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.daemon.DaemonTransport;
+import org.lucee.lucli.daemon.JsonDaemonProtocol;
+import org.lucee.lucli.daemon.JsonDaemonSession;
+import org.lucee.lucli.daemon.JsonRequestExecutor;
+import org.lucee.lucli.daemon.ThreadOutputRouter;
+import org.lucee.lucli.daemon.WarmDaemon;
+import org.lucee.lucli.metrics.MetricsEndpoint;
+import org.lucee.lucli.metrics.MetricsRegistry;
 import org.lucee.lucli.modules.ModuleCommand;
+import org.lucee.lucli.paths.LucliPaths;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import picocli.CommandLine.Command;
@@ -31,10 +40,18 @@ import picocli.CommandLine.Option;
  * Modes:
  * - Default JSON daemon: one JSON line per connection
  *   {"argv":["modules","list"]} → executes Picocli pipeline and returns
- *   {"exitCode":0,"output":"..."}
+ *   {"exitCode":0,"output":"..."}, or persistent pipelined connections (see
+ *   JsonDaemonProtocol). Requests run concurrently (see JsonRequestExecutor).
+ *   {"argv":["__metrics"]} returns request metrics (see MetricsRegistry).
  *
  * - LSP daemon: Language Server Protocol over TCP using a CFML module
  *   lucli daemon --lsp --module LuceeLSP
+ *
+ * JSON, LSP and client modes listen on / connect to 127.0.0.1:port, or a
+ * Unix domain socket with --socket (see DaemonTransport).
+ *
+ * - Warm daemon: resident engine used by the launcher for one-shot commands
+ *   lucli daemon --warm (normally started automatically, see WarmDaemon)
  */
 @Command(
     name = "daemon",
@@ -45,6 +62,10 @@ public class DaemonCommand implements Callable<Integer> {
     @Option(names = "--port", description = "Port to listen on", defaultValue = "10000")
     private int port;
 
+    @Option(names = "--socket", arity = "0..1", fallbackValue = "", paramLabel = "<path>",
+        description = "Use a Unix domain socket instead of TCP (default path: ~/.lucli/daemon/daemon.sock, or lsp.sock with --lsp)")
+    private String socketPath;
+
     @Option(names = "--lsp", description = "Run daemon in Language Server Protocol (LSP) mode")
     private boolean lspMode;
 
@@ -57,6 +78,21 @@ public class DaemonCommand implements Callable<Integer> {
     @Option(names = "--module", description = "CFML module to use as LSP endpoint (e.g. LuceeLSP)")
     private String lspModuleName = "LuceeLSP";
 
+    @Option(names = "--warm", description = "Run the resident warm-engine daemon used by the launcher for one-shot commands")
+    private boolean warmMode;
+
+    @Option(names = "--max-concurrent", description = "JSON mode: requests executed at once, each on its own engine (default: LUCLI_ENGINE_POOL_SIZE or CPU count)")
+    private Integer maxConcurrent;
+
+    @Option(names = "--request-timeout", description = "JSON mode: seconds before a request is cancelled with exit code 124 (default: 0, no limit)", defaultValue = "0")
+    private long requestTimeoutSeconds;
+
+    @Option(names = "--metrics-port", description = "JSON mode: also serve metrics in Prometheus text format on 127.0.0.1:<port>/metrics")
+    private Integer metricsPort;
+
+    @Option(names = "--idle-timeout", description = "In warm mode, seconds without clients before the daemon exits (default: 900)", defaultValue = "900")
+    private long idleTimeoutSeconds;
+
     @Override
     public Integer call() throws Exception {
         if (clientMode) {
@@ -65,146 +101,89 @@ public class DaemonCommand implements Callable<Integer> {
         if (lspMode) {
             return runLspDaemon();
         }
+        if (warmMode) {
+            return new WarmDaemon(Duration.ofSeconds(idleTimeoutSeconds)).run();
+        }
         return runJsonDaemon();
     }
 
-    /** JSON daemon mode (existing behaviour) */
+    /** JSON daemon mode: one virtual thread per connection. */
     private Integer runJsonDaemon() throws Exception {
-        LuCLI.info("Starting LuCLI JSON daemon on 127.0.0.1:" + port + " ...");
+        LuCLI.info("Starting LuCLI JSON daemon on " + endpoint() + " ...");
 
-        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"))) {
-            LuCLI.info("LuCLI JSON daemon listening on 127.0.0.1:" + port);
+        // Route output per thread before any engine exists, so nothing holds
+        // on to the raw process streams.
+        ThreadOutputRouter.install();
 
-            // Simple, single-threaded loop: handle one connection at a time.
-            while (true) {
-                try (Socket client = server.accept()) {
-                    if (LuCLI.debug) {
-                        LuCLI.debug("Daemon", "Accepted connection from " + client.getRemoteSocketAddress());
-                    }
-                    handleJsonClient(client);
-                } catch (IOException e) {
-                    String msg = e.getMessage();
-                    boolean isStreamClosed = msg != null && msg.contains("Stream closed");
-                    if (!isStreamClosed) {
-                        LuCLI.error("Daemon client error: " + msg);
-                    }
-                    if (LuCLI.debug) {
-                        e.printStackTrace();
-                    }
-                }
-            }
-        }
-    }
-
-    private void handleJsonClient(Socket client) throws IOException {
-        BufferedReader reader = new BufferedReader(
-            new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
-        BufferedWriter writer = new BufferedWriter(
-            new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+        int concurrency = maxConcurrent != null && maxConcurrent > 0 ? maxConcurrent : LuceeEnginePool.configuredSize();
+        LuceeEnginePool pool = new LuceeEnginePool(concurrency);
+        pool.publishGauges(MetricsRegistry.getShared());
+        JsonDaemonSession session = new JsonDaemonSession(new JsonRequestExecutor(
+            pool, requestTimeoutSeconds > 0 ? Duration.ofSeconds(requestTimeoutSeconds) : null));
 
-        String line = reader.readLine();
-        if (line == null || line.trim().isEmpty()) {
-            // Nothing to do; close connection.
-            if (LuCLI.debug) {
-                LuCLI.debug("Daemon", "Received empty request from " + client.getRemoteSocketAddress());
-            }
-            return;
+        if (metricsPort != null) {
+            MetricsEndpoint.start(metricsPort, MetricsRegistry.getShared());
+            LuCLI.info("Metrics available at http://127.0.0.1:" + metricsPort + MetricsEndpoint.PATH);
         }
 
-        if (LuCLI.debug) {
-            LuCLI.debug("Daemon", "Raw request from " + client.getRemoteSocketAddress() + ": " + line);
-        }
+        try (DaemonTransport.Listener listener = listen()) {
+            LuCLI.info("LuCLI JSON daemon listening on " + listener.describe() + " (max " + concurrency + " concurrent requests)");
 
-        ObjectMapper mapper = new ObjectMapper();
-        DaemonRequest request;
-        try {
-            request = mapper.readValue(line, DaemonRequest.class);
-        } catch (Exception e) {
-            if (LuCLI.debug) {
-                LuCLI.debug("Daemon", "Failed to parse JSON request: " + e.getMessage());
+            while (true) {
+                DaemonTransport.Connection client = listener.accept();
+                if (LuCLI.debug) {
+                    LuCLI.debug("Daemon", "Accepted connection from " + client.peer());
+                }
+                Thread.ofVirtual().name("lucli-daemon-client").start(() -> {
+                    try (client) {
+                        session.serve(client.in(), client.out(), client.peer());
+                    } catch (IOException e) {
+                        String msg = e.getMessage();
+                        boolean isStreamClosed = msg != null && msg.contains("Stream closed");
+                        if (!isStreamClosed) {
+                            LuCLI.error("Daemon client error: " + msg);
+                        }
+                        if (LuCLI.debug) {
+                            e.printStackTrace();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
             }
-            writeJsonErrorResponse(writer, 1, "Invalid JSON request: " + e.getMessage());
-            return;
-        }
-
-        if (request.argv == null || request.argv.length == 0) {
-            writeJsonErrorResponse(writer, 1, "Request must contain non-empty 'argv' array");
-            return;
         }
+    }
 
-        if (LuCLI.debug) {
-            LuCLI.debug("Daemon", "Executing request id=" + request.id + " argv=" + Arrays.toString(request.argv));
+    /** Unix domain socket for this mode, or null when listening on TCP. */
+    private Path socketFile() {
+        if (socketPath == null) {
+            return null;
         }
-
-        // Capture stdout/stderr for this request only (including StringOutput).
-        PrintStream originalOut = System.out;
-        PrintStream originalErr = System.err;
-        StringOutput stringOutput = StringOutput.getInstance();
-        PrintStream originalStringOut = stringOutput.getOutputStream();
-        PrintStream originalStringErr = stringOutput.getErrorStream();
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        int exitCode;
-        try {
-            PrintStream capture = new PrintStream(baos, true, StandardCharsets.UTF_8);
-            System.setOut(capture);
-            System.setErr(capture);
-            stringOutput.setOutputStream(capture);
-            stringOutput.setErrorStream(capture);
-
-            // Reuse the main Picocli command pipeline without System.exit().
-            picocli.CommandLine cmd = new picocli.CommandLine(new org.lucee.lucli.LuCLI());
-            exitCode = cmd.execute(request.argv);
-        } catch (Exception e) {
-            exitCode = 1;
-            baos.writeBytes(("Daemon execution error: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
-            if (LuCLI.debug) {
-                e.printStackTrace();
-            }
-        } finally {
-            System.setOut(originalOut);
-            System.setErr(originalErr);
-            stringOutput.setOutputStream(originalStringOut);
-            stringOutput.setErrorStream(originalStringErr);
+        if (!socketPath.isBlank()) {
+            return Paths.get(socketPath);
         }
+        LucliPaths.ResolvedPaths paths = LucliPaths.resolve();
+        return lspMode ? paths.lspSocketFile() : paths.daemonSocketFile();
+    }
 
-        String output = baos.toString(StandardCharsets.UTF_8);
-
-        if (LuCLI.debug) {
-            LuCLI.debug("Daemon", "Command exitCode=" + exitCode + ", output:\n" + output);
-        }
-
-        DaemonResponse response = new DaemonResponse();
-        response.id = request.id;
-        response.exitCode = exitCode;
-        response.output = output;
-
-        if (LuCLI.debug) {
-            try {
-                LuCLI.debug("Daemon", "Sending response: " + mapper.writeValueAsString(response));
-            } catch (Exception ignored) {
-                // Ignore debug serialization errors
-            }
-        }
+    private String endpoint() {
+        Path socket = socketFile();
+        return socket != null ? socket.toString() : "127.0.0.1:" + port;
+    }
 
-        mapper.writeValue(writer, response);
-        writer.write("\n");
-        writer.flush();
+    private DaemonTransport.Listener listen() throws IOException {
+        Path socket = socketFile();
+        return socket != null ? DaemonTransport.listenUnix(socket) : DaemonTransport.listenTcp(port);
     }
 
-    private void writeJsonErrorResponse(BufferedWriter writer, int exitCode, String message) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        DaemonResponse response = new DaemonResponse();
-        response.exitCode = exitCode;
-        response.output = message;
-        mapper.writeValue(writer, response);
-        writer.write("\n");
-        writer.flush();
+    private DaemonTransport.Connection connect() throws IOException {
+        Path socket = socketFile();
+        return socket != null ? DaemonTransport.connectUnix(socket) : DaemonTransport.connectTcp(port);
     }
 
     /** LSP daemon mode: minimal echo implementation via a CFML module. */
     private Integer runLspDaemon() throws Exception {
-        LuCLI.info("Starting LuCLI LSP daemon on 127.0.0.1:" + port + " using module '" + lspModuleName + "' ...");
+        LuCLI.info("Starting LuCLI LSP daemon on " + endpoint() + " using module '" + lspModuleName + "' ...");
 
         // Ensure Lucee engine + directories are initialized so modules can run.
         LuceeScriptEngine.getInstance();
@@ -215,17 +194,17 @@ public class DaemonCommand implements Callable<Integer> {
             return 1;
         }
 
-        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"))) {
-            LuCLI.info("LuCLI LSP daemon listening on 127.0.0.1:" + port);
+        try (DaemonTransport.Listener listener = listen()) {
+            LuCLI.info("LuCLI LSP daemon listening on " + listener.describe());
 
             while (true) {
-                Socket client = server.accept();
+                DaemonTransport.Connection client = listener.accept();
                 if (LuCLI.debug) {
-                    LuCLI.debug("LSP", "Accepted connection from " + client.getRemoteSocketAddress());
+                    LuCLI.debug("LSP", "Accepted connection from " + client.peer());
                 }
                 // Handle client in-place (single-threaded for now)
                 try {
-                    handleLspClient(client);
+                    handleLspClient(client.in(), client.out());
                 } catch (IOException ioe) {
                     if (LuCLI.debug) {
                         ioe.printStackTrace();
@@ -247,9 +226,9 @@ public class DaemonCommand implements Callable<Integer> {
      * - Passes JSON to CFML module main(message, context)
      * - Echo implementation: module can just return the message or a struct.
      */
-    private void handleLspClient(Socket client) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+    private void handleLspClient(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
 
         while (true) {
             // Read headers until blank line
@@ -321,25 +300,46 @@ public class DaemonCommand implements Callable<Integer> {
         }
     }
 
-    /** Interactive client mode: connect to a running daemon and send commands. */
+    /**
+     * Interactive client mode: one persistent, pipelined connection to a
+     * running daemon for the whole session.
+     */
     private Integer runClient() {
-        LuCLI.info("Connecting to LuCLI daemon on 127.0.0.1:" + port + " ...");
+        LuCLI.info("Connecting to LuCLI daemon on " + endpoint() + " ...");
 
-        // Quick connectivity check
-        try (Socket probe = new Socket(InetAddress.getByName("127.0.0.1"), port)) {
-            // connected OK
+        ObjectMapper mapper = new ObjectMapper();
+
+        try (DaemonTransport.Connection connection = connect()) {
+            BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(connection.out(), StandardCharsets.UTF_8));
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.in(), StandardCharsets.UTF_8));
+
+            JsonDaemonProtocol.Request hello = new JsonDaemonProtocol.Request();
+            hello.protocol = JsonDaemonProtocol.PIPELINE;
+            sendLine(writer, mapper.writeValueAsString(hello));
+            String ack = reader.readLine();
+            if (ack == null || !JsonDaemonProtocol.PIPELINE.equals(
+                    mapper.readValue(ack, JsonDaemonProtocol.Response.class).protocol)) {
+                LuCLI.error("Daemon on " + endpoint() + " does not support persistent connections; upgrade it and restart.");
+                return 1;
+            }
+
+            LuCLI.info("Connected. Type commands as you would with lucli (e.g. 'modules list').");
+            LuCLI.info("Type 'exit' or 'quit' to disconnect.\n");
+
+            return runClientLoop(mapper, reader, writer);
         } catch (IOException e) {
-            LuCLI.error("Could not connect to daemon on port " + port + ": " + e.getMessage());
-            LuCLI.error("Is the daemon running?  Start it with: lucli daemon --port " + port);
+            LuCLI.error("Could not connect to daemon on " + endpoint() + ": " + e.getMessage());
+            LuCLI.error("Is the daemon running?  Start it with: lucli daemon "
+                + (socketPath != null ? "--socket " + socketPath : "--port " + port));
             return 1;
         }
+    }
 
-        LuCLI.info("Connected. Type commands as you would with lucli (e.g. 'modules list').");
-        LuCLI.info("Type 'exit' or 'quit' to disconnect.\n");
-
-        ObjectMapper mapper = new ObjectMapper();
-
-        try (BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+    private Integer runClientLoop(ObjectMapper mapper, BufferedReader reader, BufferedWriter writer) {
+        BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        try {
             String line;
             while (true) {
                 System.out.print("lucli> ");
@@ -359,51 +359,30 @@ public class DaemonCommand implements Callable<Integer> {
                 }
 
                 // Split the input into argv tokens (simple whitespace split)
-                String[] argv = trimmed.split("\\s+");
-
-                // Build request
-                DaemonRequest request = new DaemonRequest();
+                JsonDaemonProtocol.Request request = new JsonDaemonProtocol.Request();
                 request.id = UUID.randomUUID().toString();
-                request.argv = argv;
-
-                try (Socket sock = new Socket(InetAddress.getByName("127.0.0.1"), port)) {
-                    BufferedWriter writer = new BufferedWriter(
-                        new OutputStreamWriter(sock.getOutputStream(), StandardCharsets.UTF_8));
-                    BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(sock.getInputStream(), StandardCharsets.UTF_8));
-
-                    // Send request
-                    String json = mapper.writeValueAsString(request);
-                    writer.write(json);
-                    writer.write("\n");
-                    writer.flush();
-
-                    // Read response
-                    String responseLine = reader.readLine();
-                    if (responseLine != null && !responseLine.isEmpty()) {
-                        if (rawMode) {
-                            // Print the exact JSON packet from the daemon
-                            System.out.println(responseLine);
-                        } else {
-                            DaemonResponse response = mapper.readValue(responseLine, DaemonResponse.class);
-                            if (response.output != null && !response.output.isEmpty()) {
-                                System.out.print(response.output);
-                                if (!response.output.endsWith("\n")) {
-                                    System.out.println();
-                                }
-                            }
-                            if (response.exitCode != 0) {
-                                System.out.println("[exit code: " + response.exitCode + "]");
-                            }
-                        }
-                    } else {
-                        System.out.println("(no response from daemon)");
-                    }
+                request.argv = trimmed.split("\\s+");
+
+                // Stream output so long-running commands show progress.
+                request.stream = true;
+
+                Integer exitCode;
+                try {
+                    sendLine(writer, mapper.writeValueAsString(request));
+                    exitCode = printStreamedResponse(mapper, reader, request.id);
                 } catch (IOException e) {
                     LuCLI.error("Communication error: " + e.getMessage());
                     LuCLI.error("Daemon may have stopped. Exiting client.");
                     return 1;
                 }
+
+                if (exitCode == null) {
+                    LuCLI.error("Daemon closed the connection. Exiting client.");
+                    return 1;
+                }
+                if (exitCode != 0 && !rawMode) {
+                    System.out.println("[exit code: " + exitCode + "]");
+                }
             }
         } catch (IOException e) {
             LuCLI.error("Client error: " + e.getMessage());
@@ -413,15 +392,58 @@ public class DaemonCommand implements Callable<Integer> {
         return 0;
     }
 
-    // Simple DTOs for JSON mapping
-    public static class DaemonRequest {
-        public String id;
-        public String[] argv;
+    /**
+     * Print the output frames for {@code id} as they arrive and return the
+     * exit code from its final response, or null if the connection closed
+     * first. Frames on a pipelined connection are correlated by id, not by
+     * order.
+     */
+    private Integer printStreamedResponse(ObjectMapper mapper, BufferedReader reader, String id) throws IOException {
+        boolean atLineStart = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            JsonNode frame = mapper.readTree(line);
+            if (!id.equals(frame.path("id").asText(null))) {
+                continue;
+            }
+            if (rawMode) {
+                // Print the exact JSON packets from the daemon
+                System.out.println(line);
+            }
+            if (!frame.has("stream")) {
+                // Errors (and non-streamed answers) carry their text here.
+                String output = frame.path("output").asText(null);
+                if (!rawMode && output != null && !output.isEmpty()) {
+                    System.out.print(output);
+                    atLineStart = output.endsWith("\n");
+                }
+                if (!rawMode && !atLineStart) {
+                    System.out.println();
+                }
+                return frame.path("exitCode").asInt(1);
+            }
+            if (rawMode) {
+                continue;
+            }
+            String chunk = frame.path("chunk").asText("");
+            if ("stderr".equals(frame.path("stream").asText())) {
+                System.err.print(chunk);
+                System.err.flush();
+            } else {
+                System.out.print(chunk);
+                System.out.flush();
+                atLineStart = chunk.isEmpty() ? atLineStart : chunk.endsWith("\n");
+            }
+        }
+        return null;
     }
 
-    public static class DaemonResponse {
-        public String id;
-        public int exitCode;
-        public String output;
+    private static void sendLine(BufferedWriter writer, String json) throws IOException {
+        writer.write(json);
+        writer.write("\n");
+        writer.flush();
     }
 }
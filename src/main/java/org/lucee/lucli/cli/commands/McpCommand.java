@@ -3,28 +3,49 @@ package org.lucee.lucli.cli.commands;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.LuceeEnginePool;
 import org.lucee.lucli.LuceeScriptEngine;
-import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.daemon.ThreadOutputRouter;
+import org.lucee.lucli.metrics.MetricsEndpoint;
+import org.lucee.lucli.metrics.MetricsRegistry;
 import org.lucee.lucli.modules.ModuleCommand;
+import org.lucee.lucli.modules.ModuleMetadataCache;
+import org.lucee.lucli.modules.ModuleProgress;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import lucee.runtime.type.Array;
-import lucee.runtime.type.Struct;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -32,10 +53,19 @@ import picocli.CommandLine.Parameters;
 /**
  * Start a per-module MCP server over stdio.
  *
- * Transport:
+ * Transport (stdio, the default):
  * - one JSON-RPC message per line (newline-delimited JSON)
  * - server MUST NOT write non-protocol data to stdout
  * - stderr may be used for logs
+ *
+ * With {@code --http}, the MCP streamable HTTP transport instead: one
+ * long-lived process serves any number of client sessions.
+ *
+ * Requests (and batch items) run concurrently on pooled engines; responses
+ * are written in request order. A tool call that carries a progress token
+ * streams its output as log notifications and module-reported progress as
+ * progress notifications while it runs; {@code notifications/cancelled}
+ * interrupts it.
  */
 @Command(
     name = "mcp",
@@ -64,6 +94,25 @@ public class McpCommand implements Callable<Integer> {
     )
     private String onceMethod;
 
+    @Option(
+        names = {"--http"},
+        description = "Serve MCP over streamable HTTP on 127.0.0.1 instead of stdio, so many clients share one process and its warm engines"
+    )
+    private boolean http;
+
+    @Option(
+        names = {"--port"},
+        description = "Port for --http (default: 10100)",
+        defaultValue = "10100"
+    )
+    private int port;
+
+    @Option(
+        names = {"--metrics-port"},
+        description = "Also serve metrics in Prometheus text format on 127.0.0.1:<port>/metrics (with --http they are always at /metrics)"
+    )
+    private Integer metricsPort;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     /**
@@ -80,8 +129,22 @@ public class McpCommand implements Callable<Integer> {
                     "mcphiddentools", "mcptoolspecs"
             );
 
-    private boolean initialized = false;
-    private String negotiatedProtocolVersion = null;
+    private final LuceeEnginePool pool = LuceeEnginePool.getShared();
+    private final MetricsRegistry metrics = MetricsRegistry.getShared();
+    private volatile ToolCatalog toolCatalog;
+
+    private static final String HTTP_PATH = "/mcp";
+    private static final String SESSION_HEADER = "Mcp-Session-Id";
+    private static final Duration SESSION_IDLE_TIMEOUT = Duration.ofHours(1);
+
+    private static final String METRICS_URI = "lucli://metrics";
+    private static final String METRICS_PROMETHEUS_URI = "lucli://metrics/prometheus";
+    private static final java.util.Set<String> KNOWN_METHODS = java.util.Set.of(
+            "tools/list", "tools/call", "resources/list", "resources/read");
+
+    /** MCP log levels, least severe first. */
+    private static final List<String> LOG_LEVELS =
+            List.of("debug", "info", "notice", "warning", "error", "critical", "alert", "emergency");
 
     @Override
     public Integer call() throws Exception {
@@ -101,27 +164,52 @@ public class McpCommand implements Callable<Integer> {
             return 1;
         }
 
-        // Ensure Lucee engine initialized (module metadata + execution depend on it).
-        LuceeScriptEngine.getInstance();
+        // Over stdio, stdout carries the protocol only. Module output is
+        // captured per call; anything else written to System.out ends up on
+        // stderr.
+        PrintStream protocolOut = System.out;
+        if (http) {
+            ThreadOutputRouter.install();
+        } else {
+            ThreadOutputRouter.install(System.err, System.err);
+        }
+
+        // Boot the engine (module metadata + execution depend on it) and
+        // leave one warm engine in the pool for the first call.
+        try (LuceeEnginePool.Lease lease = pool.acquire()) {
+            lease.engine();
+        }
 
         if (onceMethod != null && !onceMethod.isBlank()) {
             // Minimal debug mode: we simulate a request without starting the server loop.
             // For convenience, assume initialized so `--once tools/list` works.
-            this.initialized = true;
-            this.negotiatedProtocolVersion = "2025-03-26";
+            Session session = new Session(null);
+            session.initialized = true;
+            session.negotiatedProtocolVersion = "2025-03-26";
 
             Map<String, Object> fakeReq = new LinkedHashMap<>();
             fakeReq.put("jsonrpc", "2.0");
             fakeReq.put("id", "once");
             fakeReq.put("method", onceMethod.trim());
-            Map<String, Object> resp = handleRequestNode(mapper.valueToTree(fakeReq), mod);
+            Map<String, Object> resp = handleLeased(mapper.valueToTree(fakeReq), mod, session, null, new RunningRequest());
             if (resp != null) {
-                System.out.println(mapper.writeValueAsString(resp));
+                protocolOut.println(mapper.writeValueAsString(resp));
             }
             return 0;
         }
 
-        runStdioServer(mod);
+        if (http) {
+            runHttpServer(mod);
+            return 0;
+        }
+        HttpServer metricsServer = metricsPort != null ? MetricsEndpoint.start(metricsPort, metrics) : null;
+        try {
+            runStdioServer(mod, protocolOut);
+        } finally {
+            if (metricsServer != null) {
+                metricsServer.stop(0);
+            }
+        }
         return 0;
     }
 
@@ -135,52 +223,453 @@ public class McpCommand implements Callable<Integer> {
         return null;
     }
 
-    private void runStdioServer(String mod) throws Exception {
+    /**
+     * Read requests on the calling thread and dispatch them concurrently,
+     * batch items included. Responses go through one writer thread in the
+     * order the requests arrived, so a slow tool call delays the responses
+     * behind it but no longer the work behind it.
+     */
+    private void runStdioServer(String mod, PrintStream protocolOut) throws Exception {
         BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(protocolOut, StandardCharsets.UTF_8));
+        Session session = new Session(null);
+        MessageSink sink = message -> writeResponse(writer, message);
 
-        String line;
-        while ((line = reader.readLine()) != null) {
-            String trimmed = line.trim();
-            if (trimmed.isEmpty()) {
-                continue;
+        BlockingQueue<CompletableFuture<Object>> pending = new LinkedBlockingQueue<>();
+        CompletableFuture<Object> endOfInput = new CompletableFuture<>();
+        Thread writerThread = Thread.ofVirtual().name("lucli-mcp-writer").start(() -> {
+            try {
+                CompletableFuture<Object> next;
+                while ((next = pending.take()) != endOfInput) {
+                    Object resp;
+                    try {
+                        resp = next.join();
+                    } catch (CompletionException e) {
+                        // Handlers answer their own failures; this is a bug, not a reply.
+                        if (LuCLI.debug) {
+                            e.printStackTrace();
+                        }
+                        continue;
+                    }
+                    if (resp != null) {
+                        writeResponse(writer, resp);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try (ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+
+                JsonNode node;
+                try {
+                    node = mapper.readTree(trimmed);
+                } catch (JsonProcessingException e) {
+                    Map<String, Object> resp = jsonRpcErrorResponse(null, -32700, "Parse error: " + e.getOriginalMessage());
+                    pending.add(CompletableFuture.completedFuture(resp));
+                    continue;
+                }
+
+                // JSON-RPC batch support
+                if (node.isArray()) {
+                    List<CompletableFuture<Map<String, Object>>> items = new ArrayList<>();
+                    for (JsonNode item : node) {
+                        items.add(dispatch(item, mod, session, sink, dispatcher));
+                    }
+                    pending.add(CompletableFuture.allOf(items.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+                        List<Map<String, Object>> responses = new ArrayList<>();
+                        for (CompletableFuture<Map<String, Object>> item : items) {
+                            Map<String, Object> resp = item.join();
+                            if (resp != null) {
+                                responses.add(resp);
+                            }
+                        }
+                        return responses.isEmpty() ? null : responses;
+                    }));
+                } else {
+                    pending.add(dispatch(node, mod, session, sink, dispatcher).thenApply(resp -> resp));
+                }
             }
+        } finally {
+            pending.add(endOfInput);
+            writerThread.join();
+        }
+    }
 
-            JsonNode node;
+    /**
+     * Serve the MCP streamable HTTP transport on {@value #HTTP_PATH} until
+     * the process is stopped. Every client gets its own {@link Session}
+     * (negotiated version, log level, cancellable requests), identified by
+     * the {@code Mcp-Session-Id} header; all sessions share the engine pool
+     * and the tool catalog.
+     *
+     * A POST carrying requests is answered with an SSE stream (notifications
+     * for those requests, then their responses) when the client accepts
+     * {@code text/event-stream}, and with plain JSON otherwise. There are no
+     * server-initiated messages, so GET is answered with 405.
+     */
+    private void runHttpServer(String mod) throws Exception {
+        Map<String, Session> sessions = new ConcurrentHashMap<>();
+        ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(dispatcher);
+        server.createContext(MetricsEndpoint.PATH, MetricsEndpoint.handler(metrics));
+        server.createContext(HTTP_PATH, exchange -> {
             try {
-                node = mapper.readTree(trimmed);
-            } catch (JsonProcessingException e) {
-                Map<String, Object> resp = jsonRpcErrorResponse(null, -32700, "Parse error: " + e.getOriginalMessage());
-                writeResponse(writer, resp);
-                continue;
+                handleHttp(exchange, mod, sessions, dispatcher);
+            } catch (Exception e) {
+                if (LuCLI.debug) {
+                    e.printStackTrace();
+                }
+            } finally {
+                exchange.close();
             }
+        });
+        server.start();
+        System.err.println("MCP server for module '" + mod + "' listening on http://127.0.0.1:" + port + HTTP_PATH);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            dispatcher.shutdownNow();
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
 
-            // JSON-RPC batch support
-            if (node.isArray()) {
-                List<Map<String, Object>> responses = new ArrayList<>();
-                for (JsonNode item : node) {
-                    Map<String, Object> resp = handleRequestNode(item, mod);
-                    if (resp != null) {
-                        responses.add(resp);
-                    }
+    private void handleHttp(HttpExchange exchange, String mod, Map<String, Session> sessions,
+            ExecutorService dispatcher) throws IOException {
+        // Browsers send Origin; refuse pages from anywhere but this machine
+        // (DNS rebinding protection, as the MCP spec requires).
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (origin != null && !isLocalOrigin(origin)) {
+            exchange.sendResponseHeaders(403, -1);
+            return;
+        }
+
+        String sessionId = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+        switch (exchange.getRequestMethod()) {
+            case "POST":
+                handleHttpPost(exchange, mod, sessions, sessionId, dispatcher);
+                return;
+            case "DELETE":
+                Session closed = sessionId != null ? sessions.remove(sessionId) : null;
+                if (closed == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                closed.running.values().forEach(RunningRequest::cancel);
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            default:
+                exchange.getResponseHeaders().set("Allow", "POST, DELETE");
+                exchange.sendResponseHeaders(405, -1);
+        }
+    }
+
+    private void handleHttpPost(HttpExchange exchange, String mod, Map<String, Session> sessions, String sessionId,
+            ExecutorService dispatcher) throws IOException {
+        JsonNode body;
+        try {
+            body = mapper.readTree(exchange.getRequestBody());
+        } catch (JsonProcessingException e) {
+            sendHttpJson(exchange, 400, jsonRpcErrorResponse(null, -32700, "Parse error: " + e.getOriginalMessage()));
+            return;
+        }
+        List<JsonNode> messages = new ArrayList<>();
+        if (body != null && body.isArray()) {
+            body.forEach(messages::add);
+        } else {
+            messages.add(body);
+        }
+
+        boolean initialize = messages.size() == 1 && messages.get(0) != null
+            && "initialize".equals(messages.get(0).path("method").asText());
+        Session session;
+        if (initialize) {
+            evictIdleSessions(sessions);
+            session = new Session(UUID.randomUUID().toString());
+            sessions.put(session.id, session);
+        } else if (sessionId == null) {
+            sendHttpJson(exchange, 400, jsonRpcErrorResponse(null, -32600, "Bad Request: missing " + SESSION_HEADER + " header"));
+            return;
+        } else {
+            session = sessions.get(sessionId);
+            if (session == null) {
+                // Expired or unknown: the client must initialize a new session.
+                sendHttpJson(exchange, 404, jsonRpcErrorResponse(null, -32600, "Session not found"));
+                return;
+            }
+        }
+        session.lastUsedNanos = System.nanoTime();
+
+        boolean hasRequests = messages.stream()
+            .anyMatch(m -> m != null && m.has("method") && m.hasNonNull("id"));
+        if (!hasRequests) {
+            // Notifications (and client responses, which we never ask for).
+            for (JsonNode message : messages) {
+                if (message != null && message.has("method")) {
+                    handleRequestNode(message, mod, session, null);
                 }
-                if (!responses.isEmpty()) {
-                    writeResponse(writer, responses);
+            }
+            exchange.sendResponseHeaders(202, -1);
+            return;
+        }
+
+        if (initialize) {
+            exchange.getResponseHeaders().set(SESSION_HEADER, session.id);
+        }
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept == null || !accept.contains("text/event-stream")) {
+            // Notifications have nowhere to go without a stream.
+            List<CompletableFuture<Map<String, Object>>> results = new ArrayList<>();
+            for (JsonNode message : messages) {
+                results.add(dispatch(message, mod, session, null, dispatcher));
+            }
+            List<Map<String, Object>> responses = new ArrayList<>();
+            for (CompletableFuture<Map<String, Object>> result : results) {
+                Map<String, Object> resp = result.join();
+                if (resp != null) {
+                    responses.add(resp);
                 }
-            } else {
-                Map<String, Object> resp = handleRequestNode(node, mod);
+            }
+            if (responses.isEmpty()) {
+                // Every request was cancelled while it ran.
+                exchange.sendResponseHeaders(202, -1);
+                return;
+            }
+            sendHttpJson(exchange, 200, body.isArray() ? responses : responses.get(0));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream stream = exchange.getResponseBody();
+        MessageSink sink = message -> writeSseEvent(stream, message);
+        List<CompletableFuture<Void>> sent = new ArrayList<>();
+        for (JsonNode message : messages) {
+            sent.add(dispatch(message, mod, session, sink, dispatcher).thenAccept(resp -> {
                 if (resp != null) {
-                    writeResponse(writer, resp);
+                    sink.send(resp);
+                }
+            }));
+        }
+        CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void sendHttpJson(HttpExchange exchange, int status, Object message) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(message);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        exchange.getResponseBody().write(json);
+    }
+
+    /**
+     * Write one SSE event. A client that disconnected just misses the rest;
+     * per the spec, that does not cancel its requests.
+     */
+    private void writeSseEvent(OutputStream stream, Object message) {
+        try {
+            byte[] event = ("event: message\ndata: " + mapper.writeValueAsString(message) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+            synchronized (stream) {
+                stream.write(event);
+                stream.flush();
+            }
+        } catch (IOException e) {
+            if (LuCLI.debug) {
+                LuCLI.debug("MCP", "Could not write SSE event: " + e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isLocalOrigin(String origin) {
+        try {
+            String host = URI.create(origin).getHost();
+            return "localhost".equals(host) || "127.0.0.1".equals(host) || "[::1]".equals(host);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /** Drop sessions that have been idle (and have nothing running) for a while. */
+    private static void evictIdleSessions(Map<String, Session> sessions) {
+        long now = System.nanoTime();
+        sessions.values().removeIf(session -> session.running.isEmpty()
+            && now - session.lastUsedNanos > SESSION_IDLE_TIMEOUT.toNanos());
+    }
+
+    /**
+     * Handle lifecycle messages and notifications in line, so a request sent
+     * right after {@code initialize} never overtakes it, and everything else
+     * on its own virtual thread.
+     */
+    private CompletableFuture<Map<String, Object>> dispatch(JsonNode node, String mod, Session session,
+            MessageSink sink, ExecutorService dispatcher) {
+        String method = node != null && node.isObject() ? node.path("method").asText("") : "";
+        if (method.isEmpty() || "initialize".equals(method) || "ping".equals(method)
+                || "logging/setLevel".equals(method) || method.startsWith("notifications/")) {
+            return CompletableFuture.completedFuture(handleRequestNode(node, mod, session, sink));
+        }
+        // Registered here, on the reader thread, so a cancellation read right
+        // after the request always finds it.
+        RunningRequest request = new RunningRequest();
+        Object id = jsonNodeToJavaId(node.get("id"));
+        if (id != null) {
+            session.running.put(id, request);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return handleLeased(node, mod, session, sink, request);
+            } finally {
+                if (id != null) {
+                    session.running.remove(id, request);
                 }
             }
+        }, dispatcher);
+    }
+
+    /**
+     * Handle a request holding an engine pool lease bound to this thread,
+     * which caps concurrent calls at the pool size and gives each call its
+     * own engine. Requests that never touch CFML never create one.
+     */
+    private Map<String, Object> handleLeased(JsonNode node, String mod, Session session, MessageSink sink,
+            RunningRequest request) {
+        if (!request.start()) {
+            return null;
+        }
+        Map<String, Object> response = null;
+        MetricsRegistry.Series series = metrics.series("lucli_mcp_request", "method", methodLabel(node));
+        long start = series.begin();
+        try (LuceeEnginePool.Lease lease = pool.acquire()) {
+            lease.bindToCurrentThread();
+            try {
+                response = handleRequestNode(node, mod, session, sink);
+            } finally {
+                if (request.cancelled) {
+                    // The interrupt may have stopped CFML halfway through; a
+                    // fresh engine is cheaper than trusting this one again.
+                    lease.discard();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Object id = jsonNodeToJavaId(node.get("id"));
+            response = id == null ? null : jsonRpcErrorResponse(id, -32603, "Internal error: interrupted");
+        } finally {
+            request.finish();
+            series.end(start, response == null || response.containsKey("error"));
+        }
+        // The client gave up on a cancelled request; it expects no response.
+        return request.cancelled ? null : response;
+    }
+
+    /** Metrics label for a request's method; unknown methods share one series. */
+    private static String methodLabel(JsonNode node) {
+        String method = node.path("method").asText("");
+        return KNOWN_METHODS.contains(method) ? method : "other";
+    }
+
+    /**
+     * Interrupt the request named by a {@code notifications/cancelled}. A
+     * request that already finished (or never existed) is ignored.
+     */
+    private void handleCancelled(Session session, JsonNode params) {
+        if (params == null || !params.isObject()) {
+            return;
+        }
+        Object requestId = jsonNodeToJavaId(params.get("requestId"));
+        RunningRequest request = requestId != null ? session.running.get(requestId) : null;
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Protocol state of one MCP client: the stdio connection, or one HTTP
+     * session. Requests of different sessions share the engine pool and the
+     * tool catalog but nothing else.
+     */
+    private static final class Session {
+
+        /** HTTP session id; null for stdio. */
+        final String id;
+        final Map<Object, RunningRequest> running = new ConcurrentHashMap<>();
+        volatile boolean initialized;
+        volatile String negotiatedProtocolVersion;
+        volatile int minLogLevel;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        Session(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Where notifications for a request go: the stdio stream, or the SSE
+     * response of the HTTP request that carried it. Null when the transport
+     * has no way to deliver them.
+     */
+    private interface MessageSink {
+        void send(Object message);
+    }
+
+    /**
+     * Cancellation state of one request. The thread is only interrupted
+     * between {@link #start()} and {@link #finish()}, so a cancellation can
+     * never hit the next task the pooled thread runs.
+     */
+    private static final class RunningRequest {
+
+        private Thread thread;
+        private volatile boolean cancelled;
+
+        /** Returns false when the request was cancelled before it started. */
+        synchronized boolean start() {
+            if (cancelled) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        synchronized void finish() {
+            thread = null;
+            if (cancelled) {
+                Thread.interrupted();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
         }
     }
 
+    /**
+     * Write one message. Tool calls send notifications from their own threads
+     * while the writer thread sends responses, so lines are written under the
+     * writer's lock.
+     */
     private void writeResponse(BufferedWriter writer, Object responseObj) {
         try {
-            writer.write(mapper.writeValueAsString(responseObj));
-            writer.write("\n");
-            writer.flush();
+            String json = mapper.writeValueAsString(responseObj);
+            synchronized (writer) {
+                writer.write(json);
+                writer.write("\n");
+                writer.flush();
+            }
         } catch (Exception e) {
             // If we can't write to stdout, we're effectively dead; just stop.
             if (LuCLI.debug) {
@@ -192,7 +681,7 @@ public class McpCommand implements Callable<Integer> {
     /**
      * Handle a single JSON-RPC request node. Returns null for notifications.
      */
-    private Map<String, Object> handleRequestNode(JsonNode node, String mod) {
+    private Map<String, Object> handleRequestNode(JsonNode node, String mod, Session session, MessageSink sink) {
         if (node == null || !node.isObject()) {
             return jsonRpcErrorResponse(null, -32600, "Invalid Request: expected JSON object");
         }
@@ -213,20 +702,32 @@ public class McpCommand implements Callable<Integer> {
         try {
             switch (method) {
                 case "initialize":
-                    Map<String, Object> result = handleInitialize(node.get("params"));
-                    initialized = true;
+                    Map<String, Object> result = handleInitialize(session, node.get("params"));
+                    session.initialized = true;
                     return isNotification ? null : jsonRpcResultResponse(id, result);
 
                 case "notifications/initialized":
                     // No response (notification)
-                    initialized = true;
+                    session.initialized = true;
+                    return null;
+
+                case "notifications/cancelled":
+                    handleCancelled(session, node.get("params"));
                     return null;
 
                 case "ping":
                     return isNotification ? null : jsonRpcResultResponse(id, new LinkedHashMap<>());
 
+                case "logging/setLevel":
+                    String level = node.path("params").path("level").asText("");
+                    if (!LOG_LEVELS.contains(level)) {
+                        return isNotification ? null : jsonRpcErrorResponse(id, -32602, "Invalid params: unknown log level '" + level + "'");
+                    }
+                    session.minLogLevel = LOG_LEVELS.indexOf(level);
+                    return isNotification ? null : jsonRpcResultResponse(id, new LinkedHashMap<>());
+
                 case "tools/list":
-                    if (!initialized) {
+                    if (!session.initialized) {
                         return isNotification ? null : jsonRpcErrorResponse(id, -32002, "Server not initialized");
                     }
                     Map<String, Object> toolsList = new LinkedHashMap<>();
@@ -234,12 +735,33 @@ public class McpCommand implements Callable<Integer> {
                     return isNotification ? null : jsonRpcResultResponse(id, toolsList);
 
                 case "tools/call":
-                    if (!initialized) {
+                    if (!session.initialized) {
                         return isNotification ? null : jsonRpcErrorResponse(id, -32002, "Server not initialized");
                     }
-                    Map<String, Object> callResult = handleToolsCall(mod, node.get("params"));
+                    Map<String, Object> callResult = handleToolsCall(mod, node.get("params"), session, sink);
                     return isNotification ? null : jsonRpcResultResponse(id, callResult);
 
+                case "resources/list":
+                    if (!session.initialized) {
+                        return isNotification ? null : jsonRpcErrorResponse(id, -32002, "Server not initialized");
+                    }
+                    Map<String, Object> resourcesList = new LinkedHashMap<>();
+                    resourcesList.put("resources", List.of(
+                        resource(METRICS_URI, "metrics", "Request and tool call metrics of this server", "application/json"),
+                        resource(METRICS_PROMETHEUS_URI, "metrics-prometheus", "The same metrics in Prometheus text format", "text/plain")));
+                    return isNotification ? null : jsonRpcResultResponse(id, resourcesList);
+
+                case "resources/read":
+                    if (!session.initialized) {
+                        return isNotification ? null : jsonRpcErrorResponse(id, -32002, "Server not initialized");
+                    }
+                    String uri = node.path("params").path("uri").asText("");
+                    Map<String, Object> contents = readResource(uri);
+                    if (contents == null) {
+                        return isNotification ? null : jsonRpcErrorResponse(id, -32002, "Resource not found: " + uri);
+                    }
+                    return isNotification ? null : jsonRpcResultResponse(id, Map.of("contents", List.of(contents)));
+
                 default:
                     return isNotification ? null : jsonRpcErrorResponse(id, -32601, "Method not found: " + method);
             }
@@ -251,7 +773,36 @@ public class McpCommand implements Callable<Integer> {
         }
     }
 
-    private Map<String, Object> handleInitialize(JsonNode params) {
+    private Map<String, Object> resource(String uri, String name, String description, String mimeType) {
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("uri", uri);
+        resource.put("name", name);
+        resource.put("description", description);
+        resource.put("mimeType", mimeType);
+        return resource;
+    }
+
+    /** Contents of a resource, or null when there is no such resource. */
+    private Map<String, Object> readResource(String uri) throws JsonProcessingException {
+        String text;
+        String mimeType;
+        if (METRICS_URI.equals(uri)) {
+            text = mapper.writeValueAsString(metrics.snapshot());
+            mimeType = "application/json";
+        } else if (METRICS_PROMETHEUS_URI.equals(uri)) {
+            text = metrics.toPrometheus();
+            mimeType = "text/plain";
+        } else {
+            return null;
+        }
+        Map<String, Object> contents = new LinkedHashMap<>();
+        contents.put("uri", uri);
+        contents.put("mimeType", mimeType);
+        contents.put("text", text);
+        return contents;
+    }
+
+    private Map<String, Object> handleInitialize(Session session, JsonNode params) {
         String requestedVersion = null;
         if (params != null && params.isObject()) {
             JsonNode pv = params.get("protocolVersion");
@@ -259,7 +810,7 @@ public class McpCommand implements Callable<Integer> {
                 requestedVersion = pv.asText();
             }
         }
-        negotiatedProtocolVersion = requestedVersion != null ? requestedVersion : "2025-03-26";
+        session.negotiatedProtocolVersion = requestedVersion != null ? requestedVersion : "2025-03-26";
 
         Map<String, Object> serverInfo = new LinkedHashMap<>();
         serverInfo.put("name", "lucli");
@@ -270,9 +821,13 @@ public class McpCommand implements Callable<Integer> {
 
         Map<String, Object> capabilities = new LinkedHashMap<>();
         capabilities.put("tools", toolsCaps);
+        // Tool output is streamed as log notifications.
+        capabilities.put("logging", new LinkedHashMap<>());
+        // Server metrics are exposed as resources.
+        capabilities.put("resources", new LinkedHashMap<>());
 
         Map<String, Object> result = new LinkedHashMap<>();
-        result.put("protocolVersion", negotiatedProtocolVersion);
+        result.put("protocolVersion", session.negotiatedProtocolVersion);
         result.put("capabilities", capabilities);
         result.put("serverInfo", serverInfo);
 
@@ -280,22 +835,42 @@ public class McpCommand implements Callable<Integer> {
     }
 
     private List<Map<String, Object>> listToolsForModule(String mod) throws Exception {
-        Array meta = LuceeScriptEngine.getInstance().getComponentMetadata("modules." + mod + ".Module");
+        return toolCatalog(mod).tools();
+    }
 
-        // Per-module hidden list returned by optional mcpHiddenTools() function
-        java.util.Set<String> moduleHidden = getModuleHiddenTools(mod);
+    /**
+     * Tool list built from the module's metadata, reused until the metadata
+     * cache hands back a different entry (i.e. the module's sources changed).
+     */
+    private ToolCatalog toolCatalog(String mod) throws Exception {
+        // Function list plus the optional mcpHiddenTools()/mcpToolSpecs()
+        // conventions, served from the on-disk metadata cache while the
+        // module's sources are unchanged.
+        ModuleMetadataCache.ModuleMetadata meta = ModuleMetadataCache.getInstance().get(mod, true);
+        ToolCatalog current = toolCatalog;
+        if (current != null && current.source() == meta) {
+            return current;
+        }
+        List<Map<String, Object>> tools = buildTools(meta);
+        java.util.Set<String> names = new java.util.HashSet<>();
+        for (Map<String, Object> tool : tools) {
+            names.add(String.valueOf(tool.get("name")));
+        }
+        current = new ToolCatalog(meta, List.copyOf(tools), java.util.Set.copyOf(names));
+        toolCatalog = current;
+        return current;
+    }
 
-        // Per-tool declared input schemas returned by optional mcpToolSpecs()
-        Map<String, Struct> declaredSpecs = getModuleToolSpecs(mod);
+    private record ToolCatalog(ModuleMetadataCache.ModuleMetadata source, List<Map<String, Object>> tools,
+            java.util.Set<String> names) {
+    }
 
-        List<Map<String, Object>> tools = new ArrayList<>();
-        for (int i = 1; i <= meta.size(); i++) {
-            Object itemObj = meta.get(i, null);
-            if (!(itemObj instanceof Struct)) {
-                continue;
-            }
-            Struct fn = (Struct) itemObj;
+    private List<Map<String, Object>> buildTools(ModuleMetadataCache.ModuleMetadata meta) {
+        java.util.Set<String> moduleHidden = meta.hiddenTools();
+        Map<String, Map<String, Object>> declaredSpecs = meta.toolSpecs();
 
+        List<Map<String, Object>> tools = new ArrayList<>();
+        for (Map<String, Object> fn : meta.functions()) {
             String name = getString(fn, "name");
             if (name == null || name.isBlank()) {
                 continue;
@@ -320,16 +895,8 @@ public class McpCommand implements Callable<Integer> {
             // parameter schemas via mcpToolSpecs(); reflection alone would
             // advertise an empty object with additionalProperties:false,
             // telling MCP clients the tool accepts no arguments at all.
-            Struct declared = declaredSpecs.get(name.toLowerCase());
-            Map<String, Object> inputSchema;
-            if (declared != null) {
-                Object converted = cfmlToJava(declared);
-                inputSchema = (converted instanceof Map)
-                        ? castSchemaMap(converted)
-                        : buildInputSchema(fn);
-            } else {
-                inputSchema = buildInputSchema(fn);
-            }
+            Map<String, Object> declared = declaredSpecs.get(name.toLowerCase());
+            Map<String, Object> inputSchema = declared != null ? declared : buildInputSchema(fn);
 
             Map<String, Object> tool = new LinkedHashMap<>();
             tool.put("name", name);
@@ -344,125 +911,20 @@ public class McpCommand implements Callable<Integer> {
         return tools;
     }
 
-    /**
-     * If the module defines a public `mcpHiddenTools()` function returning an
-     * array of tool names, return those names (lowercase). Otherwise empty.
-     *
-     * Invoked once per tools/list request. Stdout/stderr are briefly
-     * redirected to discard any incidental output from the invocation, since
-     * tools/list has no active MCP capture buffer.
-     */
-    private java.util.Set<String> getModuleHiddenTools(String mod) {
-        PrintStream origOut = System.out;
-        PrintStream origErr = System.err;
-        java.io.ByteArrayOutputStream sink = new java.io.ByteArrayOutputStream();
-        PrintStream silent = new PrintStream(sink, true, StandardCharsets.UTF_8);
-        try {
-            System.setOut(silent);
-            System.setErr(silent);
-            Object result = LuceeScriptEngine.getInstance()
-                    .executeModuleAndReturn(mod, new String[] { "mcpHiddenTools" });
-            if (result instanceof Array) {
-                Array arr = (Array) result;
-                java.util.Set<String> hidden = new java.util.HashSet<>();
-                for (int i = 1; i <= arr.size(); i++) {
-                    Object v = arr.get(i, null);
-                    if (v != null) hidden.add(v.toString().toLowerCase());
-                }
-                return hidden;
-            }
-        } catch (Exception e) {
-            // Function may not exist on this module — that's fine.
-            if (LuCLI.debug) e.printStackTrace();
-        } finally {
-            System.setOut(origOut);
-            System.setErr(origErr);
-        }
-        return java.util.Collections.emptySet();
-    }
-
-    /**
-     * If the module defines a public `mcpToolSpecs()` function returning a
-     * struct of {toolName: inputSchema-struct}, return it keyed by lowercase
-     * tool name. Otherwise empty. Same optional-convention mechanism (and
-     * same stdout/stderr discipline) as {@link #getModuleHiddenTools}.
-     */
-    private Map<String, Struct> getModuleToolSpecs(String mod) {
-        PrintStream origOut = System.out;
-        PrintStream origErr = System.err;
-        java.io.ByteArrayOutputStream sink = new java.io.ByteArrayOutputStream();
-        PrintStream silent = new PrintStream(sink, true, StandardCharsets.UTF_8);
-        try {
-            System.setOut(silent);
-            System.setErr(silent);
-            Object result = LuceeScriptEngine.getInstance()
-                    .executeModuleAndReturn(mod, new String[] { "mcpToolSpecs" });
-            if (result instanceof Struct) {
-                Map<String, Struct> byName = new LinkedHashMap<>();
-                for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
-                    Object value = entry.getValue();
-                    if (value instanceof Struct) {
-                        byName.put(entry.getKey().toString().toLowerCase(), (Struct) value);
-                    }
-                }
-                return byName;
-            }
-        } catch (Exception e) {
-            // Function may not exist on this module — that's fine.
-            if (LuCLI.debug) e.printStackTrace();
-        } finally {
-            System.setOut(origOut);
-            System.setErr(origErr);
-        }
-        return java.util.Collections.emptyMap();
-    }
-
-    /**
-     * Deep-converts a CFML value (Struct/Array/simple) into plain Java
-     * collections so Jackson can serialize a module-declared inputSchema.
-     * Struct keys keep their stored case (quoted CFML struct keys preserve
-     * case, which JSON Schema property names require).
-     */
-    private Object cfmlToJava(Object value) {
-        if (value instanceof Struct) {
-            Map<String, Object> map = new LinkedHashMap<>();
-            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
-                map.put(entry.getKey().toString(), cfmlToJava(entry.getValue()));
-            }
-            return map;
-        }
-        if (value instanceof Array) {
-            Array arr = (Array) value;
-            List<Object> list = new ArrayList<>();
-            for (int i = 1; i <= arr.size(); i++) {
-                list.add(cfmlToJava(arr.get(i, null)));
-            }
-            return list;
-        }
-        return value;
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> castSchemaMap(Object converted) {
-        return (Map<String, Object>) converted;
-    }
-
-    private Map<String, Object> buildInputSchema(Struct fn) {
+    private Map<String, Object> buildInputSchema(Map<String, Object> fn) {
         Map<String, Object> schema = new LinkedHashMap<>();
         schema.put("type", "object");
 
         Map<String, Object> properties = new LinkedHashMap<>();
         List<String> required = new ArrayList<>();
 
-        Object paramsObj = fn.get("parameters", null);
-        if (paramsObj instanceof Array) {
-            Array params = (Array) paramsObj;
-            for (int j = 1; j <= params.size(); j++) {
-                Object pObj = params.get(j, null);
-                if (!(pObj instanceof Struct)) {
+        Object paramsObj = fn.get("parameters");
+        if (paramsObj instanceof List) {
+            for (Object pObj : (List<?>) paramsObj) {
+                if (!(pObj instanceof Map)) {
                     continue;
                 }
-                Struct p = (Struct) pObj;
+                Map<?, ?> p = (Map<?, ?>) pObj;
 
                 String pName = getString(p, "name");
                 if (pName == null || pName.isBlank()) {
@@ -480,7 +942,7 @@ public class McpCommand implements Callable<Integer> {
                     pSchema.put("description", firstLine(stripHintPrefix(pHint)));
                 }
 
-                Object def = p.get("default", null);
+                Object def = p.get("default");
                 if (def != null) {
                     // Only include JSON-serializable defaults; if not, just omit.
                     if (def instanceof String || def instanceof Number || def instanceof Boolean) {
@@ -508,7 +970,7 @@ public class McpCommand implements Callable<Integer> {
         return schema;
     }
 
-    private Map<String, Object> handleToolsCall(String mod, JsonNode params) throws Exception {
+    private Map<String, Object> handleToolsCall(String mod, JsonNode params, Session session, MessageSink sink) throws Exception {
         if (params == null || !params.isObject()) {
             return toolCallError("Invalid params: expected object");
         }
@@ -524,15 +986,7 @@ public class McpCommand implements Callable<Integer> {
         }
 
         // Validate that toolName exists in the current tools list.
-        boolean toolExists = false;
-        for (Map<String, Object> t : listToolsForModule(mod)) {
-            Object n = t.get("name");
-            if (toolName.equals(n)) {
-                toolExists = true;
-                break;
-            }
-        }
-        if (!toolExists) {
+        if (!toolCatalog(mod).names().contains(toolName)) {
             return toolCallError("Unknown tool: " + toolName);
         }
 
@@ -548,11 +1002,15 @@ public class McpCommand implements Callable<Integer> {
 
         String output;
         boolean isError = false;
+        MetricsRegistry.Series series = metrics.series("lucli_mcp_tool_call", "module", mod, "tool", toolName);
+        long start = series.begin();
         try {
-            output = executeModuleTool(mod, toolName, args);
+            output = executeModuleTool(mod, toolName, args, progressToken(params), session, sink);
         } catch (Exception e) {
             isError = true;
             output = (e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            series.end(start, isError);
         }
 
         Map<String, Object> contentItem = new LinkedHashMap<>();
@@ -571,55 +1029,154 @@ public class McpCommand implements Callable<Integer> {
         return result;
     }
 
-    private String executeModuleTool(String mod, String toolName, Map<String, Object> args) throws Exception {
-        List<String> argv = new ArrayList<>();
-        argv.add(toolName);
-        for (Map.Entry<String, Object> entry : args.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
+    /**
+     * Call the tool's module function directly with the JSON arguments
+     * (converted once into CFML structs/arrays) and return the captured
+     * output followed by the function's return value. Structs and arrays are
+     * returned as JSON rather than CFML's string form.
+     *
+     * With a progress token, output is also sent to the client as it is
+     * written, and the module's progress() reports become progress
+     * notifications.
+     */
+    private String executeModuleTool(String mod, String toolName, Map<String, Object> args, Object progressToken,
+            Session session, MessageSink sink) throws Exception {
+        // Capture ALL output produced by the module so we don't contaminate the
+        // MCP protocol stream (stdout). Capture is per thread, so concurrent
+        // calls keep their output apart.
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        boolean streaming = progressToken != null && sink != null;
+        PrintStream out = new PrintStream(streaming ? new ForwardingCapture(baos, session, sink, "info", toolName) : baos,
+            true, StandardCharsets.UTF_8);
+        PrintStream err = streaming
+            ? new PrintStream(new ForwardingCapture(baos, session, sink, "warning", toolName), true, StandardCharsets.UTF_8)
+            : out;
+        ModuleProgress.Listener progress = streaming ? new ProgressForwarder(sink, progressToken) : null;
+
+        Object result;
+        try (ThreadOutputRouter.Capture ignored = ThreadOutputRouter.capture(out, err);
+             ModuleProgress.Registration alsoIgnored = ModuleProgress.listen(progress)) {
+            result = LuceeScriptEngine.getInstance().executeModuleFunction(mod, toolName, args);
+        } finally {
+            // Send whatever was written without a trailing flush.
+            out.flush();
+            err.flush();
+        }
+
+        String output = baos.toString(StandardCharsets.UTF_8);
+        if (result == null) {
+            return output;
+        }
+        Object value = ModuleMetadataCache.cfmlToJava(result);
+        String rendered = value instanceof Map || value instanceof List
+            ? mapper.writeValueAsString(value)
+            : value.toString();
+        if (rendered.isEmpty() || output.isEmpty()) {
+            return output + rendered;
+        }
+        return output.endsWith("\n") ? output + rendered : output + "\n" + rendered;
+    }
+
+    /** The {@code _meta.progressToken} of a request, or null. */
+    private Object progressToken(JsonNode params) {
+        JsonNode token = params != null ? params.path("_meta").get("progressToken") : null;
+        return token == null || token.isNull() ? null : jsonNodeToJavaId(token);
+    }
 
-            if (key == null || key.isBlank()) {
-                continue;
-            }
+    private void sendNotification(MessageSink sink, String method, Map<String, Object> params) {
+        Map<String, Object> notification = new LinkedHashMap<>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", method);
+        notification.put("params", params);
+        sink.send(notification);
+    }
 
-            String stringValue;
-            if (value == null) {
-                stringValue = "";
-            } else if (value instanceof String || value instanceof Number || value instanceof Boolean) {
-                stringValue = value.toString();
-            } else {
-                // For objects/arrays, send JSON as a string.
-                stringValue = mapper.writeValueAsString(value);
-            }
+    /**
+     * Keeps a tool call's output and sends each flushed piece to the client
+     * as a {@code notifications/message} log entry. PrintStream encodes whole
+     * strings and flushes after each line, so pieces end on character
+     * boundaries.
+     */
+    private final class ForwardingCapture extends OutputStream {
+
+        private final ByteArrayOutputStream all;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private final Session session;
+        private final MessageSink sink;
+        private final String level;
+        private final String logger;
+
+        ForwardingCapture(ByteArrayOutputStream all, Session session, MessageSink sink, String level, String logger) {
+            this.all = all;
+            this.session = session;
+            this.sink = sink;
+            this.level = level;
+            this.logger = logger;
+        }
 
-            argv.add(key + "=" + stringValue);
+        @Override
+        public void write(int b) {
+            all.write(b);
+            pending.write(b);
         }
 
-        // Capture ALL output produced by the module so we don't contaminate the
-        // MCP protocol stream (stdout).
-        PrintStream originalOut = System.out;
-        PrintStream originalErr = System.err;
-        StringOutput stringOutput = StringOutput.getInstance();
-        PrintStream originalStringOut = stringOutput.getOutputStream();
-        PrintStream originalStringErr = stringOutput.getErrorStream();
+        @Override
+        public void write(byte[] b, int off, int len) {
+            all.write(b, off, len);
+            pending.write(b, off, len);
+        }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            PrintStream capture = new PrintStream(baos, true, StandardCharsets.UTF_8);
-            System.setOut(capture);
-            System.setErr(capture);
-            stringOutput.setOutputStream(capture);
-            stringOutput.setErrorStream(capture);
+        @Override
+        public void flush() {
+            if (pending.size() == 0) {
+                return;
+            }
+            String chunk = pending.toString(StandardCharsets.UTF_8);
+            pending.reset();
+            if (LOG_LEVELS.indexOf(level) < session.minLogLevel) {
+                return;
+            }
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("level", level);
+            params.put("logger", logger);
+            params.put("data", chunk);
+            sendNotification(sink, "notifications/message", params);
+        }
+    }
 
-            LuceeScriptEngine.getInstance().executeModule(mod, argv.toArray(new String[0]));
-        } finally {
-            System.setOut(originalOut);
-            System.setErr(originalErr);
-            stringOutput.setOutputStream(originalStringOut);
-            stringOutput.setErrorStream(originalStringErr);
+    /**
+     * Turns a module's progress() reports into {@code notifications/progress}.
+     * Progress must increase with every notification, so reports that do not
+     * are dropped.
+     */
+    private final class ProgressForwarder implements ModuleProgress.Listener {
+
+        private final MessageSink sink;
+        private final Object progressToken;
+        private double last = Double.NEGATIVE_INFINITY;
+
+        ProgressForwarder(MessageSink sink, Object progressToken) {
+            this.sink = sink;
+            this.progressToken = progressToken;
         }
 
-        return baos.toString(StandardCharsets.UTF_8);
+        @Override
+        public void progress(double progress, Double total, String message) {
+            if (progress <= last) {
+                return;
+            }
+            last = progress;
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("progressToken", progressToken);
+            params.put("progress", progress);
+            if (total != null) {
+                params.put("total", total);
+            }
+            if (message != null) {
+                params.put("message", message);
+            }
+            sendNotification(sink, "notifications/progress", params);
+        }
     }
 
     private Map<String, Object> toolCallError(String message) {
@@ -689,15 +1246,15 @@ public class McpCommand implements Callable<Integer> {
         return node.asText();
     }
 
-    private String getString(Struct s, String key) {
-        if (s == null || key == null) return null;
-        Object v = s.get(key, null);
+    private String getString(Map<?, ?> m, String key) {
+        if (m == null || key == null) return null;
+        Object v = m.get(key);
         return v != null ? v.toString() : null;
     }
 
-    private boolean getBoolean(Struct s, String key) {
-        if (s == null || key == null) return false;
-        Object v = s.get(key, null);
+    private boolean getBoolean(Map<?, ?> m, String key) {
+        if (m == null || key == null) return false;
+        Object v = m.get(key);
         if (v == null) return false;
         if (v instanceof Boolean) return (Boolean) v;
         return Boolean.parseBoolean(v.toString());
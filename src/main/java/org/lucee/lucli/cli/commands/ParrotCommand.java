@@ -3,6 +3,8 @@ package org.lucee.lucli.cli.commands;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+import org.lucee.lucli.cli.EngineFree;
+
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Parameters;
 
@@ -17,6 +19,7 @@ import picocli.CommandLine.Parameters;
  * 
  * Named 'parrot' to avoid confusion with system 'echo' command.
  */
+@EngineFree
 @Command(
     name = "parrot",
     description = "Repeat back the provided text (proof of concept command)",
@@ -8,6 +8,7 @@ import java.util.concurrent.Callable;
 
 import org.lucee.lucli.StringOutput;
 import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.paths.LucliPaths;
 import org.lucee.lucli.secrets.LocalSecretStore;
 import org.lucee.lucli.secrets.LucliSecretProviderSupport;
@@ -85,6 +86,7 @@ public class SecretsCommand implements Callable<Integer> {
         return new LocalSecretStore(getDefaultStorePath(), passphrase);
     }
 
+    @EngineFree
     @Command(name = "init", description = "Initialize the local encrypted secret store")
     static class InitCommand implements Callable<Integer> {
 
@@ -130,6 +132,7 @@ public class SecretsCommand implements Callable<Integer> {
         }
     }
 
+    @EngineFree
     @Command(name = "set", description = "Set or update a secret value")
     static class SetCommand implements Callable<Integer> {
 
@@ -166,6 +169,7 @@ public class SecretsCommand implements Callable<Integer> {
         }
     }
 
+    @EngineFree
     @Command(name = "list", description = "List stored secrets (names and metadata only)")
     static class ListCommand implements Callable<Integer> {
 
@@ -197,6 +201,7 @@ public class SecretsCommand implements Callable<Integer> {
         }
     }
 
+    @EngineFree
     @Command(name = "rm", description = "Remove a stored secret")
     static class RmCommand implements Callable<Integer> {
 
@@ -6,6 +6,7 @@ import java.nio.file.Paths;
 import java.util.concurrent.Callable;
 
 import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.cli.completion.LuceeVersionCandidates;
 import org.lucee.lucli.server.ServerCommandHandler;
 import org.lucee.lucli.config.editor.ConfigEditorRunner;
@@ -585,6 +586,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server stop subcommand
      */
+    @EngineFree
     @Command(
         name = "stop", 
         description = "Stop a Lucee server instance"
@@ -687,6 +689,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server status subcommand
      */
+    @EngineFree
     @Command(
         name = "status", 
         description = "Show status of server instances"
@@ -734,6 +737,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server info subcommand - show configuration overview without starting
      */
+    @EngineFree
     @Command(
         name = "info",
         description = "Show server configuration overview without starting the server"
@@ -799,6 +803,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server env subcommand - show effective environment (System + envFile + envVars)
      */
+    @EngineFree
     @Command(
         name = "env",
         description = "Show effective environment variables for this project (System + envFile + envVars)"
@@ -861,6 +866,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server list subcommand
      */
+    @EngineFree
     @Command(
         name = "list", 
         description = "List all server instances"
@@ -893,6 +899,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server log subcommand
      */
+    @EngineFree
     @Command(
         name = "log", 
         description = "View server logs"
@@ -948,6 +955,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server prune subcommand
      */
+    @EngineFree
     @Command(
         name = "prune",
         description = "Remove stopped server instances"
@@ -1007,6 +1015,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server get subcommand for reading configuration
      */
+    @EngineFree
     @Command(
         name = "get",
         description = "Get configuration values from lucee.json or derived Lucee configuration"
@@ -1068,6 +1077,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server set subcommand for configuring settings
      */
+    @EngineFree
     @Command(
         name = "set",
         description = "Set configuration values in lucee.json"
@@ -1123,6 +1133,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server open subcommand
      */
+    @EngineFree
     @Command(
         name = "open", 
         description = "Open a running server instance in a browser"
@@ -1160,6 +1171,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server new subcommand - create a new lucee.json (if needed) and open it in the editor.
      */
+    @EngineFree
     @Command(
         name = "new",
         description = "Create a new lucee.json for this project (or edit it if it already exists)"
@@ -1208,6 +1220,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server edit subcommand - edit an existing lucee.json using the same editor.
      */
+    @EngineFree
     @Command(
         name = "edit",
         description = "Edit existing lucee.json for this project"
@@ -1314,6 +1327,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server unlock subcommand - remove/disable server configuration lock.
      */
+    @EngineFree
     @Command(
         name = "unlock",
         description = "Unlock server configuration for this project"
@@ -1358,6 +1372,7 @@ public class ServerCommand implements Callable<Integer> {
     /**
      * Server config subcommand - parent command for get/set configuration
      */
+    @EngineFree
     @Command(
         name = "config",
         description = "Get or set server configuration values",
@@ -1,5 +1,7 @@
 package org.lucee.lucli.cli.commands;
 
+import org.lucee.lucli.cli.EngineFree;
+
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.ParentCommand;
@@ -12,6 +14,7 @@ import java.util.concurrent.Callable;
  * Implementation of server monitor subcommand.
  * Monitors server performance via JMX using the MonitorCommand utility.
  */
+@EngineFree
 @Command(
     name = "monitor",
     description = "Monitor server performance via JMX"
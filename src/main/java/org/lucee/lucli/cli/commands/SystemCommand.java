@@ -11,7 +11,11 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.cli.EngineFree;
+import org.lucee.lucli.daemon.WarmDaemonState;
+import org.lucee.lucli.modules.ModuleCommand;
 import org.lucee.lucli.paths.LucliPaths;
+import org.lucee.lucli.system.CdsArchiveManager;
 import org.lucee.lucli.system.SystemBackupManager;
 import org.lucee.lucli.system.SystemCleaner;
 import org.lucee.lucli.ui.ProgressBar;
@@ -26,6 +30,7 @@ import picocli.CommandLine.Parameters;
 /**
  * System-level commands for LuCLI home management.
  */
+@EngineFree
 @Command(
     name = "system",
     description = "Manage LuCLI system-level state",
@@ -35,6 +40,7 @@ import picocli.CommandLine.Parameters;
         SystemCommand.PathsCommand.class,
         SystemCommand.CleanCommand.class,
         SystemCommand.BackupCommand.class,
+        SystemCommand.CdsCommand.class,
         CommandLine.HelpCommand.class
     }
 )
@@ -240,6 +246,92 @@ public class SystemCommand implements Callable<Integer> {
         }
     }
 
+    @Command(
+        name = "cds",
+        description = "Generate an AppCDS archive so the launcher starts the JVM faster"
+    )
+    static class CdsCommand implements Callable<Integer> {
+
+        @Option(names = "--status", description = "Show whether an archive exists for the current LuCLI build and JDK")
+        private boolean status;
+
+        @Option(names = "--path", description = "Print the archive path for the current LuCLI build and JDK")
+        private boolean printPath;
+
+        @Option(names = "--remove", description = "Delete all generated archives")
+        private boolean remove;
+
+        @Option(
+            names = "--module",
+            paramLabel = "<name>",
+            description = "Also train with `modules run <name>` (must be installed)"
+        )
+        private String module;
+
+        @Option(
+            names = "--timeout",
+            paramLabel = "<seconds>",
+            defaultValue = "300",
+            description = "Maximum time for the training run (default: 300)"
+        )
+        private long timeoutSeconds;
+
+        @Override
+        public Integer call() throws Exception {
+            CdsArchiveManager manager = new CdsArchiveManager(LucliPaths.resolve());
+
+            if (remove) {
+                int removed = manager.pruneExcept(null);
+                StringOutput.Quick.success("Removed " + removed + " CDS archive(s).");
+                return 0;
+            }
+
+            WarmDaemonState.JarIdentity jar = WarmDaemonState.JarIdentity.current();
+            if (jar == null) {
+                StringOutput.Quick.error("system cds requires running from the packaged LuCLI JAR or binary.");
+                return 1;
+            }
+            Path archive = manager.archiveFor(jar);
+
+            if (printPath) {
+                System.out.println(archive);
+                return 0;
+            }
+            if (status) {
+                if (Files.isRegularFile(archive)) {
+                    StringOutput.Quick.success("CDS archive is current: " + archive + " (" + Files.size(archive) + " bytes)");
+                } else {
+                    StringOutput.Quick.info("No CDS archive for this build/JDK. Run `system cds` to generate one.");
+                }
+                return 0;
+            }
+
+            List<List<String>> workloads = new ArrayList<>();
+            workloads.add(List.of("--version"));
+            workloads.add(List.of("cfml", "now()"));
+            workloads.add(List.of("modules", "list"));
+            if (module != null && !module.isBlank()) {
+                if (!ModuleCommand.moduleExists(module)) {
+                    StringOutput.Quick.error("Module '" + module + "' is not installed.");
+                    return 1;
+                }
+                workloads.add(List.of("modules", "run", module, "--help"));
+            }
+
+            StringOutput.Quick.info("Training AppCDS archive (" + workloads.size() + " workloads)...");
+            CdsArchiveManager.GenerateResult result = manager.generate(jar, workloads, Duration.ofSeconds(timeoutSeconds));
+            if (!result.success()) {
+                StringOutput.Quick.error("CDS training failed (exit " + result.exitCode() + "). See " + result.logFile());
+                return 1;
+            }
+
+            StringOutput.Quick.success("Wrote " + result.archive() + " (" + result.archiveBytes() + " bytes) in "
+                + result.elapsed().toMillis() + "ms");
+            StringOutput.Quick.tip("The lucli launcher uses this archive automatically. Set LUCLI_CDS=0 to disable.");
+            return 0;
+        }
+    }
+
     @Command(
         name = "backup",
         description = "Create, inspect, verify, and restore LuCLI backups",
@@ -3,6 +3,7 @@ package org.lucee.lucli.cli.commands;
 import java.util.List;
 import java.util.concurrent.Callable;
 
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.server.ServerConfigHelper;
 
 import picocli.CommandLine.Command;
@@ -12,6 +13,7 @@ import picocli.CommandLine.Option;
  * Hidden command for shell completion to dynamically fetch Lucee versions.
  * This command is not shown in help output but is used by shell completion scripts.
  */
+@EngineFree
 @Command(
     name = "versions-list",
     description = "List available Lucee versions (for shell completion use)",
@@ -2,6 +2,8 @@ package org.lucee.lucli.cli.commands;
 
 import java.util.concurrent.Callable;
 
+import org.lucee.lucli.cli.EngineFree;
+
 import picocli.CommandLine.Command;
 
 /**
@@ -11,6 +13,7 @@ import picocli.CommandLine.Command;
  * Tomcat XML patching logic. It is not advertised in top-level help, but
  * running {@code lucli xml --help} will show usage.</p>
  */
+@EngineFree
 @Command(
     name = "xml",
     description = "Experimental XML/XPath utilities (intended for internal use)",
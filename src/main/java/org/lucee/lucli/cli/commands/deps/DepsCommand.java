@@ -1,5 +1,7 @@
 package org.lucee.lucli.cli.commands.deps;
 
+import org.lucee.lucli.cli.EngineFree;
+
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
@@ -7,6 +9,7 @@ import picocli.CommandLine.Command;
  * Main deps command for dependency management
  * Aliases: deps, dependencies
  */
+@EngineFree
 @Command(
     name = "deps",
     aliases = {"dependencies"},
@@ -14,6 +14,7 @@ import java.util.stream.Collectors;
 import org.lucee.lucli.LuCLI;
 
 import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.config.DependencyConfig;
 import org.lucee.lucli.config.LuceeJsonConfig;
 import org.lucee.lucli.config.LuceeLockFile;
@@ -35,6 +36,7 @@ import picocli.CommandLine.Option;
  * Install command for dependencies
  * lucli deps install or lucli install (shortcut)
  */
+@EngineFree
 @Command(
     name = "install",
     description = "Install dependencies from lucee.json"
@@ -60,7 +60,7 @@ public class XSetCommand implements Callable<Integer> {
             // terminal/CLI mode, we leave the value as-is for now.
 
             // Register in LuCLI's script environment + StringOutput placeholders
-            LuCLI.scriptEnvironment.put(name, resolvedValue);
+            LuCLI.getScriptEnvironment().put(name, resolvedValue);
             StringOutput.getInstance().addPlaceholder(name, resolvedValue);
             System.out.println("Set " + name + " = " + resolvedValue);
         }
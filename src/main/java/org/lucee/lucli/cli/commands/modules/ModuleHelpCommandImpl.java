@@ -3,6 +3,7 @@ package org.lucee.lucli.cli.commands.modules;
 import java.util.concurrent.Callable;
 
 import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.cli.EngineFree;
 
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -10,6 +11,7 @@ import picocli.CommandLine.Option;
 /**
  * Direct implementation of modules run command - executes a module with arguments
  */
+@EngineFree
 @Command(
     name = "help",
     description = "Show help for a module",
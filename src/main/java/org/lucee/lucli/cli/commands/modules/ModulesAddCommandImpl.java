@@ -2,6 +2,7 @@ package org.lucee.lucli.cli.commands.modules;
 
 import java.util.concurrent.Callable;
 
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.modules.ModuleCommand;
 
 import picocli.CommandLine.Command;
@@ -12,6 +13,7 @@ import picocli.CommandLine.Parameters;
  * Direct implementation of modules add command.
  * Alias semantics for install, with explicit --ref support.
  */
+@EngineFree
 @Command(
     name = "add",
     description = "Add (install) a module"
@@ -7,6 +7,7 @@ import java.util.concurrent.Callable;
 
 import org.lucee.lucli.LuCLI;
 import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.paths.LucliPaths;
 
 import picocli.CommandLine.Command;
@@ -16,6 +17,7 @@ import picocli.CommandLine.Parameters;
 /**
  * Direct implementation of modules init command - creates a new module from template
  */
+@EngineFree
 @Command(
     name = "init",
     description = "Initialize a new module"
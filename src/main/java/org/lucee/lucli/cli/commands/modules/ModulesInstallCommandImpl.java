@@ -2,6 +2,7 @@ package org.lucee.lucli.cli.commands.modules;
 
 import java.util.concurrent.Callable;
 
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.modules.ModuleCommand;
 
 import picocli.CommandLine.Command;
@@ -11,6 +12,7 @@ import picocli.CommandLine.Parameters;
 /**
  * Direct implementation of modules install command
  */
+@EngineFree
 @Command(
     name = "install",
     description = "Install a module"
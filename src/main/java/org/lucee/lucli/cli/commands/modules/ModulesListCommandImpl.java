@@ -11,6 +11,7 @@ import java.util.concurrent.Callable;
 
 import org.lucee.lucli.LuCLI;
 import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.modules.ModuleConfig;
 import org.lucee.lucli.modules.ModuleRepositoryIndex;
 import org.lucee.lucli.paths.LucliPaths;
@@ -25,6 +26,7 @@ import picocli.CommandLine.Command;
  * default, {@code ~/.wheels/modules} when invoked as {@code wheels}, etc.) and
  * compares with the bundled repository index to show what's available.</p>
  */
+@EngineFree
 @Command(
     name = "list",
     description = "List available modules"
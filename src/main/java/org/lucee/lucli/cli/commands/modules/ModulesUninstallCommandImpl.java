@@ -7,6 +7,7 @@ import java.util.concurrent.Callable;
 import java.util.stream.Stream;
 
 import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.cli.EngineFree;
 import org.lucee.lucli.paths.LucliPaths;
 
 import picocli.CommandLine.Command;
@@ -15,6 +16,7 @@ import picocli.CommandLine.Parameters;
 /**
  * Direct implementation of modules uninstall command
  */
+@EngineFree
 @Command(
     name = "uninstall",
     description = "Uninstall (remove) a module"
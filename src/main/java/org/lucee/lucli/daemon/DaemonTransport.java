@@ -0,0 +1,251 @@
+package org.lucee.lucli.daemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Listening and connecting for the daemon modes, over loopback TCP or a Unix
+ * domain socket.
+ *
+ * A Unix domain socket avoids the loopback TCP stack and port allocation, and
+ * is protected by file permissions: the socket file is owner-only
+ * ({@code rw-------}) from the moment it appears at its path, so other local
+ * users cannot connect to it.
+ */
+public final class DaemonTransport {
+
+    /** File type mask and socket type in {@code st_mode}. */
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private DaemonTransport() {
+    }
+
+    /** A bound endpoint accepting client connections. */
+    public interface Listener extends Closeable {
+        Connection accept() throws IOException;
+
+        /** Where the listener is bound, for log messages. */
+        String describe();
+    }
+
+    /**
+     * One client connection. Reading and writing may happen on different
+     * threads at the same time.
+     */
+    public record Connection(InputStream in, OutputStream out, String peer, Closeable channel) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    public static Listener listenTcp(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+        return new Listener() {
+            @Override
+            public Connection accept() throws IOException {
+                Socket client = server.accept();
+                return new Connection(client.getInputStream(), client.getOutputStream(),
+                    String.valueOf(client.getRemoteSocketAddress()), client);
+            }
+
+            @Override
+            public String describe() {
+                return "127.0.0.1:" + port;
+            }
+
+            @Override
+            public void close() throws IOException {
+                server.close();
+            }
+        };
+    }
+
+    /**
+     * Bind a Unix domain socket at {@code socketFile}. A stale socket file left
+     * by a daemon that died is replaced; one that still accepts connections
+     * is reported as in use, and anything at the path that is not a socket is
+     * left alone and reported. The file is removed again on close.
+     */
+    public static Listener listenUnix(Path socketFile) throws IOException {
+        Path socket = socketFile.toAbsolutePath().normalize();
+        if (socket.getParent() != null) {
+            Files.createDirectories(socket.getParent());
+        }
+        if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket(socket)) {
+                throw new IOException(socket + " exists and is not a socket; remove it or choose another --socket path");
+            }
+            if (isAccepting(socket)) {
+                throw new IOException("Socket " + socket + " is already in use by a running daemon");
+            }
+            Files.delete(socket);
+        }
+
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            bindOwnerOnly(server, socket);
+        } catch (IOException e) {
+            server.close();
+            throw new IOException("Could not bind " + socket + ": " + e.getMessage(), e);
+        }
+
+        return new Listener() {
+            @Override
+            public Connection accept() throws IOException {
+                SocketChannel client = server.accept();
+                return channelConnection(client, "unix:" + socket);
+            }
+
+            @Override
+            public String describe() {
+                return socket.toString();
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    server.close();
+                } finally {
+                    Files.deleteIfExists(socket);
+                }
+            }
+        };
+    }
+
+    /**
+     * Bind without the socket ever being reachable with the umask's
+     * permissions: bind inside a fresh {@code rwx------} directory next to
+     * {@code socket}, restrict the socket file there, then rename it into
+     * place. Clients connect by path, so the renamed socket keeps accepting.
+     * Where POSIX permissions are unsupported (Windows), bind in place and
+     * rely on the directory ACLs.
+     */
+    private static void bindOwnerOnly(ServerSocketChannel server, Path socket) throws IOException {
+        Path staging;
+        try {
+            staging = Files.createTempDirectory(socket.getParent(), ".bind",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            return;
+        }
+        Path bound = staging.resolve("s");
+        try {
+            server.bind(UnixDomainSocketAddress.of(bound));
+            Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+            Files.move(bound, socket, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(bound);
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    public static Connection connectTcp(int port) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), port);
+        return new Connection(socket.getInputStream(), socket.getOutputStream(), "127.0.0.1:" + port, socket);
+    }
+
+    public static Connection connectUnix(Path socketFile) throws IOException {
+        Path socket = socketFile.toAbsolutePath().normalize();
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channelConnection(channel, "unix:" + socket);
+    }
+
+    /**
+     * Whether {@code path} itself (not a link target) is a socket file. Uses
+     * the file type bits where the platform exposes them, and otherwise
+     * treats anything that is not a regular file, directory or link as one.
+     */
+    static boolean isSocket(Path path) {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & S_IFMT) == S_IFSOCK;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return !Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+                && !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+                && !Files.isSymbolicLink(path);
+        }
+    }
+
+    private static boolean isAccepting(Path socket) {
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            probe.connect(UnixDomainSocketAddress.of(socket));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Streams over a blocking channel. {@code Channels.newInputStream} and
+     * {@code newOutputStream} serialize on the channel's blocking lock, so a
+     * write would wait for a pending read; these call the channel directly,
+     * which has independent read and write locks.
+     */
+    private static Connection channelConnection(SocketChannel channel, String peer) {
+        InputStream in = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                int n = read(one, 0, 1);
+                return n == -1 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                return channel.read(ByteBuffer.wrap(b, off, len));
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+        return new Connection(in, out, peer, channel);
+    }
+}
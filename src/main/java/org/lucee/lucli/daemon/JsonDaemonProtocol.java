@@ -0,0 +1,68 @@
+package org.lucee.lucli.daemon;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Wire format of the JSON daemon ({@code lucli daemon}): newline-delimited
+ * JSON objects, UTF-8.
+ *
+ * A connection is single-shot by default: one {@link Request} line, one
+ * {@link Response} line, then the daemon closes it. A client that opens with
+ * a {@code {"protocol":"lucli-pipeline/1"}} line instead gets a persistent,
+ * pipelined connection: the daemon echoes the hello, then accepts any number
+ * of requests (each with an {@code id}), runs them concurrently and writes
+ * each response as soon as it is ready, so responses may arrive out of order.
+ *
+ * A request with {@code "stream":true} is answered with {@link StreamFrame}s
+ * carrying output as it is produced, then a final {@link Response} holding
+ * only the exit code.
+ *
+ * {@code {"argv":["__metrics"]}} is answered by the daemon itself with its
+ * metrics snapshot (JSON, or Prometheus text with {@code "prometheus"} as the
+ * second element) instead of being run as a command.
+ */
+public final class JsonDaemonProtocol {
+
+    /** Hello value that switches a connection to pipelined mode. */
+    public static final String PIPELINE = "lucli-pipeline/1";
+
+    /** argv[0] that asks for the daemon's metrics instead of running a command. */
+    public static final String METRICS = "__metrics";
+
+    private JsonDaemonProtocol() {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Request {
+        public String id;
+        public String[] argv;
+        /** Per-request timeout; overrides --request-timeout. */
+        public Long timeoutMs;
+        /** Id of an in-flight request to cancel instead of running argv. */
+        public String cancel;
+        /** Connection hello; only meaningful as the first line. */
+        public String protocol;
+        /** Stream output as {@link StreamFrame}s instead of one output string. */
+        public Boolean stream;
+    }
+
+    public static class Response {
+        public String id;
+        public int exitCode;
+        public String output;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public String protocol;
+    }
+
+    /**
+     * Incremental output of a streaming request. A streaming request's last
+     * frame is a regular {@link Response} with a null {@code output}; frames
+     * are told apart by the presence of {@code stream}.
+     */
+    public static class StreamFrame {
+        public String id;
+        /** "stdout" or "stderr". */
+        public String stream;
+        public String chunk;
+    }
+}
@@ -0,0 +1,242 @@
+package org.lucee.lucli.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.metrics.MetricsRegistry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serves one JSON daemon connection (see {@link JsonDaemonProtocol}) on top
+ * of a {@link JsonRequestExecutor}. Transport-agnostic: the caller supplies
+ * the connection's streams and closes the connection afterwards.
+ */
+public final class JsonDaemonSession {
+
+    private final JsonRequestExecutor executor;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public JsonDaemonSession(JsonRequestExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Serve a connection: a single request, or, after a pipeline hello,
+     * every request until the client closes its side. Returns once all
+     * responses have been written.
+     *
+     * @param peer description of the client for debug logging
+     */
+    public void serve(InputStream in, OutputStream out, String peer) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        String line = reader.readLine();
+        if (line == null || line.trim().isEmpty()) {
+            // Nothing to do; close connection.
+            if (LuCLI.debug) {
+                LuCLI.debug("Daemon", "Received empty request from " + peer);
+            }
+            return;
+        }
+
+        JsonDaemonProtocol.Request request = parse(line, peer, writer);
+        if (request == null) {
+            return;
+        }
+        if (JsonDaemonProtocol.PIPELINE.equals(request.protocol)) {
+            servePipelined(reader, writer, peer);
+            return;
+        }
+        answer(request, writer);
+    }
+
+    private void servePipelined(BufferedReader reader, BufferedWriter writer, String peer) throws IOException {
+        if (LuCLI.debug) {
+            LuCLI.debug("Daemon", "Pipelined connection from " + peer);
+        }
+        JsonDaemonProtocol.Response hello = new JsonDaemonProtocol.Response();
+        hello.protocol = JsonDaemonProtocol.PIPELINE;
+        write(writer, hello);
+
+        // Closing the executor waits for requests still in flight, so every
+        // request read before EOF gets its response.
+        try (ExecutorService inFlight = Executors.newVirtualThreadPerTaskExecutor()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JsonDaemonProtocol.Request request = parse(line, peer, writer);
+                if (request == null) {
+                    continue;
+                }
+                if (request.id == null && request.cancel == null) {
+                    write(writer, error(null, "Pipelined requests must carry an 'id'"));
+                    continue;
+                }
+                inFlight.submit(() -> {
+                    try {
+                        answer(request, writer);
+                    } catch (IOException e) {
+                        // Client went away; remaining responses are dropped.
+                        if (LuCLI.debug) {
+                            LuCLI.debug("Daemon", "Could not send response " + request.id + " to " + peer + ": " + e.getMessage());
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Parse one request line, answering malformed JSON with an error
+     * response. Returns null when the line was not a valid request.
+     */
+    private JsonDaemonProtocol.Request parse(String line, String peer, BufferedWriter writer) throws IOException {
+        if (LuCLI.debug) {
+            LuCLI.debug("Daemon", "Raw request from " + peer + ": " + line);
+        }
+        try {
+            return mapper.readValue(line, JsonDaemonProtocol.Request.class);
+        } catch (Exception e) {
+            if (LuCLI.debug) {
+                LuCLI.debug("Daemon", "Failed to parse JSON request: " + e.getMessage());
+            }
+            write(writer, error(null, "Invalid JSON request: " + e.getMessage()));
+            return null;
+        }
+    }
+
+    /** Run one request and write its response, streamed when asked for. */
+    private void answer(JsonDaemonProtocol.Request request, BufferedWriter writer) throws IOException, InterruptedException {
+        boolean runnable = request.cancel == null && request.argv != null && request.argv.length > 0
+            && !JsonDaemonProtocol.METRICS.equals(request.argv[0]);
+        if (runnable && Boolean.TRUE.equals(request.stream)) {
+            stream(request, writer);
+        } else {
+            write(writer, respond(request));
+        }
+    }
+
+    private void stream(JsonDaemonProtocol.Request request, BufferedWriter writer) throws IOException, InterruptedException {
+        if (LuCLI.debug) {
+            LuCLI.debug("Daemon", "Streaming request id=" + request.id + " argv=" + Arrays.toString(request.argv));
+        }
+        Duration timeout = request.timeoutMs != null ? Duration.ofMillis(request.timeoutMs) : null;
+        int exitCode = executor.executeStreaming(request.id, request.argv, timeout, (stream, text) -> {
+            JsonDaemonProtocol.StreamFrame frame = new JsonDaemonProtocol.StreamFrame();
+            frame.id = request.id;
+            frame.stream = stream;
+            frame.chunk = text;
+            writeLine(writer, mapper.writeValueAsString(frame));
+        });
+
+        JsonDaemonProtocol.Response response = new JsonDaemonProtocol.Response();
+        response.id = request.id;
+        response.exitCode = exitCode;
+        write(writer, response);
+    }
+
+    /** Run (or cancel) one request and build its response. */
+    JsonDaemonProtocol.Response respond(JsonDaemonProtocol.Request request) throws InterruptedException {
+        if (request.cancel != null) {
+            boolean cancelled = executor.cancel(request.cancel);
+            JsonDaemonProtocol.Response response = new JsonDaemonProtocol.Response();
+            response.id = request.id;
+            response.exitCode = cancelled ? 0 : 1;
+            response.output = cancelled
+                ? "Cancelled request " + request.cancel + "\n"
+                : "No running request with id " + request.cancel + "\n";
+            return response;
+        }
+
+        if (request.argv == null || request.argv.length == 0) {
+            return error(request.id, "Request must contain non-empty 'argv' array");
+        }
+
+        if (JsonDaemonProtocol.METRICS.equals(request.argv[0])) {
+            return metrics(request);
+        }
+
+        if (LuCLI.debug) {
+            LuCLI.debug("Daemon", "Executing request id=" + request.id + " argv=" + Arrays.toString(request.argv));
+        }
+
+        Duration timeout = request.timeoutMs != null ? Duration.ofMillis(request.timeoutMs) : null;
+        JsonRequestExecutor.Result result = executor.execute(request.id, request.argv, timeout);
+
+        if (LuCLI.debug) {
+            LuCLI.debug("Daemon", "Command exitCode=" + result.exitCode() + ", output:\n" + result.output());
+        }
+
+        JsonDaemonProtocol.Response response = new JsonDaemonProtocol.Response();
+        response.id = request.id;
+        response.exitCode = result.exitCode();
+        response.output = result.output();
+        return response;
+    }
+
+    /**
+     * Answer {@code __metrics} from the daemon itself: the registry snapshot
+     * as JSON, or the Prometheus text format with {@code ["__metrics","prometheus"]}.
+     */
+    private JsonDaemonProtocol.Response metrics(JsonDaemonProtocol.Request request) {
+        MetricsRegistry registry = MetricsRegistry.getShared();
+        boolean prometheus = request.argv.length > 1 && "prometheus".equals(request.argv[1]);
+        JsonDaemonProtocol.Response response = new JsonDaemonProtocol.Response();
+        response.id = request.id;
+        try {
+            response.output = prometheus
+                ? registry.toPrometheus()
+                : mapper.writerWithDefaultPrettyPrinter().writeValueAsString(registry.snapshot()) + "\n";
+            response.exitCode = 0;
+        } catch (IOException e) {
+            response.output = "Could not serialize metrics: " + e.getMessage() + "\n";
+            response.exitCode = 1;
+        }
+        return response;
+    }
+
+    private static JsonDaemonProtocol.Response error(String id, String message) {
+        JsonDaemonProtocol.Response response = new JsonDaemonProtocol.Response();
+        response.id = id;
+        response.exitCode = 1;
+        response.output = message;
+        return response;
+    }
+
+    private void write(BufferedWriter writer, JsonDaemonProtocol.Response response) throws IOException {
+        String json = mapper.writeValueAsString(response);
+        if (LuCLI.debug) {
+            LuCLI.debug("Daemon", "Sending response: " + json);
+        }
+        writeLine(writer, json);
+    }
+
+    /**
+     * Write one frame. Frames from concurrent requests share the connection,
+     * so whole lines are written under the writer's lock; a client that
+     * stops reading blocks here, which is what holds back streaming output.
+     */
+    private static void writeLine(BufferedWriter writer, String json) throws IOException {
+        synchronized (writer) {
+            writer.write(json);
+            writer.write("\n");
+            writer.flush();
+        }
+    }
+}
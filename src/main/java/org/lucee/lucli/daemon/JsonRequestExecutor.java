@@ -0,0 +1,462 @@
+package org.lucee.lucli.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.LuceeEnginePool;
+import org.lucee.lucli.Timer;
+import org.lucee.lucli.metrics.MetricsRegistry;
+
+import picocli.CommandLine;
+
+/**
+ * Runs JSON daemon requests concurrently, each on its own virtual thread with
+ * its own output capture and a leased engine from a {@link LuceeEnginePool}.
+ *
+ * The pool size is the concurrency limit: a request waits for a lease before
+ * its command starts, and gives it back only when the command has really
+ * finished. The lease is bound to the worker thread, so commands that call
+ * {@code LuceeScriptEngine.getInstance()} run on the leased engine; commands
+ * that never touch CFML never cause an engine to be created.
+ *
+ * Output is either collected and returned with the exit code
+ * ({@link #execute}) or handed over in chunks while the command runs
+ * ({@link #executeStreaming}).
+ *
+ * A request can be bounded by a timeout (which includes time spent waiting
+ * for a lease) and cancelled by id. Both interrupt the worker and answer
+ * immediately with the output captured so far; CFML that does not observe
+ * the interrupt keeps its lease until it completes.
+ *
+ * Each request runs with its own copy of the script environment, so
+ * {@code set} and friends never leak between requests. Root flags
+ * ({@code --verbose}, {@code --debug}, {@code --timing}, {@code --env}, ...) are still
+ * process-wide static state read all over the code base, so a request that
+ * sets one runs alone: it waits for running requests to finish, holds the
+ * others back, and the flags are reset when it is done.
+ *
+ * Each command's run time is recorded in the shared {@link MetricsRegistry}
+ * as {@code lucli_daemon_request}, labelled with the command name; a
+ * non-zero exit code counts as an error.
+ */
+public final class JsonRequestExecutor {
+
+    /** Exit code for a request that exceeded its timeout (as {@code timeout(1)}). */
+    public static final int EXIT_TIMEOUT = 124;
+    /** Exit code for a request cancelled by the client (as SIGINT). */
+    public static final int EXIT_CANCELLED = 130;
+
+    /** Output buffered per stream before a streaming command's writes block. */
+    static final int PIPE_CAPACITY = 64 * 1024;
+    private static final long DRAIN_INTERVAL_MS = 50;
+
+    private final LuceeEnginePool pool;
+    private final Duration defaultTimeout;
+    private final ToIntFunction<String[]> command;
+    private final Map<String, FutureTask<Integer>> inFlight = new ConcurrentHashMap<>();
+    /** Shared by ordinary requests, exclusive for requests that set root flags. */
+    private final ReadWriteLock globalState = new ReentrantReadWriteLock(true);
+    private final MetricsRegistry metrics = MetricsRegistry.getShared();
+
+    /**
+     * @param defaultTimeout applied to requests that do not set their own;
+     *                       null or zero means no limit
+     */
+    public JsonRequestExecutor(LuceeEnginePool pool, Duration defaultTimeout) {
+        this(pool, defaultTimeout, argv -> new CommandLine(new LuCLI()).execute(argv));
+    }
+
+    JsonRequestExecutor(LuceeEnginePool pool, Duration defaultTimeout, ToIntFunction<String[]> command) {
+        this.pool = pool;
+        this.defaultTimeout = defaultTimeout;
+        this.command = command;
+    }
+
+    public record Result(int exitCode, String output) {
+    }
+
+    /** Receives streamed output; {@code stream} is "stdout" or "stderr". */
+    public interface ChunkSink {
+        void chunk(String stream, String text) throws IOException;
+    }
+
+    /**
+     * Execute one request and wait for its result.
+     *
+     * @param id      request id used for cancellation; may be null
+     * @param timeout overrides the default timeout when not null
+     */
+    public Result execute(String id, String[] argv, Duration timeout) throws InterruptedException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream sink = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+
+        FutureTask<Integer> task = newTask(argv, sink, sink);
+        boolean registered = register(id, task);
+        try {
+            Thread.ofVirtual().name("lucli-daemon-request").start(task);
+
+            Duration limit = timeout != null ? timeout : defaultTimeout;
+            try {
+                int exitCode = isUnlimited(limit) ? task.get() : task.get(limit.toMillis(), TimeUnit.MILLISECONDS);
+                return new Result(exitCode, buffer.toString(StandardCharsets.UTF_8));
+            } catch (TimeoutException e) {
+                if (task.cancel(true)) {
+                    return new Result(EXIT_TIMEOUT,
+                        withNote(buffer, timeoutNote(limit)));
+                }
+                // Finished between the timeout and the cancel.
+                return new Result(task.get(), buffer.toString(StandardCharsets.UTF_8));
+            }
+        } catch (CancellationException e) {
+            return new Result(EXIT_CANCELLED, withNote(buffer, "Request cancelled"));
+        } catch (ExecutionException e) {
+            return new Result(1, withNote(buffer, executionError(e)));
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } finally {
+            unregister(id, task, registered);
+        }
+    }
+
+    /**
+     * Execute one request, handing its output to {@code sink} while it runs,
+     * and return the exit code.
+     *
+     * Output goes through a bounded buffer per stream that this thread
+     * drains into {@code sink}. When the sink blocks (a slow client), the
+     * buffer fills and the command's own writes block: memory stays bounded
+     * and the command is slowed to the client's pace. Chunks never split a
+     * UTF-8 sequence.
+     *
+     * @throws IOException from the sink; the request is cancelled first
+     */
+    public int executeStreaming(String id, String[] argv, Duration timeout, ChunkSink sink)
+            throws InterruptedException, IOException {
+        Object signal = new Object();
+        BoundedPipe stdout = new BoundedPipe(signal, PIPE_CAPACITY);
+        BoundedPipe stderr = new BoundedPipe(signal, PIPE_CAPACITY);
+        Utf8Chunker stdoutChunker = new Utf8Chunker();
+        Utf8Chunker stderrChunker = new Utf8Chunker();
+
+        FutureTask<Integer> task = newTask(argv,
+            new PrintStream(stdout, true, StandardCharsets.UTF_8),
+            new PrintStream(stderr, true, StandardCharsets.UTF_8));
+        boolean registered = register(id, task);
+        try {
+            Thread.ofVirtual().name("lucli-daemon-request").start(task);
+
+            Duration limit = timeout != null ? timeout : defaultTimeout;
+            long deadline = isUnlimited(limit) ? Long.MAX_VALUE : System.nanoTime() + limit.toNanos();
+            boolean timedOut = false;
+            while (!task.isDone()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timedOut = task.cancel(true);
+                    break;
+                }
+                synchronized (signal) {
+                    if (stdout.isEmpty() && stderr.isEmpty() && !task.isDone()) {
+                        signal.wait(Math.max(1, Math.min(DRAIN_INTERVAL_MS, TimeUnit.NANOSECONDS.toMillis(remaining))));
+                    }
+                }
+                emit(sink, "stdout", stdoutChunker.next(stdout.take()));
+                emit(sink, "stderr", stderrChunker.next(stderr.take()));
+            }
+            // The command may keep writing after a cancel; stop accepting
+            // output so it can never block on a buffer nobody drains.
+            stdout.close();
+            stderr.close();
+            emit(sink, "stdout", stdoutChunker.next(stdout.take()) + stdoutChunker.rest());
+            emit(sink, "stderr", stderrChunker.next(stderr.take()) + stderrChunker.rest());
+
+            if (timedOut) {
+                emit(sink, "stderr", timeoutNote(limit) + "\n");
+                return EXIT_TIMEOUT;
+            }
+            try {
+                return task.get();
+            } catch (CancellationException e) {
+                emit(sink, "stderr", "Request cancelled\n");
+                return EXIT_CANCELLED;
+            } catch (ExecutionException e) {
+                emit(sink, "stderr", executionError(e) + "\n");
+                return 1;
+            }
+        } catch (InterruptedException | IOException e) {
+            task.cancel(true);
+            stdout.close();
+            stderr.close();
+            throw e;
+        } finally {
+            unregister(id, task, registered);
+        }
+    }
+
+    private FutureTask<Integer> newTask(String[] argv, PrintStream out, PrintStream err) {
+        boolean exclusive = setsRootFlags(argv);
+        Lock stateLock = exclusive ? globalState.writeLock() : globalState.readLock();
+        return new FutureTask<>(() -> {
+            stateLock.lockInterruptibly();
+            LuCLI.setThreadScriptEnvironment(LuCLI.scriptEnvironment);
+            try (LuceeEnginePool.Lease lease = pool.acquire();
+                 ThreadOutputRouter.Capture capture = ThreadOutputRouter.capture(out, err)) {
+                lease.bindToCurrentThread();
+                MetricsRegistry.Series series = metrics.series("lucli_daemon_request", "command", commandLabel(argv));
+                long start = series.begin();
+                int exitCode = 1;
+                try {
+                    exitCode = command.applyAsInt(argv);
+                    return exitCode;
+                } catch (RuntimeException e) {
+                    err.println("Daemon execution error: " + e.getMessage());
+                    if (LuCLI.debug) {
+                        e.printStackTrace(err);
+                    }
+                    return 1;
+                } finally {
+                    series.end(start, exitCode != 0);
+                    out.flush();
+                    err.flush();
+                }
+            } finally {
+                LuCLI.setThreadScriptEnvironment(null);
+                if (exclusive) {
+                    resetRootFlags();
+                }
+                stateLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * True when the arguments carry a root flag that the command copies into
+     * LuCLI's static fields. Over-matching a short option cluster only costs
+     * concurrency.
+     */
+    static boolean setsRootFlags(String[] argv) {
+        for (String arg : argv) {
+            if ("--".equals(arg)) {
+                break;
+            }
+            if (arg.equals("--verbose") || arg.equals("--debug") || arg.equals("--timing")
+                    || arg.startsWith("--timing=") || arg.equals("--whitespace") || arg.equals("--no-compile-cache")
+                    || arg.equals("--env") || arg.startsWith("--env=")
+                    || arg.equals("--envfile") || arg.startsWith("--envfile=")) {
+                return true;
+            }
+            if (arg.length() > 1 && arg.charAt(0) == '-' && arg.charAt(1) != '-'
+                    && arg.substring(1).chars().allMatch(Character::isLetter)
+                    && arg.substring(1).chars().anyMatch(c -> c == 'v' || c == 'd' || c == 't' || c == 'w' || c == 'e')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Back to the values an ordinary request would set. */
+    private static void resetRootFlags() {
+        LuCLI.verbose = false;
+        LuCLI.debug = false;
+        LuCLI.timing = false;
+        LuCLI.preserveWhitespace = false;
+        LuCLI.compileCache = true;
+        LuCLI.currentEnvironment = null;
+        LuCLI.envFilePath = null;
+        Timer.setEnabled(false);
+    }
+
+    private boolean register(String id, FutureTask<Integer> task) {
+        return id != null && inFlight.putIfAbsent(id, task) == null;
+    }
+
+    private void unregister(String id, FutureTask<Integer> task, boolean registered) {
+        if (registered) {
+            inFlight.remove(id, task);
+        }
+    }
+
+    /**
+     * Interrupt the in-flight request with this id.
+     *
+     * @return false when no such request is running
+     */
+    public boolean cancel(String id) {
+        FutureTask<Integer> task = id != null ? inFlight.get(id) : null;
+        return task != null && task.cancel(true);
+    }
+
+    /** Requests with an id that are executing or waiting for a lease. */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Metrics label for a request: its command or module name, or "other" for
+     * anything that does not look like one (script paths, expressions), which
+     * keeps the number of series bounded.
+     */
+    static String commandLabel(String[] argv) {
+        String first = argv.length > 0 ? argv[0] : "";
+        return first.matches("[A-Za-z][A-Za-z0-9_-]{0,39}") ? first : "other";
+    }
+
+    private static boolean isUnlimited(Duration limit) {
+        return limit == null || limit.isZero() || limit.isNegative();
+    }
+
+    private static void emit(ChunkSink sink, String stream, String text) throws IOException {
+        if (!text.isEmpty()) {
+            sink.chunk(stream, text);
+        }
+    }
+
+    private static String timeoutNote(Duration limit) {
+        return "Request timed out after " + limit.toMillis() + "ms";
+    }
+
+    private static String executionError(ExecutionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return "Daemon execution error: " + cause.getMessage();
+    }
+
+    private static String withNote(ByteArrayOutputStream buffer, String note) {
+        String output = buffer.toString(StandardCharsets.UTF_8);
+        if (!output.isEmpty() && !output.endsWith("\n")) {
+            output += "\n";
+        }
+        return output + note + "\n";
+    }
+
+    /**
+     * Fixed-capacity byte buffer between a command's output stream and the
+     * draining thread. Writers block while it is full; once closed, writes
+     * are discarded instead.
+     */
+    static final class BoundedPipe extends OutputStream {
+
+        private final Object lock;
+        private final byte[] buffer;
+        private int length;
+        private boolean closed;
+
+        BoundedPipe(Object lock, int capacity) {
+            this.lock = lock;
+            this.buffer = new byte[capacity];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized (lock) {
+                while (len > 0 && !closed) {
+                    int space = buffer.length - length;
+                    if (space == 0) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while output was blocked");
+                        }
+                        continue;
+                    }
+                    int n = Math.min(space, len);
+                    System.arraycopy(b, off, buffer, length, n);
+                    length += n;
+                    off += n;
+                    len -= n;
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            synchronized (lock) {
+                return length == 0;
+            }
+        }
+
+        /** Remove and return everything buffered, waking blocked writers. */
+        byte[] take() {
+            synchronized (lock) {
+                byte[] taken = Arrays.copyOf(buffer, length);
+                length = 0;
+                lock.notifyAll();
+                return taken;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Decodes UTF-8 in arbitrary byte slices, holding back an incomplete
+     * trailing sequence until the rest of it arrives.
+     */
+    static final class Utf8Chunker {
+
+        private byte[] pending = new byte[0];
+
+        String next(byte[] bytes) {
+            byte[] data = pending.length == 0 ? bytes : concat(pending, bytes);
+            int complete = completeLength(data);
+            pending = Arrays.copyOfRange(data, complete, data.length);
+            return new String(data, 0, complete, StandardCharsets.UTF_8);
+        }
+
+        /** Whatever is still held back, decoded as-is. */
+        String rest() {
+            String text = new String(pending, StandardCharsets.UTF_8);
+            pending = new byte[0];
+            return text;
+        }
+
+        private static int completeLength(byte[] data) {
+            // Find the last lead byte within the final (up to) 4 bytes and
+            // check whether its sequence is complete.
+            for (int i = data.length - 1; i >= 0 && i >= data.length - 4; i--) {
+                int b = data[i] & 0xff;
+                if ((b & 0xC0) == 0x80) {
+                    continue;
+                }
+                int needed = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+                return i + needed <= data.length ? data.length : i;
+            }
+            return data.length;
+        }
+
+        private static byte[] concat(byte[] a, byte[] b) {
+            byte[] joined = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, joined, a.length, b.length);
+            return joined;
+        }
+    }
+}
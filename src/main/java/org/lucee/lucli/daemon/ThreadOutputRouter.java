@@ -0,0 +1,313 @@
+package org.lucee.lucli.daemon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Locale;
+
+import org.lucee.lucli.StringOutput;
+
+/**
+ * Routes {@code System.out}/{@code System.err} per thread so concurrent
+ * daemon requests (and MCP tool calls) each capture their own output.
+ *
+ * {@link #install()} replaces the process streams once with routing streams;
+ * from then on a thread that has called {@link #capture(PrintStream)} writes to
+ * its own sink, and every other thread writes to the original stream as
+ * before. Nothing is swapped per request, so one request can never steal or
+ * leak another's output.
+ *
+ * Sinks are plain thread locals, not inherited: threads a command starts
+ * itself write to the daemon's own stdout/stderr. Inheriting would leave
+ * long-lived pool threads pointing at the sink of whichever request happened
+ * to create them.
+ */
+public final class ThreadOutputRouter {
+
+    private static final ThreadLocal<PrintStream> outSink = new ThreadLocal<>();
+    private static final ThreadLocal<PrintStream> errSink = new ThreadLocal<>();
+
+    private static volatile boolean installed;
+
+    private ThreadOutputRouter() {
+    }
+
+    /**
+     * Replace {@code System.out}/{@code System.err} (and the
+     * {@link StringOutput} streams, which hold their own reference) with
+     * routing streams. Idempotent. Call before anything caches the streams,
+     * in particular before the Lucee engine is created.
+     */
+    public static void install() {
+        install(System.out, System.err);
+    }
+
+    /**
+     * Like {@link #install()}, but uncaptured output goes to the given
+     * streams. A stdio protocol server passes {@code System.err} for both so
+     * that nothing but protocol frames can reach stdout.
+     */
+    public static synchronized void install(PrintStream outFallback, PrintStream errFallback) {
+        if (installed) {
+            return;
+        }
+        PrintStream out = routed(outFallback, outSink);
+        PrintStream err = routed(errFallback, errSink);
+        System.setOut(out);
+        System.setErr(err);
+        StringOutput.getInstance().setOutputStream(out);
+        StringOutput.getInstance().setErrorStream(err);
+        installed = true;
+    }
+
+    public static boolean isInstalled() {
+        return installed;
+    }
+
+    /**
+     * Send this thread's stdout and stderr to {@code sink} until the returned
+     * handle is closed, which restores whatever was routed before.
+     */
+    public static Capture capture(PrintStream sink) {
+        return capture(sink, sink);
+    }
+
+    public static Capture capture(PrintStream out, PrintStream err) {
+        Capture previous = new Capture(outSink.get(), errSink.get());
+        outSink.set(out);
+        errSink.set(err);
+        return previous;
+    }
+
+    private static PrintStream routed(PrintStream fallback, ThreadLocal<PrintStream> sink) {
+        return new RoutingPrintStream(fallback, sink);
+    }
+
+    /**
+     * Sends every call straight to the calling thread's sink (or the
+     * fallback). A plain {@code PrintStream} over a routing
+     * {@code OutputStream} would hold one lock shared by all threads while
+     * the sink writes, so a request blocked on a slow client would stall
+     * every other request's output; here each write only takes the lock of
+     * the stream it ends up in.
+     */
+    static final class RoutingPrintStream extends PrintStream {
+
+        private final PrintStream fallback;
+        private final ThreadLocal<PrintStream> sink;
+
+        RoutingPrintStream(PrintStream fallback, ThreadLocal<PrintStream> sink) {
+            // Report the original stream's charset so output that is not
+            // captured reaches the terminal exactly as it did before.
+            super(OutputStream.nullOutputStream(), true, fallback.charset());
+            this.fallback = fallback;
+            this.sink = sink;
+        }
+
+        private PrintStream target() {
+            PrintStream target = sink.get();
+            return target != null ? target : fallback;
+        }
+
+        @Override
+        public void write(int b) {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+            target().write(buf, off, len);
+        }
+
+        @Override
+        public void write(byte[] buf) throws IOException {
+            target().write(buf);
+        }
+
+        @Override
+        public void writeBytes(byte[] buf) {
+            target().writeBytes(buf);
+        }
+
+        @Override
+        public void flush() {
+            target().flush();
+        }
+
+        @Override
+        public void close() {
+            // The process streams are never closed through the router.
+            flush();
+        }
+
+        @Override
+        public boolean checkError() {
+            return target().checkError();
+        }
+
+        @Override
+        public void print(boolean b) {
+            target().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            target().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            target().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            target().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            target().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            target().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            target().print(obj);
+        }
+
+        @Override
+        public void println() {
+            target().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            target().println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            target().printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            target().printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            target().format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            target().format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            target().append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            target().append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            target().append(c);
+            return this;
+        }
+    }
+
+    /**
+     * Restores the previous routing of the thread that opened it.
+     */
+    public static final class Capture implements AutoCloseable {
+
+        private final PrintStream previousOut;
+        private final PrintStream previousErr;
+
+        private Capture(PrintStream previousOut, PrintStream previousErr) {
+            this.previousOut = previousOut;
+            this.previousErr = previousErr;
+        }
+
+        @Override
+        public void close() {
+            if (previousOut == null) {
+                outSink.remove();
+            } else {
+                outSink.set(previousOut);
+            }
+            if (previousErr == null) {
+                errSink.remove();
+            } else {
+                errSink.set(previousErr);
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package org.lucee.lucli.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.LuceeScriptEngine;
+import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.modules.BundledModuleInstaller;
+import org.lucee.lucli.paths.LucliPaths;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Resident warm-engine process used transparently by the {@code lucli}
+ * launcher for one-shot CFML commands.
+ *
+ * The daemon boots the Lucee engine once, listens on an ephemeral loopback
+ * port, and publishes its port and access token in
+ * {@code <lucli home>/daemon/warm.json} (see {@link WarmDaemonState}). It shuts
+ * itself down after a period without clients.
+ *
+ * Protocol (one JSON object per line, UTF-8):
+ * <pre>
+ * client → {"token":"...","argv":[...],"cwd":"/path","env":{...}}
+ * server → {"stream":"stdout","data":"&lt;base64&gt;"}   (repeated)
+ * server → {"stdinRead":8192}                      (command wants stdin)
+ * client → {"stdin":"&lt;base64&gt;"} | {"stdinEof":true}
+ * server → {"exit":0}
+ * </pre>
+ *
+ * Stdin is pulled on demand so a launcher inside a {@code while read} loop
+ * never has its input consumed by commands that do not read it.
+ */
+public class WarmDaemon {
+
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(15);
+
+    static final String SPAWN_MARKER = "warm.spawning";
+
+    private static final int ACCEPT_POLL_MS = 1000;
+    private static final int FRAME_BUFFER_SIZE = 8192;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Duration idleTimeout;
+    private final String token;
+    // Commands share System.out/err, the runtime CWD, and the engine singleton,
+    // so execution is serialized even though clients connect concurrently.
+    private final ReentrantLock executionLock = new ReentrantLock();
+    private final AtomicInteger activeClients = new AtomicInteger();
+    private volatile long lastActivityMillis = System.currentTimeMillis();
+
+    public WarmDaemon(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()
+            ? DEFAULT_IDLE_TIMEOUT
+            : idleTimeout;
+        byte[] secret = new byte[24];
+        new SecureRandom().nextBytes(secret);
+        this.token = HexFormat.of().formatHex(secret);
+    }
+
+    public int run() throws Exception {
+        Path stateFile = LucliPaths.resolve().warmDaemonStateFile();
+        WarmDaemonState.JarIdentity jar = WarmDaemonState.JarIdentity.current();
+
+        WarmDaemonState existing = WarmDaemonState.read(stateFile);
+        if (existing != null && existing.matches(jar) && existing.isProcessAlive()
+                && existing.pid() != ProcessHandle.current().pid()) {
+            LuCLI.info("A warm LuCLI daemon is already running (pid " + existing.pid() + ").");
+            clearSpawnMarker(stateFile);
+            return 0;
+        }
+
+        // Pay the expensive boot once, before advertising ourselves.
+        BundledModuleInstaller.ensureBundledModulesInstalled();
+        LuceeScriptEngine.getInstance();
+
+        long pid = ProcessHandle.current().pid();
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(ACCEPT_POLL_MS);
+
+            WarmDaemonState state = new WarmDaemonState(
+                pid,
+                server.getLocalPort(),
+                token,
+                LuCLI.getVersion(),
+                jar != null ? jar.path().toString() : "",
+                jar != null ? jar.size() : -1,
+                jar != null ? jar.modified() : -1
+            );
+            state.write(stateFile);
+            clearSpawnMarker(stateFile);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> WarmDaemonState.deleteIfOwned(stateFile, pid)));
+
+            LuCLI.info("LuCLI warm daemon listening on 127.0.0.1:" + server.getLocalPort()
+                + " (idle timeout " + idleTimeout.toSeconds() + "s)");
+            touch();
+
+            while (true) {
+                Socket client;
+                try {
+                    client = server.accept();
+                } catch (SocketTimeoutException e) {
+                    if (activeClients.get() == 0
+                            && System.currentTimeMillis() - lastActivityMillis > idleTimeout.toMillis()) {
+                        LuCLI.info("LuCLI warm daemon idle for " + idleTimeout.toSeconds() + "s, shutting down.");
+                        break;
+                    }
+                    continue;
+                }
+
+                activeClients.incrementAndGet();
+                touch();
+                Thread worker = new Thread(() -> {
+                    try (Socket socket = client) {
+                        handleClient(socket);
+                    } catch (IOException e) {
+                        if (LuCLI.debug) {
+                            e.printStackTrace();
+                        }
+                    } finally {
+                        activeClients.decrementAndGet();
+                        touch();
+                    }
+                }, "lucli-warm-client");
+                worker.setDaemon(true);
+                worker.start();
+            }
+        } finally {
+            WarmDaemonState.deleteIfOwned(stateFile, pid);
+        }
+        return 0;
+    }
+
+    private void touch() {
+        lastActivityMillis = System.currentTimeMillis();
+    }
+
+    private static void clearSpawnMarker(Path stateFile) {
+        try {
+            Files.deleteIfExists(stateFile.resolveSibling(SPAWN_MARKER));
+        } catch (IOException ignored) {
+            // best-effort
+        }
+    }
+
+    private void handleClient(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        FrameWriter frames = new FrameWriter(socket.getOutputStream());
+
+        String line = reader.readLine();
+        if (line == null || line.isBlank()) {
+            return;
+        }
+
+        WarmRequest request;
+        try {
+            request = mapper.readValue(line, WarmRequest.class);
+        } catch (Exception e) {
+            frames.stderr("Invalid warm daemon request: " + e.getMessage() + "\n");
+            frames.exit(1);
+            return;
+        }
+
+        if (request.token == null || !token.equals(request.token)) {
+            frames.stderr("Warm daemon rejected request: invalid token\n");
+            frames.exit(1);
+            return;
+        }
+        if (request.argv == null || request.argv.length == 0) {
+            frames.stderr("Warm daemon request must contain a non-empty 'argv' array\n");
+            frames.exit(1);
+            return;
+        }
+
+        int exitCode;
+        executionLock.lock();
+        try {
+            exitCode = execute(request, reader, frames);
+        } finally {
+            executionLock.unlock();
+        }
+        frames.exit(exitCode);
+    }
+
+    /**
+     * Run one command with the caller's cwd, environment, and stdio bound
+     * into this JVM, restoring the daemon's own state afterwards.
+     */
+    private int execute(WarmRequest request, BufferedReader reader, FrameWriter frames) {
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        InputStream originalIn = System.in;
+        StringOutput stringOutput = StringOutput.getInstance();
+        PrintStream originalStringOut = stringOutput.getOutputStream();
+        PrintStream originalStringErr = stringOutput.getErrorStream();
+        String originalUserDir = System.getProperty("user.dir");
+        Path originalRuntimeCwd = LuCLI.getRuntimeCwd();
+
+        FrameOutputStream stdoutFrames = new FrameOutputStream(frames, "stdout");
+        FrameOutputStream stderrFrames = new FrameOutputStream(frames, "stderr");
+        PrintStream out = new PrintStream(stdoutFrames, true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(stderrFrames, true, StandardCharsets.UTF_8);
+
+        try {
+            System.setOut(out);
+            System.setErr(err);
+            System.setIn(new DemandInputStream(reader, frames, stdoutFrames, stderrFrames));
+            stringOutput.setOutputStream(out);
+            stringOutput.setErrorStream(err);
+
+            if (request.cwd != null && !request.cwd.isBlank()) {
+                Path cwd = Paths.get(request.cwd).toAbsolutePath().normalize();
+                System.setProperty("user.dir", cwd.toString());
+                LuCLI.setRuntimeCwd(cwd);
+            }
+            if (request.env != null) {
+                LuCLI.setThreadScriptEnvironment(request.env);
+            }
+
+            return LuCLI.executeInProcess(request.argv);
+        } catch (Exception e) {
+            err.println("Error: " + e.getMessage());
+            if (LuCLI.debug) {
+                e.printStackTrace(err);
+            }
+            return 1;
+        } finally {
+            out.flush();
+            err.flush();
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            System.setIn(originalIn);
+            stringOutput.setOutputStream(originalStringOut);
+            stringOutput.setErrorStream(originalStringErr);
+            LuCLI.setThreadScriptEnvironment(null);
+            System.setProperty("user.dir", originalUserDir);
+            LuCLI.setRuntimeCwd(originalRuntimeCwd);
+        }
+    }
+
+    /** Request DTO for the warm protocol. */
+    public static class WarmRequest {
+        public String token;
+        public String[] argv;
+        public String cwd;
+        public Map<String, String> env;
+    }
+
+    /** Serializes protocol frames onto the client connection. */
+    private final class FrameWriter {
+        private final BufferedWriter writer;
+
+        FrameWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        synchronized void write(Map<String, Object> frame) throws IOException {
+            writer.write(mapper.writeValueAsString(frame));
+            writer.write("\n");
+            writer.flush();
+        }
+
+        void data(String stream, byte[] bytes, int off, int len) throws IOException {
+            Map<String, Object> frame = new LinkedHashMap<>();
+            frame.put("stream", stream);
+            frame.put("data", Base64.getEncoder().encodeToString(java.util.Arrays.copyOfRange(bytes, off, off + len)));
+            write(frame);
+        }
+
+        void stderr(String message) throws IOException {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            data("stderr", bytes, 0, bytes.length);
+        }
+
+        void exit(int exitCode) throws IOException {
+            Map<String, Object> frame = new LinkedHashMap<>();
+            frame.put("exit", exitCode);
+            write(frame);
+        }
+    }
+
+    /** Buffers command output and emits it as base64 data frames on flush. */
+    private static final class FrameOutputStream extends OutputStream {
+        private final FrameWriter frames;
+        private final String stream;
+        private final byte[] buffer = new byte[FRAME_BUFFER_SIZE];
+        private int count;
+
+        FrameOutputStream(FrameWriter frames, String stream) {
+            this.frames = frames;
+            this.stream = stream;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flush();
+                }
+                int chunk = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, chunk);
+                count += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            int len = count;
+            count = 0;
+            frames.data(stream, buffer, 0, len);
+        }
+    }
+
+    /**
+     * System.in replacement that asks the client for bytes only when the
+     * running command actually reads.
+     */
+    private final class DemandInputStream extends InputStream {
+        private final BufferedReader reader;
+        private final FrameWriter frames;
+        private final FrameOutputStream[] pendingOutput;
+        private byte[] chunk = new byte[0];
+        private int position;
+        private boolean eof;
+
+        DemandInputStream(BufferedReader reader, FrameWriter frames, FrameOutputStream... pendingOutput) {
+            this.reader = reader;
+            this.frames = frames;
+            this.pendingOutput = pendingOutput;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= chunk.length && !fill(len)) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public synchronized int available() {
+            return chunk.length - position;
+        }
+
+        private boolean fill(int wanted) throws IOException {
+            if (eof) {
+                return false;
+            }
+            // Make sure prompts written without a newline reach the user first.
+            for (FrameOutputStream pending : pendingOutput) {
+                pending.flush();
+            }
+            Map<String, Object> frame = new LinkedHashMap<>();
+            frame.put("stdinRead", Math.min(wanted, FRAME_BUFFER_SIZE));
+            frames.write(frame);
+
+            String line = reader.readLine();
+            if (line == null) {
+                eof = true;
+                return false;
+            }
+            JsonNode reply = mapper.readTree(line);
+            if (reply.path("stdinEof").asBoolean(false) || !reply.hasNonNull("stdin")) {
+                eof = true;
+                return false;
+            }
+            chunk = Base64.getDecoder().decode(reply.get("stdin").asText());
+            position = 0;
+            if (chunk.length == 0) {
+                eof = true;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package org.lucee.lucli.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.modules.ModuleCommand;
+import org.lucee.lucli.paths.LucliPaths;
+import org.lucee.lucli.system.JavaRuntime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import picocli.CommandLine.Command;
+
+/**
+ * Launcher-side half of the warm daemon.
+ *
+ * When enabled (the {@code lucli} launcher passes {@code -Dlucli.warm=auto};
+ * {@code LUCLI_WARM=0} turns it off), one-shot CFML commands are forwarded to
+ * a running {@link WarmDaemon} instead of booting Lucee in this JVM. If no
+ * compatible daemon is running, one is started in the background for next
+ * time and the command runs cold as usual.
+ */
+public final class WarmDaemonClient {
+
+    public static final String ENABLE_PROPERTY = "lucli.warm";
+    public static final String ENABLE_ENV = "LUCLI_WARM";
+    public static final String IDLE_TIMEOUT_ENV = "LUCLI_WARM_IDLE_TIMEOUT";
+
+    private static final int CONNECT_TIMEOUT_MS = 250;
+    private static final long SPAWN_MARKER_TTL_MS = 60_000;
+
+    private WarmDaemonClient() {
+    }
+
+    /**
+     * Try to run {@code args} in the warm daemon.
+     *
+     * @return the command's exit code, or null when the caller should run the
+     *         command in-process (warm mode disabled, command not eligible, or
+     *         no compatible daemon reachable)
+     */
+    public static Integer tryExecute(String[] args) {
+        if (!isEnabled(System.getProperty(ENABLE_PROPERTY), System.getenv(ENABLE_ENV))
+                || !isEligibleCommand(args)) {
+            return null;
+        }
+
+        WarmDaemonState.JarIdentity jar = WarmDaemonState.JarIdentity.current();
+        if (jar == null) {
+            return null;
+        }
+
+        Path stateFile = LucliPaths.resolve().warmDaemonStateFile();
+        WarmDaemonState state = WarmDaemonState.read(stateFile);
+        if (state == null || !state.matches(jar) || !state.isProcessAlive()) {
+            spawnDaemon(jar, stateFile);
+            return null;
+        }
+
+        return execute(state, args);
+    }
+
+    /**
+     * Warm mode is on when the property or env var says so; an explicit
+     * {@code LUCLI_WARM=0|false|off} always wins so users can opt out.
+     */
+    static boolean isEnabled(String property, String env) {
+        if (env != null && !env.isBlank()) {
+            return isTruthy(env);
+        }
+        return property != null && isTruthy(property);
+    }
+
+    private static boolean isTruthy(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        return v.equals("1") || v.equals("true") || v.equals("on") || v.equals("yes") || v.equals("auto");
+    }
+
+    /**
+     * Only short-lived CFML work is routed to the daemon: {@code cfml},
+     * {@code run}/direct execution of CFML files, and module invocations.
+     * Root flags, server management, the REPL, and {@code .lucli} scripts
+     * always run in-process.
+     */
+    static boolean isEligibleCommand(String[] args) {
+        if (args == null || args.length == 0) {
+            return false;
+        }
+        String first = args[0];
+        if (first.startsWith("-")) {
+            return false;
+        }
+        switch (first) {
+            case "cfml":
+                return args.length > 1;
+            case "run":
+                return args.length > 1 && isCfmlFile(args[1]);
+            case "modules":
+                // A missing module makes `modules run` call System.exit(),
+                // which must never happen inside the shared daemon.
+                return args.length > 2 && "run".equals(args[1]) && ModuleCommand.moduleExists(args[2]);
+            default:
+                break;
+        }
+        if (isCfmlFile(first)) {
+            return Files.isRegularFile(Paths.get(first));
+        }
+        if (builtinCommandNames().contains(first)) {
+            return false;
+        }
+        return ModuleCommand.moduleExists(first);
+    }
+
+    private static boolean isCfmlFile(String arg) {
+        String lower = arg.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".cfs") || lower.endsWith(".cfm") || lower.endsWith(".cfml");
+    }
+
+    private static Set<String> builtinCommandNames() {
+        Set<String> names = new HashSet<>();
+        Command root = LuCLI.class.getAnnotation(Command.class);
+        if (root == null) {
+            return names;
+        }
+        for (Class<?> sub : root.subcommands()) {
+            Command command = sub.getAnnotation(Command.class);
+            if (command != null) {
+                names.add(command.name());
+                names.addAll(Arrays.asList(command.aliases()));
+            }
+        }
+        return names;
+    }
+
+    private static Integer execute(WarmDaemonState state, String[] args) {
+        ObjectMapper mapper = new ObjectMapper();
+        boolean requestSent = false;
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), state.port()), CONNECT_TIMEOUT_MS);
+            BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("token", state.token());
+            request.put("argv", args);
+            request.put("cwd", Paths.get(System.getProperty("user.dir")).toAbsolutePath().toString());
+            request.put("env", System.getenv());
+            writer.write(mapper.writeValueAsString(request));
+            writer.write("\n");
+            writer.flush();
+            requestSent = true;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode frame = mapper.readTree(line);
+                if (frame.has("exit")) {
+                    System.out.flush();
+                    System.err.flush();
+                    return frame.get("exit").asInt(1);
+                }
+                if (frame.has("stdinRead")) {
+                    replyWithStdin(mapper, writer, frame.get("stdinRead").asInt(8192));
+                    continue;
+                }
+                if (frame.hasNonNull("data")) {
+                    PrintStream target = "stderr".equals(frame.path("stream").asText()) ? System.err : System.out;
+                    target.write(Base64.getDecoder().decode(frame.get("data").asText()));
+                    target.flush();
+                }
+            }
+            System.err.println("LuCLI warm daemon closed the connection before the command finished.");
+            return 1;
+        } catch (IOException e) {
+            if (!requestSent) {
+                // Daemon went away between the state check and connect; run cold.
+                return null;
+            }
+            System.err.println("LuCLI warm daemon connection failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void replyWithStdin(ObjectMapper mapper, BufferedWriter writer, int max) throws IOException {
+        byte[] buffer = new byte[Math.max(1, max)];
+        int n = System.in.read(buffer);
+        Map<String, Object> reply = new LinkedHashMap<>();
+        if (n < 0) {
+            reply.put("stdinEof", true);
+        } else {
+            reply.put("stdin", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer, n)));
+        }
+        writer.write(mapper.writeValueAsString(reply));
+        writer.write("\n");
+        writer.flush();
+    }
+
+    /**
+     * Start {@code lucli daemon --warm} detached from this process. A marker
+     * file keeps concurrent launchers from starting several daemons at once.
+     */
+    static void spawnDaemon(WarmDaemonState.JarIdentity jar, Path stateFile) {
+        Path daemonDir = stateFile.getParent();
+        Path marker = daemonDir.resolve(WarmDaemon.SPAWN_MARKER);
+        try {
+            Files.createDirectories(daemonDir);
+            if (Files.exists(marker)
+                    && System.currentTimeMillis() - Files.getLastModifiedTime(marker).toMillis() > SPAWN_MARKER_TTL_MS) {
+                Files.deleteIfExists(marker);
+            }
+            Files.createFile(marker);
+        } catch (FileAlreadyExistsException e) {
+            return;
+        } catch (IOException e) {
+            LuCLI.debug("WarmDaemon", "Could not create spawn marker: " + e.getMessage());
+            return;
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(JavaRuntime.javaExecutable());
+        for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!arg.startsWith("-D" + ENABLE_PROPERTY + "=")) {
+                command.add(arg);
+            }
+        }
+        command.add("-jar");
+        command.add(jar.path().toString());
+        command.add("daemon");
+        command.add("--warm");
+        String idleTimeout = System.getenv(IDLE_TIMEOUT_ENV);
+        if (idleTimeout != null && idleTimeout.trim().matches("\\d+")) {
+            command.add("--idle-timeout");
+            command.add(idleTimeout.trim());
+        }
+
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(daemonDir.resolve("warm.log").toFile()));
+            pb.environment().remove(ENABLE_ENV);
+            Process process = pb.start();
+            process.getOutputStream().close();
+            LuCLI.debug("WarmDaemon", "Started warm daemon (pid " + process.pid() + ")");
+        } catch (IOException e) {
+            LuCLI.debug("WarmDaemon", "Could not start warm daemon: " + e.getMessage());
+            try {
+                Files.deleteIfExists(marker);
+            } catch (IOException ignored) {
+                // best-effort
+            }
+        }
+    }
+}
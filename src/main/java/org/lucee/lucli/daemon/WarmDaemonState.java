@@ -0,0 +1,145 @@
+package org.lucee.lucli.daemon;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.CodeSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.paths.LucliFiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Handshake file written by a running warm daemon so launchers can find it.
+ *
+ * The file lives at {@code <lucli home>/daemon/warm.json} and records the
+ * listening port, a per-process access token, and the identity of the JAR the
+ * daemon was started from. Clients only connect when the JAR identity matches
+ * their own, so upgrading LuCLI never routes commands into a stale engine.
+ */
+public record WarmDaemonState(
+    long pid,
+    int port,
+    String token,
+    String version,
+    String jarPath,
+    long jarSize,
+    long jarModified
+) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Identity of the JAR this JVM was launched from, or null when running
+     * from a classes directory (e.g. {@code mvn exec:java}).
+     */
+    public record JarIdentity(Path path, long size, long modified) {
+
+        public static JarIdentity current() {
+            try {
+                CodeSource source = LuCLI.class.getProtectionDomain().getCodeSource();
+                if (source == null || source.getLocation() == null) {
+                    return null;
+                }
+                Path jar = Paths.get(source.getLocation().toURI()).toAbsolutePath().normalize();
+                if (!Files.isRegularFile(jar)) {
+                    return null;
+                }
+                return new JarIdentity(jar, Files.size(jar), Files.getLastModifiedTime(jar).toMillis());
+            } catch (IOException | URISyntaxException | SecurityException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * True when this state was written by a daemon running the given JAR build.
+     */
+    public boolean matches(JarIdentity jar) {
+        return jar != null
+            && jar.path().toString().equals(jarPath)
+            && jar.size() == jarSize
+            && jar.modified() == jarModified
+            && LuCLI.getVersion().equals(version);
+    }
+
+    /**
+     * True when the recorded daemon process is still alive.
+     */
+    public boolean isProcessAlive() {
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    public static WarmDaemonState read(Path stateFile) {
+        if (stateFile == null || !Files.isRegularFile(stateFile)) {
+            return null;
+        }
+        try {
+            JsonNode node = MAPPER.readTree(Files.readString(stateFile, StandardCharsets.UTF_8));
+            if (node == null || !node.hasNonNull("port") || !node.hasNonNull("token")) {
+                return null;
+            }
+            return new WarmDaemonState(
+                node.path("pid").asLong(-1),
+                node.path("port").asInt(),
+                node.path("token").asText(),
+                node.path("version").asText(""),
+                node.path("jarPath").asText(""),
+                node.path("jarSize").asLong(-1),
+                node.path("jarModified").asLong(-1)
+            );
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the state atomically (temp file + rename) with owner-only
+     * permissions where the filesystem supports POSIX attributes.
+     */
+    public void write(Path stateFile) throws IOException {
+        Files.createDirectories(stateFile.getParent());
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("pid", pid);
+        values.put("port", port);
+        values.put("token", token);
+        values.put("version", version);
+        values.put("jarPath", jarPath);
+        values.put("jarSize", jarSize);
+        values.put("jarModified", jarModified);
+
+        String json = MAPPER.writeValueAsString(values);
+        LucliFiles.writeAtomically(stateFile, temp -> {
+            // Restrict the temp file before the token is written to it.
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException ignored) {
+                // Non-POSIX filesystem (Windows); rely on the home directory ACLs.
+            }
+            Files.writeString(temp, json, StandardCharsets.UTF_8);
+        });
+    }
+
+    /**
+     * Remove the state file, but only if it still belongs to the given pid.
+     */
+    public static void deleteIfOwned(Path stateFile, long pid) {
+        WarmDaemonState current = read(stateFile);
+        if (current != null && current.pid() != pid) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(stateFile);
+        } catch (IOException ignored) {
+            // best-effort
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.lucee.lucli.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves a {@link MetricsRegistry} in the Prometheus text format over HTTP.
+ */
+public final class MetricsEndpoint {
+
+    public static final String PATH = "/metrics";
+
+    private MetricsEndpoint() {
+    }
+
+    /**
+     * Start a server on {@code 127.0.0.1:port} answering {@value #PATH}.
+     * Stop the returned server when done.
+     */
+    public static HttpServer start(int port, MetricsRegistry registry) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, handler(registry));
+        server.start();
+        return server;
+    }
+
+    /** Handler for mounting on an existing server. */
+    public static HttpHandler handler(MetricsRegistry registry) {
+        return exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = registry.toPrometheus().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+}
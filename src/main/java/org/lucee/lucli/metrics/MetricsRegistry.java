@@ -0,0 +1,231 @@
+package org.lucee.lucli.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process metrics for the long-running modes ({@code lucli daemon},
+ * {@code lucli mcp}): latency histograms with error and in-flight counts per
+ * labelled series, plus gauges sampled when a snapshot is taken.
+ *
+ * Series are created on first use and live as long as the registry, so
+ * label values must come from a bounded set (command names, tool names),
+ * never from free-form input.
+ *
+ * Exposed as a JSON-friendly {@link #snapshot()} and in the Prometheus text
+ * format ({@link #toPrometheus()}).
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry shared = new MetricsRegistry();
+
+    private final long startedNanos = System.nanoTime();
+    private final Map<SeriesKey, Series> series = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    /** Process-wide registry the daemon and MCP server report to. */
+    public static MetricsRegistry getShared() {
+        return shared;
+    }
+
+    /**
+     * The series {@code name} with the given labels, created on first use.
+     *
+     * @param labels label names and values, alternating
+     */
+    public Series series(String name, String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs: " + List.of(labels));
+        }
+        return series.computeIfAbsent(new SeriesKey(name, List.of(labels)), Series::new);
+    }
+
+    /** Register (or replace) a gauge read at snapshot time. */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public double uptimeSeconds() {
+        return (System.nanoTime() - startedNanos) / 1e9;
+    }
+
+    /** Current values as maps and lists, ready to serialize as JSON. */
+    public Map<String, Object> snapshot() {
+        double uptime = uptimeSeconds();
+        Map<String, Object> gaugeValues = new LinkedHashMap<>();
+        gauges.forEach((name, value) -> gaugeValues.put(name, value.getAsLong()));
+
+        List<Map<String, Object>> seriesValues = new ArrayList<>();
+        for (Series s : sortedSeries()) {
+            LatencyHistogram latency = s.latency();
+            long count = latency.count();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", s.name());
+            entry.put("labels", s.labels());
+            entry.put("count", count);
+            entry.put("errors", s.errors());
+            entry.put("inFlight", s.inFlight());
+            entry.put("ratePerSecond", uptime > 0 ? round(count / uptime) : 0.0);
+            entry.put("meanMs", count > 0 ? round(latency.sumMicros() / 1000.0 / count) : 0.0);
+            entry.put("p50Ms", round(latency.quantileMicros(0.50) / 1000.0));
+            entry.put("p95Ms", round(latency.quantileMicros(0.95) / 1000.0));
+            entry.put("p99Ms", round(latency.quantileMicros(0.99) / 1000.0));
+            entry.put("maxMs", round(latency.maxMicros() / 1000.0));
+            seriesValues.add(entry);
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("uptimeSeconds", round(uptime));
+        snapshot.put("gauges", gaugeValues);
+        snapshot.put("series", seriesValues);
+        return snapshot;
+    }
+
+    /**
+     * Prometheus text exposition format (0.0.4). Each series becomes a
+     * summary in seconds ({@code <name>_seconds}) with p50/p95/p99 quantiles,
+     * plus {@code <name>_errors_total} and {@code <name>_in_flight}.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        String current = null;
+        List<Series> sorted = sortedSeries();
+        for (Series s : sorted) {
+            if (!s.name().equals(current)) {
+                current = s.name();
+                out.append("# TYPE ").append(current).append("_seconds summary\n");
+            }
+            LatencyHistogram latency = s.latency();
+            for (double q : new double[] {0.5, 0.95, 0.99}) {
+                out.append(current).append("_seconds").append(labels(s.labels(), "quantile", String.valueOf(q)))
+                    .append(' ').append(latency.quantileMicros(q) / 1e6).append('\n');
+            }
+            out.append(current).append("_seconds_sum").append(labels(s.labels(), null, null))
+                .append(' ').append(latency.sumMicros() / 1e6).append('\n');
+            out.append(current).append("_seconds_count").append(labels(s.labels(), null, null))
+                .append(' ').append(latency.count()).append('\n');
+        }
+        appendPerSeries(out, sorted, "_errors_total", "counter", Series::errors);
+        appendPerSeries(out, sorted, "_in_flight", "gauge", Series::inFlight);
+        gauges.forEach((name, value) -> out.append("# TYPE ").append(name).append(" gauge\n")
+            .append(name).append(' ').append(value.getAsLong()).append('\n'));
+        return out.toString();
+    }
+
+    private static void appendPerSeries(StringBuilder out, List<Series> sorted, String suffix, String type,
+            java.util.function.ToLongFunction<Series> value) {
+        String current = null;
+        for (Series s : sorted) {
+            if (!s.name().equals(current)) {
+                current = s.name();
+                out.append("# TYPE ").append(current).append(suffix).append(' ').append(type).append('\n');
+            }
+            out.append(current).append(suffix).append(labels(s.labels(), null, null))
+                .append(' ').append(value.applyAsLong(s)).append('\n');
+        }
+    }
+
+    private List<Series> sortedSeries() {
+        List<Series> sorted = new ArrayList<>(series.values());
+        sorted.sort(Comparator.comparing(Series::name).thenComparing(s -> s.labels().toString()));
+        return sorted;
+    }
+
+    private static String labels(Map<String, String> labels, String extraName, String extraValue) {
+        if (labels.isEmpty() && extraName == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("{");
+        labels.forEach((name, value) -> {
+            if (out.length() > 1) {
+                out.append(',');
+            }
+            out.append(name).append("=\"").append(escape(value)).append('"');
+        });
+        if (extraName != null) {
+            if (out.length() > 1) {
+                out.append(',');
+            }
+            out.append(extraName).append("=\"").append(escape(extraValue)).append('"');
+        }
+        return out.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    private record SeriesKey(String name, List<String> labels) {
+    }
+
+    /** One labelled latency series. */
+    public static final class Series {
+
+        private final String name;
+        private final Map<String, String> labels;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Series(SeriesKey key) {
+            this.name = key.name();
+            Map<String, String> map = new LinkedHashMap<>();
+            for (int i = 0; i < key.labels().size(); i += 2) {
+                map.put(key.labels().get(i), key.labels().get(i + 1));
+            }
+            this.labels = Collections.unmodifiableMap(map);
+        }
+
+        /** Mark one operation as started; pass the result to {@link #end}. */
+        public long begin() {
+            inFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        public void end(long startNanos, boolean failed) {
+            inFlight.decrementAndGet();
+            latency.record(System.nanoTime() - startNanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        /** Record a duration measured elsewhere (e.g. a wait). */
+        public void record(long nanos) {
+            latency.record(nanos);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public Map<String, String> labels() {
+            return labels;
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        public long errors() {
+            return errors.sum();
+        }
+
+        public long inFlight() {
+            return inFlight.get();
+        }
+    }
+}
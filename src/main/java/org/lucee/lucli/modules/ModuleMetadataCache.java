@@ -0,0 +1,481 @@
+package org.lucee.lucli.modules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.LuceeScriptEngine;
+import org.lucee.lucli.Timer;
+import org.lucee.lucli.daemon.ThreadOutputRouter;
+import org.lucee.lucli.paths.LucliFiles;
+import org.lucee.lucli.paths.LucliPaths;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lucee.runtime.type.Array;
+import lucee.runtime.type.Struct;
+
+/**
+ * Persistent cache of module function metadata.
+ *
+ * Shell completion and MCP {@code tools/list} only need a module's public
+ * function names, hints and parameter lists, yet reading them means booting
+ * Lucee and introspecting {@code Module.cfc}. The result is stored as JSON in
+ * {@code <lucli home>/cache/module-metadata/<module>.json}, keyed by the size,
+ * modification time and SHA-256 of the module's {@code Module.cfc} and the
+ * shared {@code BaseModule.cfc}, plus the LuCLI version. While those match,
+ * lookups are answered from disk without touching the engine; when a source
+ * changes the entry is rebuilt on the next lookup.
+ *
+ * The MCP conventions ({@code mcpHiddenTools()}/{@code mcpToolSpecs()}) need
+ * the module to be executed, so they are only resolved when a caller asks for
+ * them and are then stored alongside the function list.
+ */
+public final class ModuleMetadataCache {
+
+    public static final String HIT_COUNTER = "Module Metadata Cache Hit";
+    public static final String MISS_COUNTER = "Module Metadata Cache Miss";
+
+    /** Bump when the stored layout changes. */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Cached view of a module. {@code hiddenTools} and {@code toolSpecs} are
+     * null until the MCP conventions have been resolved for the module.
+     */
+    public record ModuleMetadata(
+        List<Map<String, Object>> functions,
+        Set<String> hiddenTools,
+        Map<String, Map<String, Object>> toolSpecs
+    ) {
+        public List<String> functionNames() {
+            List<String> names = new ArrayList<>();
+            for (Map<String, Object> fn : functions) {
+                Object name = fn.get("name");
+                if (name != null && !name.toString().isBlank()) {
+                    names.add(name.toString());
+                }
+            }
+            return names;
+        }
+
+        boolean hasMcpConventions() {
+            return hiddenTools != null && toolSpecs != null;
+        }
+    }
+
+    /** Identity of one source file the metadata was derived from. */
+    record SourceFingerprint(String path, long size, long modified, String sha256) {
+    }
+
+    record CacheEntry(int formatVersion, String lucliVersion, List<SourceFingerprint> sources, ModuleMetadata metadata) {
+    }
+
+    /** Reads metadata from the engine on a cache miss. */
+    interface Loader {
+        List<Map<String, Object>> functions(String moduleName) throws Exception;
+
+        Set<String> hiddenTools(String moduleName);
+
+        Map<String, Map<String, Object>> toolSpecs(String moduleName);
+    }
+
+    private static volatile ModuleMetadataCache instance;
+
+    private final Path cacheDir;
+    private final Path modulesDir;
+    private final Loader loader;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, CacheEntry> memory = new ConcurrentHashMap<>();
+    private final Map<String, ModuleMetadata> unkeyed = new ConcurrentHashMap<>();
+    private final Map<String, Object> rebuildLocks = new ConcurrentHashMap<>();
+
+    ModuleMetadataCache(LucliPaths.ResolvedPaths paths, Loader loader) {
+        this.cacheDir = paths.moduleMetadataCacheDir();
+        this.modulesDir = paths.modulesDir();
+        this.loader = loader;
+    }
+
+    public static ModuleMetadataCache getInstance() {
+        if (instance == null) {
+            synchronized (ModuleMetadataCache.class) {
+                if (instance == null) {
+                    instance = new ModuleMetadataCache(LucliPaths.resolve(), new EngineLoader());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Metadata for an installed module.
+     *
+     * Rebuilds go through the engine and are serialized per module: a caller
+     * that finds another rebuild in progress waits for it and then uses its
+     * result.
+     *
+     * @param includeMcp also resolve {@code mcpHiddenTools()}/{@code mcpToolSpecs()}
+     */
+    public ModuleMetadata get(String moduleName, boolean includeMcp) throws Exception {
+        String key = moduleName.toLowerCase(Locale.ROOT);
+        List<Path> sources = sourcesFor(moduleName);
+        ModuleMetadata cached = lookup(key, sources, includeMcp);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (rebuildLocks.computeIfAbsent(key, k -> new Object())) {
+            cached = lookup(key, sources, includeMcp);
+            if (cached != null) {
+                return cached;
+            }
+            Timer.increment(MISS_COUNTER);
+            return rebuild(moduleName, key, sources, includeMcp);
+        }
+    }
+
+    /** The cached metadata when it is still valid and complete enough, else null. */
+    private ModuleMetadata lookup(String key, List<Path> sources, boolean includeMcp) throws IOException {
+        if (sources == null) {
+            // Not an on-disk module; nothing to key a persisted entry on, so
+            // it is only remembered for the life of this process.
+            ModuleMetadata metadata = unkeyed.get(key);
+            if (metadata != null && (!includeMcp || metadata.hasMcpConventions())) {
+                Timer.increment(HIT_COUNTER);
+                return metadata;
+            }
+            return null;
+        }
+
+        CacheEntry entry = storedEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        List<SourceFingerprint> current = verify(entry, sources);
+        if (current == null || (includeMcp && !entry.metadata().hasMcpConventions())) {
+            return null;
+        }
+        Timer.increment(HIT_COUNTER);
+        if (!current.equals(entry.sources())) {
+            // Touched but unchanged: remember the new timestamps so the next check is a stat.
+            entry = new CacheEntry(FORMAT_VERSION, LuCLI.getVersion(), current, entry.metadata());
+            write(key, entry);
+        }
+        memory.put(key, entry);
+        return entry.metadata();
+    }
+
+    private ModuleMetadata rebuild(String moduleName, String key, List<Path> sources, boolean includeMcp)
+            throws Exception {
+        if (sources == null) {
+            ModuleMetadata previous = unkeyed.get(key);
+            ModuleMetadata metadata = load(moduleName, includeMcp, previous != null ? previous.functions() : null);
+            unkeyed.put(key, metadata);
+            return metadata;
+        }
+
+        CacheEntry entry = storedEntry(key);
+        List<SourceFingerprint> current = entry != null ? verify(entry, sources) : null;
+        if (current != null) {
+            // Functions are still valid; only the MCP conventions are missing.
+            ModuleMetadata metadata = load(moduleName, true, entry.metadata().functions());
+            entry = new CacheEntry(FORMAT_VERSION, LuCLI.getVersion(), current, metadata);
+            write(key, entry);
+            memory.put(key, entry);
+            return metadata;
+        }
+
+        ModuleMetadata metadata = load(moduleName, includeMcp, null);
+        // Fingerprint after loading: the engine refreshes BaseModule.cfc on first use.
+        List<SourceFingerprint> fingerprints = new ArrayList<>();
+        for (Path source : sources) {
+            fingerprints.add(fingerprint(source, null));
+        }
+        entry = new CacheEntry(FORMAT_VERSION, LuCLI.getVersion(), fingerprints, metadata);
+        write(key, entry);
+        memory.put(key, entry);
+        return metadata;
+    }
+
+    private CacheEntry storedEntry(String key) {
+        CacheEntry entry = memory.get(key);
+        return entry != null ? entry : read(cacheFile(key));
+    }
+
+    private ModuleMetadata load(String moduleName, boolean includeMcp, List<Map<String, Object>> knownFunctions)
+            throws Exception {
+        List<Map<String, Object>> functions = knownFunctions != null ? knownFunctions : loader.functions(moduleName);
+        if (!includeMcp) {
+            return new ModuleMetadata(functions, null, null);
+        }
+        return new ModuleMetadata(functions, loader.hiddenTools(moduleName), loader.toolSpecs(moduleName));
+    }
+
+    /**
+     * {@code Module.cfc} and the shared {@code BaseModule.cfc} for a module, or
+     * null when the module has no {@code Module.cfc} on disk.
+     */
+    List<Path> sourcesFor(String moduleName) throws IOException {
+        Path moduleDir = modulesDir.resolve(moduleName);
+        if (!Files.isDirectory(moduleDir)) {
+            moduleDir = findModuleDirIgnoringCase(moduleName);
+        }
+        if (moduleDir == null) {
+            return null;
+        }
+        Path moduleCfc = moduleDir.resolve("Module.cfc");
+        if (!Files.isRegularFile(moduleCfc)) {
+            return null;
+        }
+        List<Path> sources = new ArrayList<>();
+        sources.add(moduleCfc);
+        sources.add(modulesDir.resolve("BaseModule.cfc"));
+        return sources;
+    }
+
+    private Path findModuleDirIgnoringCase(String moduleName) throws IOException {
+        if (!Files.isDirectory(modulesDir)) {
+            return null;
+        }
+        try (Stream<Path> stream = Files.list(modulesDir)) {
+            return stream
+                .filter(Files::isDirectory)
+                .filter(dir -> dir.getFileName().toString().equalsIgnoreCase(moduleName))
+                .findFirst()
+                .orElse(null);
+        }
+    }
+
+    /**
+     * Check an entry against the current sources.
+     *
+     * @return the current fingerprints when the entry is still valid, else null
+     */
+    List<SourceFingerprint> verify(CacheEntry entry, List<Path> sources) throws IOException {
+        if (entry.formatVersion() != FORMAT_VERSION
+                || !LuCLI.getVersion().equals(entry.lucliVersion())
+                || entry.metadata() == null
+                || entry.metadata().functions() == null
+                || entry.sources() == null
+                || entry.sources().size() != sources.size()) {
+            return null;
+        }
+        List<SourceFingerprint> current = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            SourceFingerprint stored = entry.sources().get(i);
+            Path source = sources.get(i);
+            if (!source.toAbsolutePath().toString().equals(stored.path())) {
+                return null;
+            }
+            SourceFingerprint now = fingerprint(source, stored);
+            if (!now.sha256().equals(stored.sha256())) {
+                return null;
+            }
+            current.add(now);
+        }
+        return current;
+    }
+
+    /**
+     * Fingerprint a source file. When size and mtime match {@code previous},
+     * its hash is reused instead of re-reading the file.
+     */
+    static SourceFingerprint fingerprint(Path source, SourceFingerprint previous) throws IOException {
+        String path = source.toAbsolutePath().toString();
+        if (!Files.isRegularFile(source)) {
+            return new SourceFingerprint(path, -1, -1, "");
+        }
+        long size = Files.size(source);
+        long modified = Files.getLastModifiedTime(source).toMillis();
+        if (previous != null && previous.size() == size && previous.modified() == modified) {
+            return previous;
+        }
+        return new SourceFingerprint(path, size, modified, sha256(source));
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    Path cacheFile(String key) {
+        return cacheDir.resolve(key.replaceAll("[^a-z0-9._-]", "_") + ".json");
+    }
+
+    private CacheEntry read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return mapper.readValue(file.toFile(), CacheEntry.class);
+        } catch (IOException e) {
+            // Corrupt or from an older layout; rebuild.
+            return null;
+        }
+    }
+
+    private void write(String key, CacheEntry entry) {
+        Path file = cacheFile(key);
+        try {
+            LucliFiles.writeAtomically(file, temp -> mapper.writeValue(temp.toFile(), entry));
+        } catch (IOException e) {
+            // The in-memory entry still serves this process.
+            if (LuCLI.debug) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Deep-converts a CFML value (Struct/Array/simple) into plain Java
+     * collections so it can be stored as JSON. Struct keys keep their stored
+     * case (quoted CFML struct keys preserve case, which JSON Schema property
+     * names require).
+     */
+    public static Object cfmlToJava(Object value) {
+        if (value instanceof Struct) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put(entry.getKey().toString(), cfmlToJava(entry.getValue()));
+            }
+            return map;
+        }
+        if (value instanceof Array) {
+            Array arr = (Array) value;
+            List<Object> list = new ArrayList<>();
+            for (int i = 1; i <= arr.size(); i++) {
+                list.add(cfmlToJava(arr.get(i, null)));
+            }
+            return list;
+        }
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        return value.toString();
+    }
+
+    /**
+     * Loads metadata through {@link LuceeScriptEngine}: the function list via
+     * {@code metadataGetFunctions.cfs} and the optional MCP convention
+     * functions by executing the module.
+     */
+    static final class EngineLoader implements Loader {
+
+        @Override
+        public List<Map<String, Object>> functions(String moduleName) throws Exception {
+            Array meta = LuceeScriptEngine.getInstance().getComponentMetadata("modules." + moduleName + ".Module");
+            List<Map<String, Object>> functions = new ArrayList<>();
+            for (int i = 1; i <= meta.size(); i++) {
+                Object item = cfmlToJava(meta.get(i, null));
+                if (item instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> fn = (Map<String, Object>) item;
+                    functions.add(fn);
+                }
+            }
+            return functions;
+        }
+
+        /**
+         * If the module defines a public `mcpHiddenTools()` function returning
+         * an array of tool names, return those names (lowercase). Otherwise
+         * empty.
+         */
+        @Override
+        public Set<String> hiddenTools(String moduleName) {
+            Object result = invokeQuietly(moduleName, "mcpHiddenTools");
+            Set<String> hidden = new LinkedHashSet<>();
+            if (result instanceof Array) {
+                Array arr = (Array) result;
+                for (int i = 1; i <= arr.size(); i++) {
+                    Object v = arr.get(i, null);
+                    if (v != null) hidden.add(v.toString().toLowerCase());
+                }
+            }
+            return hidden;
+        }
+
+        /**
+         * If the module defines a public `mcpToolSpecs()` function returning a
+         * struct of {toolName: inputSchema-struct}, return it keyed by
+         * lowercase tool name. Otherwise empty.
+         */
+        @Override
+        public Map<String, Map<String, Object>> toolSpecs(String moduleName) {
+            Object result = invokeQuietly(moduleName, "mcpToolSpecs");
+            Map<String, Map<String, Object>> byName = new LinkedHashMap<>();
+            if (result instanceof Struct) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+                    Object value = cfmlToJava(entry.getValue());
+                    if (value instanceof Map) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> spec = (Map<String, Object>) value;
+                        byName.put(entry.getKey().toString().toLowerCase(), spec);
+                    }
+                }
+            }
+            return byName;
+        }
+
+        /**
+         * Incidental output from the invocation is discarded, since callers
+         * (completion, tools/list) have no capture buffer. Under the daemon
+         * and MCP server the {@link ThreadOutputRouter} silences only this
+         * thread; otherwise the process streams are swapped, one invocation
+         * at a time so the originals are always restored.
+         */
+        private Object invokeQuietly(String moduleName, String function) {
+            PrintStream silent = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+            if (ThreadOutputRouter.isInstalled()) {
+                try (ThreadOutputRouter.Capture ignored = ThreadOutputRouter.capture(silent)) {
+                    return LuceeScriptEngine.getInstance().executeModuleAndReturn(moduleName, new String[] { function });
+                } catch (Exception e) {
+                    // Function may not exist on this module — that's fine.
+                    if (LuCLI.debug) e.printStackTrace();
+                    return null;
+                }
+            }
+            synchronized (EngineLoader.class) {
+                PrintStream origOut = System.out;
+                PrintStream origErr = System.err;
+                try {
+                    System.setOut(silent);
+                    System.setErr(silent);
+                    return LuceeScriptEngine.getInstance().executeModuleAndReturn(moduleName, new String[] { function });
+                } catch (Exception e) {
+                    // Function may not exist on this module — that's fine.
+                    if (LuCLI.debug) e.printStackTrace(origErr);
+                    return null;
+                } finally {
+                    System.setOut(origOut);
+                    System.setErr(origErr);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.lucee.lucli.modules;
+
+/**
+ * Progress reporting from module code.
+ *
+ * {@code BaseModule.progress()} calls {@link #report}; whoever runs the module
+ * and cares about progress (the MCP server, for a tool call whose client asked
+ * for progress) registers a {@link Listener} on the thread that executes it.
+ * Without a listener, reports are dropped and {@link #report} returns false.
+ */
+public final class ModuleProgress {
+
+    /** Receives the reports of the module running on the listening thread. */
+    public interface Listener {
+        /**
+         * @param total   null when the module did not say how much work there is
+         * @param message null when the module gave none
+         */
+        void progress(double progress, Double total, String message);
+    }
+
+    private static final ThreadLocal<Listener> listener = new ThreadLocal<>();
+
+    private ModuleProgress() {
+    }
+
+    /**
+     * Send reports made on this thread to {@code target} until the returned
+     * handle is closed.
+     */
+    public static Registration listen(Listener target) {
+        Registration previous = new Registration(listener.get());
+        listener.set(target);
+        return previous;
+    }
+
+    /**
+     * Report progress of the module running on this thread. Called from CFML.
+     *
+     * @param total   total amount of work, or 0 when unknown
+     * @param message human-readable status, may be empty
+     * @return whether anyone was listening
+     */
+    public static boolean report(double progress, double total, String message) {
+        Listener target = listener.get();
+        if (target == null) {
+            return false;
+        }
+        target.progress(progress, total > 0 ? total : null,
+            message == null || message.isEmpty() ? null : message);
+        return true;
+    }
+
+    /** Restores the listener that was registered before. */
+    public static final class Registration implements AutoCloseable {
+
+        private final Listener previous;
+
+        private Registration(Listener previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                listener.remove();
+            } else {
+                listener.set(previous);
+            }
+        }
+    }
+}
@@ -85,7 +85,7 @@ public class ModuleRuntimeConfigResolver {
             ? LuCLI.loadEnvFileToMap(dotEnvPath)
             : new HashMap<>();
 
-        Map<String, String> scriptEnv = new HashMap<>(LuCLI.scriptEnvironment);
+        Map<String, String> scriptEnv = new HashMap<>(LuCLI.getScriptEnvironment());
         Map<String, String> osEnv = System.getenv();
 
         Map<String, String> resolvedEnv = new LinkedHashMap<>();
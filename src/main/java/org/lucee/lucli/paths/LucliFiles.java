@@ -0,0 +1,78 @@
+package org.lucee.lucli.paths;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Helpers for the files LuCLI keeps under its home directory.
+ *
+ * Files are replaced by writing a temp file next to the target and renaming
+ * it into place, so a reader never sees a half-written file. The rename is
+ * atomic where the filesystem supports it and a plain replacing move where
+ * it does not.
+ *
+ * Numeric settings are read from a JVM system property first, then an
+ * environment variable, then a default, like {@link LucliPaths} does for
+ * the home directory.
+ */
+public final class LucliFiles {
+
+    private LucliFiles() {
+    }
+
+    /** Fills the temp file that will replace the target. */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(Path temp) throws IOException;
+    }
+
+    /**
+     * Replace {@code target} with what {@code content} writes. The parent
+     * directory is created if needed; the temp file is removed on failure.
+     */
+    public static void writeAtomically(Path target, Content content) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            content.writeTo(temp);
+            move(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Move {@code source} over {@code target}, atomically where supported.
+     */
+    public static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Whole-number setting from {@code -D<property>}, then {@code env}, then
+     * {@code defaultValue}. Values below {@code min} are raised to it;
+     * blank or unparsable values fall back to the default.
+     */
+    public static long longSetting(String property, String env, long min, long defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            value = System.getenv(env);
+        }
+        if (value != null && !value.isBlank()) {
+            try {
+                return Math.max(min, Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // Fall back to the default below.
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -122,6 +122,10 @@ public final class LucliPaths {
             return home.resolve("servers");
         }
 
+        public Path portLeasesFile() {
+            return serversDir().resolve(".port-leases.json");
+        }
+
         public Path expressDir() {
             return home.resolve("express");
         }
@@ -173,11 +177,44 @@ public final class LucliPaths {
             return home.resolve("settings.json");
         }
 
+        public Path daemonDir() {
+            return home.resolve("daemon");
+        }
+
+        public Path warmDaemonStateFile() {
+            return daemonDir().resolve("warm.json");
+        }
+
+        public Path daemonSocketFile() {
+            return daemonDir().resolve("daemon.sock");
+        }
+
+        public Path lspSocketFile() {
+            return daemonDir().resolve("lsp.sock");
+        }
+
+        public Path cdsDir() {
+            return home.resolve("cds");
+        }
+
+        public Path cacheDir() {
+            return home.resolve("cache");
+        }
+
+        public Path compileCacheDir() {
+            return cacheDir().resolve("compiled");
+        }
+
+        public Path moduleMetadataCacheDir() {
+            return cacheDir().resolve("module-metadata");
+        }
+
         public Map<String, String> asDisplayMap() {
             Map<String, String> values = new LinkedHashMap<>();
             values.put("home", home.toString());
             values.put("homeSource", homeSource);
             values.put("serversDir", serversDir().toString());
+            values.put("portLeasesFile", portLeasesFile().toString());
             values.put("expressDir", expressDir().toString());
             values.put("depsDir", depsDir().toString());
             values.put("depsGitCacheDir", depsGitCacheDir().toString());
@@ -191,6 +228,12 @@ public final class LucliPaths {
             values.put("aiSkillsFile", aiSkillsFile().toString());
             values.put("aiSkillPathsFile", aiSkillPathsFile().toString());
             values.put("settingsFile", settingsFile().toString());
+            values.put("daemonDir", daemonDir().toString());
+            values.put("daemonSocketFile", daemonSocketFile().toString());
+            values.put("lspSocketFile", lspSocketFile().toString());
+            values.put("cdsDir", cdsDir().toString());
+            values.put("compileCacheDir", compileCacheDir().toString());
+            values.put("moduleMetadataCacheDir", moduleMetadataCacheDir().toString());
             return values;
         }
     }
@@ -1,9 +1,16 @@
 package org.lucee.lucli.server;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -30,6 +37,9 @@ public final class JavaRuntimeCheck {
 
     public static final String ADOPTIUM_URL = "https://adoptium.net";
 
+    private static final Pattern VERSION_OUTPUT = Pattern.compile("version \"([^\"]+)\"");
+    private static final Pattern LEADING_NUMBERS = Pattern.compile("^(\\d+)(?:\\.(\\d+))?");
+
     private JavaRuntimeCheck() { /* static helper */ }
 
     /**
@@ -149,6 +159,136 @@ public final class JavaRuntimeCheck {
         return false;
     }
 
+    /**
+     * Feature version (e.g. 21) of the Java runtime the server process for
+     * {@code config} will run on, or 0 when it cannot be determined. The
+     * child environment is assembled as the launcher does (parent shell +
+     * {@code .env} + {@code lucee.json} {@code envVars}).
+     */
+    public static int serverJavaFeatureVersion(LuceeServerConfig.ServerConfig config) {
+        Map<String, String> env = new HashMap<>(System.getenv());
+        LuceeServerConfig.applyLoadedEnvToProcessEnvironment(env);
+        if (config != null) {
+            LuceeServerConfig.applyConfigEnvVarsToProcessEnvironment(env, config.envVars);
+        }
+        return detectJavaFeatureVersion(env, System.getProperty("os.name", ""));
+    }
+
+    /**
+     * Locate the runtime the Tomcat scripts would pick ({@code JRE_HOME},
+     * then {@code JAVA_HOME}, then {@code java} on {@code PATH}) and read its
+     * version from the {@code release} file, falling back to
+     * {@code java -version}. Returns 0 when neither works.
+     */
+    static int detectJavaFeatureVersion(Map<String, String> env, String osName) {
+        boolean isWindows = osName != null && osName.toLowerCase().contains("win");
+        String javaBinary = isWindows ? "java.exe" : "java";
+
+        Path javaExe = null;
+        for (String var : new String[] {"JRE_HOME", "JAVA_HOME"}) {
+            String home = env != null ? env.get(var) : null;
+            if (home != null && !home.trim().isEmpty() && isValidJavaHome(home.trim(), javaBinary)) {
+                javaExe = Paths.get(home.trim(), "bin", javaBinary);
+                break;
+            }
+        }
+        if (javaExe == null) {
+            javaExe = findJavaOnPath(env != null ? env.get("PATH") : null, osName);
+        }
+        if (javaExe == null) {
+            return 0;
+        }
+
+        try {
+            Path home = javaExe.toRealPath().getParent().getParent();
+            Path release = home != null ? home.resolve("release") : null;
+            if (release != null && Files.isRegularFile(release)) {
+                int version = parseReleaseFile(Files.readAllLines(release));
+                if (version > 0) {
+                    return version;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Fall back to asking the runtime itself.
+        }
+        return runJavaVersion(javaExe);
+    }
+
+    private static int runJavaVersion(Path javaExe) {
+        try {
+            Process process = new ProcessBuilder(javaExe.toString(), "-version")
+                    .redirectErrorStream(true)
+                    .start();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return 0;
+            }
+            return parseJavaVersionOutput(output);
+        } catch (IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /** {@code JAVA_VERSION="21.0.1"} from a JDK/JRE {@code release} file. */
+    static int parseReleaseFile(List<String> lines) {
+        for (String line : lines) {
+            if (line.startsWith("JAVA_VERSION=")) {
+                return parseFeatureVersion(line.substring("JAVA_VERSION=".length()).replace("\"", "").trim());
+            }
+        }
+        return 0;
+    }
+
+    /** The quoted version in {@code java -version} output, e.g. {@code openjdk version "17.0.9"}. */
+    static int parseJavaVersionOutput(String output) {
+        Matcher matcher = VERSION_OUTPUT.matcher(output != null ? output : "");
+        return matcher.find() ? parseFeatureVersion(matcher.group(1)) : 0;
+    }
+
+    /** Feature version of "21.0.1", "17", "22-ea" or the legacy "1.8.0_392" form. */
+    static int parseFeatureVersion(String version) {
+        Matcher matcher = LEADING_NUMBERS.matcher(version != null ? version.trim() : "");
+        if (!matcher.find()) {
+            return 0;
+        }
+        int first = Integer.parseInt(matcher.group(1));
+        if (first == 1 && matcher.group(2) != null) {
+            return Integer.parseInt(matcher.group(2));
+        }
+        return first;
+    }
+
+    private static Path findJavaOnPath(String pathValue, String osName) {
+        if (pathValue == null || pathValue.trim().isEmpty()) {
+            return null;
+        }
+        boolean isWindows = osName != null && osName.toLowerCase().contains("win");
+        String pathSeparator = isWindows ? ";" : ":";
+        String javaBinary = isWindows ? "java.exe" : "java";
+        for (String rawEntry : pathValue.split(Pattern.quote(pathSeparator))) {
+            String entry = rawEntry != null ? rawEntry.trim() : "";
+            if (entry.isEmpty()) {
+                continue;
+            }
+            try {
+                Path candidate = Paths.get(entry, javaBinary);
+                if (Files.isExecutable(candidate)) {
+                    return candidate;
+                }
+            } catch (RuntimeException ignored) {
+                // Ignore malformed PATH entries
+            }
+        }
+        return null;
+    }
+
     private static String unsetMessage() {
         return "❌ Error: JAVA_HOME is not set.\n"
                 + "Wheels needs Java 21 or newer to start the server. Install from " + ADOPTIUM_URL + "\n"
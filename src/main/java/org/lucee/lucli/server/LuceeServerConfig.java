@@ -88,6 +88,16 @@ public class LuceeServerConfig {
         public JvmConfig jvm = new JvmConfig();
         public UrlRewriteConfig urlRewrite = new UrlRewriteConfig();
         public AdminConfig admin = new AdminConfig();
+        /**
+         * Optional throughput tuning for the generated runtime configuration
+         * (Tomcat server.xml, Jetty start.d). When omitted, the vendor defaults
+         * are left untouched.
+         */
+        public PerformanceConfig performance;
+        /**
+         * Optional tuning for how "server start" decides the server is ready.
+         */
+        public ReadinessConfig readiness;
         /**
          * When false, Lucee CFML servlets and CFML-specific mappings are removed
          * from web.xml so that Tomcat behaves as a static file server for the
@@ -236,6 +246,67 @@ public class LuceeServerConfig {
         public String configFile = "rewrite.config";
     }
     
+    public static class ReadinessConfig {
+        /**
+         * Signals that count as "ready": any of "port", "http" and "log".
+         * The first one to fire wins. When null or empty, "log" and "http" are used.
+         */
+        @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+        public List<String> signals;
+        /**
+         * Path requested by the "http" signal. Any status below 500 counts as ready.
+         */
+        public String healthPath = "/";
+        /**
+         * Seconds to wait before giving up. When null, the runtime default (30) is used.
+         */
+        public Integer timeoutSeconds;
+    }
+
+    public static class PerformanceConfig {
+        public HttpPerformanceConfig http;
+    }
+
+    /**
+     * Request executor and HTTP connector tuning. Every field is optional;
+     * null means "keep the vendor default".
+     */
+    public static class HttpPerformanceConfig {
+        /**
+         * When true, requests run on virtual threads. Requires Tomcat 10.1+
+         * or Jetty 12+ running on Java 21+; older runtimes keep the platform
+         * thread pool and print a warning.
+         */
+        public Boolean virtualThreads;
+        public Integer maxThreads;
+        public Integer minSpareThreads;
+        /**
+         * Queue length for incoming connections once all request threads are busy.
+         */
+        public Integer acceptCount;
+        public Integer maxConnections;
+        /**
+         * Milliseconds an idle keep-alive connection is kept open.
+         */
+        public Integer keepAliveTimeout;
+        /**
+         * Requests served per keep-alive connection (-1 = unlimited, 1 = disable keep-alive).
+         */
+        public Integer maxKeepAliveRequests;
+        /**
+         * Response compression: "on", "off" or "force" (true/false are accepted as on/off).
+         */
+        public String compression;
+        /**
+         * Minimum response size in bytes before compression is applied.
+         */
+        public Integer compressionMinSize;
+        /**
+         * Comma-separated MIME types to compress. When null, the runtime default is used.
+         */
+        public String compressibleMimeType;
+    }
+
     public static class MonitoringConfig {
         public boolean enabled = false;
         public JmxConfig jmx = new JmxConfig();
@@ -790,6 +861,40 @@ public class LuceeServerConfig {
         return config.https.redirect.booleanValue();
     }
     
+    /**
+     * HTTP performance tuning, or null when lucee.json has no performance.http section.
+     */
+    public static HttpPerformanceConfig getHttpPerformance(ServerConfig config) {
+        if (config == null || config.performance == null) {
+            return null;
+        }
+        return config.performance.http;
+    }
+
+    /**
+     * Normalized compression mode ("on", "off", "force"), or null when unset.
+     * Boolean-style values map to on/off; anything else is passed through so
+     * Tomcat's numeric form (a minimum size) keeps working.
+     */
+    public static String getEffectiveCompression(HttpPerformanceConfig http) {
+        if (http == null || http.compression == null || http.compression.trim().isEmpty()) {
+            return null;
+        }
+        String value = http.compression.trim().toLowerCase(java.util.Locale.ROOT);
+        switch (value) {
+            case "true":
+            case "yes":
+            case "on":
+                return "on";
+            case "false":
+            case "no":
+            case "off":
+                return "off";
+            default:
+                return value;
+        }
+    }
+
     /**
      * Save configuration to lucee.json
      */
@@ -1104,6 +1209,24 @@ public class LuceeServerConfig {
             preprocessIntegerField((com.fasterxml.jackson.databind.node.ObjectNode) ajpNode, "port");
         }
 
+        JsonNode readinessNode = configNode.get("readiness");
+        if (readinessNode != null && readinessNode.isObject()) {
+            preprocessIntegerField((com.fasterxml.jackson.databind.node.ObjectNode) readinessNode, "timeoutSeconds");
+        }
+
+        JsonNode performanceNode = configNode.get("performance");
+        if (performanceNode != null && performanceNode.isObject()) {
+            JsonNode httpNode = performanceNode.get("http");
+            if (httpNode != null && httpNode.isObject()) {
+                com.fasterxml.jackson.databind.node.ObjectNode http =
+                        (com.fasterxml.jackson.databind.node.ObjectNode) httpNode;
+                for (String field : new String[] {"maxThreads", "minSpareThreads", "acceptCount",
+                        "maxConnections", "keepAliveTimeout", "maxKeepAliveRequests", "compressionMinSize"}) {
+                    preprocessIntegerField(http, field);
+                }
+            }
+        }
+
         JsonNode monitoringNode = configNode.get("monitoring");
         if (monitoringNode != null && monitoringNode.isObject()) {
             JsonNode jmxNode = monitoringNode.get("jmx");
@@ -2042,26 +2165,12 @@ public class LuceeServerConfig {
         Path serversDir = lucliHome.resolve("servers");
         Set<Integer> existingPorts = getExistingServerPorts(serversDir);
         
-        // Try default shutdown port (HTTP + 1000)
+        // Try default shutdown port (HTTP + 1000), then the 9000-9999 range,
+        // avoiding ports being used by existing servers, then a system-assigned port
         int preferredShutdownPort = getShutdownPort(config.port);
-        if (!existingPorts.contains(preferredShutdownPort) && isPortAvailable(preferredShutdownPort)) {
-            config.shutdownPort = preferredShutdownPort;
-            return;
-        }
-        
-        // If default is taken, find an available port in the 9000-9999 range
-        // Avoid ports being used by existing servers
-        for (int port = 9000; port <= 9999; port++) {
-            if (!existingPorts.contains(port) && isPortAvailable(port)) {
-                config.shutdownPort = port;
-                return;
-            }
-        }
-        
-        // If we exhaust the range, use system-assigned port
-        try (ServerSocket socket = new ServerSocket(0)) {
-            config.shutdownPort = socket.getLocalPort();
-        } catch (IOException e) {
+        try {
+            config.shutdownPort = findAvailablePortAvoidingExisting(preferredShutdownPort, 9000, 9999, existingPorts);
+        } catch (RuntimeException e) {
             // Fallback to HTTP + 1000 even if it might conflict
             config.shutdownPort = preferredShutdownPort;
         }
@@ -2081,6 +2190,15 @@ public class LuceeServerConfig {
      *  - The shutdown port is auto-assigned when not explicitly set.
      */
     private static void assignDefaultPortsIfNeeded(ServerConfig config) {
+        // One check-only pass: both ports come from the same snapshot, and
+        // nothing is reserved until resolvePortConflicts runs for a real start.
+        PortAllocator.check(ports -> {
+            assignHttpAndShutdownPorts(config);
+            return null;
+        });
+    }
+
+    private static void assignHttpAndShutdownPorts(ServerConfig config) {
         // If no HTTP port has been configured at all, pick a default using the
         // same strategy as createDefaultConfig (avoid existing server ports and
         // prefer 8080 when possible).
@@ -2158,51 +2276,18 @@ public class LuceeServerConfig {
     }
     
     /**
-     * Find an available port starting from the preferred port, avoiding specific ports
+     * Find and reserve an available port starting from the preferred port, avoiding specific ports
      */
     private static int findAvailablePortAvoidingExisting(int preferredPort, int rangeStart, int rangeEnd, Set<Integer> portsToAvoid) {
-        // First try the preferred port if it's not in the avoid list
-        if (!portsToAvoid.contains(preferredPort) && isPortAvailable(preferredPort)) {
-            return preferredPort;
-        }
-        
-        // Then search in the range
-        for (int port = rangeStart; port <= rangeEnd; port++) {
-            if (!portsToAvoid.contains(port) && isPortAvailable(port)) {
-                return port;
-            }
-        }
-        
-        // If no port in range is available, try system-assigned port
-        try (ServerSocket socket = new ServerSocket(0)) {
-            return socket.getLocalPort();
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to find available port", e);
-        }
+        return PortAllocator.allocate(ports -> ports.findAvailable(preferredPort, rangeStart, rangeEnd, portsToAvoid));
     }
     
     /**
-     * Find an available port starting from the preferred port
+     * Find and reserve an available port starting from the preferred port.
+     * See {@link PortAllocator} for how ports are checked and reserved.
      */
     public static int findAvailablePort(int preferredPort, int rangeStart, int rangeEnd) {
-        // First try the preferred port
-        if (isPortAvailable(preferredPort)) {
-            return preferredPort;
-        }
-        
-        // Then search in the range
-        for (int port = rangeStart; port <= rangeEnd; port++) {
-            if (isPortAvailable(port)) {
-                return port;
-            }
-        }
-        
-        // If no port in range is available, try system-assigned port
-        try (ServerSocket socket = new ServerSocket(0)) {
-            return socket.getLocalPort();
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to find available port", e);
-        }
+        return findAvailablePortAvoidingExisting(preferredPort, rangeStart, rangeEnd, Set.of());
     }
     
     /**
@@ -2295,6 +2380,10 @@ public class LuceeServerConfig {
      * @return PortConflictResult with conflict information and resolved config
      */
     public static PortConflictResult resolvePortConflicts(ServerConfig config, boolean allowPortReassignment, Object serverManager) {
+        return PortAllocator.allocate(ports -> resolvePortConflicts(config, allowPortReassignment, ports));
+    }
+
+    private static PortConflictResult resolvePortConflicts(ServerConfig config, boolean allowPortReassignment, PortAllocator ports) {
         StringBuilder conflictMessages = new StringBuilder();
         boolean hasConflicts = false;
         int originalHttpPort = config.port;
@@ -2343,12 +2432,12 @@ public class LuceeServerConfig {
         }
         
         // Check HTTP port
-        if (!isPortAvailable(config.port)) {
+        if (!ports.isAvailable(config.port)) {
             hasConflicts = true;
-            conflictMessages.append("HTTP port ").append(config.port).append(" is already in use");
+            conflictMessages.append("HTTP port ").append(config.port).append(describeUnavailable(ports, config.port));
             
             if (allowPortReassignment) {
-                int newPort = findAvailablePort(config.port, 8000, 8999);
+                int newPort = ports.findAvailable(config.port, 8000, 8999, Set.of());
                 conflictMessages.append(", reassigning to port ").append(newPort);
                 config.port = newPort;
             } else {
@@ -2358,19 +2447,22 @@ public class LuceeServerConfig {
         }
         
         // Check shutdown port (either explicit or derived from HTTP port)
-        if (!isPortAvailable(shutdownPort)) {
+        if (!ports.isAvailable(shutdownPort)) {
             hasConflicts = true;
-            conflictMessages.append("Shutdown port ").append(shutdownPort).append(" (HTTP port + 1000) is already in use");
+            conflictMessages.append("Shutdown port ").append(shutdownPort).append(" (HTTP port + 1000)")
+                    .append(describeUnavailable(ports, shutdownPort));
             
             if (allowPortReassignment) {
                 // Find a new HTTP port such that HTTP+1000 is also available
                 boolean foundPair = false;
                 for (int httpPort = 8000; httpPort <= 8999; httpPort++) {
                     int correspondingShutdownPort = httpPort + 1000;
-                    if (isPortAvailable(httpPort) && isPortAvailable(correspondingShutdownPort)) {
+                    if (ports.isAvailable(httpPort) && ports.isAvailable(correspondingShutdownPort)) {
                         conflictMessages.append(", reassigning HTTP port to ").append(httpPort);
                         conflictMessages.append(" (shutdown port will be ").append(correspondingShutdownPort).append(")");
                         config.port = httpPort;
+                        ports.claim(httpPort);
+                        ports.claim(correspondingShutdownPort);
                         foundPair = true;
                         break;
                     }
@@ -2386,12 +2478,13 @@ public class LuceeServerConfig {
         
         // Check JMX port
         if (config.monitoring != null && config.monitoring.jmx != null && config.monitoring.enabled) {
-            if (!isPortAvailable(config.monitoring.jmx.port)) {
+            if (!ports.isAvailable(config.monitoring.jmx.port)) {
                 hasConflicts = true;
-                conflictMessages.append("JMX port ").append(config.monitoring.jmx.port).append(" is already in use");
+                conflictMessages.append("JMX port ").append(config.monitoring.jmx.port)
+                        .append(describeUnavailable(ports, config.monitoring.jmx.port));
                 
                 if (allowPortReassignment) {
-                    int newJmxPort = findAvailablePort(config.monitoring.jmx.port, 8000, 8999);
+                    int newJmxPort = ports.findAvailable(config.monitoring.jmx.port, 8000, 8999, Set.of());
                     conflictMessages.append(", reassigning to port ").append(newJmxPort);
                     config.monitoring.jmx.port = newJmxPort;
                 } else {
@@ -2403,12 +2496,12 @@ public class LuceeServerConfig {
 
         // Check HTTPS port
         if (httpsPort > 0) {
-            if (!isPortAvailable(httpsPort)) {
+            if (!ports.isAvailable(httpsPort)) {
                 hasConflicts = true;
-                conflictMessages.append("HTTPS port ").append(httpsPort).append(" is already in use");
+                conflictMessages.append("HTTPS port ").append(httpsPort).append(describeUnavailable(ports, httpsPort));
 
                 if (allowPortReassignment) {
-                    int newHttpsPort = findAvailablePort(httpsPort, 8000, 8999);
+                    int newHttpsPort = ports.findAvailable(httpsPort, 8000, 8999, Set.of());
                     conflictMessages.append(", reassigning to port ").append(newHttpsPort);
                     if (config.https != null) {
                         config.https.port = newHttpsPort;
@@ -2420,6 +2513,18 @@ public class LuceeServerConfig {
             }
         }
         
+        // Reserve the ports this server will bind so a parallel start picks others.
+        if (!hasConflicts || allowPortReassignment) {
+            ports.claim(config.port);
+            ports.claim(getEffectiveShutdownPort(config));
+            if (config.monitoring != null && config.monitoring.jmx != null && config.monitoring.enabled) {
+                ports.claim(config.monitoring.jmx.port);
+            }
+            if (httpsPort > 0) {
+                ports.claim(httpsPort);
+            }
+        }
+
         // Create a summary message
         String message;
         if (!hasConflicts) {
@@ -2432,6 +2537,17 @@ public class LuceeServerConfig {
         
         return new PortConflictResult(hasConflicts, message, config);
     }
+
+    private static String describeUnavailable(PortAllocator ports, int port) {
+        long holder = ports.leaseHolder(port);
+        if (holder == ProcessHandle.current().pid()) {
+            return " is reserved by another server start in this LuCLI process";
+        }
+        if (holder > 0) {
+            return " is reserved by another LuCLI process (pid " + holder + ") that is starting a server";
+        }
+        return " is already in use";
+    }
     
     /**
      * Get the shutdown port for a given HTTP port.
@@ -4,7 +4,6 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -15,6 +14,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -23,14 +26,15 @@ import java.awt.Desktop;
 import java.awt.GraphicsEnvironment;
 
 import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.Timer;
 import org.lucee.lucli.deps.ExtensionDependencyInstaller;
+import org.lucee.lucli.paths.LucliFiles;
 import org.lucee.lucli.paths.LucliPaths;
 import org.lucee.lucli.server.runtime.LuceeExpressRuntimeProvider;
 import org.lucee.lucli.server.runtime.RuntimeProvider;
 import org.lucee.lucli.server.runtime.TomcatRuntimeProvider;
 import org.lucee.lucli.server.runtime.DockerRuntimeProvider;
 import org.lucee.lucli.server.runtime.JettyRuntimeProvider;
-import org.lucee.lucli.ui.ProgressBar;
 
 /**
  * Manages Lucee server instances - downloading, configuring, starting, and stopping servers
@@ -83,6 +87,7 @@ public class LuceeServerManager {
         } catch (IOException ignored) {
             // Marker writes should never block startup.
         }
+        serverStateChanged(serverDir);
     }
 
     private void persistBootstrapOverridesForNewConfig(Path projectDir,
@@ -246,6 +251,13 @@ public class LuceeServerManager {
     private final Path lucliHome;
     private final Path expressDir;
     private final Path serversDir;
+    private final ServerStateIndex stateIndex;
+
+    private static final long SERVER_LIST_CACHE_MILLIS = resolveServerListCacheMillis();
+    private static final Object SERVER_LIST_CACHE_LOCK = new Object();
+    private static List<ServerInfo> cachedServers;
+    private static Path cachedServersDir;
+    private static long cachedServersAt;
     private final Path jarsDir;
 
     /**
@@ -271,10 +283,15 @@ public class LuceeServerManager {
         }
     }
     
+    private static long resolveServerListCacheMillis() {
+        return LucliFiles.longSetting("lucli.serverListCacheMs", "LUCLI_SERVER_LIST_CACHE_MS", 0, 2000);
+    }
+
     public LuceeServerManager() throws IOException {
         this.lucliHome = getLucliHome();
         this.expressDir = lucliHome.resolve("express");
         this.serversDir = lucliHome.resolve("servers");
+        this.stateIndex = new ServerStateIndex(serversDir);
         this.jarsDir = lucliHome.resolve("jars");
         
         // Ensure directories exist
@@ -617,51 +634,54 @@ public class LuceeServerManager {
         // Ensure Lucee Express is available for the chosen version
         Path luceeExpressDir = ensureLuceeExpress(LuceeServerConfig.getLuceeVersion(config));
 
-        // Resolve port conflicts just before startup using the same logic as normal servers
-        LuceeServerConfig.PortConflictResult portResult = LuceeServerConfig.resolvePortConflicts(config, false, this);
-        if (portResult.hasConflicts) {
-            throw new IllegalStateException(portResult.message);
-        }
-        config = portResult.updatedConfig;
+        // Released once the server has bound its ports or failed to start.
+        try (PortAllocator.Operation portLeases = PortAllocator.beginOperation()) {
+            // Resolve port conflicts just before startup using the same logic as normal servers
+            LuceeServerConfig.PortConflictResult portResult = LuceeServerConfig.resolvePortConflicts(config, false, this);
+            if (portResult.hasConflicts) {
+                throw new IllegalStateException(portResult.message);
+            }
+            config = portResult.updatedConfig;
 
-        // Create sandbox server instance directory under ~/.lucli/servers
-        Path serverInstanceDir = serversDir.resolve(config.name);
-        if (Files.exists(serverInstanceDir) && forceReplace) {
-            deleteServerDirectory(serverInstanceDir);
-        }
-        Files.createDirectories(serverInstanceDir);
+            // Create sandbox server instance directory under ~/.lucli/servers
+            Path serverInstanceDir = serversDir.resolve(config.name);
+            if (Files.exists(serverInstanceDir) && forceReplace) {
+                deleteServerDirectory(serverInstanceDir);
+            }
+            Files.createDirectories(serverInstanceDir);
 
-        // Mark this server as sandbox so we can clean it up on stop/prune
-        try {
-            Files.writeString(serverInstanceDir.resolve(".sandbox"), "sandbox");
-        } catch (IOException e) {
-            System.err.println("Warning: Failed to write sandbox marker: " + e.getMessage());
-        }
+            // Mark this server as sandbox so we can clean it up on stop/prune
+            try {
+                Files.writeString(serverInstanceDir.resolve(".sandbox"), "sandbox");
+            } catch (IOException e) {
+                System.err.println("Warning: Failed to write sandbox marker: " + e.getMessage());
+            }
 
-        // Generate CATALINA_BASE configuration from the Express CATALINA_HOME
-        org.lucee.lucli.server.runtime.CatalinaBaseConfigGenerator sandboxConfigGen =
-                new org.lucee.lucli.server.runtime.CatalinaBaseConfigGenerator();
-        sandboxConfigGen.generateConfiguration(serverInstanceDir, config, projectDir, luceeExpressDir, 0, forceReplace);
+            // Generate CATALINA_BASE configuration from the Express CATALINA_HOME
+            org.lucee.lucli.server.runtime.CatalinaBaseConfigGenerator sandboxConfigGen =
+                    new org.lucee.lucli.server.runtime.CatalinaBaseConfigGenerator();
+            sandboxConfigGen.generateConfiguration(serverInstanceDir, config, projectDir, luceeExpressDir, 0, forceReplace);
 
-        // Write CFConfig (.CFConfig.json) if present in the in-memory configuration
-        LuceeServerConfig.writeCfConfigIfPresent(config, projectDir, serverInstanceDir);
+            // Write CFConfig (.CFConfig.json) if present in the in-memory configuration
+            LuceeServerConfig.writeCfConfigIfPresent(config, projectDir, serverInstanceDir);
 
-        // Deploy any extension dependencies to the sandbox server
-        deployExtensionsForServer(projectDir, serverInstanceDir);
+            // Deploy any extension dependencies to the sandbox server
+            deployExtensionsForServer(projectDir, serverInstanceDir);
 
-        // Copy welcome index.cfm if Lucee is enabled and no index.cfm exists in webroot
-        if (config.enableLucee) {
-            copyWelcomeIndexIfMissing(config, projectDir);
-        }
+            // Copy welcome index.cfm if Lucee is enabled and no index.cfm exists in webroot
+            if (config.enableLucee) {
+                copyWelcomeIndexIfMissing(config, projectDir);
+            }
 
-        // Launch background process; this returns immediately
-        ServerInstance instance = launchTomcatProcess(luceeExpressDir, serverInstanceDir, config, projectDir,
-                                                     agentOverrides, environment, false, "lucee-express");
+            // Launch background process; this returns immediately
+            ServerInstance instance = launchTomcatProcess(luceeExpressDir, serverInstanceDir, config, projectDir,
+                                                         agentOverrides, environment, false, "lucee-express");
 
-        // Optionally wait for startup before returning (same timeout as normal start)
-        waitForServerStartup(instance, 30);
+            // Optionally wait for startup before returning (same timeout as normal start)
+            waitForServerStartup(instance, config, 30);
 
-        return instance;
+            return instance;
+        }
     }
 
     /**
@@ -730,7 +750,9 @@ public class LuceeServerManager {
             }
         }
 
-        try {
+        // Ports leased while starting are released once the server has bound
+        // them (the provider waits for readiness) or the start has failed.
+        try (PortAllocator.Operation portLeases = PortAllocator.beginOperation()) {
 
             // Apply one-shot invocation overrides in memory (never persisted).
             applyStartConfigOverrides(config, startConfigOverrides);
@@ -1182,23 +1204,7 @@ public class LuceeServerManager {
         } catch (IOException ignored) {
             // Marker write should never block startup.
         }
-    }
-
-    private String readConfigFileName(Path serverDir) {
-        if (serverDir == null) {
-            return "lucee.json";
-        }
-        Path configMarker = serverDir.resolve(CONFIG_FILE_MARKER);
-        if (Files.exists(configMarker)) {
-            try {
-                String value = Files.readString(configMarker).trim();
-                if (!value.isEmpty()) {
-                    return value;
-                }
-            } catch (Exception ignored) {
-            }
-        }
-        return "lucee.json";
+        serverStateChanged(serverDir);
     }
 
     private LuceeRuntimeInfo inferLuceeRuntimeInfoFromDirectory(Path dir) {
@@ -1310,6 +1316,15 @@ public class LuceeServerManager {
     }
 
     private boolean stopServerInternal(ServerInstance instance) throws IOException {
+        invalidateServerListCache();
+        try {
+            return stopServerProcess(instance);
+        } finally {
+            serverStateChanged(instance.getServerDir());
+        }
+    }
+
+    private boolean stopServerProcess(ServerInstance instance) throws IOException {
         Path serverDir = instance.getServerDir();
         Path pidFile = serverDir.resolve("server.pid");
         Path sandboxMarker = serverDir.resolve(".sandbox");
@@ -1450,8 +1465,11 @@ public class LuceeServerManager {
             return null;
         }
         try {
-            String configFileName = readConfigFileName(serverDir);
-            String environment = serverDir != null ? readEnvironment(serverDir) : null;
+            ServerStateIndex.Entry state = serverDir != null && serverDir.getParent() != null
+                    ? new ServerStateIndex(serverDir.getParent()).entry(serverDir.getFileName().toString())
+                    : null;
+            String configFileName = state != null && state.configFile() != null ? state.configFile() : "lucee.json";
+            String environment = state != null ? state.environment() : null;
             Path configPath = projectDir.resolve(configFileName);
             if (!Files.exists(configPath)) {
                 return new LifecycleConfigContext(null, projectDir, configFileName, environment);
@@ -1482,66 +1500,142 @@ public class LuceeServerManager {
     }
     
     /**
-     * List all server instances (running and stopped)
+     * List all server instances (running and stopped).
+     *
+     * <p>Results are reused for a short time (2 s by default, configurable via
+     * {@code -Dlucli.serverListCacheMs} or {@code LUCLI_SERVER_LIST_CACHE_MS},
+     * 0 disables) so repeated calls from the REPL and completion are instant.
+     * Starting, stopping and deleting servers through this class clears the cache.</p>
      */
     public List<ServerInfo> listServers() throws IOException {
+        long now = System.nanoTime();
+        if (SERVER_LIST_CACHE_MILLIS > 0) {
+            synchronized (SERVER_LIST_CACHE_LOCK) {
+                if (cachedServers != null && serversDir.equals(cachedServersDir)
+                        && now - cachedServersAt < SERVER_LIST_CACHE_MILLIS * 1_000_000L) {
+                    return new ArrayList<>(cachedServers);
+                }
+            }
+        }
+        return listServersUncached();
+    }
+
+    /**
+     * List all server instances from a fresh scan, bypassing the cache. Use
+     * this before acting on the result (stopping or pruning servers), where a
+     * listing up to two seconds old could name the wrong servers.
+     */
+    public List<ServerInfo> listServersUncached() throws IOException {
+        long now = System.nanoTime();
+        List<ServerInfo> servers = scanServers();
+        if (SERVER_LIST_CACHE_MILLIS > 0) {
+            synchronized (SERVER_LIST_CACHE_LOCK) {
+                cachedServers = List.copyOf(servers);
+                cachedServersDir = serversDir;
+                cachedServersAt = now;
+            }
+        }
+        return servers;
+    }
+
+    /**
+     * Drop cached {@link #listServers()} results after a server changed state.
+     */
+    public static void invalidateServerListCache() {
+        synchronized (SERVER_LIST_CACHE_LOCK) {
+            cachedServers = null;
+        }
+    }
+
+    /**
+     * Record that a server directory's marker files were written or deleted:
+     * refresh its entry in the {@link ServerStateIndex} and drop cached listings.
+     */
+    public static void serverStateChanged(Path serverDir) {
+        invalidateServerListCache();
+        if (serverDir != null && serverDir.getParent() != null) {
+            new ServerStateIndex(serverDir.getParent()).refresh(serverDir);
+        }
+    }
+
+    /**
+     * Probe every server directory without using the cache. Probes run on
+     * virtual threads against one shared process/container snapshot.
+     */
+    private List<ServerInfo> scanServers() throws IOException {
         List<ServerInfo> servers = new ArrayList<>();
         
         if (!Files.exists(serversDir)) {
             return servers;
         }
-        
+
+        List<Path> serverDirs;
         try (var stream = Files.list(serversDir)) {
-            for (Path serverDir : stream.filter(Files::isDirectory).toList()) {
-                String serverName = serverDir.getFileName().toString();
-                
-                long pid = -1;
-                int port = -1;
-                boolean isRunning = false;
-
-                ServerPidRecord pidRecord = readServerPidRecord(serverDir);
-                if (pidRecord != null) {
-                    pid = pidRecord.pid;
-                    port = pidRecord.port;
-                    Long resolvedPid = resolveRunningPidWithCatalinaFallback(serverDir, pidRecord.pid, pidRecord.port);
-                    if (resolvedPid != null) {
-                        pid = resolvedPid.longValue();
-                        isRunning = true;
-                    }
-                }
-                
-                // Docker fallback: container may be running without a valid server.pid
-                if (!isRunning) {
-                    Path dockerMarker = serverDir.resolve(".docker-container");
-                    if (Files.exists(dockerMarker)) {
-                        try {
-                            String containerName = Files.readString(dockerMarker).trim();
-                            if (org.lucee.lucli.server.runtime.DockerRuntimeProvider
-                                    .isDockerContainerRunning(containerName)) {
-                                isRunning = true;
-                                pid = -1;
-                                if (port <= 0) {
-                                    port = recoverDockerPort(serverDir);
-                                }
-                            }
-                        } catch (Exception ignored) {
-                        }
-                    }
-                }
-                
-                // Try to read project directory from .project-path marker file
-                Path projectDir = readProjectPath(serverDir);
-                
-                // Read environment if present
-                String environment = readEnvironment(serverDir);
-                
-                servers.add(new ServerInfo(serverName, pid, port, isRunning, serverDir, projectDir, environment));
+            serverDirs = stream.filter(Files::isDirectory).toList();
+        }
+        if (serverDirs.isEmpty()) {
+            return servers;
+        }
+
+        Map<String, ServerStateIndex.Entry> states = stateIndex.entries(serverDirs);
+        ServerProcessSnapshot snapshot = ServerProcessSnapshot.capture();
+        try (ExecutorService probes = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ServerInfo>> results = new ArrayList<>(serverDirs.size());
+            for (Path serverDir : serverDirs) {
+                ServerStateIndex.Entry state = states.get(serverDir.getFileName().toString());
+                results.add(probes.submit(() -> probeServer(serverDir, state, snapshot)));
+            }
+            for (Future<ServerInfo> result : results) {
+                servers.add(result.get());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while listing servers", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read server status: " + e.getCause().getMessage(), e.getCause());
         }
         
         return servers;
     }
 
+    /**
+     * Build a ServerInfo from a server's indexed state. Only liveness is checked
+     * live: against the snapshot when given, otherwise with direct lookups.
+     */
+    private ServerInfo probeServer(Path serverDir, ServerStateIndex.Entry state, ServerProcessSnapshot snapshot) {
+        String serverName = serverDir.getFileName().toString();
+        
+        long pid = state.pid();
+        int port = state.port();
+        boolean isRunning = false;
+
+        if (state.dockerContainer() != null) {
+            // Docker-managed server: the container is the process.
+            boolean containerRunning = snapshot != null
+                    ? snapshot.isContainerRunning(state.dockerContainer())
+                    : org.lucee.lucli.server.runtime.DockerRuntimeProvider.isDockerContainerRunning(state.dockerContainer());
+            if (containerRunning) {
+                isRunning = true;
+                pid = -1;
+                if (port <= 0) {
+                    port = recoverDockerPort(serverDir);
+                }
+            }
+        } else if (pid > 0 || port > 0) {
+            Long resolvedPid = resolveRunningPidWithCatalinaFallback(serverDir, pid, port, snapshot);
+            if (resolvedPid != null) {
+                pid = resolvedPid.longValue();
+                isRunning = true;
+            }
+        }
+
+        Path projectDir = state.projectPath() != null
+                ? normalizeProjectPath(Paths.get(state.projectPath()))
+                : null;
+        
+        return new ServerInfo(serverName, pid, port, isRunning, serverDir, projectDir, state.environment());
+    }
+
     /**
      * Resolve all managed servers associated with a project directory.
      * This is a one-to-many mapping: a single project can have multiple slugs.
@@ -1568,7 +1662,7 @@ public class LuceeServerManager {
     private List<ServerInfo> getProjectServerCandidates(Path projectDir) throws IOException {
         Path normalizedProject = normalizeProjectPath(projectDir);
         List<ServerInfo> matches = new ArrayList<>();
-        for (ServerInfo server : listServers()) {
+        for (ServerInfo server : scanServers()) {
             if (server.getProjectDir() == null || normalizedProject == null) {
                 continue;
             }
@@ -1688,6 +1782,7 @@ public class LuceeServerManager {
             // Re-create server.pid so future operations work normally
             if (port > 0) {
                 Files.writeString(serverDir.resolve("server.pid"), "-1:" + port);
+                serverStateChanged(serverDir);
             }
             return new ServerInstance(serverName, -1L, port, serverDir, projectDir);
         } catch (Exception e) {
@@ -1710,21 +1805,6 @@ public class LuceeServerManager {
         return -1;
     }
     
-    /**
-     * Read environment name from .environment file in server directory
-     */
-    private String readEnvironment(Path serverDir) {
-        Path envFile = serverDir.resolve(ENVIRONMENT_MARKER);
-        if (Files.exists(envFile)) {
-            try {
-                return Files.readString(envFile).trim();
-            } catch (Exception e) {
-                // Ignore invalid environment file
-            }
-        }
-        return null;
-    }
-
     private Path readProjectPath(Path serverDir) {
         Path projectPathFile = serverDir.resolve(".project-path");
         if (!Files.exists(projectPathFile)) {
@@ -1784,12 +1864,17 @@ public class LuceeServerManager {
     }
 
     private Long resolveRunningPidWithCatalinaFallback(Path serverDir, long expectedPid, int port) {
-        if (isProcessRunning(expectedPid, serverDir)) {
+        return resolveRunningPidWithCatalinaFallback(serverDir, expectedPid, port, null);
+    }
+
+    private Long resolveRunningPidWithCatalinaFallback(Path serverDir, long expectedPid, int port,
+                                                       ServerProcessSnapshot snapshot) {
+        if (isProcessRunning(expectedPid, serverDir, snapshot)) {
             return expectedPid;
         }
 
         Long catalinaPid = readCatalinaPid(serverDir);
-        if (catalinaPid != null && catalinaPid.longValue() > 0 && isProcessRunning(catalinaPid.longValue(), serverDir)) {
+        if (catalinaPid != null && catalinaPid.longValue() > 0 && isProcessRunning(catalinaPid.longValue(), serverDir, snapshot)) {
             if (port > 0) {
                 refreshServerPid(serverDir, catalinaPid.longValue(), port);
             }
@@ -1805,6 +1890,7 @@ public class LuceeServerManager {
             Files.writeString(pidFile, pid + ":" + port);
         } catch (IOException ignored) {
         }
+        serverStateChanged(serverDir);
     }
     
     public void checkAndReportPortConflicts(LuceeServerConfig.ServerConfig config, LuceeServerConfig.PortConflictResult portResult)
@@ -1819,6 +1905,7 @@ public class LuceeServerManager {
                 }
 
                 StringBuilder errorMessage = new StringBuilder("Cannot start server - port conflicts detected:\n\n");
+                int headerLength = errorMessage.length();
 
                 if (!LuceeServerConfig.isPortAvailable(config.port)) {
                     if (httpPortServer != null) {
@@ -1871,6 +1958,12 @@ public class LuceeServerManager {
                             .append("  Or change https.port in your lucee.json file (or disable https)\n\n");
                 }
 
+                if (errorMessage.length() == headerLength) {
+                    // Nothing is bound yet (e.g. the port is leased by a parallel start,
+                    // or two ports in lucee.json collide): report the allocator's findings.
+                    errorMessage.append(portResult.message);
+                }
+
                 throw new IllegalStateException(errorMessage.toString().trim());
             }
         }
@@ -1904,6 +1997,13 @@ public class LuceeServerManager {
      * For Docker servers (PID <= 0) this checks the container status.
      */
     private boolean isProcessRunning(long pid, Path serverDir) {
+        return isProcessRunning(pid, serverDir, null);
+    }
+
+    /**
+     * Check if a process is running, answering from the snapshot when one is given.
+     */
+    private boolean isProcessRunning(long pid, Path serverDir, ServerProcessSnapshot snapshot) {
         if (pid <= 0) {
             // Docker-managed server: check container status
             if (serverDir != null) {
@@ -1911,6 +2011,9 @@ public class LuceeServerManager {
                 if (Files.exists(dockerMarker)) {
                     try {
                         String containerName = Files.readString(dockerMarker).trim();
+                        if (snapshot != null) {
+                            return snapshot.isContainerRunning(containerName);
+                        }
                         return org.lucee.lucli.server.runtime.DockerRuntimeProvider
                                 .isDockerContainerRunning(containerName);
                     } catch (Exception e) {
@@ -1920,6 +2023,9 @@ public class LuceeServerManager {
             }
             return false;
         }
+        if (snapshot != null) {
+            return snapshot.isAlive(pid);
+        }
         
         try {
             ProcessHandle processHandle = ProcessHandle.of(pid).orElse(null);
@@ -1966,52 +2072,11 @@ public class LuceeServerManager {
             return null;
         }
         
-        Path serverDir = serversDir.resolve(serverName);
-        if (!Files.exists(serverDir)) {
+        ServerStateIndex.Entry state = stateIndex.entry(serverName);
+        if (state == null) {
             return null;
         }
-        
-        long pid = -1;
-        int port = -1;
-        boolean isRunning = false;
-
-        ServerPidRecord pidRecord = readServerPidRecord(serverDir);
-        if (pidRecord != null) {
-            pid = pidRecord.pid;
-            port = pidRecord.port;
-            Long resolvedPid = resolveRunningPidWithCatalinaFallback(serverDir, pidRecord.pid, pidRecord.port);
-            if (resolvedPid != null) {
-                pid = resolvedPid.longValue();
-                isRunning = true;
-            }
-        }
-
-        // Docker fallback: container may be running without a valid server.pid
-        if (!isRunning) {
-            Path dockerMarker = serverDir.resolve(".docker-container");
-            if (Files.exists(dockerMarker)) {
-                try {
-                    String containerName = Files.readString(dockerMarker).trim();
-                    if (org.lucee.lucli.server.runtime.DockerRuntimeProvider
-                            .isDockerContainerRunning(containerName)) {
-                        isRunning = true;
-                        pid = -1;
-                        if (port <= 0) {
-                            port = recoverDockerPort(serverDir);
-                        }
-                    }
-                } catch (Exception ignored) {
-                }
-            }
-        }
-
-        // Try to read project directory from .project-path marker file
-        Path projectDir = readProjectPath(serverDir);
-        
-        // Read environment if present
-        String environment = readEnvironment(serverDir);
-        
-        return new ServerInfo(serverName, pid, port, isRunning, serverDir, projectDir, environment);
+        return probeServer(serversDir.resolve(serverName), state, null);
     }
     
     /**
@@ -2120,7 +2185,7 @@ public class LuceeServerManager {
      * Returns a summary of what was pruned and what wasn't
      */
     public PruneAllResult pruneAllStoppedServers() throws IOException {
-        List<ServerInfo> servers = listServers();
+        List<ServerInfo> servers = scanServers();
         List<PruneResult> pruned = new ArrayList<>();
         List<PruneResult> skipped = new ArrayList<>();
         
@@ -2149,20 +2214,24 @@ public class LuceeServerManager {
             return null;
         }
         
+        List<Path> serverDirs;
         try (var stream = Files.list(serversDir)) {
-            for (Path serverDir : stream.filter(Files::isDirectory).toList()) {
-                ServerPidRecord pidRecord = readServerPidRecord(serverDir);
-                if (pidRecord != null) {
-                    int serverPort = pidRecord.port;
-
-                    // Check if this server is using the requested port and is still running
-                    if (serverPort == port || LuceeServerConfig.getShutdownPort(serverPort) == port) {
-                        Long resolvedPid = resolveRunningPidWithCatalinaFallback(serverDir, pidRecord.pid, pidRecord.port);
-                        boolean running = resolvedPid != null || isProcessRunning(pidRecord.pid, serverDir);
-                        if (running) {
-                            return serverDir.getFileName().toString();
-                        }
-                    }
+            serverDirs = stream.filter(Files::isDirectory).toList();
+        }
+        Map<String, ServerStateIndex.Entry> states = stateIndex.entries(serverDirs);
+        for (Path serverDir : serverDirs) {
+            ServerStateIndex.Entry state = states.get(serverDir.getFileName().toString());
+            if (state.pid() == -1 && state.port() == -1) {
+                continue;
+            }
+            int serverPort = state.port();
+
+            // Check if this server is using the requested port and is still running
+            if (serverPort == port || LuceeServerConfig.getShutdownPort(serverPort) == port) {
+                Long resolvedPid = resolveRunningPidWithCatalinaFallback(serverDir, state.pid(), state.port());
+                boolean running = resolvedPid != null || isProcessRunning(state.pid(), serverDir);
+                if (running) {
+                    return serverDir.getFileName().toString();
                 }
             }
         }
@@ -2174,6 +2243,7 @@ public class LuceeServerManager {
      * Delete a server directory and all its contents
      */
     private void deleteServerDirectory(Path serverDir) throws IOException {
+        invalidateServerListCache();
         if (!Files.exists(serverDir)) {
             return;
         }
@@ -2183,6 +2253,7 @@ public class LuceeServerManager {
              .sorted(Comparator.reverseOrder())
              .map(Path::toFile)
              .forEach(File::delete);
+        serverStateChanged(serverDir);
     }
     
 
@@ -2308,12 +2379,32 @@ public class LuceeServerManager {
         
         System.out.println("Downloading Lucee Express " + version + "...");
         downloadFile(downloadUrl, zipFile);
+        if (Files.exists(versionDir)) {
+            // Installed by another LuCLI process while we waited for the download lock
+            return versionDir;
+        }
         
         System.out.println("Extracting Lucee Express...");
-        extractZipFile(zipFile, versionDir);
-        
-        // Set execute permissions on shell scripts
-        setExecutePermissions(versionDir);
+        // Extract next to the final directory and rename it into place, so an
+        // interrupted extraction is never mistaken for an installed version.
+        Path stagingDir = Files.createTempDirectory(expressDir, "." + version + "-");
+        try {
+            extractZipFile(zipFile, stagingDir);
+            
+            // Set execute permissions on shell scripts
+            setExecutePermissions(stagingDir);
+            
+            try {
+                LucliFiles.move(stagingDir, versionDir);
+            } catch (IOException e) {
+                if (!Files.isDirectory(versionDir)) {
+                    throw e;
+                }
+                // Another LuCLI process finished first; keep its copy.
+            }
+        } finally {
+            deleteDirectoryQuietly(stagingDir);
+        }
         
         // Clean up zip file
         Files.deleteIfExists(zipFile);
@@ -2371,43 +2462,12 @@ public class LuceeServerManager {
     }
     
     /**
-     * Download a file from URL with progress bar
+     * Download a file from URL with progress bar, using parallel range
+     * requests and resuming an earlier interrupted download when possible.
      */
     private void downloadFile(String urlString, Path destinationFile) throws IOException {
-        Files.createDirectories(destinationFile.getParent());
-        
-        URL url = new URL(urlString);
-        try {
-            var connection = url.openConnection();
-            long contentLength = connection.getContentLengthLong();
-            
-            try (InputStream in = connection.getInputStream();
-                 OutputStream out = Files.newOutputStream(destinationFile)) {
-                
-                byte[] buffer = new byte[8192];
-                long totalBytesRead = 0;
-                int bytesRead;
-                ProgressBar progressBar = new ProgressBar("Downloading", contentLength > 0 ? contentLength : -1L);
-                
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                    totalBytesRead += bytesRead;
-                    progressBar.update(totalBytesRead);
-                }
-                progressBar.complete("Download complete!");
-            }
-        } catch (IOException e) {
-            // Fallback to simple download if progress fails
-            System.out.println("\nProgress display failed, continuing with simple download...");
-            try (InputStream in = url.openStream();
-                 OutputStream out = Files.newOutputStream(destinationFile)) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                }
-            }
+        try (Timer.Span ignored = Timer.span("download " + destinationFile.getFileName())) {
+            RangeDownloader.create().download(URI.create(urlString), destinationFile, null);
         }
     }
     
@@ -2445,6 +2505,24 @@ public class LuceeServerManager {
         }
     }
     
+    /**
+     * Delete a leftover staging directory, if it still exists
+     */
+    private void deleteDirectoryQuietly(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder())
+                 .map(Path::toFile)
+                 .forEach(File::delete);
+        } catch (IOException e) {
+            if (LuCLI.debug) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
     /**
      * Set execute permissions on shell scripts in the Lucee Express directory
      */
@@ -3051,9 +3129,12 @@ public class LuceeServerManager {
                 } catch (IOException e) {
                     // Ignore
                 }
+                serverStateChanged(catalinaBase);
             }));
         }
 
+        // A pid file left by an earlier run would be taken for this server's.
+        Files.deleteIfExists(catalinaPidFile);
         Process process = pb.start();
 
         // Write LuCLI's PID:PORT format. The initial PID is the startup
@@ -3061,11 +3142,12 @@ public class LuceeServerManager {
         // asynchronously. We update server.pid once that file appears.
         long launcherPid = process.pid();
         Files.writeString(pidFile, launcherPid + ":" + config.port);
+        serverStateChanged(catalinaBase);
 
         // Wait briefly for Tomcat to write the real Java PID via CATALINA_PID
         long javaPid = launcherPid;
-        for (int i = 0; i < 20; i++) {
-            try { Thread.sleep(250); } catch (InterruptedException ignored) { break; }
+        for (int i = 0; i < 100; i++) {
+            try { Thread.sleep(50); } catch (InterruptedException ignored) { break; }
             if (Files.exists(catalinaPidFile)) {
                 try {
                     String raw = Files.readString(catalinaPidFile).trim();
@@ -3078,6 +3160,7 @@ public class LuceeServerManager {
         }
         // Rewrite with the real Java PID so status/stop work correctly
         Files.writeString(pidFile, javaPid + ":" + config.port);
+        serverStateChanged(catalinaBase);
 
         if (foreground) {
             try {
@@ -3100,6 +3183,7 @@ public class LuceeServerManager {
             } finally {
                 Files.deleteIfExists(pidFile);
                 Files.deleteIfExists(catalinaPidFile);
+                serverStateChanged(catalinaBase);
             }
             return null;
         } else {
@@ -3211,12 +3295,14 @@ public class LuceeServerManager {
                 } catch (IOException e) {
                     // Ignore
                 }
+                serverStateChanged(jettyBase);
             }));
         }
 
         Process process = pb.start();
         long pid = process.pid();
         Files.writeString(pidFile, pid + ":" + config.port);
+        serverStateChanged(jettyBase);
 
         if (foreground) {
             try {
@@ -3239,6 +3325,7 @@ public class LuceeServerManager {
                 }
             } finally {
                 Files.deleteIfExists(pidFile);
+                serverStateChanged(jettyBase);
             }
             return null;
         } else {
@@ -3387,20 +3474,31 @@ public class LuceeServerManager {
      * Wait for server to start up
      */
     public void waitForServerStartup(ServerInstance instance, int timeoutSeconds) throws Exception {
-        long startTime = System.currentTimeMillis();
-        long timeout = timeoutSeconds * 1000L;
-        
-        while (System.currentTimeMillis() - startTime < timeout) {
-            if (LuceeServerConfig.isPortAvailable(instance.getPort())) {
-                Thread.sleep(1000); // Port still available, server not started yet
-            } else {
-                // Port is bound, server likely started
-                System.out.println("Server started successfully on port " + instance.getPort());
-                return;
-            }
+        waitForServerStartup(instance, null, timeoutSeconds);
+    }
+
+    /**
+     * Wait until the server reports ready according to the configured
+     * readiness signals (see {@link ServerReadiness}). readiness.timeoutSeconds
+     * in lucee.json overrides the given timeout.
+     */
+    public void waitForServerStartup(ServerInstance instance, LuceeServerConfig.ServerConfig config,
+                                     int timeoutSeconds) throws Exception {
+        if (config != null && config.readiness != null && config.readiness.timeoutSeconds != null
+                && config.readiness.timeoutSeconds > 0) {
+            timeoutSeconds = config.readiness.timeoutSeconds;
+        }
+        try (Timer.Span span = Timer.span("Server readiness")) {
+            ServerReadiness.Result result = ServerReadiness.forInstance(instance, config).await(timeoutSeconds);
+            System.out.println("Server started successfully on port " + instance.getPort() + " " + result.describe());
+        }
+        // Tomcat may have written catalina.pid only after the launch returned
+        // with the startup script's pid.
+        Long catalinaPid = instance.getServerDir() != null ? readCatalinaPid(instance.getServerDir()) : null;
+        if (catalinaPid != null && catalinaPid.longValue() > 0 && catalinaPid.longValue() != instance.getPid()
+                && ServerReadiness.tomcatPidFile(instance.getServerDir()) != null) {
+            refreshServerPid(instance.getServerDir(), catalinaPid.longValue(), instance.getPort());
         }
-        
-        throw new Exception("Server startup timed out after " + timeoutSeconds + " seconds");
     }
     
     /**
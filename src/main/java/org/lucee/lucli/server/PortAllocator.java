@@ -0,0 +1,415 @@
+package org.lucee.lucli.server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.paths.LucliFiles;
+import org.lucee.lucli.paths.LucliPaths;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Picks free ports for server starts and reserves them with short leases so
+ * that parallel {@code lucli server start} runs do not choose the same port.
+ *
+ * <p>Each allocation pass takes an exclusive lock on the lease file
+ * ({@code <servers dir>/.port-leases.json}), reads the kernel's listening
+ * sockets once ({@code /proc/net/tcp} and {@code /proc/net/tcp6}), and then
+ * answers every availability question from that snapshot plus a cheap local
+ * bind check. Where the kernel tables are not readable (macOS, Windows) each
+ * candidate falls back to {@link LuceeServerConfig#isPortAvailable(int)}.</p>
+ *
+ * <p>Ports claimed during a pass are leased to the calling process and its
+ * current {@link Operation} (a server start) for {@code lucli.portLeaseSeconds}
+ * / {@code LUCLI_PORT_LEASE_SECONDS} seconds (default
+ * {@value #DEFAULT_LEASE_SECONDS}), long enough for the server to bind them.
+ * Closing the operation, once the server has bound its ports or failed to
+ * start, releases them early; outside an operation the lease belongs to the
+ * calling thread and simply expires. Leases of exited processes and expired
+ * leases are ignored and pruned. An operation never conflicts with its own
+ * leases, so a start that resolves its ports twice keeps them, but the daemon
+ * and MCP host run several starts in one JVM and those do conflict with each
+ * other.</p>
+ */
+public final class PortAllocator {
+
+    static final long DEFAULT_LEASE_SECONDS = 120;
+
+    private static final String LISTEN_STATE = "0A";
+    private static final List<Path> KERNEL_TCP_TABLES =
+            List.of(Paths.get("/proc/net/tcp"), Paths.get("/proc/net/tcp6"));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<TreeMap<Integer, Lease>> LEASES_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * Reserving passes of this JVM queue here before taking the file lock:
+     * a second lock on the same file from this JVM would throw
+     * OverlappingFileLockException instead of waiting.
+     */
+    private static final Object LOCK = new Object();
+    private static final ThreadLocal<PortAllocator> ACTIVE = new ThreadLocal<>();
+    private static final ThreadLocal<Operation> OPERATION = new ThreadLocal<>();
+
+    /** Operation ids count down from -1 so they never collide with thread ids. */
+    private static final AtomicLong NEXT_OPERATION = new AtomicLong();
+
+    /**
+     * A reservation of one port by an operation (or thread) of a LuCLI
+     * process until {@code expiresAt} (epoch millis). Leases written before
+     * owners were recorded read back with owner 0, which matches nothing.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Lease(long pid, long owner, long expiresAt) {
+
+        boolean heldBy(long pid, long owner) {
+            return this.pid == pid && this.owner == owner;
+        }
+    }
+
+    /**
+     * Scope of one server start on the calling thread. Ports leased while it
+     * is open belong to the operation and are released when it is closed.
+     * Opening one while another is open on the thread joins the outer one.
+     */
+    public static final class Operation implements AutoCloseable {
+
+        private final long id;
+        private final boolean outermost;
+
+        private Operation(long id, boolean outermost) {
+            this.id = id;
+            this.outermost = outermost;
+        }
+
+        @Override
+        public void close() {
+            if (!outermost) {
+                return;
+            }
+            OPERATION.remove();
+            release(id);
+        }
+    }
+
+    private final Set<Integer> listening;
+    private final Map<Integer, Lease> foreignLeases;
+    private final Set<Integer> claimed = new LinkedHashSet<>();
+
+    /**
+     * @param listening     ports with a listening socket, or null to probe each port instead
+     * @param foreignLeases live leases held by other processes or other starts in this one
+     */
+    PortAllocator(Set<Integer> listening, Map<Integer, Lease> foreignLeases) {
+        this.listening = listening;
+        this.foreignLeases = foreignLeases;
+    }
+
+    /**
+     * Run one allocation pass. Ports the selection {@link #claim claims} (or
+     * finds via {@link #findAvailable}) are leased to the calling operation
+     * (or thread) when the pass ends. Nested calls on the same thread join the outer pass.
+     */
+    public static <T> T allocate(Function<PortAllocator, T> selection) {
+        return run(selection, true);
+    }
+
+    /**
+     * Open an {@link Operation} on the calling thread; close it once the
+     * server has bound its ports or failed to start.
+     */
+    public static Operation beginOperation() {
+        Operation current = OPERATION.get();
+        if (current != null) {
+            return new Operation(current.id, false);
+        }
+        Operation operation = new Operation(NEXT_OPERATION.decrementAndGet(), true);
+        OPERATION.set(operation);
+        return operation;
+    }
+
+    /**
+     * Run a pass that only looks: other processes' leases are respected, but
+     * nothing is locked or reserved. Used when filling in defaults for a config
+     * that is merely being loaded, not started.
+     */
+    public static <T> T check(Function<PortAllocator, T> selection) {
+        return run(selection, false);
+    }
+
+    private static <T> T run(Function<PortAllocator, T> selection, boolean reserve) {
+        PortAllocator active = ACTIVE.get();
+        if (active != null) {
+            return selection.apply(active);
+        }
+        Path leasesFile = LucliPaths.resolve().portLeasesFile();
+        if (!reserve) {
+            return pass(leasesFile, selection, false);
+        }
+        synchronized (LOCK) {
+            return pass(leasesFile, selection, true);
+        }
+    }
+
+    private static <T> T pass(Path leasesFile, Function<PortAllocator, T> selection, boolean reserve) {
+        Path lockFile = leasesFile.resolveSibling(leasesFile.getFileName() + ".lock");
+        FileChannel channel = null;
+        FileLock lock = null;
+        if (reserve) {
+            try {
+                Files.createDirectories(leasesFile.getParent());
+                channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                lock = channel.lock();
+            } catch (IOException e) {
+                // Without the lock we still pick free ports, we just cannot reserve them.
+                debug(e);
+                closeQuietly(channel);
+                channel = null;
+            }
+        }
+
+        try {
+            long self = ProcessHandle.current().pid();
+            long owner = currentOwner();
+            long now = System.currentTimeMillis();
+            TreeMap<Integer, Lease> leases = readLeases(leasesFile);
+            leases.values().removeIf(lease -> lease.expiresAt() <= now
+                    || (lease.pid() != self && !ProcessHandle.of(lease.pid()).map(ProcessHandle::isAlive).orElse(false)));
+
+            Map<Integer, Lease> foreign = new TreeMap<>(leases);
+            foreign.values().removeIf(lease -> lease.heldBy(self, owner));
+
+            PortAllocator allocator = new PortAllocator(readListeningPorts(), foreign);
+            ACTIVE.set(allocator);
+            T result;
+            try {
+                result = selection.apply(allocator);
+            } finally {
+                ACTIVE.remove();
+            }
+
+            if (lock != null) {
+                long expiresAt = now + leaseSeconds() * 1000L;
+                for (int port : allocator.claimed) {
+                    leases.put(port, new Lease(self, owner, expiresAt));
+                }
+                writeLeases(leasesFile, leases);
+            }
+            return result;
+        } finally {
+            if (lock != null) {
+                try {
+                    lock.release();
+                } catch (IOException ignored) {
+                    // Released when the channel closes.
+                }
+            }
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * Drop this process's leases held by {@code owner}. Best effort: leases
+     * left behind still expire.
+     */
+    private static void release(long owner) {
+        Path leasesFile = LucliPaths.resolve().portLeasesFile();
+        if (!Files.isRegularFile(leasesFile)) {
+            return;
+        }
+        Path lockFile = leasesFile.resolveSibling(leasesFile.getFileName() + ".lock");
+        long self = ProcessHandle.current().pid();
+        synchronized (LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                TreeMap<Integer, Lease> leases = readLeases(leasesFile);
+                if (leases.values().removeIf(lease -> lease.heldBy(self, owner))) {
+                    writeLeases(leasesFile, leases);
+                }
+            } catch (IOException e) {
+                debug(e);
+            }
+        }
+    }
+
+    private static long currentOwner() {
+        Operation operation = OPERATION.get();
+        return operation != null ? operation.id : Thread.currentThread().threadId();
+    }
+
+    /**
+     * True when nothing listens on the port, it can be bound, and no other
+     * LuCLI process or other start in this one holds a lease on it.
+     */
+    public boolean isAvailable(int port) {
+        if (port <= 0 || port > 65535 || foreignLeases.containsKey(port)) {
+            return false;
+        }
+        if (listening == null) {
+            return LuceeServerConfig.isPortAvailable(port);
+        }
+        if (listening.contains(port)) {
+            return false;
+        }
+        // Catches ports that are bound without listening, which the table marks differently.
+        try (ServerSocket socket = new ServerSocket(port)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Pid of the LuCLI process that has reserved the port, or -1. This may be
+     * the current process when another of its starts holds the lease.
+     */
+    public long leaseHolder(int port) {
+        Lease lease = foreignLeases.get(port);
+        return lease != null ? lease.pid() : -1;
+    }
+
+    /**
+     * Find and claim a free port: the preferred port first, then the range in
+     * order, then a system-assigned port. Ports in {@code avoid} and ports
+     * already claimed in this pass are skipped.
+     */
+    public int findAvailable(int preferredPort, int rangeStart, int rangeEnd, Set<Integer> avoid) {
+        if (!avoid.contains(preferredPort) && !claimed.contains(preferredPort) && isAvailable(preferredPort)) {
+            claim(preferredPort);
+            return preferredPort;
+        }
+        for (int port = rangeStart; port <= rangeEnd; port++) {
+            if (!avoid.contains(port) && !claimed.contains(port) && isAvailable(port)) {
+                claim(port);
+                return port;
+            }
+        }
+        try (ServerSocket socket = new ServerSocket(0)) {
+            int port = socket.getLocalPort();
+            claim(port);
+            return port;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to find available port", e);
+        }
+    }
+
+    /**
+     * Reserve a port for the calling operation (or thread) when the pass ends.
+     */
+    public void claim(int port) {
+        if (port > 0) {
+            claimed.add(port);
+        }
+    }
+
+    Set<Integer> claimed() {
+        return claimed;
+    }
+
+    /**
+     * Ports in LISTEN state according to the kernel, or null when the tables
+     * cannot be read on this platform.
+     */
+    static Set<Integer> readListeningPorts() {
+        Set<Integer> ports = null;
+        for (Path table : KERNEL_TCP_TABLES) {
+            if (!Files.isReadable(table)) {
+                continue;
+            }
+            try {
+                Set<Integer> parsed = parseListeningPorts(Files.readAllLines(table));
+                if (ports == null) {
+                    ports = new HashSet<>();
+                }
+                ports.addAll(parsed);
+            } catch (IOException e) {
+                debug(e);
+            }
+        }
+        return ports;
+    }
+
+    /**
+     * Parse the rows of {@code /proc/net/tcp} or {@code /proc/net/tcp6}:
+     * {@code sl local_address rem_address st ...}, where the local address is
+     * {@code <hex ip>:<hex port>} and state {@code 0A} is LISTEN.
+     */
+    static Set<Integer> parseListeningPorts(List<String> lines) {
+        Set<Integer> ports = new HashSet<>();
+        for (String line : lines) {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length < 4 || !LISTEN_STATE.equals(fields[3])) {
+                continue;
+            }
+            int colon = fields[1].lastIndexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            try {
+                ports.add(Integer.parseInt(fields[1].substring(colon + 1), 16));
+            } catch (NumberFormatException ignored) {
+                // Header or malformed row.
+            }
+        }
+        return ports;
+    }
+
+    private static TreeMap<Integer, Lease> readLeases(Path leasesFile) {
+        if (!Files.isRegularFile(leasesFile)) {
+            return new TreeMap<>();
+        }
+        try {
+            TreeMap<Integer, Lease> leases = MAPPER.readValue(leasesFile.toFile(), LEASES_TYPE);
+            return leases != null ? leases : new TreeMap<>();
+        } catch (IOException e) {
+            // Corrupt file: start over, leases are short-lived anyway.
+            return new TreeMap<>();
+        }
+    }
+
+    private static void writeLeases(Path leasesFile, Map<Integer, Lease> leases) {
+        try {
+            LucliFiles.writeAtomically(leasesFile, temp -> MAPPER.writeValue(temp.toFile(), leases));
+        } catch (IOException e) {
+            debug(e);
+        }
+    }
+
+    static long leaseSeconds() {
+        return LucliFiles.longSetting("lucli.portLeaseSeconds", "LUCLI_PORT_LEASE_SECONDS", 0, DEFAULT_LEASE_SECONDS);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing to do.
+            }
+        }
+    }
+
+    private static void debug(Exception e) {
+        if (LuCLI.debug) {
+            e.printStackTrace();
+        }
+    }
+}
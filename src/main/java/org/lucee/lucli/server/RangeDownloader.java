@@ -0,0 +1,575 @@
+package org.lucee.lucli.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.paths.LucliFiles;
+import org.lucee.lucli.ui.ProgressBar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Downloads large artifacts (Lucee Express zips, engine JARs) over several
+ * HTTP range requests in parallel, resuming interrupted downloads.
+ *
+ * <p>Bytes are written into {@code <destination>.part}. Per-segment progress
+ * is saved in {@code <destination>.part.json} together with the remote
+ * length and validator, so a later run continues where the previous one
+ * stopped as long as the remote file is unchanged. The validator is a strong
+ * ETag, or Last-Modified when there is none, and every range request sends
+ * it as {@code If-Range}. Each segment is retried from its last written
+ * byte before the download gives up. The file is read in one plain stream
+ * instead when the server has no strong validator, does not answer range
+ * requests, or answers one with the whole file.</p>
+ *
+ * <p>The finished file is checked before it is published: the length must
+ * match, the SHA-256 must match when the caller knows it or the server
+ * publishes it ({@code Repr-Digest} or {@code Digest}), and {@code .zip} /
+ * {@code .jar} files must open as archives. It is then moved into place
+ * atomically, so the destination never holds a partial file.</p>
+ *
+ * <p>The number of parallel connections is {@code lucli.downloadConnections}
+ * / {@code LUCLI_DOWNLOAD_CONNECTIONS} (default
+ * {@value #DEFAULT_CONNECTIONS}); set it to 1 for a single stream.</p>
+ */
+public final class RangeDownloader {
+
+    static final int DEFAULT_CONNECTIONS = 4;
+    static final int DEFAULT_ATTEMPTS = 3;
+    /** Segments smaller than this are not worth an extra connection. */
+    static final long MIN_SEGMENT_BYTES = 1L << 20;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Persist segment progress at most every this many bytes per segment. */
+    private static final long STATE_SAVE_INTERVAL = 4L << 20;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+)");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Saved progress of a {@code .part} file. */
+    record PartState(String url, long length, String etag, String lastModified, List<Segment> segments) {
+    }
+
+    /** Byte range {@code [start, end]} of which the first {@code done} bytes are written. */
+    record Segment(long start, long end, long done) {
+    }
+
+    /** What a finished fetch knows about the file: its length (-1 if unknown) and published SHA-256. */
+    private record Fetched(long length, String sha256) {
+    }
+
+    /** A range request was answered with the whole file, or with bytes other than the ones asked for. */
+    private static final class RangeIgnoredException extends IOException {
+        RangeIgnoredException(int status) {
+            super("expected a partial response but got HTTP " + status);
+        }
+
+        RangeIgnoredException(String message) {
+            super(message);
+        }
+    }
+
+    private final HttpClient client;
+    private final int connections;
+    private final int attempts;
+    private final boolean showProgress;
+
+    RangeDownloader(HttpClient client, int connections, int attempts, boolean showProgress) {
+        this.client = client;
+        this.connections = Math.max(1, connections);
+        this.attempts = Math.max(1, attempts);
+        this.showProgress = showProgress;
+    }
+
+    /**
+     * Downloader with the configured connection count and a progress bar.
+     */
+    public static RangeDownloader create() {
+        return new RangeDownloader(newClient(), resolveConnections(), DEFAULT_ATTEMPTS, true);
+    }
+
+    static HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private static int resolveConnections() {
+        return (int) Math.min(Integer.MAX_VALUE,
+                LucliFiles.longSetting("lucli.downloadConnections", "LUCLI_DOWNLOAD_CONNECTIONS", 1, DEFAULT_CONNECTIONS));
+    }
+
+    /**
+     * Download {@code uri} to {@code destination}.
+     *
+     * @param expectedSha256 hex SHA-256 the file must have, or null to skip the digest check
+     * @throws IOException when the download fails (the {@code .part} file is kept for
+     *                     resuming) or the result fails verification (it is discarded)
+     */
+    public void download(URI uri, Path destination, String expectedSha256) throws IOException {
+        Path dir = destination.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path part = destination.resolveSibling(destination.getFileName() + ".part");
+        Path stateFile = destination.resolveSibling(destination.getFileName() + ".part.json");
+        Path lockFile = destination.resolveSibling(destination.getFileName() + ".lock");
+
+        // Another LuCLI process may be fetching the same artifact; wait for it.
+        // The lock file is left in place: deleting it would let a third process
+        // lock a fresh file while a waiter still holds the old one.
+        try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = lockChannel.lock()) {
+            if (Files.exists(destination)) {
+                // Published by another process, or left by an older LuCLI that
+                // wrote in place; keep it only if it checks out.
+                if (problem(destination, -1, expectedSha256, destination) == null) {
+                    return;
+                }
+                Files.delete(destination);
+            }
+            Fetched fetched = fetch(uri, part, stateFile);
+            String sha256 = expectedSha256 != null && !expectedSha256.isBlank() ? expectedSha256 : fetched.sha256();
+            String problem = problem(part, fetched.length(), sha256, destination);
+            if (problem != null) {
+                // Resuming a corrupt file cannot fix it, so start over next time.
+                Files.deleteIfExists(part);
+                Files.deleteIfExists(stateFile);
+                throw new IOException(problem);
+            }
+            LucliFiles.move(part, destination);
+            Files.deleteIfExists(stateFile);
+        }
+    }
+
+    private Fetched fetch(URI uri, Path part, Path stateFile) throws IOException {
+        // A one-byte range request tells us the length, the validators and
+        // whether ranges are supported, without a separate HEAD round trip.
+        HttpResponse<InputStream> probe = send(HttpRequest.newBuilder(uri).header("Range", "bytes=0-0"));
+        long length;
+        String etag = strongEtag(probe.headers());
+        String lastModified = etag == null ? probe.headers().firstValue("Last-Modified").orElse(null) : null;
+        if (probe.statusCode() == 206) {
+            probe.body().close();
+            length = totalLength(probe.headers());
+        } else if (probe.statusCode() == 200) {
+            // No range support: this response already carries the whole file.
+            Files.deleteIfExists(stateFile);
+            return streamWhole(probe, part);
+        } else {
+            probe.body().close();
+            throw new IOException("Download of " + uri + " failed: HTTP " + probe.statusCode());
+        }
+        if (length < 0) {
+            throw new IOException("Download of " + uri + " failed: server did not report the file size");
+        }
+        if (etag == null && lastModified == null) {
+            // Ranges fetched at different times could come from different
+            // versions of the file with nothing to tell them apart.
+            return streamFresh(uri, part, stateFile);
+        }
+        String validator = etag != null ? etag : lastModified;
+        String published = publishedSha256(probe.headers());
+
+        PartState state = readState(stateFile);
+        if (state == null || !Files.isRegularFile(part) || Files.size(part) != length
+                || !state.url().equals(uri.toString()) || state.length() != length
+                || !Objects.equals(state.etag(), etag) || !Objects.equals(state.lastModified(), lastModified)) {
+            state = new PartState(uri.toString(), length, etag, lastModified, plan(length));
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (length > 0) {
+                    channel.write(ByteBuffer.allocate(1), length - 1);
+                }
+            }
+            writeState(stateFile, state);
+        }
+
+        List<Segment> segments = state.segments();
+        AtomicLong[] done = new AtomicLong[segments.size()];
+        long alreadyDone = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            done[i] = new AtomicLong(segments.get(i).done());
+            alreadyDone += segments.get(i).done();
+        }
+        AtomicLong total = new AtomicLong(alreadyDone);
+        ProgressBar progress = showProgress ? new ProgressBar("Downloading", length) : null;
+        if (progress != null) {
+            progress.update(alreadyDone);
+        }
+
+        PartState base = state;
+        AtomicBoolean abandoned = new AtomicBoolean();
+        IOException failure = null;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            Checkpoint checkpoint = () -> saveProgress(channel, stateFile, snapshot(base, done));
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> results = new ArrayList<>();
+                for (int i = 0; i < segments.size(); i++) {
+                    int index = i;
+                    results.add(workers.submit(() -> {
+                        fetchSegment(uri, validator, channel, segments.get(index), done[index], total, progress,
+                                checkpoint, abandoned);
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException e) {
+                        if (failure == null || e.getCause() instanceof RangeIgnoredException) {
+                            failure = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        failure = new IOException("Download interrupted", e);
+                        break;
+                    }
+                }
+            } finally {
+                checkpoint.save();
+            }
+        }
+        if (failure instanceof RangeIgnoredException) {
+            if (progress != null) {
+                progress.complete("Server ignored the range request; downloading in one stream");
+            }
+            return streamFresh(uri, part, stateFile);
+        }
+        if (failure != null) {
+            throw new IOException("Download of " + uri + " failed after " + ProgressBar.formatBytes(total.get())
+                    + "; run the command again to resume: " + failure.getMessage(), failure);
+        }
+        if (progress != null) {
+            progress.complete("Download complete!");
+        }
+        return new Fetched(length, published);
+    }
+
+    private void fetchSegment(URI uri, String validator, FileChannel channel, Segment segment, AtomicLong done,
+                              AtomicLong total, ProgressBar progress, Checkpoint checkpoint,
+                              AtomicBoolean abandoned) throws IOException {
+        long size = segment.end() - segment.start() + 1;
+        IOException last = null;
+        for (int attempt = 1; attempt <= attempts && done.get() < size && !abandoned.get(); attempt++) {
+            long from = segment.start() + done.get();
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                    .header("Range", "bytes=" + from + "-" + segment.end())
+                    .header("If-Range", validator);
+            try {
+                HttpResponse<InputStream> response = send(request);
+                try (InputStream in = response.body()) {
+                    if (response.statusCode() == 200) {
+                        // Ranges unsupported after all, or the remote file changed.
+                        abandoned.set(true);
+                        throw new RangeIgnoredException(response.statusCode());
+                    }
+                    if (response.statusCode() != 206) {
+                        throw new IOException("expected a partial response but got HTTP " + response.statusCode());
+                    }
+                    // Writing at segment offsets is only safe when the server sent exactly the bytes asked for.
+                    String contentRange = response.headers().firstValue("Content-Range").orElse("");
+                    Matcher matcher = CONTENT_RANGE.matcher(contentRange);
+                    if (!matcher.find() || Long.parseLong(matcher.group(1)) != from
+                            || Long.parseLong(matcher.group(2)) != segment.end()) {
+                        abandoned.set(true);
+                        throw new RangeIgnoredException("asked for bytes " + from + "-" + segment.end()
+                                + " but got Content-Range '" + contentRange + "'");
+                    }
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    long sinceSave = 0;
+                    int read;
+                    while (done.get() < size && !abandoned.get()
+                            && (read = in.read(buffer, 0, (int) Math.min(buffer.length, size - done.get()))) != -1) {
+                        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                        long position = segment.start() + done.get();
+                        while (chunk.hasRemaining()) {
+                            position += channel.write(chunk, position);
+                        }
+                        done.addAndGet(read);
+                        long downloaded = total.addAndGet(read);
+                        if (progress != null) {
+                            progress.update(downloaded);
+                        }
+                        sinceSave += read;
+                        if (sinceSave >= STATE_SAVE_INTERVAL) {
+                            checkpoint.save();
+                            sinceSave = 0;
+                        }
+                    }
+                }
+                if (done.get() < size && !abandoned.get()) {
+                    throw new IOException("connection closed " + (size - done.get()) + " bytes early");
+                }
+            } catch (RangeIgnoredException e) {
+                throw e;
+            } catch (IOException e) {
+                last = e;
+                checkpoint.save();
+                if (attempt < attempts) {
+                    sleepBeforeRetry(attempt);
+                }
+            }
+        }
+        if (done.get() < size) {
+            throw last != null ? last : new IOException("segment incomplete");
+        }
+    }
+
+    /**
+     * Discard any saved progress and read the whole file with a plain GET.
+     */
+    private Fetched streamFresh(URI uri, Path part, Path stateFile) throws IOException {
+        Files.deleteIfExists(stateFile);
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(uri));
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Download of " + uri + " failed: HTTP " + response.statusCode());
+        }
+        return streamWhole(response, part);
+    }
+
+    private Fetched streamWhole(HttpResponse<InputStream> response, Path part) throws IOException {
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1L);
+        ProgressBar progress = showProgress ? new ProgressBar("Downloading", length) : null;
+        long written = 0;
+        try (InputStream in = response.body();
+             FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                written += read;
+                if (progress != null) {
+                    progress.update(written);
+                }
+            }
+        }
+        if (length >= 0 && written != length) {
+            throw new IOException("Download truncated: received " + written + " of " + length + " bytes");
+        }
+        if (progress != null) {
+            progress.complete("Download complete!");
+        }
+        return new Fetched(length, publishedSha256(response.headers()));
+    }
+
+    /**
+     * Why {@code file} is not a good copy of {@code destination}, or null when it
+     * is: the length and SHA-256 must match when known, and archives must open.
+     * The archive check only reads the central directory, so it cannot catch
+     * damage inside an entry; the digest can.
+     */
+    private static String problem(Path file, long expectedLength, String expectedSha256, Path destination)
+            throws IOException {
+        if (expectedLength >= 0 && Files.size(file) != expectedLength) {
+            return "Downloaded " + destination.getFileName() + " has " + Files.size(file)
+                    + " bytes but the server reported " + expectedLength;
+        }
+        if (expectedSha256 != null && !expectedSha256.isBlank()) {
+            String actual = sha256(file);
+            if (!actual.equalsIgnoreCase(expectedSha256.trim())) {
+                return "Checksum mismatch for " + destination.getFileName()
+                        + ": expected " + expectedSha256.trim() + " but got " + actual;
+            }
+        }
+        String name = destination.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".zip") || name.endsWith(".jar")) {
+            // Opening reads the central directory, which catches truncation.
+            try (ZipFile ignored = new ZipFile(file.toFile())) {
+                return null;
+            } catch (IOException e) {
+                return "Downloaded " + destination.getFileName() + " is not a valid archive: " + e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Split {@code length} bytes into at most {@code connections} segments of at
+     * least {@link #MIN_SEGMENT_BYTES} each.
+     */
+    List<Segment> plan(long length) {
+        List<Segment> segments = new ArrayList<>();
+        if (length <= 0) {
+            return segments;
+        }
+        long count = Math.max(1, Math.min(connections, (length + MIN_SEGMENT_BYTES - 1) / MIN_SEGMENT_BYTES));
+        long size = (length + count - 1) / count;
+        for (long start = 0; start < length; start += size) {
+            segments.add(new Segment(start, Math.min(length, start + size) - 1, 0));
+        }
+        return segments;
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest.Builder request) throws IOException {
+        try {
+            return client.send(request.header("User-Agent", "LuCLI/" + LuCLI.getVersion()).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        }
+    }
+
+    /**
+     * The ETag when it is strong. A weak ETag ({@code W/"..."}) only promises
+     * equivalent content, not identical bytes, so it cannot be used to join ranges.
+     */
+    static String strongEtag(HttpHeaders headers) {
+        String etag = headers.firstValue("ETag").map(String::trim).orElse(null);
+        return etag != null && etag.startsWith("\"") ? etag : null;
+    }
+
+    /**
+     * Hex SHA-256 of the whole file from a {@code Repr-Digest: sha-256=:<base64>:}
+     * or {@code Digest: SHA-256=<base64>} header, or null when none is published.
+     */
+    static String publishedSha256(HttpHeaders headers) {
+        for (String name : List.of("Repr-Digest", "Digest")) {
+            for (String header : headers.allValues(name)) {
+                for (String entry : header.split(",")) {
+                    int equals = entry.indexOf('=');
+                    if (equals < 0 || !entry.substring(0, equals).trim().equalsIgnoreCase("sha-256")) {
+                        continue;
+                    }
+                    String value = entry.substring(equals + 1).trim();
+                    if (value.length() > 1 && value.startsWith(":") && value.endsWith(":")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    try {
+                        byte[] digest = Base64.getDecoder().decode(value);
+                        if (digest.length == 32) {
+                            return HexFormat.of().formatHex(digest);
+                        }
+                    } catch (IllegalArgumentException ignored) {
+                        // Malformed value; look for another.
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long totalLength(HttpHeaders headers) {
+        String contentRange = headers.firstValue("Content-Range").orElse("");
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange);
+        return matcher.find() ? Long.parseLong(matcher.group(3)) : -1;
+    }
+
+    private static PartState snapshot(PartState base, AtomicLong[] done) {
+        List<Segment> segments = new ArrayList<>(base.segments().size());
+        for (int i = 0; i < base.segments().size(); i++) {
+            Segment segment = base.segments().get(i);
+            segments.add(new Segment(segment.start(), segment.end(), done[i].get()));
+        }
+        return new PartState(base.url(), base.length(), base.etag(), base.lastModified(), segments);
+    }
+
+    private static PartState readState(Path stateFile) {
+        if (!Files.isRegularFile(stateFile)) {
+            return null;
+        }
+        try {
+            PartState state = MAPPER.readValue(stateFile.toFile(), PartState.class);
+            return state != null && state.url() != null && state.segments() != null ? state : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Flush the written bytes to disk, then record them as done. Saving the
+     * state first could leave it claiming bytes that a crash lost.
+     */
+    private static void saveProgress(FileChannel channel, Path stateFile, PartState state) {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            // Not durable, so not recorded; resume fetches these bytes again.
+            if (LuCLI.debug) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        writeState(stateFile, state);
+    }
+
+    /**
+     * Save progress. Called from several segment threads, so writes are
+     * serialised and go through a temp file; a lost update only means
+     * re-downloading a few bytes on resume.
+     */
+    private static synchronized void writeState(Path stateFile, PartState state) {
+        try {
+            LucliFiles.writeAtomically(stateFile, temp -> MAPPER.writeValue(temp.toFile(), state));
+        } catch (IOException e) {
+            if (LuCLI.debug) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void sleepBeforeRetry(int attempt) throws IOException {
+        try {
+            Thread.sleep(250L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Checkpoint {
+        void save();
+    }
+}
@@ -1329,7 +1329,7 @@ public class ServerCommandHandler {
         
         if (stopAll) {
             // Stop all running servers
-            List<LuceeServerManager.ServerInfo> servers = serverManager.listServers();
+            List<LuceeServerManager.ServerInfo> servers = serverManager.listServersUncached();
             List<LuceeServerManager.ServerInfo> runningServers = servers.stream()
                 .filter(LuceeServerManager.ServerInfo::isRunning)
                 .collect(java.util.stream.Collectors.toList());
@@ -1924,7 +1924,7 @@ public class ServerCommandHandler {
         
         if (pruneAll) {
             // Get list of stopped servers before confirming
-            java.util.List<LuceeServerManager.ServerInfo> servers = serverManager.listServers();
+            java.util.List<LuceeServerManager.ServerInfo> servers = serverManager.listServersUncached();
             java.util.List<LuceeServerManager.ServerInfo> stoppedServers = servers.stream()
                 .filter(s -> !s.isRunning())
                 .collect(java.util.stream.Collectors.toList());
@@ -0,0 +1,48 @@
+package org.lucee.lucli.server;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.lucee.lucli.server.runtime.DockerRuntimeProvider;
+
+/**
+ * Point-in-time view of live processes and running Docker containers.
+ *
+ * <p>{@link LuceeServerManager#listServers()} takes one snapshot per listing,
+ * so probing N server directories costs a single process table walk and at
+ * most one {@code docker ps} call, instead of a {@code ProcessHandle} lookup
+ * and a {@code docker inspect} subprocess per server. The Docker query only
+ * runs when a Docker-managed server is actually probed.</p>
+ */
+final class ServerProcessSnapshot {
+
+    private final Set<Long> livePids;
+    private final Supplier<Set<String>> containerLoader;
+    private Set<String> runningContainers;
+
+    ServerProcessSnapshot(Set<Long> livePids, Supplier<Set<String>> containerLoader) {
+        this.livePids = livePids;
+        this.containerLoader = containerLoader;
+    }
+
+    static ServerProcessSnapshot capture() {
+        Set<Long> pids = new HashSet<>();
+        ProcessHandle.allProcesses().forEach(process -> pids.add(process.pid()));
+        return new ServerProcessSnapshot(pids, DockerRuntimeProvider::listRunningContainerNames);
+    }
+
+    boolean isAlive(long pid) {
+        return pid > 0 && livePids.contains(pid);
+    }
+
+    synchronized boolean isContainerRunning(String containerName) {
+        if (containerName == null || containerName.isEmpty()) {
+            return false;
+        }
+        if (runningContainers == null) {
+            runningContainers = containerLoader.get();
+        }
+        return runningContainers.contains(containerName);
+    }
+}
@@ -0,0 +1,381 @@
+package org.lucee.lucli.server;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Detects when a freshly launched server is ready to serve requests.
+ *
+ * <p>Three signals are watched on every tick, with a short backoff between
+ * ticks (starting at {@value #INITIAL_BACKOFF_MS} ms and growing to
+ * {@value #MAX_BACKOFF_MS} ms) instead of a fixed one-second sleep:</p>
+ * <ul>
+ *   <li><b>port</b> - a TCP connect to the HTTP port succeeds.</li>
+ *   <li><b>http</b> - a GET of the health path answers with a status below 500.</li>
+ *   <li><b>log</b> - the runtime logs its startup marker ("Server startup in"
+ *       for Tomcat, "Started Server@" for Jetty).</li>
+ * </ul>
+ *
+ * <p>The server is reported ready as soon as any of the configured signals
+ * ({@code readiness.signals} in lucee.json, default {@code log} and
+ * {@code http}) fires. The port is always watched so the result can show
+ * when it was bound, even when it does not count as ready on its own.</p>
+ *
+ * <p>The wait fails early only when the server's own process exits. For
+ * Tomcat the launched process is the startup script, so its pid proves
+ * nothing; the server pid is read from {@code catalina.pid} on every tick,
+ * and until that file appears only the signals above are watched.</p>
+ */
+public final class ServerReadiness {
+
+    /** Readiness signals, in the order they normally fire. */
+    public enum Signal {
+        PORT, HTTP, LOG;
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    static final long INITIAL_BACKOFF_MS = 20;
+    static final long MAX_BACKOFF_MS = 250;
+    private static final int CONNECT_TIMEOUT_MS = 200;
+    private static final int HTTP_TIMEOUT_MS = 2000;
+
+    static final Set<Signal> DEFAULT_SIGNALS = EnumSet.of(Signal.LOG, Signal.HTTP);
+
+    private static final Pattern STARTUP_MARKER =
+            Pattern.compile("Server startup in|Started (oejs\\.)?Server@");
+
+    private final int port;
+    /** Confirmed server pid, or 0 while it is still unknown. */
+    private long pid;
+    private final Path pidFile;
+    private final Set<Signal> signals;
+    private final String healthPath;
+    private final List<LogTail> logTails;
+
+    ServerReadiness(int port, long pid, Set<Signal> signals, String healthPath, List<LogTail> logTails) {
+        this(port, pid, null, signals, healthPath, logTails);
+    }
+
+    /**
+     * @param pid     the server's pid if already confirmed, otherwise 0 or less
+     * @param pidFile file the server writes its pid to, read while {@code pid}
+     *                is unknown; may be null
+     */
+    ServerReadiness(int port, long pid, Path pidFile, Set<Signal> signals, String healthPath, List<LogTail> logTails) {
+        this.port = port;
+        this.pid = Math.max(0, pid);
+        this.pidFile = pidFile;
+        this.healthPath = normalizeHealthPath(healthPath);
+        this.logTails = logTails;
+
+        Set<Signal> effective = EnumSet.noneOf(Signal.class);
+        effective.addAll(signals == null || signals.isEmpty() ? DEFAULT_SIGNALS : signals);
+        if (logTails.isEmpty() && effective.remove(Signal.LOG) && effective.isEmpty()) {
+            // Nothing to tail (e.g. docker): fall back to the port so we still finish.
+            effective.add(Signal.PORT);
+        }
+        this.signals = effective;
+    }
+
+    /**
+     * Build a readiness check for a launched server instance.
+     *
+     * <p>Must be called right after the launch: logs that are appended to
+     * across restarts (catalina.out) are only read from their current end.</p>
+     */
+    public static ServerReadiness forInstance(LuceeServerManager.ServerInstance instance,
+                                              LuceeServerConfig.ServerConfig config) {
+        LuceeServerConfig.ReadinessConfig readiness = config != null ? config.readiness : null;
+        Set<Signal> signals = parseSignals(readiness != null ? readiness.signals : null);
+        String healthPath = readiness != null ? readiness.healthPath : null;
+        Path serverDir = instance.getServerDir();
+        Path catalinaPid = tomcatPidFile(serverDir);
+        // A Tomcat instance may still carry the startup script's pid.
+        long pid = catalinaPid != null ? 0 : instance.getPid();
+        return new ServerReadiness(instance.getPort(), pid, catalinaPid, signals, healthPath,
+                logTailsFor(serverDir));
+    }
+
+    /**
+     * {@code catalina.pid} of a Tomcat server directory, or null for Jetty,
+     * Docker and unknown directories, whose launched process is the server.
+     */
+    static Path tomcatPidFile(Path serverDir) {
+        if (serverDir == null || Files.exists(serverDir.resolve(".docker-container")) || isJetty(serverDir)) {
+            return null;
+        }
+        return serverDir.resolve("catalina.pid");
+    }
+
+    private static boolean isJetty(Path serverDir) {
+        try {
+            Path marker = serverDir.resolve(".runtime-type");
+            return Files.exists(marker) && "jetty".equals(Files.readString(marker).trim());
+        } catch (IOException e) {
+            // Treat as Tomcat, the historical default.
+            return false;
+        }
+    }
+
+    /**
+     * Parse signal names from lucee.json, ignoring unknown names with a warning.
+     * Returns an empty set (meaning "use the defaults") when nothing valid is given.
+     */
+    static Set<Signal> parseSignals(List<String> names) {
+        Set<Signal> signals = EnumSet.noneOf(Signal.class);
+        if (names == null) {
+            return signals;
+        }
+        for (String name : names) {
+            if (name == null || name.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                signals.add(Signal.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Warning: Unknown readiness signal '" + name + "' (expected port, http or log)");
+            }
+        }
+        return signals;
+    }
+
+    /**
+     * Log files to tail, based on the runtime recorded in the server directory.
+     * Files the launcher truncates are read from the start; catalina.out is
+     * appended to across restarts, so only new output counts.
+     */
+    static List<LogTail> logTailsFor(Path serverDir) {
+        List<LogTail> tails = new ArrayList<>();
+        if (serverDir == null || Files.exists(serverDir.resolve(".docker-container"))) {
+            return tails;
+        }
+        Path logsDir = serverDir.resolve("logs");
+        if (isJetty(serverDir)) {
+            tails.add(new LogTail(logsDir.resolve("jetty.out"), false));
+            tails.add(new LogTail(logsDir.resolve("jetty.err"), false));
+        } else {
+            tails.add(new LogTail(logsDir.resolve("server.out"), false));
+            tails.add(new LogTail(logsDir.resolve("catalina.out"), true));
+        }
+        return tails;
+    }
+
+    /**
+     * Wait until a configured signal fires.
+     *
+     * @throws Exception when the timeout expires or the server process exits first
+     */
+    public Result await(long timeoutSeconds) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + timeoutSeconds * 1_000_000_000L;
+        Map<Signal, Long> phases = new LinkedHashMap<>();
+        long backoff = INITIAL_BACKOFF_MS;
+
+        while (true) {
+            if (!phases.containsKey(Signal.PORT) && isListening()) {
+                phases.put(Signal.PORT, elapsedMillis(start));
+            }
+            if (signals.contains(Signal.LOG) && !phases.containsKey(Signal.LOG) && startupLogged()) {
+                phases.put(Signal.LOG, elapsedMillis(start));
+            }
+            // An HTTP request cannot succeed before the port is bound.
+            if (signals.contains(Signal.HTTP) && phases.containsKey(Signal.PORT)
+                    && !phases.containsKey(Signal.HTTP) && httpResponds()) {
+                phases.put(Signal.HTTP, elapsedMillis(start));
+            }
+
+            for (Signal signal : phases.keySet()) {
+                if (signals.contains(signal)) {
+                    return new Result(signal, elapsedMillis(start), phases);
+                }
+            }
+
+            long serverPid = serverPid();
+            if (serverPid > 0 && ProcessHandle.of(serverPid).map(p -> !p.isAlive()).orElse(true)) {
+                throw new Exception("Server process " + serverPid + " exited before it was ready; check the logs in the server directory");
+            }
+            long now = System.nanoTime();
+            if (now >= deadline) {
+                throw new Exception("Server startup timed out after " + timeoutSeconds + " seconds");
+            }
+            Thread.sleep(Math.min(backoff, Math.max(1, (deadline - now) / 1_000_000L)));
+            backoff = Math.min(MAX_BACKOFF_MS, backoff * 3 / 2);
+        }
+    }
+
+    /** The confirmed server pid, reading the pid file until it appears; 0 while unknown. */
+    private long serverPid() {
+        if (pid == 0 && pidFile != null) {
+            try {
+                String raw = Files.readString(pidFile).trim();
+                if (!raw.isEmpty()) {
+                    pid = Math.max(0, Long.parseLong(raw));
+                }
+            } catch (IOException | NumberFormatException ignored) {
+                // Not written yet (or half written); try again next tick.
+            }
+        }
+        return pid;
+    }
+
+    private boolean isListening() {
+        try (Socket probe = new Socket()) {
+            probe.connect(new InetSocketAddress("127.0.0.1", port), CONNECT_TIMEOUT_MS);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean httpResponds() {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) URI.create("http://127.0.0.1:" + port + healthPath).toURL().openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(HTTP_TIMEOUT_MS);
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestProperty("User-Agent", "LuCLI-readiness");
+            return connection.getResponseCode() < 500;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private boolean startupLogged() {
+        for (LogTail tail : logTails) {
+            if (tail.poll()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    private static String normalizeHealthPath(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return "/";
+        }
+        String trimmed = path.trim();
+        return trimmed.startsWith("/") ? trimmed : "/" + trimmed;
+    }
+
+    Set<Signal> signals() {
+        return signals;
+    }
+
+    /**
+     * Incrementally reads a log file and reports whether the startup marker
+     * has appeared in the output read so far.
+     */
+    static final class LogTail {
+        private final Path file;
+        private long offset;
+        private String carry = "";
+
+        LogTail(Path file, boolean fromEnd) {
+            this.file = file;
+            long size = 0;
+            if (fromEnd) {
+                try {
+                    size = Files.exists(file) ? Files.size(file) : 0;
+                } catch (IOException ignored) {
+                    // Read from the start if the size is unavailable.
+                }
+            }
+            this.offset = size;
+        }
+
+        boolean poll() {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+                long length = raf.length();
+                if (length < offset) {
+                    offset = 0; // truncated or rotated
+                }
+                if (length == offset) {
+                    return false;
+                }
+                byte[] bytes = new byte[(int) Math.min(length - offset, 1 << 20)];
+                raf.seek(offset);
+                raf.readFully(bytes);
+                offset += bytes.length;
+
+                String text = carry + new String(bytes, StandardCharsets.UTF_8);
+                if (STARTUP_MARKER.matcher(text).find()) {
+                    return true;
+                }
+                // Keep the unfinished last line so markers split across reads still match.
+                int lastNewline = text.lastIndexOf('\n');
+                carry = lastNewline >= 0 ? text.substring(lastNewline + 1) : text;
+                if (carry.length() > 4096) {
+                    carry = carry.substring(carry.length() - 4096);
+                }
+                return false;
+            } catch (IOException e) {
+                return false; // not created yet
+            }
+        }
+    }
+
+    /**
+     * Outcome of a readiness wait: the signal that fired first and when each
+     * observed phase completed, in milliseconds since the wait began.
+     */
+    public static final class Result {
+        private final Signal signal;
+        private final long elapsedMillis;
+        private final Map<Signal, Long> phases;
+
+        Result(Signal signal, long elapsedMillis, Map<Signal, Long> phases) {
+            this.signal = signal;
+            this.elapsedMillis = elapsedMillis;
+            this.phases = new LinkedHashMap<>(phases);
+        }
+
+        public Signal getSignal() { return signal; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public Map<Signal, Long> getPhases() { return phases; }
+
+        /** e.g. "in 3.42s (port 1.21s, log 3.40s)". */
+        public String describe() {
+            StringBuilder sb = new StringBuilder("in ").append(seconds(elapsedMillis)).append(" (");
+            boolean first = true;
+            for (Map.Entry<Signal, Long> phase : phases.entrySet()) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                sb.append(phase.getKey().key()).append(' ').append(seconds(phase.getValue()));
+                first = false;
+            }
+            return sb.append(')').toString();
+        }
+
+        private static String seconds(long millis) {
+            return String.format(Locale.ROOT, "%.2fs", millis / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package org.lucee.lucli.server;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.paths.LucliFiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Consolidated state of every server directory, kept in
+ * {@code <servers dir>/.server-index.json}.
+ *
+ * <p>Each server directory still carries its marker files ({@code server.pid},
+ * {@code .project-path}, {@code .environment}, {@code .docker-container},
+ * {@code .config-file}); they stay the source of truth when a server is
+ * started or stopped. This index mirrors them so that listing servers,
+ * resolving a project's servers or looking one up by name reads a single
+ * file instead of five per server.</p>
+ *
+ * <p>Updates take an exclusive lock on {@code .server-index.lock}, re-read the
+ * current index, and replace it via temp file + atomic rename, so readers
+ * never need a lock and concurrent LuCLI processes do not lose each other's
+ * changes. Server directories missing from the index (created by an older
+ * LuCLI, or after the index was deleted) are migrated from their markers on
+ * first sight; deleting the index file simply rebuilds it.</p>
+ *
+ * <p>Each entry records the size and modification time of every marker file
+ * when it was read. Reads compare those with the files on disk (one stat per
+ * marker) and re-read the markers of any server where one was written,
+ * created or deleted since, so a writer that never reported its change (an
+ * older LuCLI, a process killed mid-exit, a hand edit) cannot leave a stale
+ * entry behind. A marker modified within {@link #RACY_WINDOW_MILLIS} of the
+ * read could hide a second write in the same clock tick, so such entries are
+ * re-read until they are old enough to trust.</p>
+ */
+final class ServerStateIndex {
+
+    static final String INDEX_FILE = ".server-index.json";
+    static final String LOCK_FILE = ".server-index.lock";
+
+    /** Bump when the stored layout changes; other versions are rebuilt from markers. */
+    static final int FORMAT_VERSION = 3;
+
+    /** The marker files an entry is built from. */
+    static final List<String> MARKERS =
+            List.of("server.pid", ".project-path", ".environment", ".docker-container", ".config-file");
+
+    /** Covers the coarsest common timestamp granularity (FAT, HFS+). */
+    static final long RACY_WINDOW_MILLIS = 2_000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** FileLock is per process, so threads of this JVM also serialise on a monitor. */
+    private static final Object WRITE_LOCK = new Object();
+
+    /**
+     * State of one server directory, as recorded by its marker files.
+     * {@code stamps} holds each marker's size and modification time when
+     * they were read, at {@code readAt} (epoch millis).
+     */
+    record Entry(long pid, int port, String projectPath, String environment,
+                 String dockerContainer, String configFile, Map<String, Stamp> stamps, long readAt) {
+    }
+
+    /** Size and modification time (millis) of a marker file; -1/-1 when it does not exist. */
+    record Stamp(long size, long modified) {
+
+        static final Stamp MISSING = new Stamp(-1, -1);
+    }
+
+    record Document(int formatVersion, Map<String, Entry> servers) {
+    }
+
+    private final Path serversDir;
+
+    ServerStateIndex(Path serversDir) {
+        this.serversDir = serversDir;
+    }
+
+    Path indexFile() {
+        return serversDir.resolve(INDEX_FILE);
+    }
+
+    /**
+     * State of the given server directories, read from the index in one file
+     * read. Directories the index does not know yet are migrated from their
+     * markers, and entries for directories that no longer exist are dropped.
+     */
+    Map<String, Entry> entries(Collection<Path> serverDirs) {
+        Map<String, Entry> indexed = read();
+        Map<String, Entry> result = new LinkedHashMap<>();
+        Set<String> missing = new HashSet<>();
+        Set<String> changed = new HashSet<>();
+        for (Path serverDir : serverDirs) {
+            String name = serverDir.getFileName().toString();
+            Entry entry = indexed.get(name);
+            if (entry == null) {
+                entry = readMarkers(serverDir);
+                missing.add(name);
+            } else if (isOutdated(entry, serverDir)) {
+                entry = readMarkers(serverDir);
+                changed.add(name);
+            }
+            result.put(name, entry);
+        }
+
+        Set<String> present = result.keySet();
+        boolean stale = indexed.keySet().stream().anyMatch(name -> !present.contains(name));
+        if (!missing.isEmpty() || !changed.isEmpty() || stale) {
+            update(servers -> {
+                servers.keySet().retainAll(present);
+                for (String name : missing) {
+                    servers.putIfAbsent(name, result.get(name));
+                }
+                for (String name : changed) {
+                    servers.put(name, result.get(name));
+                }
+                return servers;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * State of a single server, or null when its directory does not exist.
+     */
+    Entry entry(String serverName) {
+        Entry entry = read().get(serverName);
+        Path serverDir = serversDir.resolve(serverName);
+        if (!Files.isDirectory(serverDir)) {
+            if (entry != null) {
+                remove(serverDir);
+            }
+            return null;
+        }
+        if (entry == null) {
+            entry = readMarkers(serverDir);
+            Entry migrated = entry;
+            update(servers -> {
+                servers.putIfAbsent(serverName, migrated);
+                return servers;
+            });
+        } else if (isOutdated(entry, serverDir)) {
+            entry = readMarkers(serverDir);
+            Entry revalidated = entry;
+            update(servers -> {
+                servers.put(serverName, revalidated);
+                return servers;
+            });
+        }
+        return entry;
+    }
+
+    /**
+     * True when a marker was written, created or deleted after the entry was
+     * read, or was modified so close to the read that a later write in the
+     * same clock tick would leave its stamp unchanged.
+     */
+    static boolean isOutdated(Entry entry, Path serverDir) {
+        if (entry.stamps() == null) {
+            return true;
+        }
+        for (String marker : MARKERS) {
+            Stamp stored = entry.stamps().get(marker);
+            if (!stamp(serverDir.resolve(marker)).equals(stored)
+                    || stored.modified() >= entry.readAt() - RACY_WINDOW_MILLIS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Stamp stamp(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new Stamp(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return Stamp.MISSING;
+        }
+    }
+
+    /**
+     * Re-read one server directory's markers into the index, or drop its
+     * entry when the directory is gone. Call after writing or deleting markers.
+     */
+    void refresh(Path serverDir) {
+        String name = serverDir.getFileName().toString();
+        if (!Files.isDirectory(serverDir)) {
+            remove(serverDir);
+            return;
+        }
+        Entry entry = readMarkers(serverDir);
+        update(servers -> {
+            servers.put(name, entry);
+            return servers;
+        });
+    }
+
+    private void remove(Path serverDir) {
+        String name = serverDir.getFileName().toString();
+        update(servers -> {
+            servers.remove(name);
+            return servers;
+        });
+    }
+
+    /**
+     * Build an entry from the legacy marker files of a server directory.
+     */
+    static Entry readMarkers(Path serverDir) {
+        // Stat before reading, so a write in between makes the entry look
+        // outdated rather than current.
+        Map<String, Stamp> stamps = new LinkedHashMap<>();
+        for (String marker : MARKERS) {
+            stamps.put(marker, stamp(serverDir.resolve(marker)));
+        }
+        long pid = -1;
+        int port = -1;
+        String pidContent = readMarker(serverDir, "server.pid");
+        if (pidContent != null) {
+            String[] parts = pidContent.split(":");
+            if (parts.length >= 2) {
+                try {
+                    pid = Long.parseLong(parts[0].trim());
+                    port = Integer.parseInt(parts[1].trim());
+                } catch (NumberFormatException e) {
+                    pid = -1;
+                    port = -1;
+                }
+            }
+        }
+        return new Entry(pid, port,
+                readMarker(serverDir, ".project-path"),
+                readMarker(serverDir, ".environment"),
+                readMarker(serverDir, ".docker-container"),
+                readMarker(serverDir, ".config-file"),
+                stamps,
+                System.currentTimeMillis());
+    }
+
+    private static String readMarker(Path serverDir, String marker) {
+        Path file = serverDir.resolve(marker);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            String value = Files.readString(file).trim();
+            return value.isEmpty() ? null : value;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Map<String, Entry> read() {
+        Path file = indexFile();
+        if (!Files.isRegularFile(file)) {
+            return new TreeMap<>();
+        }
+        try {
+            Document document = MAPPER.readValue(file.toFile(), Document.class);
+            if (document == null || document.formatVersion() != FORMAT_VERSION || document.servers() == null) {
+                return new TreeMap<>();
+            }
+            return new TreeMap<>(document.servers());
+        } catch (IOException e) {
+            // Corrupt or from another layout; migrate again from the markers.
+            return new TreeMap<>();
+        }
+    }
+
+    /**
+     * Apply a change to the current index under the write lock. Failures are
+     * not fatal: the index is deleted so the next read migrates from markers
+     * rather than trusting an entry that missed an update.
+     */
+    private void update(UnaryOperator<Map<String, Entry>> change) {
+        if (!Files.isDirectory(serversDir)) {
+            return;
+        }
+        synchronized (WRITE_LOCK) {
+            try (FileChannel lockChannel = FileChannel.open(serversDir.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                Map<String, Entry> servers = change.apply(read());
+                write(new Document(FORMAT_VERSION, servers));
+            } catch (IOException | RuntimeException e) {
+                if (LuCLI.debug) {
+                    e.printStackTrace();
+                }
+                try {
+                    Files.deleteIfExists(indexFile());
+                } catch (IOException ignoredDelete) {
+                    // Nothing more to do; lookups fall back to the markers.
+                }
+            }
+        }
+    }
+
+    private void write(Document document) throws IOException {
+        LucliFiles.writeAtomically(indexFile(), temp -> MAPPER.writeValue(temp.toFile(), document));
+    }
+}
@@ -12,6 +12,7 @@ import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.List;
 import java.util.Set;
+import java.util.function.ToIntFunction;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -31,6 +32,7 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import static org.lucee.lucli.server.XmlHelper.exists;
+import static org.lucee.lucli.server.XmlHelper.find;
 import static org.lucee.lucli.server.XmlHelper.removeAll;
 import static org.lucee.lucli.server.XmlHelper.setAttribute;
 
@@ -44,6 +46,23 @@ import static org.lucee.lucli.server.XmlHelper.setAttribute;
  */
 public class TomcatServerXmlPatcher {
 
+    /** Name of the Executor element added when performance.http.virtualThreads is enabled. */
+    static final String VIRTUAL_THREAD_EXECUTOR_NAME = "lucliVirtualThreadExecutor";
+
+    /** Virtual threads are final (and StandardVirtualThreadExecutor usable) from Java 21. */
+    static final int VIRTUAL_THREAD_MIN_JAVA = 21;
+
+    /** Feature version of the server's Java runtime, or 0 when unknown. */
+    private final ToIntFunction<LuceeServerConfig.ServerConfig> serverJavaVersion;
+
+    public TomcatServerXmlPatcher() {
+        this(JavaRuntimeCheck::serverJavaFeatureVersion);
+    }
+
+    TomcatServerXmlPatcher(ToIntFunction<LuceeServerConfig.ServerConfig> serverJavaVersion) {
+        this.serverJavaVersion = serverJavaVersion;
+    }
+
     /**
      * Apply configuration-driven patches to the given server.xml file.
      *
@@ -57,12 +76,27 @@ public class TomcatServerXmlPatcher {
                       LuceeServerConfig.ServerConfig config,
                       Path projectDir,
                       Path serverInstanceDir) throws IOException {
+        patch(serverXmlPath, config, projectDir, serverInstanceDir, null);
+    }
+
+    /**
+     * Apply configuration-driven patches to the given server.xml file.
+     *
+     * @param tomcatVersion Tomcat version of CATALINA_HOME (e.g. "10.1.28"), or null
+     *                      when unknown. Used to gate version-specific features such
+     *                      as the virtual-thread executor.
+     */
+    public void patch(Path serverXmlPath,
+                      LuceeServerConfig.ServerConfig config,
+                      Path projectDir,
+                      Path serverInstanceDir,
+                      String tomcatVersion) throws IOException {
         if (serverXmlPath == null || !Files.exists(serverXmlPath)) {
             return;
         }
 
         String content = Files.readString(serverXmlPath, StandardCharsets.UTF_8);
-        String patched = patchContent(content, config, projectDir, serverInstanceDir, true);
+        String patched = patchContent(content, config, projectDir, serverInstanceDir, true, tomcatVersion);
         Files.writeString(serverXmlPath, patched, StandardCharsets.UTF_8);
     }
 
@@ -78,6 +112,20 @@ public class TomcatServerXmlPatcher {
                                Path projectDir,
                                Path serverInstanceDir,
                                boolean writeFiles) throws IOException {
+        return patchContent(serverXmlContent, config, projectDir, serverInstanceDir, writeFiles, null);
+    }
+
+    /**
+     * Patch server.xml content in-memory for a known Tomcat version.
+     *
+     * @param tomcatVersion Tomcat version of CATALINA_HOME (e.g. "10.1.28"), or null when unknown
+     */
+    public String patchContent(String serverXmlContent,
+                               LuceeServerConfig.ServerConfig config,
+                               Path projectDir,
+                               Path serverInstanceDir,
+                               boolean writeFiles,
+                               String tomcatVersion) throws IOException {
         if (serverXmlContent == null) {
             return null;
         }
@@ -94,6 +142,7 @@ public class TomcatServerXmlPatcher {
             applyRootContext(document, config, projectDir, serverInstanceDir);
             applyHttpsConfiguration(document, config, serverInstanceDir, writeFiles);
             removeDisabledConnectors(document, config);
+            applyHttpPerformance(document, config, tomcatVersion);
 
             TransformerFactory tf = TransformerFactory.newInstance();
             Transformer transformer = tf.newTransformer();
@@ -701,4 +750,117 @@ public class TomcatServerXmlPatcher {
             // server.xml unchanged instead of risking partial edits.
         }
     }
+
+    /**
+     * Apply the performance.http section to every non-AJP connector (HTTP and,
+     * when enabled, HTTPS): thread limits, accept queue, keep-alive and
+     * compression, plus a shared virtual-thread Executor on Tomcat 10.1+
+     * running on Java 21+.
+     */
+    private void applyHttpPerformance(Document document,
+                                      LuceeServerConfig.ServerConfig config,
+                                      String tomcatVersion) {
+        LuceeServerConfig.HttpPerformanceConfig http = LuceeServerConfig.getHttpPerformance(config);
+        if (document == null || http == null) {
+            return;
+        }
+
+        List<Element> connectors;
+        try {
+            connectors = find(document,
+                "//Connector[" +
+                "not(contains(@protocol, 'AJP')) and " +
+                "not(contains(@protocol, 'ajp'))" +
+                "]");
+        } catch (XPathExpressionException e) {
+            return;
+        }
+        if (connectors.isEmpty()) {
+            return;
+        }
+
+        String executorName = null;
+        if (Boolean.TRUE.equals(http.virtualThreads)) {
+            if (!supportsVirtualThreadExecutor(tomcatVersion)) {
+                System.err.println("Warning: performance.http.virtualThreads requires Tomcat 10.1 or newer (detected: "
+                        + (tomcatVersion != null ? tomcatVersion : "unknown") + "); keeping the platform thread pool.");
+            } else {
+                int javaVersion = serverJavaVersion.applyAsInt(config);
+                if (javaVersion < VIRTUAL_THREAD_MIN_JAVA) {
+                    System.err.println("Warning: performance.http.virtualThreads requires Java 21 or newer for the server (detected: "
+                            + (javaVersion > 0 ? String.valueOf(javaVersion) : "unknown") + "); keeping the platform thread pool.");
+                } else {
+                    executorName = ensureVirtualThreadExecutor(document, connectors.get(0));
+                }
+            }
+        }
+
+        String compression = LuceeServerConfig.getEffectiveCompression(http);
+        for (Element connector : connectors) {
+            if (executorName != null) {
+                // With an executor, Tomcat ignores the connector's own thread settings.
+                connector.setAttribute("executor", executorName);
+            }
+            setIfNotNull(connector, "maxThreads", http.maxThreads);
+            setIfNotNull(connector, "minSpareThreads", http.minSpareThreads);
+            setIfNotNull(connector, "acceptCount", http.acceptCount);
+            setIfNotNull(connector, "maxConnections", http.maxConnections);
+            setIfNotNull(connector, "keepAliveTimeout", http.keepAliveTimeout);
+            setIfNotNull(connector, "maxKeepAliveRequests", http.maxKeepAliveRequests);
+            if (compression != null) {
+                connector.setAttribute("compression", compression);
+            }
+            setIfNotNull(connector, "compressionMinSize", http.compressionMinSize);
+            if (http.compressibleMimeType != null && !http.compressibleMimeType.trim().isEmpty()) {
+                connector.setAttribute("compressibleMimeType", http.compressibleMimeType.trim());
+            }
+        }
+    }
+
+    /**
+     * Add (or replace) the LuCLI virtual-thread Executor in the Service that
+     * owns the given connector. Executors must be declared before the
+     * connectors that reference them, so it is inserted ahead of the first one.
+     */
+    private String ensureVirtualThreadExecutor(Document document, Element firstConnector) {
+        Node service = firstConnector.getParentNode();
+        NodeList executors = document.getElementsByTagName("Executor");
+        for (int i = executors.getLength() - 1; i >= 0; i--) {
+            Element existing = (Element) executors.item(i);
+            if (VIRTUAL_THREAD_EXECUTOR_NAME.equals(existing.getAttribute("name"))) {
+                existing.getParentNode().removeChild(existing);
+            }
+        }
+
+        Element executor = document.createElement("Executor");
+        executor.setAttribute("name", VIRTUAL_THREAD_EXECUTOR_NAME);
+        executor.setAttribute("className", "org.apache.catalina.core.StandardVirtualThreadExecutor");
+        executor.setAttribute("namePrefix", "http-vt-");
+        service.insertBefore(executor, firstConnector);
+        return VIRTUAL_THREAD_EXECUTOR_NAME;
+    }
+
+    /**
+     * Whether the given Tomcat version ships StandardVirtualThreadExecutor (10.1+).
+     * A bare major version such as "10" is treated as 10.0.
+     */
+    static boolean supportsVirtualThreadExecutor(String tomcatVersion) {
+        if (tomcatVersion == null || tomcatVersion.trim().isEmpty()) {
+            return false;
+        }
+        String[] parts = tomcatVersion.trim().split("\\.");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return major > 10 || (major == 10 && minor >= 1);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void setIfNotNull(Element element, String attribute, Integer value) {
+        if (value != null) {
+            element.setAttribute(attribute, String.valueOf(value));
+        }
+    }
 }
@@ -61,7 +61,8 @@ public class CatalinaBaseConfigGenerator {
         Map<String, String> placeholders = TomcatConfigSupport.createPlaceholderMap(serverInstanceDir, config, projectDir);
 
         // Copy server.xml from CATALINA_HOME and patch it
-        copyAndPatchServerXml(catalinaHome, serverInstanceDir, config, projectDir);
+        copyAndPatchServerXml(catalinaHome, serverInstanceDir, config, projectDir,
+                resolveTomcatVersion(catalinaHome, tomcatMajorVersion));
 
         // Copy logging.properties from CATALINA_HOME, or use our template as fallback
         Path vendorLogging = catalinaHome.resolve("conf/logging.properties");
@@ -129,7 +130,8 @@ public class CatalinaBaseConfigGenerator {
             throw new IOException("server.xml not found in distribution at " + catalinaHome);
         }
         String vendor = Files.readString(vendorServerXml, StandardCharsets.UTF_8);
-        return serverXmlPatcher.patchContent(vendor, config, projectDir, serverInstanceDir, false);
+        return serverXmlPatcher.patchContent(vendor, config, projectDir, serverInstanceDir, false,
+                resolveTomcatVersion(catalinaHome, 0));
     }
 
     /**
@@ -179,12 +181,26 @@ public class CatalinaBaseConfigGenerator {
         Files.createDirectories(serverInstanceDir.resolve("lucee-web"));
     }
 
+    /**
+     * Resolve the Tomcat version used to gate server.xml features. The bundled
+     * catalina.jar is authoritative (it also covers Lucee Express, where the
+     * caller passes 0); otherwise fall back to the detected major version.
+     */
+    private static String resolveTomcatVersion(Path catalinaHome, int tomcatMajorVersion) {
+        String version = TomcatRuntimeProvider.detectTomcatVersion(catalinaHome);
+        if (version == null && tomcatMajorVersion > 0) {
+            version = String.valueOf(tomcatMajorVersion);
+        }
+        return version;
+    }
+
     /**
      * Copy server.xml from CATALINA_HOME and patch it with LuCLI configuration.
      */
     private void copyAndPatchServerXml(Path catalinaHome, Path serverInstanceDir,
                                        LuceeServerConfig.ServerConfig config,
-                                       Path projectDir) throws IOException {
+                                       Path projectDir,
+                                       String tomcatVersion) throws IOException {
         Path vendorServerXml = catalinaHome.resolve("conf/server.xml");
         Path targetServerXml = serverInstanceDir.resolve("conf/server.xml");
 
@@ -197,7 +213,7 @@ public class CatalinaBaseConfigGenerator {
         Files.copy(vendorServerXml, targetServerXml, StandardCopyOption.REPLACE_EXISTING);
 
         // Patch it with our configuration (ports, context, etc.)
-        serverXmlPatcher.patch(targetServerXml, config, projectDir, serverInstanceDir);
+        serverXmlPatcher.patch(targetServerXml, config, projectDir, serverInstanceDir, tomcatVersion);
 
         System.out.println("Copied and patched server.xml from: " + vendorServerXml);
     }
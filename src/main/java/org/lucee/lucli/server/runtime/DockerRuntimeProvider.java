@@ -1,11 +1,16 @@
 package org.lucee.lucli.server.runtime;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.lucee.lucli.server.LuceeServerConfig;
@@ -34,6 +39,7 @@ public final class DockerRuntimeProvider implements RuntimeProvider {
     private static final String DEFAULT_APP_PATH = "/var/www";
     /** The official lucee/lucee image runs Tomcat on port 8888. */
     private static final int DEFAULT_CONTAINER_HTTP_PORT = 8888;
+    private static final long QUERY_TIMEOUT_SECONDS = 5;
 
     @Override
     public String getType() {
@@ -124,6 +130,7 @@ public final class DockerRuntimeProvider implements RuntimeProvider {
         long pseudoPid = -1L;
         Files.writeString(serverInstanceDir.resolve("server.pid"),
                 pseudoPid + ":" + config.port);
+        LuceeServerManager.serverStateChanged(serverInstanceDir);
 
         LuceeServerManager.ServerInstance instance =
                 new LuceeServerManager.ServerInstance(
@@ -141,7 +148,7 @@ public final class DockerRuntimeProvider implements RuntimeProvider {
         }
 
         // Reuse existing startup wait + browser behaviour.
-        manager.waitForServerStartup(instance, 30);
+        manager.waitForServerStartup(instance, config, 30);
         manager.runAfterServerStartLifecycleHooksOrRollback(instance, config, projectDir);
         manager.openBrowserForServer(instance, config);
 
@@ -168,16 +175,62 @@ public final class DockerRuntimeProvider implements RuntimeProvider {
      * Check whether a Docker container with the given name is currently running.
      */
     public static boolean isDockerContainerRunning(String containerName) {
+        String output = dockerOutput("docker", "inspect", "--format", "{{.State.Running}}", containerName);
+        return output != null && "true".equals(output.trim());
+    }
+
+    /**
+     * Names of all running Docker containers, from a single {@code docker ps}.
+     * Returns an empty set when Docker is unavailable.
+     */
+    public static Set<String> listRunningContainerNames() {
+        Set<String> names = new HashSet<>();
+        String output = dockerOutput("docker", "ps", "--format", "{{.Names}}");
+        if (output == null) {
+            // Docker not installed or daemon not running: nothing is running.
+            return names;
+        }
+        for (String line : output.split("\\R")) {
+            if (!line.isBlank()) {
+                names.add(line.trim());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Run a short docker query and return its stdout, or null when it fails
+     * or takes longer than {@value #QUERY_TIMEOUT_SECONDS} seconds. Output is
+     * drained on its own thread so the timeout holds even when docker hangs
+     * with the pipe open; a hung process is killed.
+     */
+    private static String dockerOutput(String... command) {
         try {
-            Process p = new ProcessBuilder(
-                    "docker", "inspect", "--format", "{{.State.Running}}", containerName)
+            Process p = new ProcessBuilder(command)
                     .redirectError(ProcessBuilder.Redirect.DISCARD)
                     .start();
-            String output = new String(p.getInputStream().readAllBytes()).trim();
-            boolean finished = p.waitFor(5, TimeUnit.SECONDS);
-            return finished && p.exitValue() == 0 && "true".equals(output);
-        } catch (Exception e) {
-            return false;
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            Thread reader = Thread.ofVirtual().name("lucli-docker-output").start(() -> {
+                try (InputStream in = p.getInputStream()) {
+                    in.transferTo(output);
+                } catch (IOException ignored) {
+                    // The process was killed; whatever was read is discarded.
+                }
+            });
+            if (!p.waitFor(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                p.destroyForcibly();
+                return null;
+            }
+            // Docker has exited; give the reader a moment to see end of stream.
+            if (!reader.join(Duration.ofSeconds(1)) || p.exitValue() != 0) {
+                return null;
+            }
+            return output.toString();
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
         }
     }
 
@@ -17,7 +17,8 @@ import org.lucee.lucli.server.TomcatConfigSupport;
  * any JETTY_HOME — an external Jetty distribution installation.
  *
  * The generated JETTY_BASE contains:
- * - start.d/*.ini   — module configuration (http port, server, deploy, jvm args)
+ * - start.d/*.ini   — module configuration (http port, server, deploy, jvm args,
+ *                     optional thread pool / connection limit / gzip tuning)
  * - webapps/root.xml — Jetty context XML descriptor pointing to the project webroot
  * - etc/lucee-web.xml — web.xml with Lucee servlet registration
  * - lib/ext/         — Lucee JAR
@@ -91,6 +92,11 @@ public class JettyBaseConfigGenerator {
         serverIni.append("# Auto-generated by LuCLI\n");
         serverIni.append("--module=server\n");
         serverIni.append("jetty.server.stopAtShutdown=true\n");
+        LuceeServerConfig.HttpPerformanceConfig performance = LuceeServerConfig.getHttpPerformance(config);
+        if (performance != null) {
+            appendIfNotNull(serverIni, "jetty.threadPool.maxThreads", performance.maxThreads);
+            appendIfNotNull(serverIni, "jetty.threadPool.minThreads", performance.minSpareThreads);
+        }
         Files.writeString(startD.resolve("server.ini"), serverIni.toString(), StandardCharsets.UTF_8);
 
         // http.ini — HTTP connector with configured port
@@ -98,8 +104,14 @@ public class JettyBaseConfigGenerator {
         httpIni.append("# Auto-generated by LuCLI\n");
         httpIni.append("--module=http\n");
         httpIni.append("jetty.http.port=").append(config.port).append("\n");
+        if (performance != null) {
+            appendIfNotNull(httpIni, "jetty.http.acceptQueueSize", performance.acceptCount);
+            appendIfNotNull(httpIni, "jetty.http.idleTimeout", performance.keepAliveTimeout);
+        }
         Files.writeString(startD.resolve("http.ini"), httpIni.toString(), StandardCharsets.UTF_8);
 
+        generatePerformanceIniFiles(startD, performance, jettyMajorVersion);
+
         // deploy.ini — web application deployment scanning
         // Jetty 12 uses environment-specific deploy modules (ee8-deploy, ee10-deploy)
         // Jetty 11 and below use the simple deploy module
@@ -132,6 +144,69 @@ public class JettyBaseConfigGenerator {
         Files.writeString(startD.resolve("requestlog.ini"), requestLogIni.toString(), StandardCharsets.UTF_8);
     }
 
+    /**
+     * Generate the optional module ini files driven by performance.http:
+     * threadpool-virtual.ini (Jetty 12+), connectionlimit.ini and gzip.ini.
+     * Files for settings that are no longer configured are removed so a
+     * reused JETTY_BASE does not keep stale modules enabled.
+     */
+    private void generatePerformanceIniFiles(Path startD, LuceeServerConfig.HttpPerformanceConfig performance,
+                                             int jettyMajorVersion) throws IOException {
+        Path virtualThreadsIni = startD.resolve("threadpool-virtual.ini");
+        Path connectionLimitIni = startD.resolve("connectionlimit.ini");
+        Path gzipIni = startD.resolve("gzip.ini");
+
+        boolean virtualThreads = performance != null && Boolean.TRUE.equals(performance.virtualThreads);
+        if (virtualThreads && jettyMajorVersion < 12) {
+            System.err.println("Warning: performance.http.virtualThreads requires Jetty 12 or newer (detected: "
+                    + (jettyMajorVersion > 0 ? String.valueOf(jettyMajorVersion) : "unknown")
+                    + "); keeping the platform thread pool.");
+            virtualThreads = false;
+        }
+        if (virtualThreads) {
+            StringBuilder ini = new StringBuilder();
+            ini.append("# Auto-generated by LuCLI\n");
+            ini.append("--module=threadpool-virtual\n");
+            Files.writeString(virtualThreadsIni, ini.toString(), StandardCharsets.UTF_8);
+        } else {
+            Files.deleteIfExists(virtualThreadsIni);
+        }
+
+        if (performance != null && performance.maxConnections != null) {
+            StringBuilder ini = new StringBuilder();
+            ini.append("# Auto-generated by LuCLI\n");
+            ini.append("--module=connectionlimit\n");
+            appendIfNotNull(ini, "jetty.connectionlimit.maxConnections", performance.maxConnections);
+            Files.writeString(connectionLimitIni, ini.toString(), StandardCharsets.UTF_8);
+        } else {
+            Files.deleteIfExists(connectionLimitIni);
+        }
+
+        String compression = LuceeServerConfig.getEffectiveCompression(performance);
+        if (compression != null && !"off".equals(compression)) {
+            StringBuilder ini = new StringBuilder();
+            ini.append("# Auto-generated by LuCLI\n");
+            ini.append("--module=gzip\n");
+            appendIfNotNull(ini, "jetty.gzip.minGzipSize", performance.compressionMinSize);
+            if (performance.compressibleMimeType != null && !performance.compressibleMimeType.trim().isEmpty()) {
+                ini.append("jetty.gzip.includedMimeTypeList=").append(performance.compressibleMimeType.trim()).append("\n");
+            }
+            Files.writeString(gzipIni, ini.toString(), StandardCharsets.UTF_8);
+        } else {
+            Files.deleteIfExists(gzipIni);
+        }
+
+        if (performance != null && performance.maxKeepAliveRequests != null) {
+            System.err.println("Warning: performance.http.maxKeepAliveRequests is not supported by Jetty and is ignored.");
+        }
+    }
+
+    private static void appendIfNotNull(StringBuilder ini, String property, Integer value) {
+        if (value != null) {
+            ini.append(property).append("=").append(value).append("\n");
+        }
+    }
+
     /**
      * Generate jvm.ini with memory settings and system properties.
      */
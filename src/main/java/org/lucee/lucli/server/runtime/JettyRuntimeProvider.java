@@ -129,7 +129,7 @@ public final class JettyRuntimeProvider implements RuntimeProvider {
 
         // For background mode: wait for startup and open browser
         if (!foreground && instance != null) {
-            manager.waitForServerStartup(instance, 30);
+            manager.waitForServerStartup(instance, config, 30);
             manager.runAfterServerStartLifecycleHooksOrRollback(instance, config, projectDir);
             manager.openBrowserForServer(instance, config);
         }
@@ -70,7 +70,7 @@ public final class LuceeExpressRuntimeProvider implements RuntimeProvider {
 
         // For background mode only: wait for startup and open browser
         if (!foreground && instance != null) {
-            manager.waitForServerStartup(instance, 30);
+            manager.waitForServerStartup(instance, config, 30);
             manager.runAfterServerStartLifecycleHooksOrRollback(instance, config, projectDir);
             manager.openBrowserForServer(instance, config);
         }
@@ -1,9 +1,15 @@
 package org.lucee.lucli.server.runtime;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.lucee.lucli.server.LuceeServerConfig;
 import org.lucee.lucli.server.LuceeServerManager;
@@ -23,6 +29,9 @@ import org.lucee.lucli.server.TomcatConfigSupport;
  */
 public final class TomcatRuntimeProvider implements RuntimeProvider {
 
+    private static final Pattern SERVER_INFO_VERSION =
+            Pattern.compile("Apache Tomcat/(\\d+\\.\\d+(?:\\.\\d+)?)");
+
     @Override
     public String getType() {
         return "tomcat";
@@ -105,7 +114,7 @@ public final class TomcatRuntimeProvider implements RuntimeProvider {
 
         // For background mode: wait for startup and open browser
         if (!foreground && instance != null) {
-            manager.waitForServerStartup(instance, 30);
+            manager.waitForServerStartup(instance, config, 30);
             manager.runAfterServerStartLifecycleHooksOrRollback(instance, config, projectDir);
             manager.openBrowserForServer(instance, config);
         }
@@ -167,11 +176,19 @@ public final class TomcatRuntimeProvider implements RuntimeProvider {
     }
 
     /**
-     * Detect the major version of Tomcat by running catalina.sh version.
+     * Detect the major version of Tomcat, reading lib/catalina.jar first and
+     * falling back to running catalina.sh version.
      *
      * @return The major version number (e.g., 9, 10, 11), or 0 if detection fails
      */
     private int detectTomcatMajorVersion(Path catalinaHome) {
+        String version = detectTomcatVersion(catalinaHome);
+        if (version != null) {
+            int majorVersion = Integer.parseInt(version.substring(0, version.indexOf('.')));
+            System.out.println("Detected Tomcat version: " + version);
+            return majorVersion;
+        }
+
         boolean isWindows = System.getProperty("os.name", "").toLowerCase().contains("win");
         String scriptName = isWindows ? "catalina.bat" : "catalina.sh";
         Path scriptPath = catalinaHome.resolve("bin").resolve(scriptName);
@@ -301,5 +318,35 @@ public final class TomcatRuntimeProvider implements RuntimeProvider {
         System.out.println("Deploying Lucee JAR to server instance: " + targetJar);
         Files.copy(luceeJar, targetJar);
     }
-}
 
+    /**
+     * Read the Tomcat version (e.g. "10.1.28") from the ServerInfo.properties
+     * bundled in CATALINA_HOME/lib/catalina.jar. This works for Lucee Express
+     * as well as vendor Tomcat and does not need to start a process.
+     *
+     * @return the "major.minor.patch" version, or null when it cannot be read
+     */
+    public static String detectTomcatVersion(Path catalinaHome) {
+        if (catalinaHome == null) {
+            return null;
+        }
+        Path catalinaJar = catalinaHome.resolve("lib").resolve("catalina.jar");
+        if (!Files.isRegularFile(catalinaJar)) {
+            return null;
+        }
+        try (JarFile jar = new JarFile(catalinaJar.toFile())) {
+            JarEntry entry = jar.getJarEntry("org/apache/catalina/util/ServerInfo.properties");
+            if (entry == null) {
+                return null;
+            }
+            Properties serverInfo = new Properties();
+            try (InputStream in = jar.getInputStream(entry)) {
+                serverInfo.load(in);
+            }
+            Matcher matcher = SERVER_INFO_VERSION.matcher(serverInfo.getProperty("server.info", ""));
+            return matcher.find() ? matcher.group(1) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.lucee.lucli.system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.lucee.lucli.daemon.WarmDaemonState;
+import org.lucee.lucli.paths.LucliFiles;
+import org.lucee.lucli.paths.LucliPaths;
+
+/**
+ * Generates and locates dynamic AppCDS archives for the LuCLI JVM.
+ *
+ * Archives live in {@code <lucli home>/cds} and are named
+ * {@code lucli-<jarSize>-<jarMtimeSeconds>-<javaVersion>.jsa}. The launcher
+ * script computes the same name from the binary it is executing, so a rebuilt
+ * JAR or a different JDK simply stops matching instead of loading a stale
+ * archive.
+ */
+public class CdsArchiveManager {
+
+    public static final String ARCHIVE_PREFIX = "lucli-";
+    public static final String ARCHIVE_SUFFIX = ".jsa";
+
+    /** Separates workloads in the argument list passed to {@link CdsTraining}. */
+    static final String WORKLOAD_SEPARATOR = "::";
+
+    public record GenerateResult(Path archive, int exitCode, long archiveBytes, Duration elapsed, Path logFile) {
+        public boolean success() {
+            return exitCode == 0 && archiveBytes > 0;
+        }
+    }
+
+    private final LucliPaths.ResolvedPaths paths;
+
+    public CdsArchiveManager(LucliPaths.ResolvedPaths paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * Archive file name for a JAR/JDK combination. Must stay in sync with the
+     * key computed in {@code src/bin/lucli.sh}.
+     */
+    public static String archiveFileName(long jarSize, long jarModifiedSeconds, String javaVersion) {
+        String key = jarSize + "-" + jarModifiedSeconds + "-" + (javaVersion == null ? "unknown" : javaVersion);
+        return ARCHIVE_PREFIX + key.replaceAll("[^A-Za-z0-9._-]", "_") + ARCHIVE_SUFFIX;
+    }
+
+    public Path archiveFor(WarmDaemonState.JarIdentity jar) {
+        return paths.cdsDir().resolve(archiveFileName(
+            jar.size(),
+            TimeUnit.MILLISECONDS.toSeconds(jar.modified()),
+            System.getProperty("java.version")
+        ));
+    }
+
+    public List<Path> listArchives() throws IOException {
+        List<Path> archives = new ArrayList<>();
+        if (!Files.isDirectory(paths.cdsDir())) {
+            return archives;
+        }
+        try (Stream<Path> stream = Files.list(paths.cdsDir())) {
+            stream.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(ARCHIVE_PREFIX) && name.endsWith(ARCHIVE_SUFFIX);
+            }).sorted().forEach(archives::add);
+        }
+        return archives;
+    }
+
+    /**
+     * Delete every archive except {@code keep} (which may be null to delete all).
+     *
+     * @return number of archives removed
+     */
+    public int pruneExcept(Path keep) throws IOException {
+        int removed = 0;
+        for (Path archive : listArchives()) {
+            if (keep != null && archive.equals(keep)) {
+                continue;
+            }
+            if (Files.deleteIfExists(archive)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Run the training workloads in a child JVM with
+     * {@code -XX:ArchiveClassesAtExit} and publish the archive atomically.
+     *
+     * @param jar        the LuCLI JAR (or launcher binary) to train against
+     * @param workloads  LuCLI argv lists executed in order inside one JVM
+     * @param timeout    upper bound for the training run
+     */
+    public GenerateResult generate(WarmDaemonState.JarIdentity jar, List<List<String>> workloads, Duration timeout)
+            throws IOException, InterruptedException {
+        Path archive = archiveFor(jar);
+        Path temp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        Path logFile = paths.cdsDir().resolve("training.log");
+        Files.createDirectories(paths.cdsDir());
+        Files.deleteIfExists(temp);
+
+        List<String> command = new ArrayList<>();
+        command.add(JavaRuntime.javaExecutable());
+        command.add("-XX:ArchiveClassesAtExit=" + temp);
+        command.add("-Djava.awt.headless=true");
+        command.add("-D" + LucliPaths.LUCLI_HOME_SYSTEM_PROPERTY + "=" + paths.home());
+        command.add("-Dlucli.binary.name=" + System.getProperty("lucli.binary.name", "lucli"));
+        command.add("-cp");
+        command.add(jar.path().toString());
+        command.add(CdsTraining.class.getName());
+        for (int i = 0; i < workloads.size(); i++) {
+            if (i > 0) {
+                command.add(WORKLOAD_SEPARATOR);
+            }
+            command.addAll(workloads.get(i));
+        }
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(logFile.toFile())
+            .start();
+        process.getOutputStream().close();
+
+        int exitCode;
+        if (process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            exitCode = process.exitValue();
+        } else {
+            process.destroyForcibly();
+            process.waitFor();
+            exitCode = -1;
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        long bytes = Files.exists(temp) ? Files.size(temp) : 0;
+        if (exitCode != 0 || bytes == 0) {
+            Files.deleteIfExists(temp);
+            return new GenerateResult(archive, exitCode, 0, elapsed, logFile);
+        }
+
+        LucliFiles.move(temp, archive);
+        pruneExcept(archive);
+        return new GenerateResult(archive, exitCode, bytes, elapsed, logFile);
+    }
+}
@@ -0,0 +1,76 @@
+package org.lucee.lucli.system;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.StringOutput;
+import org.lucee.lucli.profile.CliProfile;
+
+/**
+ * Entry point for the AppCDS training JVM started by {@code lucli system cds}.
+ *
+ * Runs each workload through {@link LuCLI#executeInProcess(String[])} in the
+ * same JVM so every class touched by a typical invocation ends up in the
+ * dynamic archive written at exit. Workloads are separated by
+ * {@value CdsArchiveManager#WORKLOAD_SEPARATOR}; command output is discarded
+ * and failures are reported but do not abort the run.
+ */
+public final class CdsTraining {
+
+    private CdsTraining() {
+    }
+
+    public static void main(String[] args) {
+        LuCLI.setActiveProfile(CliProfile.forBinaryName(System.getProperty("lucli.binary.name", "lucli")));
+
+        PrintStream log = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream(), true);
+        StringOutput stringOutput = StringOutput.getInstance();
+
+        for (List<String> workload : split(args)) {
+            long started = System.nanoTime();
+            int exitCode;
+            System.setOut(discard);
+            System.setErr(discard);
+            stringOutput.setOutputStream(discard);
+            stringOutput.setErrorStream(discard);
+            try {
+                exitCode = LuCLI.executeInProcess(workload.toArray(new String[0]));
+            } catch (Exception e) {
+                exitCode = -1;
+            } finally {
+                System.setOut(log);
+                System.setErr(log);
+                stringOutput.setOutputStream(log);
+                stringOutput.setErrorStream(log);
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+            log.println("workload " + String.join(" ", workload) + " -> exit " + exitCode + " (" + elapsedMs + "ms)");
+        }
+
+        // The archive is written during VM exit.
+        System.exit(0);
+    }
+
+    static List<List<String>> split(String[] args) {
+        List<List<String>> workloads = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (String arg : args) {
+            if (CdsArchiveManager.WORKLOAD_SEPARATOR.equals(arg)) {
+                if (!current.isEmpty()) {
+                    workloads.add(current);
+                }
+                current = new ArrayList<>();
+            } else {
+                current.add(arg);
+            }
+        }
+        if (!current.isEmpty()) {
+            workloads.add(current);
+        }
+        return workloads;
+    }
+}
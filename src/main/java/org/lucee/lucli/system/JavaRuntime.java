@@ -0,0 +1,28 @@
+package org.lucee.lucli.system;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Helpers for launching child JVMs that match the current one.
+ */
+public final class JavaRuntime {
+
+    private JavaRuntime() {
+    }
+
+    /**
+     * Path to the java executable running this process, falling back to
+     * {@code java.home/bin/java}.
+     */
+    public static String javaExecutable() {
+        String fromHandle = ProcessHandle.current().info().command().orElse(null);
+        if (fromHandle != null && Files.isExecutable(Paths.get(fromHandle))) {
+            return fromHandle;
+        }
+        String exe = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("win") ? "java.exe" : "java";
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + exe;
+    }
+}
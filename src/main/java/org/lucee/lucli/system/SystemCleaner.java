@@ -118,6 +118,8 @@ public class SystemCleaner {
         if (options.includeCaches()) {
             addDirectoryTarget(targets, paths.expressDir(), "cache", "Lucee Express cache");
             addDirectoryTarget(targets, paths.depsGitCacheDir(), "cache", "Dependency git cache");
+            addDirectoryTarget(targets, paths.compileCacheDir(), "cache", "Compiled CFML script cache");
+            addDirectoryTarget(targets, paths.moduleMetadataCacheDir(), "cache", "Module metadata cache");
         }
 
         if (options.includeBackups()) {
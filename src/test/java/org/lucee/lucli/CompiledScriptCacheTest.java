@@ -0,0 +1,132 @@
+package org.lucee.lucli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lucee.lucli.paths.LucliPaths;
+
+class CompiledScriptCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        Timer.clear();
+        Timer.setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Timer.clear();
+        Timer.setEnabled(false);
+    }
+
+    @Test
+    void keyChangesWithSourceExtensionAndLuceeVersion() {
+        String base = CompiledScriptCache.key("writeOutput(1);", "cfs", "7.0.0.1");
+
+        assertEquals(base, CompiledScriptCache.key("writeOutput(1);", "cfs", "7.0.0.1"));
+        assertNotEquals(base, CompiledScriptCache.key("writeOutput(2);", "cfs", "7.0.0.1"));
+        assertNotEquals(base, CompiledScriptCache.key("writeOutput(1);", "cfm", "7.0.0.1"));
+        assertNotEquals(base, CompiledScriptCache.key("writeOutput(1);", "cfs", "7.0.0.2"));
+    }
+
+    @Test
+    void templateIsWrittenOnceAndCountedAsMissThenHit() throws Exception {
+        LucliPaths.ResolvedPaths paths = LucliPaths.forHome(tempDir.resolve("lucli-home"), "test");
+        CompiledScriptCache cache = new CompiledScriptCache(paths);
+
+        String first = cache.templateFor("echo('hi');", "cfs", "7.0.0.1");
+        String second = cache.templateFor("echo('hi');", "cfs", "7.0.0.1");
+
+        assertEquals(first, second);
+        assertTrue(first.startsWith("/luclihome/cache/compiled/"));
+        assertTrue(first.endsWith(".cfs"));
+        assertEquals(1, Timer.getCount(CompiledScriptCache.MISS_COUNTER));
+        assertEquals(1, Timer.getCount(CompiledScriptCache.HIT_COUNTER));
+
+        Path file = paths.home().resolve(first.substring("/luclihome/".length()));
+        assertEquals("echo('hi');", Files.readString(file));
+    }
+
+    @Test
+    void errorOutputPointsAtTheSourceScriptInsteadOfTheCachedCopy() throws Exception {
+        LucliPaths.ResolvedPaths paths = LucliPaths.forHome(tempDir.resolve("lucli-home"), "test");
+        CompiledScriptCache cache = new CompiledScriptCache(paths);
+        String template = cache.templateFor("helper.run();", "cfs", "7.0.0.1");
+        Path file = paths.home().resolve(template.substring("/luclihome/".length()));
+        String source = tempDir.resolve("project").resolve("task.cfs").toString();
+
+        String trace = "variable [HELPER] doesn't exist\n"
+                + "\tat " + file.getFileName() + ":1\n"
+                + "\tat lucee.runtime.PageContextImpl.doInclude(" + template + ":1)\n"
+                + "\tat " + file + ":1";
+
+        String mapped = cache.toSourcePaths(trace, template, source);
+
+        assertFalse(mapped.contains("cache/compiled") || mapped.contains(file.getFileName().toString()), mapped);
+        assertEquals(3, mapped.split(java.util.regex.Pattern.quote(source), -1).length - 1, mapped);
+        assertEquals("unrelated", cache.toSourcePaths("unrelated", template, source));
+    }
+
+    @Test
+    void scriptsThatResolvePathsRelativeToThemselvesAreNotCacheable() {
+        assertTrue(CompiledScriptCache.isCacheable("echo('hi'); x = now();"));
+        assertTrue(CompiledScriptCache.isCacheable("writeOutput(dateFormat(now()));"));
+
+        assertFalse(CompiledScriptCache.isCacheable("include \"helpers.cfm\";"));
+        assertFalse(CompiledScriptCache.isCacheable("<cfinclude template=\"helpers.cfm\">"));
+        assertFalse(CompiledScriptCache.isCacheable("svc = createObject(\"component\", \"Service\");"));
+        assertFalse(CompiledScriptCache.isCacheable("svc = new lib.Service();"));
+        assertFalse(CompiledScriptCache.isCacheable("dir = getDirectoryFromPath(getCurrentTemplatePath());"));
+        assertFalse(CompiledScriptCache.isCacheable("data = fileRead(\"data.json\");"));
+        assertFalse(CompiledScriptCache.isCacheable("p = expandPath(\"./out\");"));
+    }
+
+    @Test
+    void pruneDropsOldEntriesAndKeepsTheNewestWithinTheLimit() throws Exception {
+        LucliPaths.ResolvedPaths paths = LucliPaths.forHome(tempDir.resolve("lucli-home"), "test");
+        CompiledScriptCache cache = new CompiledScriptCache(paths);
+        Path dir = Files.createDirectories(paths.compileCacheDir());
+        long now = System.currentTimeMillis();
+
+        Path stale = Files.writeString(dir.resolve("stale.cfs"), "");
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(now - CompiledScriptCache.MAX_AGE.toMillis() - 60_000));
+        for (int i = 0; i < CompiledScriptCache.MAX_ENTRIES + 5; i++) {
+            Path entry = Files.writeString(dir.resolve("entry-" + i + ".cfs"), "");
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(now - (CompiledScriptCache.MAX_ENTRIES + 5 - i) * 1000L));
+        }
+        Path fresh = Files.writeString(dir.resolve("fresh.cfs"), "");
+
+        cache.prune(fresh);
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(CompiledScriptCache.MAX_ENTRIES, files.count());
+        }
+        assertFalse(Files.exists(stale));
+        assertFalse(Files.exists(dir.resolve("entry-5.cfs")), "Oldest entries go first");
+        assertTrue(Files.exists(dir.resolve("entry-6.cfs")));
+        assertTrue(Files.exists(fresh));
+    }
+
+    @Test
+    void disabledValuesAreRecognised() {
+        assertTrue(CompiledScriptCache.isDisabledValue("0"));
+        assertTrue(CompiledScriptCache.isDisabledValue("false"));
+        assertTrue(CompiledScriptCache.isDisabledValue(" OFF "));
+        assertFalse(CompiledScriptCache.isDisabledValue("1"));
+        assertFalse(CompiledScriptCache.isDisabledValue(null));
+    }
+}
@@ -0,0 +1,94 @@
+package org.lucee.lucli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EngineBootstrapTest {
+
+    @Test
+    void engineFreeCommandsAreRecognisedFromRawArgs() {
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"server", "list"}));
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"servers", "status", "--name", "dev"}));
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"deps", "install", "--dry-run"}));
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"system", "paths"}));
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"secrets", "list"}));
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"-t", "modules", "list"}));
+
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"server", "config", "get", "port"}));
+        assertTrue(EngineBootstrap.isEngineFreeCommand(new String[] {"help", "server"}));
+
+        assertFalse(EngineBootstrap.isEngineFreeCommand(new String[] {"server", "start"}));
+        assertFalse(EngineBootstrap.isEngineFreeCommand(new String[] {"cfml", "now()"}));
+        assertFalse(EngineBootstrap.isEngineFreeCommand(new String[] {"modules", "run", "hello"}));
+        assertFalse(EngineBootstrap.isEngineFreeCommand(new String[] {"script.cfs"}));
+        assertFalse(EngineBootstrap.isEngineFreeCommand(new String[] {}));
+    }
+
+    @Test
+    void flagsTheEngineBakesInDisableSpeculation() {
+        assertTrue(EngineBootstrap.shouldSpeculate(new String[] {"cfml", "now()"}));
+        assertTrue(EngineBootstrap.shouldSpeculate(new String[] {"--timing", "run", "script.cfs"}));
+
+        assertFalse(EngineBootstrap.shouldSpeculate(new String[] {"--verbose", "cfml", "now()"}));
+        assertFalse(EngineBootstrap.shouldSpeculate(new String[] {"-dt", "cfml", "now()"}));
+        assertFalse(EngineBootstrap.shouldSpeculate(new String[] {"-w", "script.cfs"}));
+        assertFalse(EngineBootstrap.shouldSpeculate(new String[] {"--help"}));
+        assertFalse(EngineBootstrap.shouldSpeculate(new String[] {"server", "list"}));
+        assertFalse(EngineBootstrap.shouldSpeculate(new String[] {"help"}));
+    }
+
+    @Test
+    void benchIsRoutedBeforeTheBoot() {
+        assertTrue(EngineBootstrap.routesOutput(new String[] {"bench", "script.cfs"}));
+        assertTrue(EngineBootstrap.routesOutput(new String[] {"-t", "bench", "--json", "hello"}));
+
+        assertFalse(EngineBootstrap.routesOutput(new String[] {"cfml", "now()"}));
+        assertFalse(EngineBootstrap.routesOutput(new String[] {"run", "bench"}));
+        assertFalse(EngineBootstrap.routesOutput(new String[] {"--", "bench"}));
+        assertFalse(EngineBootstrap.routesOutput(new String[] {}));
+    }
+
+    @Test
+    void speculationWaitsForAnInitialisedLuceeContext(@TempDir Path home) throws Exception {
+        assertFalse(EngineBootstrap.isLuceeContextInitialized(home));
+
+        Files.createDirectories(home.resolve("lucee-server"));
+        assertFalse(EngineBootstrap.isLuceeContextInitialized(home), "An empty server dir is not initialised");
+
+        Path context = Files.createDirectories(home.resolve("lucee-server").resolve("lucee-server").resolve("context"));
+        Files.writeString(context.resolve(".CFConfig.json"), "{}");
+        assertTrue(EngineBootstrap.isLuceeContextInitialized(home));
+    }
+
+    @Test
+    void exitDoesNotWaitForABootOutsideItsContextWrite() {
+        // No context write is in progress on this thread's behalf, so the
+        // hook must return at once rather than wait out EXIT_WAIT.
+        assertTimeoutPreemptively(Duration.ofSeconds(5), EngineBootstrap::awaitBootBeforeExit);
+        // Outside the boot thread the markers are no-ops and never refuse.
+        EngineBootstrap.beginContextWrite();
+        EngineBootstrap.endContextWrite();
+    }
+
+    @Test
+    void timingFlagIsDetectedBeforeParsing() {
+        assertTrue(EngineBootstrap.requestsTiming(new String[] {"-t", "cfml", "1"}));
+        assertTrue(EngineBootstrap.requestsTiming(new String[] {"-vt", "cfml", "1"}));
+        assertTrue(EngineBootstrap.requestsTiming(new String[] {"--timing"}));
+        assertFalse(EngineBootstrap.requestsTiming(new String[] {"--", "-t"}));
+        assertFalse(EngineBootstrap.requestsTiming(new String[] {"--no-compile-cache", "run", "x.cfs"}));
+        assertTrue(EngineBootstrap.requestsTiming(new String[] {"--timing=trace.json", "cfml", "1"}));
+        assertEquals("trace.json", EngineBootstrap.requestedTraceFile(new String[] {"--timing=trace.json", "cfml", "1"}));
+        assertNull(EngineBootstrap.requestedTraceFile(new String[] {"--timing", "cfml", "1"}));
+    }
+}
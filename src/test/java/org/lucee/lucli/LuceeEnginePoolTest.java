@@ -0,0 +1,103 @@
+package org.lucee.lucli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LuceeEnginePoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sizeComesFromPositiveIntegersOnly() {
+        assertEquals(4, LuceeEnginePool.parseSize(" 4 "));
+        assertNull(LuceeEnginePool.parseSize("0"));
+        assertNull(LuceeEnginePool.parseSize("many"));
+        assertNull(LuceeEnginePool.parseSize(null));
+        assertThrows(IllegalArgumentException.class, () -> new LuceeEnginePool(0));
+    }
+
+    @Test
+    void leasesHaveIsolatedBindingsAndAreReused() throws Exception {
+        LuceeEnginePool pool = new LuceeEnginePool(2);
+
+        LuceeScriptEngine first;
+        try (LuceeEnginePool.Lease a = pool.acquire(); LuceeEnginePool.Lease b = pool.acquire()) {
+            first = a.engine();
+            assertNotSame(a.engine(), b.engine());
+            assertEquals(2, pool.inUse());
+
+            a.engine().eval("poolMarker = 'a';");
+            assertEquals("a", String.valueOf(a.engine().getEngine().get("poolMarker")));
+            assertNull(b.engine().getEngine().get("poolMarker"));
+
+            assertThrows(TimeoutException.class, () -> pool.acquire(Duration.ofMillis(50)));
+        }
+
+        assertEquals(0, pool.inUse());
+        assertEquals(2, pool.created());
+        try (LuceeEnginePool.Lease again = pool.acquire()) {
+            // Bindings from the previous lease are gone.
+            assertNull(again.engine().getEngine().get("poolMarker"));
+        }
+        try (LuceeEnginePool.Lease a = pool.acquire(); LuceeEnginePool.Lease b = pool.acquire()) {
+            assertEquals(2, pool.created());
+            assertTrue(a.engine() == first || b.engine() == first);
+        }
+    }
+
+    @Test
+    void discardedEngineIsReplacedOnTheNextCheckout() throws Exception {
+        LuceeEnginePool pool = new LuceeEnginePool(1);
+
+        LuceeScriptEngine discarded;
+        try (LuceeEnginePool.Lease lease = pool.acquire()) {
+            discarded = lease.engine();
+            lease.discard();
+        }
+
+        assertEquals(0, pool.inUse());
+        assertEquals(0, pool.created());
+        try (LuceeEnginePool.Lease lease = pool.acquire()) {
+            assertNotSame(discarded, lease.engine());
+            assertEquals(1, pool.created());
+        }
+    }
+
+    @Test
+    void boundLeaseServesGetInstanceOnItsThreadOnly() throws Exception {
+        LuceeEnginePool pool = new LuceeEnginePool(1);
+        try (LuceeEnginePool.Lease lease = pool.acquire()) {
+            // Nothing is created until the engine is actually used.
+            assertEquals(0, pool.created());
+            lease.bindToCurrentThread();
+            assertSame(lease.engine(), LuceeScriptEngine.getInstance());
+            assertEquals(1, pool.created());
+        }
+        try (LuceeEnginePool.Lease lease = pool.acquire()) {
+            assertNotSame(lease.engine(), LuceeScriptEngine.getInstance());
+        }
+    }
+
+    @Test
+    void leaseCwdIsScopedToTheAcquiringThread() throws Exception {
+        Path before = LuCLI.getEffectiveRuntimeCwd();
+        LuceeEnginePool pool = new LuceeEnginePool(1);
+        try (LuceeEnginePool.Lease lease = pool.acquire()) {
+            lease.setCwd(tempDir);
+            assertEquals(tempDir.toAbsolutePath().normalize(), LuCLI.getEffectiveRuntimeCwd());
+        }
+        assertEquals(before, LuCLI.getEffectiveRuntimeCwd());
+    }
+}
@@ -3,8 +3,15 @@ package org.lucee.lucli;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -382,6 +389,130 @@ class TimerTest {
         assertTrue(duration.toMillis() >= 0);
     }
 
+    // ============================================
+    // Counter Tests
+    // ============================================
+
+    @Test
+    void testCountersIncrementAndClear() {
+        Timer.increment("hits");
+        Timer.increment("hits");
+        Timer.increment("misses");
+
+        assertEquals(2, Timer.getCount("hits"));
+        assertEquals(1, Timer.getCount("misses"));
+        assertEquals(0, Timer.getCount("unknown"));
+
+        Timer.clear();
+        assertEquals(0, Timer.getCount("hits"));
+    }
+
+    @Test
+    void testCountersIgnoredWhenDisabled() {
+        Timer.setEnabled(false);
+        Timer.increment("disabled");
+
+        assertEquals(0, Timer.getCount("disabled"));
+    }
+
+    // ============================================
+    // Span Tree Tests
+    // ============================================
+
+    @Test
+    void testRepeatedSpansAreAggregatedUnderTheirParent() {
+        Timer.start("daemon");
+        for (int i = 0; i < 3; i++) {
+            Timer.start("Module Execution: x");
+            Timer.stop("Module Execution: x");
+        }
+        Timer.stop("daemon");
+
+        List<Timer.SpanStats> rows = Timer.getInstance().treeOrder();
+        assertEquals(2, rows.size());
+        assertEquals("daemon", rows.get(0).name);
+        assertTrue(rows.get(0).hasChildren);
+        assertEquals("Module Execution: x", rows.get(1).name);
+        assertEquals(1, rows.get(1).depth);
+        assertEquals(3, rows.get(1).count);
+    }
+
+    @Test
+    void testSpansNestPerThread() throws Exception {
+        Timer.start("main");
+        Thread worker = new Thread(() -> {
+            Timer.start("worker");
+            Timer.stop("worker");
+        });
+        worker.start();
+        worker.join();
+        Timer.stop("main");
+
+        for (Timer.SpanStats row : Timer.getInstance().treeOrder()) {
+            assertEquals(0, row.depth, row.name + " should not nest under another thread's span");
+        }
+    }
+
+    @Test
+    void testStoppingParentEndsOpenChildren() {
+        Timer.start("outer");
+        Timer.start("forgotten");
+        Timer.stop("outer");
+
+        assertTrue(Timer.getDuration("forgotten").compareTo(Duration.ZERO) >= 0);
+        assertEquals(Duration.ZERO, Timer.stop("forgotten"));
+    }
+
+    @Test
+    void testSpanHandleIsNoOpWhenDisabled() {
+        Timer.setEnabled(false);
+        Timer.Span first = Timer.span("off");
+        Timer.Span second = Timer.span("off");
+        first.close();
+
+        assertSame(first, second, "disabled spans should share one handle");
+        assertEquals(Duration.ZERO, Timer.getDuration("off"));
+    }
+
+    @Test
+    void testSpanHandleEndsOnClose() {
+        try (Timer.Span span = Timer.span("block")) {
+            try { Thread.sleep(5); } catch (InterruptedException e) {}
+        }
+        assertTrue(Timer.getDuration("block").toMillis() >= 5);
+    }
+
+    @Test
+    void testChromeTraceExport(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("trace.json");
+        Timer.setTraceFile(file.toString());
+        try {
+            Timer.start("outer");
+            Timer.start("inner");
+            Timer.stop("inner");
+            Timer.stop("outer");
+            Timer.increment("hits");
+            Timer.exportTrace();
+        } finally {
+            Timer.setTraceFile(null);
+        }
+
+        JsonNode trace = new ObjectMapper().readTree(Files.readString(file));
+        JsonNode outer = null;
+        JsonNode inner = null;
+        for (JsonNode event : trace.get("traceEvents")) {
+            if ("X".equals(event.get("ph").asText())) {
+                if ("outer".equals(event.get("name").asText())) outer = event;
+                if ("inner".equals(event.get("name").asText())) inner = event;
+            }
+        }
+        assertNotNull(outer);
+        assertNotNull(inner);
+        assertEquals(outer.get("args").get("id").asLong(), inner.get("args").get("parent").asLong());
+        assertTrue(inner.get("ts").asDouble() >= outer.get("ts").asDouble());
+        assertEquals(1, trace.get("otherData").get("hits").asLong());
+    }
+
     // ============================================
     // Static vs Instance Consistency
     // ============================================
@@ -0,0 +1,91 @@
+package org.lucee.lucli.bench;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BenchReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void statisticsMatchTheStartupBenchmarkScript() {
+        long[] nanos = new long[100];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = (i + 1) * 1_000_000L;
+        }
+        BenchResult result = new BenchResult(5, nanos, 100_000, 2, 7);
+
+        assertEquals(1.0, result.minMs());
+        assertEquals(100.0, result.maxMs());
+        assertEquals(50.5, result.meanMs());
+        assertEquals(50.5, result.medianMs());
+        assertEquals(95.0, result.percentileMs(0.95));
+        assertEquals(99.0, result.percentileMs(0.99));
+        assertEquals(28.866, BenchResult.round(result.stddevMs()));
+        assertEquals(1_000, result.allocatedBytesPerOp());
+
+        Map<String, Object> json = result.toJson();
+        assertEquals(100, json.get("runs"));
+        assertEquals(5, json.get("warmup_runs"));
+        assertEquals(50.5, json.get("median_ms"));
+        assertEquals(2L, json.get("gc_count"));
+        assertEquals(100, ((List<?>) json.get("samples_ms")).size());
+    }
+
+    @Test
+    void runnerWarmsUpThenMeasures() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        BenchResult result = BenchRunner.run(3, 10, calls::incrementAndGet);
+
+        assertEquals(13, calls.get());
+        assertEquals(10, result.runs());
+        assertTrue(result.minMs() >= 0);
+        assertThrows(IllegalArgumentException.class, () -> BenchRunner.run(0, 0, calls::incrementAndGet));
+    }
+
+    @Test
+    void reportUsesTheStartupBenchmarkLayout() throws Exception {
+        Path file = tempDir.resolve("out/bench.json");
+        new BenchReport(1, 0).add("hello.cfs", new BenchResult(0, new long[] {2_000_000}, -1, 0, 0)).write(file);
+
+        JsonNode json = new ObjectMapper().readTree(file.toFile());
+        assertTrue(json.has("generated_at_utc"));
+        assertEquals(1, json.get("runs").asInt());
+        JsonNode entry = json.path("results").path("hello.cfs");
+        assertEquals(2.0, entry.get("median_ms").asDouble());
+        assertEquals(-1, entry.get("alloc_bytes_per_op").asLong());
+    }
+
+    @Test
+    void baselineComparisonFlagsRegressionsOnMedian() throws Exception {
+        Path baseline = tempDir.resolve("baseline.json");
+        Files.writeString(baseline, "{\"results\":{"
+            + "\"fast\":{\"median_ms\":10.0},"
+            + "\"slow\":{\"median_ms\":10.0}}}");
+        BenchReport report = new BenchReport(1, 0)
+            .add("fast", new BenchResult(0, new long[] {9_000_000}, -1, 0, 0))
+            .add("slow", new BenchResult(0, new long[] {12_000_000}, -1, 0, 0))
+            .add("new", new BenchResult(0, new long[] {1_000_000}, -1, 0, 0));
+
+        BenchReport.Comparison comparison = report.compare(baseline, 10.0);
+
+        assertEquals(List.of("slow (20.00%)"), comparison.regressions());
+        assertTrue(comparison.lines().get(0).contains("10.00% faster"), comparison.lines().get(0));
+        assertEquals("new: baseline median missing; skipped", comparison.lines().get(2));
+        assertTrue(report.compare(baseline, null).regressions().isEmpty());
+    }
+}
@@ -6,6 +6,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -111,6 +116,31 @@ class McpCommandTest {
                 "expected captured output in response, got: '" + text + "'");
     }
 
+    @Test
+    void toolCallPassesStructuredArgumentsAndSerializesReturnValue() throws Exception {
+        List<JsonNode> responses = runMcpSession(List.of(
+            "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}",
+            "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"inspect\",\"arguments\":{\"options\":{\"depth\":2,\"nested\":{\"key\":\"a=b\"}},\"tags\":[\"x\",\"y\",\"z\"]}}}"
+        ));
+
+        JsonNode callResp = responses.stream()
+                .filter(n -> n.has("id") && n.get("id").asInt() == 2)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(
+                        "no response for id=2. Responses: " + responses));
+
+        assertTrue(callResp.has("result"), "expected result, got: " + callResp);
+        assertFalse(callResp.get("result").has("isError"), "unexpected error: " + callResp);
+
+        // The struct comes back as JSON, with nested values intact.
+        String text = callResp.get("result").get("content").get(0).get("text").asText();
+        JsonNode returned = MAPPER.readTree(text);
+        assertEquals(3, returned.get("tagCount").asInt());
+        assertEquals(2, returned.get("options").get("depth").asInt());
+        assertEquals("a=b", returned.get("options").get("nested").get("key").asText());
+    }
+
     @Test
     void toolsListExcludesBaseModuleInternals() throws Exception {
         List<JsonNode> responses = runMcpSession(List.of(
@@ -223,6 +253,163 @@ class McpCommandTest {
                 "echo must fall back to the signature-derived schema");
     }
 
+    @Test
+    void concurrentCallsAndBatchesAnswerInRequestOrder() throws Exception {
+        List<JsonNode> responses = runMcpSession(List.of(
+            "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}",
+            "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"greet\",\"arguments\":{\"subject\":\"two\"}}}",
+            "[{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"name\":\"greet\",\"arguments\":{\"subject\":\"three\"}}},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/call\",\"params\":{\"name\":\"echo\",\"arguments\":{}}}]",
+            "{\"jsonrpc\":\"2.0\",\"id\":5,\"method\":\"tools/list\"}"
+        ));
+
+        assertEquals(4, responses.size(), "Responses: " + responses);
+        assertEquals(1, responses.get(0).get("id").asInt());
+        assertEquals(2, responses.get(1).get("id").asInt());
+        assertTrue(responses.get(1).get("result").get("content").get(0).get("text").asText().contains("hello, two"));
+
+        // Each call's output stays with its own response despite running concurrently.
+        JsonNode batch = responses.get(2);
+        assertTrue(batch.isArray(), "expected batch response, got: " + batch);
+        assertEquals(3, batch.get(0).get("id").asInt());
+        assertTrue(batch.get(0).get("result").get("content").get(0).get("text").asText().contains("hello, three"));
+        assertEquals(4, batch.get(1).get("id").asInt());
+        assertTrue(batch.get(1).get("result").get("content").get(0).get("text").asText().contains("hello from echo"));
+
+        assertEquals(5, responses.get(3).get("id").asInt());
+    }
+
+    @Test
+    void toolCallWithProgressTokenStreamsOutputAndProgress() throws Exception {
+        List<JsonNode> responses = runMcpSession(List.of(
+            "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2025-03-26\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}",
+            "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"countdown\",\"arguments\":{\"steps\":3},\"_meta\":{\"progressToken\":\"tok\"}}}"
+        ));
+
+        List<JsonNode> progress = new ArrayList<>();
+        StringBuilder streamed = new StringBuilder();
+        int responseIndex = -1;
+        for (int i = 0; i < responses.size(); i++) {
+            JsonNode node = responses.get(i);
+            String method = node.path("method").asText("");
+            if ("notifications/progress".equals(method)) {
+                progress.add(node.get("params"));
+            } else if ("notifications/message".equals(method)) {
+                streamed.append(node.get("params").get("data").asText());
+            } else if (node.has("id") && node.get("id").asInt() == 2) {
+                responseIndex = i;
+            }
+        }
+
+        assertTrue(responseIndex >= 0, "no response for id=2. Responses: " + responses);
+        assertEquals(3, progress.size(), "Responses: " + responses);
+        assertEquals("tok", progress.get(0).get("progressToken").asText());
+        assertEquals(3, progress.get(2).get("progress").asInt());
+        assertEquals(3, progress.get(2).get("total").asInt());
+        assertEquals("step 3 of 3", progress.get(2).get("message").asText());
+        assertTrue(streamed.toString().contains("step 1"), "streamed: " + streamed);
+        assertTrue(streamed.toString().contains("step 3"), "streamed: " + streamed);
+
+        // Notifications precede the response, which still carries all output.
+        assertEquals(responses.size() - 1, responseIndex);
+        String text = responses.get(responseIndex).get("result").get("content").get(0).get("text").asText();
+        assertTrue(text.contains("step 2"), "text: " + text);
+    }
+
+    @Test
+    void cancelledToolCallGetsNoResponse() throws Exception {
+        List<JsonNode> responses = runMcpSession(List.of(
+            "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2025-03-26\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}",
+            "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"linger\",\"arguments\":{}}}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\",\"params\":{\"requestId\":2,\"reason\":\"test\"}}",
+            "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"ping\"}"
+        ));
+
+        assertFalse(responses.stream().anyMatch(n -> n.has("id") && n.get("id").asInt() == 2),
+                "cancelled request must not be answered. Responses: " + responses);
+        assertTrue(responses.stream().anyMatch(n -> n.has("id") && n.get("id").asInt() == 3),
+                "expected ping response. Responses: " + responses);
+    }
+
+    @Test
+    void httpTransportServesIndependentSessions() throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        Process proc = new ProcessBuilder("/bin/bash", lucliBin, "mcp", FIXTURE_MODULE_NAME,
+                "--http", "--port", String.valueOf(port))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI endpoint = URI.create("http://127.0.0.1:" + port + "/mcp");
+            String init = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2025-03-26\",\"capabilities\":{},\"clientInfo\":{\"name\":\"test\",\"version\":\"1.0\"}}}";
+
+            HttpResponse<String> first = awaitServer(client, endpoint, init);
+            String sessionA = first.headers().firstValue("Mcp-Session-Id").orElseThrow();
+            String sessionB = postMcp(client, endpoint, null, init).headers().firstValue("Mcp-Session-Id").orElseThrow();
+            assertFalse(sessionA.equals(sessionB), "sessions must differ");
+
+            // Notifications are accepted without a response body.
+            assertEquals(202, postMcp(client, endpoint, sessionA,
+                    "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}").statusCode());
+
+            HttpResponse<String> call = postMcp(client, endpoint, sessionA,
+                    "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"greet\",\"arguments\":{\"subject\":\"http\"}}}");
+            assertEquals(200, call.statusCode());
+            assertTrue(call.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+            JsonNode response = null;
+            for (String line : call.body().split("\n")) {
+                if (line.startsWith("data: ")) {
+                    response = MAPPER.readTree(line.substring(6));
+                }
+            }
+            assertNotNull(response, "no SSE response: " + call.body());
+            assertEquals(2, response.get("id").asInt());
+            assertTrue(response.get("result").get("content").get(0).get("text").asText().contains("hello, http"));
+
+            assertEquals(404, postMcp(client, endpoint, "no-such-session",
+                    "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"ping\"}").statusCode());
+            assertEquals(400, postMcp(client, endpoint, null,
+                    "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"ping\"}").statusCode());
+        } finally {
+            proc.destroy();
+            proc.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private HttpResponse<String> postMcp(HttpClient client, URI endpoint, String sessionId, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (sessionId != null) {
+            request.header("Mcp-Session-Id", sessionId);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // The first request doubles as the readiness probe: dev-lucli.sh may
+    // build and boot Lucee before the port opens.
+    private HttpResponse<String> awaitServer(HttpClient client, URI endpoint, String body) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (true) {
+            try {
+                return postMcp(client, endpoint, null, body);
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(500);
+            }
+        }
+    }
+
     // Send the given JSON-RPC lines to `dev-lucli.sh mcp mcpfixture` as a
     // subprocess. Returns each parsed response as a JsonNode.
     private List<JsonNode> runMcpSession(List<String> requests) throws Exception {
@@ -0,0 +1,90 @@
+package org.lucee.lucli.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisabledOnOs(OS.WINDOWS)
+class DaemonTransportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void unixSocketRoundTripIsOwnerOnlyAndCleanedUp() throws Exception {
+        Path socket = tempDir.resolve("run").resolve("d.sock");
+        try (DaemonTransport.Listener listener = DaemonTransport.listenUnix(socket)) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+            try (Stream<Path> files = Files.list(socket.getParent())) {
+                assertEquals(List.of(socket), files.toList(), "The bind directory should be gone");
+            }
+
+            Thread server = Thread.ofVirtual().start(() -> {
+                try (DaemonTransport.Connection connection = listener.accept()) {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(connection.in(), StandardCharsets.UTF_8));
+                    String line = reader.readLine();
+                    connection.out().write(("echo:" + line + "\n").getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            try (DaemonTransport.Connection client = DaemonTransport.connectUnix(socket)) {
+                client.out().write("ping\n".getBytes(StandardCharsets.UTF_8));
+                BufferedReader reader = new BufferedReader(new InputStreamReader(client.in(), StandardCharsets.UTF_8));
+                assertEquals("echo:ping", reader.readLine());
+            }
+            server.join();
+
+            // A second daemon must not take over a live socket.
+            assertThrows(IOException.class, () -> DaemonTransport.listenUnix(socket));
+        }
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void staleSocketFileIsReplaced() throws Exception {
+        Path socket = tempDir.resolve("stale.sock");
+        // Closing a bound channel leaves the socket file behind, as a daemon
+        // that died would.
+        try (ServerSocketChannel dead = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            dead.bind(UnixDomainSocketAddress.of(socket));
+        }
+        assertTrue(DaemonTransport.isSocket(socket));
+
+        try (DaemonTransport.Listener listener = DaemonTransport.listenUnix(socket)) {
+            assertTrue(Files.exists(socket));
+            assertEquals(socket.toString(), listener.describe());
+        }
+    }
+
+    @Test
+    void regularFileAtTheSocketPathIsNotDeleted() throws Exception {
+        Path socket = tempDir.resolve("notes.txt");
+        Files.writeString(socket, "keep me");
+
+        IOException error = assertThrows(IOException.class, () -> DaemonTransport.listenUnix(socket));
+
+        assertTrue(error.getMessage().contains("not a socket"), error.getMessage());
+        assertEquals("keep me", Files.readString(socket));
+    }
+}
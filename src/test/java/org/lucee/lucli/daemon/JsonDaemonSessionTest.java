@@ -0,0 +1,108 @@
+package org.lucee.lucli.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.lucee.lucli.LuceeEnginePool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JsonDaemonSessionTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    static void installRouter() {
+        ThreadOutputRouter.install();
+    }
+
+    @Test
+    void singleShotConnectionAnswersOneRequest() throws Exception {
+        List<JsonDaemonProtocol.Response> responses = serve(
+            "{\"id\":\"1\",\"argv\":[\"echo\",\"hi\"]}",
+            "{\"id\":\"2\",\"argv\":[\"echo\",\"ignored\"]}");
+
+        assertEquals(1, responses.size());
+        assertEquals("1", responses.get(0).id);
+        assertEquals("hi\n", responses.get(0).output);
+        assertNull(responses.get(0).protocol);
+    }
+
+    @Test
+    void pipelinedConnectionCorrelatesOutOfOrderResponses() throws Exception {
+        List<JsonDaemonProtocol.Response> responses = serve(
+            "{\"protocol\":\"" + JsonDaemonProtocol.PIPELINE + "\"}",
+            "{\"id\":\"slow\",\"argv\":[\"sleep\",\"300\"]}",
+            "{\"id\":\"fast\",\"argv\":[\"echo\",\"quick\"]}",
+            "{\"argv\":[\"echo\",\"no id\"]}",
+            "not json");
+
+        assertEquals(JsonDaemonProtocol.PIPELINE, responses.get(0).protocol);
+        List<String> ids = new ArrayList<>();
+        for (JsonDaemonProtocol.Response response : responses.subList(1, responses.size())) {
+            ids.add(response.id);
+            if ("fast".equals(response.id)) {
+                assertEquals("quick\n", response.output);
+            }
+        }
+        // Errors are answered inline; the slow request finishes last.
+        assertEquals(5, responses.size());
+        assertEquals("slow", ids.get(ids.size() - 1));
+        assertEquals(List.of("fast", "slow"), ids.stream().filter(id -> id != null).toList());
+    }
+
+    @Test
+    void metricsRequestIsAnsweredByTheDaemon() throws Exception {
+        serve("{\"id\":\"1\",\"argv\":[\"echo\",\"counted\"]}");
+        List<JsonDaemonProtocol.Response> responses = serve("{\"id\":\"2\",\"argv\":[\"__metrics\"]}");
+
+        assertEquals(0, responses.get(0).exitCode);
+        JsonNode snapshot = mapper.readTree(responses.get(0).output);
+        boolean found = false;
+        for (JsonNode series : snapshot.get("series")) {
+            if ("lucli_daemon_request".equals(series.get("name").asText())
+                    && "echo".equals(series.get("labels").path("command").asText())) {
+                found = series.get("count").asLong() >= 1;
+            }
+        }
+        assertTrue(found, "expected echo requests in " + snapshot);
+
+        String prometheus = serve("{\"id\":\"3\",\"argv\":[\"__metrics\",\"prometheus\"]}").get(0).output;
+        assertTrue(prometheus.contains("lucli_daemon_request_seconds_count{command=\"echo\"}"), prometheus);
+    }
+
+    private List<JsonDaemonProtocol.Response> serve(String... lines) throws Exception {
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(2), null, argv -> {
+            if ("sleep".equals(argv[0])) {
+                try {
+                    Thread.sleep(Long.parseLong(argv[1]));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                System.out.println(argv[1]);
+            }
+            return 0;
+        });
+
+        byte[] input = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonDaemonSession(executor).serve(new ByteArrayInputStream(input), output, "test");
+
+        List<JsonDaemonProtocol.Response> responses = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            responses.add(mapper.readValue(line, JsonDaemonProtocol.Response.class));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,305 @@
+package org.lucee.lucli.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.lucee.lucli.LuCLI;
+import org.lucee.lucli.LuceeEnginePool;
+
+class JsonRequestExecutorTest {
+
+    @BeforeAll
+    static void installRouter() {
+        ThreadOutputRouter.install();
+    }
+
+    @Test
+    void concurrentRequestsCaptureOnlyTheirOwnOutput() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(4);
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(4), null, argv -> {
+            allStarted.countDown();
+            awaitQuietly(allStarted);
+            for (int i = 0; i < 50; i++) {
+                System.out.println(argv[0]);
+                System.err.println(argv[0]);
+            }
+            return argv[0].length();
+        });
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<JsonRequestExecutor.Result>> results = new ArrayList<>();
+            for (String name : List.of("a", "bb", "ccc", "dddd")) {
+                results.add(clients.submit(() -> executor.execute(name, new String[] {name}, null)));
+            }
+            for (Future<JsonRequestExecutor.Result> future : results) {
+                JsonRequestExecutor.Result result = future.get(10, TimeUnit.SECONDS);
+                String[] lines = result.output().split("\n");
+                assertEquals(100, lines.length);
+                for (String line : lines) {
+                    assertEquals(lines[0], line);
+                }
+                // Each request printed its own argv[0], whose length is its exit code.
+                assertEquals(result.exitCode(), lines[0].length());
+            }
+        }
+    }
+
+    @Test
+    void poolSizeLimitsConcurrentCommands() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(2), null, argv -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleepQuietly(50);
+            running.decrementAndGet();
+            return 0;
+        });
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<JsonRequestExecutor.Result>> results = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                results.add(clients.submit(() -> executor.execute(null, new String[] {"x"}, null)));
+            }
+            for (Future<JsonRequestExecutor.Result> future : results) {
+                assertEquals(0, future.get(10, TimeUnit.SECONDS).exitCode());
+            }
+        }
+        assertEquals(2, peak.get());
+    }
+
+    @Test
+    void slowRequestTimesOutWithPartialOutput() throws Exception {
+        LuceeEnginePool pool = new LuceeEnginePool(1);
+        JsonRequestExecutor executor = new JsonRequestExecutor(pool, Duration.ofMillis(100), argv -> {
+            System.out.println("started");
+            sleepQuietly(10_000);
+            return 0;
+        });
+
+        JsonRequestExecutor.Result result = executor.execute("slow", new String[] {"x"}, null);
+        assertEquals(JsonRequestExecutor.EXIT_TIMEOUT, result.exitCode());
+        assertTrue(result.output().startsWith("started\n"));
+        assertTrue(result.output().contains("timed out after 100ms"));
+
+        // The interrupted worker gives its lease back.
+        waitFor(() -> pool.inUse() == 0);
+    }
+
+    @Test
+    void inFlightRequestCanBeCancelledById() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(1), null, argv -> {
+            started.countDown();
+            sleepQuietly(10_000);
+            return 0;
+        });
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<JsonRequestExecutor.Result> pending =
+                clients.submit(() -> executor.execute("job-1", new String[] {"x"}, null));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertFalse(executor.cancel("job-2"));
+            assertTrue(executor.cancel("job-1"));
+
+            JsonRequestExecutor.Result result = pending.get(5, TimeUnit.SECONDS);
+            assertEquals(JsonRequestExecutor.EXIT_CANCELLED, result.exitCode());
+            assertTrue(result.output().contains("Request cancelled"));
+        }
+        waitFor(() -> executor.inFlight() == 0);
+    }
+
+    @Test
+    void streamingDeliversOutputBeforeTheCommandFinishes() throws Exception {
+        CountDownLatch firstChunkSeen = new CountDownLatch(1);
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(1), null, argv -> {
+            System.out.println("first");
+            // Only continues once the client has received the first line.
+            awaitQuietly(firstChunkSeen);
+            System.err.println("second");
+            return 3;
+        });
+
+        List<String> chunks = new ArrayList<>();
+        int exitCode = executor.executeStreaming("s", new String[] {"x"}, null, (stream, text) -> {
+            chunks.add(stream + ":" + text);
+            firstChunkSeen.countDown();
+        });
+
+        assertEquals(3, exitCode);
+        assertEquals(List.of("stdout:first\n", "stderr:second\n"), chunks);
+    }
+
+    @Test
+    void slowStreamingClientBlocksTheCommandInsteadOfBuffering() throws Exception {
+        AtomicInteger written = new AtomicInteger();
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(1), null, argv -> {
+            byte[] line = ("x".repeat(1023) + "\n").getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < 1024; i++) {
+                System.out.write(line, 0, line.length);
+                written.addAndGet(line.length);
+            }
+            return 0;
+        });
+
+        AtomicInteger received = new AtomicInteger();
+        int exitCode = executor.executeStreaming("bp", new String[] {"x"}, null, (stream, text) -> {
+            if (received.get() == 0) {
+                // Stall on the first chunk: the command may get at most one
+                // more buffer's worth ahead of us.
+                sleepQuietly(200);
+                assertTrue(written.get() <= 2 * JsonRequestExecutor.PIPE_CAPACITY + 1024);
+            }
+            received.addAndGet(text.length());
+        });
+
+        assertEquals(0, exitCode);
+        assertEquals(1024 * 1024, received.get());
+    }
+
+    @Test
+    void stalledStreamingClientDoesNotBlockOtherRequests() throws Exception {
+        CountDownLatch releaseStalled = new CountDownLatch(1);
+        CountDownLatch stalledBlocked = new CountDownLatch(1);
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(2), null, argv -> {
+            if (argv[0].equals("stalled")) {
+                // Far more than the pipe holds, so this command blocks in a
+                // write while its client is stalled.
+                for (int i = 0; i < 4 * JsonRequestExecutor.PIPE_CAPACITY / 1024; i++) {
+                    System.out.println("s".repeat(1023));
+                }
+            } else {
+                System.out.println("normal");
+            }
+            return 0;
+        });
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> stalled = clients.submit(() -> executor.executeStreaming("stalled", new String[] {"stalled"}, null,
+                (stream, text) -> {
+                    stalledBlocked.countDown();
+                    awaitQuietly(releaseStalled);
+                }));
+            try {
+                assertTrue(stalledBlocked.await(5, TimeUnit.SECONDS));
+
+                JsonRequestExecutor.Result normal = clients.submit(() -> executor.execute(null, new String[] {"normal"}, null))
+                    .get(5, TimeUnit.SECONDS);
+                assertEquals("normal\n", normal.output());
+                assertFalse(stalled.isDone());
+            } finally {
+                releaseStalled.countDown();
+            }
+            assertEquals(0, stalled.get(10, TimeUnit.SECONDS).intValue());
+        }
+    }
+
+    @Test
+    void requestsDoNotSeeEachOthersScriptEnvironment() throws Exception {
+        CountDownLatch bothSet = new CountDownLatch(2);
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(2), null, argv -> {
+            LuCLI.getScriptEnvironment().put("LUCLI_TEST_VALUE", argv[0]);
+            bothSet.countDown();
+            awaitQuietly(bothSet);
+            System.out.print(LuCLI.getScriptEnvironment().get("LUCLI_TEST_VALUE"));
+            return 0;
+        });
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<JsonRequestExecutor.Result> first = clients.submit(() -> executor.execute(null, new String[] {"one"}, null));
+            Future<JsonRequestExecutor.Result> second = clients.submit(() -> executor.execute(null, new String[] {"two"}, null));
+            assertEquals("one", first.get(10, TimeUnit.SECONDS).output());
+            assertEquals("two", second.get(10, TimeUnit.SECONDS).output());
+        }
+        assertFalse(LuCLI.scriptEnvironment.containsKey("LUCLI_TEST_VALUE"));
+    }
+
+    @Test
+    void requestSettingRootFlagsRunsAlone() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlapped = new AtomicInteger();
+        JsonRequestExecutor executor = new JsonRequestExecutor(new LuceeEnginePool(4), null, argv -> {
+            int now = running.incrementAndGet();
+            if (argv[0].equals("--verbose") && now > 1) {
+                overlapped.incrementAndGet();
+            }
+            sleepQuietly(50);
+            running.decrementAndGet();
+            return 0;
+        });
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<JsonRequestExecutor.Result>> results = new ArrayList<>();
+            for (String arg : List.of("x", "--verbose", "x", "x", "--verbose", "x")) {
+                results.add(clients.submit(() -> executor.execute(null, new String[] {arg}, null)));
+            }
+            for (Future<JsonRequestExecutor.Result> future : results) {
+                assertEquals(0, future.get(10, TimeUnit.SECONDS).exitCode());
+            }
+        }
+        assertEquals(0, overlapped.get());
+        assertFalse(LuCLI.verbose);
+    }
+
+    @Test
+    void recognisesRootFlagsBeforeTheEndOfOptions() {
+        assertTrue(JsonRequestExecutor.setsRootFlags(new String[] {"--debug", "server", "list"}));
+        assertTrue(JsonRequestExecutor.setsRootFlags(new String[] {"-vt", "run", "x.cfs"}));
+        assertTrue(JsonRequestExecutor.setsRootFlags(new String[] {"--env=prod", "server", "start"}));
+        assertFalse(JsonRequestExecutor.setsRootFlags(new String[] {"server", "list"}));
+        assertFalse(JsonRequestExecutor.setsRootFlags(new String[] {"run", "x.cfs", "--", "--verbose"}));
+    }
+
+    @Test
+    void utf8ChunkerNeverSplitsACharacter() {
+        byte[] bytes = "a\u00e9\u20ac\ud83d\ude00".getBytes(StandardCharsets.UTF_8);
+        JsonRequestExecutor.Utf8Chunker chunker = new JsonRequestExecutor.Utf8Chunker();
+        StringBuilder out = new StringBuilder();
+        for (byte b : bytes) {
+            String text = chunker.next(new byte[] {b});
+            assertFalse(text.contains("\ufffd"));
+            out.append(text);
+        }
+        out.append(chunker.rest());
+        assertEquals("a\u00e9\u20ac\ud83d\ude00", out.toString());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
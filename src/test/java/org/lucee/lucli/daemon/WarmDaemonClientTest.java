@@ -0,0 +1,81 @@
+package org.lucee.lucli.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lucee.lucli.LuCLI;
+
+class WarmDaemonClientTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void envOptOutWinsOverLauncherProperty() {
+        assertTrue(WarmDaemonClient.isEnabled("auto", null));
+        assertFalse(WarmDaemonClient.isEnabled("auto", "0"));
+        assertFalse(WarmDaemonClient.isEnabled("auto", "false"));
+        assertTrue(WarmDaemonClient.isEnabled(null, "1"));
+        assertFalse(WarmDaemonClient.isEnabled(null, null));
+    }
+
+    @Test
+    void onlyOneShotCfmlCommandsAreEligible() throws Exception {
+        Path script = Files.writeString(tempDir.resolve("hello.cfs"), "echo('hi');");
+        Path home = tempDir.resolve("home");
+        Path module = Files.createDirectories(home.resolve("modules").resolve("hello"));
+        Files.writeString(module.resolve("Module.cfc"), "component {}");
+        String previousHome = System.getProperty("lucli.home");
+        System.setProperty("lucli.home", home.toString());
+        try {
+            assertTrue(WarmDaemonClient.isEligibleCommand(new String[] {"modules", "run", "hello"}));
+            assertFalse(WarmDaemonClient.isEligibleCommand(new String[] {"modules", "run", "no-such-module-xyz"}));
+        } finally {
+            if (previousHome == null) {
+                System.clearProperty("lucli.home");
+            } else {
+                System.setProperty("lucli.home", previousHome);
+            }
+        }
+
+        assertTrue(WarmDaemonClient.isEligibleCommand(new String[] {"cfml", "now()"}));
+        assertTrue(WarmDaemonClient.isEligibleCommand(new String[] {"run", script.toString()}));
+        assertTrue(WarmDaemonClient.isEligibleCommand(new String[] {script.toString()}));
+
+        assertFalse(WarmDaemonClient.isEligibleCommand(new String[] {}));
+        assertFalse(WarmDaemonClient.isEligibleCommand(new String[] {"cfml"}));
+        assertFalse(WarmDaemonClient.isEligibleCommand(new String[] {"--version"}));
+        assertFalse(WarmDaemonClient.isEligibleCommand(new String[] {"server", "start"}));
+        assertFalse(WarmDaemonClient.isEligibleCommand(new String[] {"run", "build.lucli"}));
+        assertFalse(WarmDaemonClient.isEligibleCommand(new String[] {"daemon", "--warm"}));
+    }
+
+    @Test
+    void stateRoundTripsAndMatchesOnlyTheSameJar() throws Exception {
+        Path stateFile = tempDir.resolve("daemon").resolve("warm.json");
+        WarmDaemonState state = new WarmDaemonState(
+            ProcessHandle.current().pid(), 40123, "secret", LuCLI.getVersion(), "/opt/lucli.jar", 100, 200);
+        state.write(stateFile);
+
+        WarmDaemonState read = WarmDaemonState.read(stateFile);
+        assertNotNull(read);
+        assertEquals(state, read);
+        assertTrue(read.isProcessAlive());
+        assertTrue(read.matches(new WarmDaemonState.JarIdentity(Path.of("/opt/lucli.jar"), 100, 200)));
+        assertFalse(read.matches(new WarmDaemonState.JarIdentity(Path.of("/opt/lucli.jar"), 100, 201)));
+        assertFalse(read.matches(null));
+
+        WarmDaemonState.deleteIfOwned(stateFile, state.pid() + 1);
+        assertTrue(Files.exists(stateFile));
+        WarmDaemonState.deleteIfOwned(stateFile, state.pid());
+        assertNull(WarmDaemonState.read(stateFile));
+    }
+}
@@ -0,0 +1,90 @@
+package org.lucee.lucli.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+
+    @Test
+    void histogramQuantilesStayWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1_000_000L);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.maxMicros());
+        assertWithin(500_000, histogram.quantileMicros(0.50));
+        assertWithin(950_000, histogram.quantileMicros(0.95));
+        assertWithin(990_000, histogram.quantileMicros(0.99));
+        // Never above the largest value recorded.
+        assertEquals(1_000_000, histogram.quantileMicros(1.0));
+    }
+
+    @Test
+    void bucketsCoverEveryValueWithoutGaps() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(micros <= LatencyHistogram.upperBound(bucket), "value " + micros);
+            assertTrue(bucket == 0 || micros > LatencyHistogram.upperBound(bucket - 1), "value " + micros);
+        }
+    }
+
+    @Test
+    void seriesAreKeyedByNameAndLabels() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Series a = registry.series("lucli_test", "command", "a");
+
+        assertSame(a, registry.series("lucli_test", "command", "a"));
+        assertTrue(a != registry.series("lucli_test", "command", "b"));
+        assertThrows(IllegalArgumentException.class, () -> registry.series("lucli_test", "command"));
+    }
+
+    @Test
+    void snapshotReportsCountsErrorsAndInFlight() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Series series = registry.series("lucli_test", "command", "run");
+        series.end(series.begin(), false);
+        series.end(series.begin(), true);
+        series.begin();
+        registry.gauge("lucli_test_gauge", () -> 7);
+
+        Map<String, Object> snapshot = registry.snapshot();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> entry = ((List<Map<String, Object>>) snapshot.get("series")).get(0);
+        assertEquals("lucli_test", entry.get("name"));
+        assertEquals(Map.of("command", "run"), entry.get("labels"));
+        assertEquals(2L, entry.get("count"));
+        assertEquals(1L, entry.get("errors"));
+        assertEquals(1L, entry.get("inFlight"));
+        assertEquals(Map.of("lucli_test_gauge", 7L), snapshot.get("gauges"));
+    }
+
+    @Test
+    void prometheusTextHasSummariesCountersAndGauges() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Series series = registry.series("lucli_test", "tool", "say \"hi\"");
+        series.end(series.begin(), true);
+        registry.gauge("lucli_test_gauge", () -> 3);
+
+        String text = registry.toPrometheus();
+        assertTrue(text.contains("# TYPE lucli_test_seconds summary\n"), text);
+        assertTrue(text.contains("lucli_test_seconds{tool=\"say \\\"hi\\\"\",quantile=\"0.99\"} "), text);
+        assertTrue(text.contains("lucli_test_seconds_count{tool=\"say \\\"hi\\\"\"} 1\n"), text);
+        assertTrue(text.contains("# TYPE lucli_test_errors_total counter\n"), text);
+        assertTrue(text.contains("lucli_test_errors_total{tool=\"say \\\"hi\\\"\"} 1\n"), text);
+        assertTrue(text.contains("lucli_test_gauge 3\n"), text);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.125,
+            "expected " + expected + " within 12.5%, got " + actual);
+    }
+}
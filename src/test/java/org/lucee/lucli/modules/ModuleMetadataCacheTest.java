@@ -0,0 +1,154 @@
+package org.lucee.lucli.modules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lucee.lucli.paths.LucliPaths;
+
+class ModuleMetadataCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LucliPaths.ResolvedPaths paths;
+    private Path moduleCfc;
+    private CountingLoader loader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        paths = LucliPaths.forHome(tempDir.resolve("lucli-home"), "test");
+        Path moduleDir = Files.createDirectories(paths.modulesDir().resolve("hello"));
+        moduleCfc = Files.writeString(moduleDir.resolve("Module.cfc"), "component extends=\"modules.BaseModule\" {}");
+        Files.writeString(paths.modulesDir().resolve("BaseModule.cfc"), "component {}");
+        loader = new CountingLoader();
+    }
+
+    @Test
+    void secondLookupIsServedFromDisk() throws Exception {
+        assertEquals(List.of("greet"), new ModuleMetadataCache(paths, loader).get("hello", false).functionNames());
+        assertEquals(1, loader.functionLoads);
+
+        // A fresh instance (new process) reads the persisted entry.
+        ModuleMetadataCache.ModuleMetadata cached = new ModuleMetadataCache(paths, loader).get("hello", false);
+        assertEquals(List.of("greet"), cached.functionNames());
+        assertEquals(1, loader.functionLoads);
+        assertTrue(Files.isRegularFile(paths.moduleMetadataCacheDir().resolve("hello.json")));
+    }
+
+    @Test
+    void changedModuleSourceRefreshesEntry() throws Exception {
+        ModuleMetadataCache cache = new ModuleMetadataCache(paths, loader);
+        cache.get("hello", false);
+
+        // Touching without changing content keeps the entry.
+        Files.setLastModifiedTime(moduleCfc, FileTime.fromMillis(Files.getLastModifiedTime(moduleCfc).toMillis() + 5000));
+        cache.get("hello", false);
+        assertEquals(1, loader.functionLoads);
+
+        Files.writeString(moduleCfc, "component extends=\"modules.BaseModule\" { function wave() {} }");
+        loader.names = List.of("greet", "wave");
+        assertEquals(List.of("greet", "wave"), cache.get("hello", false).functionNames());
+        assertEquals(2, loader.functionLoads);
+    }
+
+    @Test
+    void mcpConventionsAreResolvedOnlyWhenRequested() throws Exception {
+        ModuleMetadataCache cache = new ModuleMetadataCache(paths, loader);
+        ModuleMetadataCache.ModuleMetadata plain = cache.get("hello", false);
+        assertNull(plain.hiddenTools());
+        assertEquals(0, loader.mcpLoads);
+
+        ModuleMetadataCache.ModuleMetadata withMcp = new ModuleMetadataCache(paths, loader).get("hello", true);
+        assertEquals(Set.of("secret"), withMcp.hiddenTools());
+        assertEquals("object", withMcp.toolSpecs().get("greet").get("type"));
+        assertEquals(1, loader.functionLoads);
+        assertEquals(1, loader.mcpLoads);
+
+        new ModuleMetadataCache(paths, loader).get("hello", true);
+        assertEquals(1, loader.mcpLoads);
+    }
+
+    @Test
+    void concurrentMissesRebuildOnce() throws Exception {
+        ModuleMetadataCache cache = new ModuleMetadataCache(paths, loader);
+        loader.delayMillis = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<List<String>>> lookups = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                lookups.add(() -> cache.get("hello", false).functionNames());
+            }
+            for (Future<List<String>> result : pool.invokeAll(lookups)) {
+                assertEquals(List.of("greet"), result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loader.functionLoads);
+    }
+
+    @Test
+    void moduleWithoutSourcesIsCachedForTheProcess() throws Exception {
+        ModuleMetadataCache cache = new ModuleMetadataCache(paths, loader);
+        cache.get("builtin", false);
+        cache.get("builtin", false);
+        assertEquals(1, loader.functionLoads);
+
+        assertEquals(Set.of("secret"), cache.get("builtin", true).hiddenTools());
+        cache.get("builtin", true);
+        assertEquals(1, loader.functionLoads);
+        assertEquals(1, loader.mcpLoads);
+        assertFalse(Files.exists(paths.moduleMetadataCacheDir().resolve("builtin.json")));
+    }
+
+    private static final class CountingLoader implements ModuleMetadataCache.Loader {
+        List<String> names = List.of("greet");
+        long delayMillis;
+        int functionLoads;
+        int mcpLoads;
+
+        @Override
+        public List<Map<String, Object>> functions(String moduleName) throws InterruptedException {
+            Thread.sleep(delayMillis);
+            functionLoads++;
+            List<Map<String, Object>> functions = new ArrayList<>();
+            for (String name : names) {
+                Map<String, Object> fn = new LinkedHashMap<>();
+                fn.put("name", name);
+                fn.put("hint", "Say " + name);
+                fn.put("parameters", List.of(Map.of("name", "who", "type", "string", "required", false)));
+                functions.add(fn);
+            }
+            return functions;
+        }
+
+        @Override
+        public Set<String> hiddenTools(String moduleName) {
+            mcpLoads++;
+            return Set.of("secret");
+        }
+
+        @Override
+        public Map<String, Map<String, Object>> toolSpecs(String moduleName) {
+            return Map.of("greet", Map.of("type", "object"));
+        }
+    }
+}
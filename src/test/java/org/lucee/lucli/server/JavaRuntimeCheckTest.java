@@ -1,5 +1,6 @@
 package org.lucee.lucli.server;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -10,6 +11,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -185,4 +187,32 @@ class JavaRuntimeCheckTest {
         assertFalse(err.contains("port conflicts"),
                 "Error should not mention the misleading port-conflict message: " + err);
     }
+
+    @Test
+    void parsesJavaFeatureVersions() {
+        assertEquals(21, JavaRuntimeCheck.parseFeatureVersion("21.0.1"));
+        assertEquals(17, JavaRuntimeCheck.parseFeatureVersion("17"));
+        assertEquals(22, JavaRuntimeCheck.parseFeatureVersion("22-ea"));
+        assertEquals(8, JavaRuntimeCheck.parseFeatureVersion("1.8.0_392"));
+        assertEquals(0, JavaRuntimeCheck.parseFeatureVersion("unknown"));
+
+        assertEquals(21, JavaRuntimeCheck.parseReleaseFile(List.of("IMPLEMENTOR=\"Eclipse Adoptium\"", "JAVA_VERSION=\"21.0.1\"")));
+        assertEquals(17, JavaRuntimeCheck.parseJavaVersionOutput("openjdk version \"17.0.9\" 2023-10-17\nOpenJDK Runtime Environment"));
+        assertEquals(0, JavaRuntimeCheck.parseJavaVersionOutput(""));
+    }
+
+    @Test
+    void detectsServerJavaVersionFromReleaseFile(@TempDir Path tempDir) throws IOException {
+        Path jdk = tempDir.resolve("jdk-17");
+        Path javaBin = Files.createDirectories(jdk.resolve("bin")).resolve("java");
+        Files.writeString(javaBin, "#!/bin/sh\nexit 1\n");
+        javaBin.toFile().setExecutable(true);
+        Files.writeString(jdk.resolve("release"), "JAVA_VERSION=\"17.0.9\"\n");
+
+        Map<String, String> env = new HashMap<>();
+        env.put("JAVA_HOME", jdk.toString());
+        assertEquals(17, JavaRuntimeCheck.detectJavaFeatureVersion(env, LINUX));
+
+        assertEquals(0, JavaRuntimeCheck.detectJavaFeatureVersion(new HashMap<>(), LINUX));
+    }
 }
@@ -1,6 +1,7 @@
 package org.lucee.lucli.server;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -606,6 +607,71 @@ class LuceeServerManagerLifecycleTest {
         }
     }
 
+    @Test
+    void listServers_probesEveryServerDirectoryAndCachesUntilInvalidated() throws Exception {
+        Path lucliHome = tempDir.resolve(".lucli-home-list");
+        String previousLucliHome = System.getProperty("lucli.home");
+        System.setProperty("lucli.home", lucliHome.toString());
+        try {
+            LuceeServerManager manager = new LuceeServerManager();
+            long livePid = ProcessHandle.current().pid();
+            long stalePid = findUnusedPidNear(livePid + 300_000L);
+
+            Path serversDir = lucliHome.resolve("servers");
+            for (int i = 0; i < 40; i++) {
+                Path serverDir = serversDir.resolve("server-" + i);
+                Files.createDirectories(serverDir);
+                Files.writeString(serverDir.resolve("server.pid"), (i % 2 == 0 ? livePid : stalePid) + ":" + (18100 + i));
+            }
+            // Stale server.pid, but catalina.pid points at a live process.
+            Files.writeString(serversDir.resolve("server-1").resolve("catalina.pid"), String.valueOf(livePid));
+
+            java.util.List<LuceeServerManager.ServerInfo> servers = manager.listServers();
+            assertEquals(40, servers.size());
+            for (LuceeServerManager.ServerInfo server : servers) {
+                int index = Integer.parseInt(server.getServerName().substring("server-".length()));
+                boolean expectRunning = index % 2 == 0 || index == 1;
+                assertEquals(expectRunning, server.isRunning(), server.getServerName());
+                assertEquals(18100 + index, server.getPort());
+            }
+
+            Files.writeString(serversDir.resolve("server-3").resolve("server.pid"), livePid + ":18103");
+            assertTrue(manager.listServers().stream()
+                    .noneMatch(s -> s.getServerName().equals("server-3") && s.isRunning()),
+                    "A second listing within the cache window should reuse the first result");
+
+            LuceeServerManager.invalidateServerListCache();
+            assertTrue(manager.listServers().stream()
+                    .anyMatch(s -> s.getServerName().equals("server-3") && s.isRunning()),
+                    "Invalidating the cache should make the next listing probe again");
+        } finally {
+            LuceeServerManager.invalidateServerListCache();
+            if (previousLucliHome == null) {
+                System.clearProperty("lucli.home");
+            } else {
+                System.setProperty("lucli.home", previousLucliHome);
+            }
+        }
+    }
+
+    @Test
+    void serverProcessSnapshot_queriesContainersOnceAndOnlyWhenNeeded() {
+        java.util.concurrent.atomic.AtomicInteger dockerCalls = new java.util.concurrent.atomic.AtomicInteger();
+        ServerProcessSnapshot snapshot = new ServerProcessSnapshot(java.util.Set.of(42L), () -> {
+            dockerCalls.incrementAndGet();
+            return java.util.Set.of("lucli-app");
+        });
+
+        assertTrue(snapshot.isAlive(42L));
+        assertFalse(snapshot.isAlive(43L));
+        assertFalse(snapshot.isAlive(-1L));
+        assertEquals(0, dockerCalls.get(), "docker ps should not run when no container is probed");
+
+        assertTrue(snapshot.isContainerRunning("lucli-app"));
+        assertFalse(snapshot.isContainerRunning("other"));
+        assertEquals(1, dockerCalls.get());
+    }
+
     private long findUnusedPidNear(long candidate) {
         long pid = Math.max(100L, candidate);
         for (int i = 0; i < 10_000; i++) {
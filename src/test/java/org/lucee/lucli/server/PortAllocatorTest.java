@@ -0,0 +1,190 @@
+package org.lucee.lucli.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PortAllocatorTest {
+
+    @TempDir
+    Path lucliHome;
+
+    private String previousLucliHome;
+
+    @BeforeEach
+    void useTempHome() {
+        previousLucliHome = System.getProperty("lucli.home");
+        System.setProperty("lucli.home", lucliHome.toString());
+    }
+
+    @AfterEach
+    void restoreHome() {
+        if (previousLucliHome == null) {
+            System.clearProperty("lucli.home");
+        } else {
+            System.setProperty("lucli.home", previousLucliHome);
+        }
+    }
+
+    @Test
+    void parsesListeningPortsFromKernelTables() {
+        Set<Integer> ports = PortAllocator.parseListeningPorts(List.of(
+                "  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid",
+                "   0: 0100007F:1F90 00000000:0000 0A 00000000:00000000 00:00000000 00000000  1000",
+                "   1: 0100007F:1F91 0100007F:D2A0 01 00000000:00000000 00:00000000 00000000  1000",
+                "   2: 00000000000000000000000000000000:2382 00000000000000000000000000000000:0000 0A 0"));
+
+        assertEquals(Set.of(8080, 9090), ports);
+    }
+
+    @Test
+    void skipsListeningPortsAndLeasesWhatItFinds() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            int busy = listener.getLocalPort();
+
+            int port = PortAllocator.allocate(ports -> ports.findAvailable(busy, busy, busy + 50, Set.of()));
+
+            assertNotEquals(busy, port);
+            String leases = Files.readString(leasesFile());
+            assertTrue(leases.contains("\"" + port + "\""), leases);
+            assertTrue(leases.contains("\"pid\":" + ProcessHandle.current().pid()), leases);
+
+            // This thread never conflicts with its own lease.
+            assertTrue(PortAllocator.check(ports -> ports.isAvailable(port)));
+        }
+    }
+
+    @Test
+    void otherThreadsOfThisProcessDoNotGetALeasedPort() throws Exception {
+        int base = freePortBlockStart();
+
+        int first = PortAllocator.allocate(ports -> ports.findAvailable(base, base, base + 10, Set.of()));
+        AtomicReference<Integer> second = new AtomicReference<>();
+        AtomicLong holder = new AtomicLong();
+        Thread other = new Thread(() -> second.set(PortAllocator.allocate(ports -> {
+            holder.set(ports.leaseHolder(first));
+            return ports.findAvailable(base, base, base + 10, Set.of());
+        })));
+        other.start();
+        other.join();
+
+        assertEquals(base, first);
+        assertEquals(base + 1, second.get().intValue(), "A concurrent start in this JVM must not reuse a leased port");
+        assertEquals(ProcessHandle.current().pid(), holder.get());
+        // The start that leased the port keeps it when it resolves its ports again.
+        int again = PortAllocator.allocate(ports -> ports.findAvailable(base, base, base + 10, Set.of()));
+        assertEquals(base, again);
+    }
+
+    @Test
+    void closingAStartOperationReleasesItsPorts() throws Exception {
+        int base = freePortBlockStart();
+
+        int first;
+        try (PortAllocator.Operation start = PortAllocator.beginOperation()) {
+            first = PortAllocator.allocate(ports -> ports.findAvailable(base, base, base + 10, Set.of()));
+            assertEquals(base, first);
+            assertEquals(base + 1, allocateOnNewThread(base), "A start in progress keeps its ports");
+        }
+
+        // The next start runs on a fresh thread, as daemon requests do.
+        assertEquals(first, allocateOnNewThread(base), "A finished start should not block the next one");
+    }
+
+    @Test
+    void respectsLiveLeasesOfOtherProcessesAndPrunesDeadOnes() throws Exception {
+        int base = freePortBlockStart();
+        long otherPid = ProcessHandle.current().parent().map(ProcessHandle::pid).orElseThrow();
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        Files.createDirectories(leasesFile().getParent());
+        Files.writeString(leasesFile(), "{"
+                + "\"" + base + "\":{\"pid\":" + otherPid + ",\"expiresAt\":" + expiresAt + "},"
+                + "\"" + (base + 1) + "\":{\"pid\":" + deadPid() + ",\"expiresAt\":" + expiresAt + "},"
+                + "\"" + (base + 2) + "\":{\"pid\":" + otherPid + ",\"expiresAt\":1}}");
+
+        int port = PortAllocator.allocate(ports -> {
+            assertEquals(otherPid, ports.leaseHolder(base));
+            assertFalse(ports.isAvailable(base));
+            return ports.findAvailable(base, base, base + 10, Set.of());
+        });
+
+        assertEquals(base + 1, port, "Leases of exited processes should not block allocation");
+        String leases = Files.readString(leasesFile());
+        assertTrue(leases.contains("\"" + base + "\""), "Live foreign lease should be kept: " + leases);
+        assertFalse(leases.contains("\"" + (base + 2) + "\""), "Expired lease should be pruned: " + leases);
+    }
+
+    @Test
+    void checkPassesDoNotReserveAndNestedPassesShareClaims() throws Exception {
+        int base = freePortBlockStart();
+
+        int checked = PortAllocator.check(ports -> ports.findAvailable(base, base, base + 10, Set.of()));
+        assertEquals(base, checked);
+        assertFalse(Files.exists(leasesFile()), "A check pass should not write leases");
+
+        List<Integer> pair = PortAllocator.allocate(ports -> List.of(
+                ports.findAvailable(base, base, base + 10, Set.of()),
+                PortAllocator.allocate(nested -> nested.findAvailable(base, base, base + 10, Set.of()))));
+        assertEquals(List.of(base, base + 1), pair, "A nested pass should see ports claimed by the outer one");
+    }
+
+    private static int allocateOnNewThread(int base) throws InterruptedException {
+        AtomicReference<Integer> port = new AtomicReference<>();
+        Thread thread = new Thread(() -> port.set(PortAllocator.allocate(ports -> ports.findAvailable(base, base, base + 10, Set.of()))));
+        thread.start();
+        thread.join();
+        return port.get();
+    }
+
+    private Path leasesFile() {
+        return lucliHome.resolve("servers").resolve(".port-leases.json");
+    }
+
+    /** First port of a run of 12 ports that nothing is listening on. */
+    private static int freePortBlockStart() throws Exception {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            int start;
+            try (ServerSocket probe = new ServerSocket(0)) {
+                start = probe.getLocalPort();
+            }
+            if (start > 65_000) {
+                continue;
+            }
+            int first = start;
+            boolean allFree = PortAllocator.check(ports -> {
+                for (int port = first; port < first + 12; port++) {
+                    if (!ports.isAvailable(port)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+            if (allFree) {
+                return start;
+            }
+        }
+        throw new IllegalStateException("No free block of ports found");
+    }
+
+    private static long deadPid() {
+        long candidate = ProcessHandle.current().pid() + 400_000L;
+        while (ProcessHandle.of(candidate).isPresent()) {
+            candidate++;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,237 @@
+package org.lucee.lucli.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+class RangeDownloaderTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @TempDir
+    Path dir;
+
+    private final byte[] payload = new byte[3 * (int) RangeDownloader.MIN_SEGMENT_BYTES + 12_345];
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final Set<String> ifRangeValues = ConcurrentHashMap.newKeySet();
+    /** When set, ranged responses stop halfway through and drop the connection. */
+    private final AtomicBoolean truncate = new AtomicBoolean();
+    private volatile boolean supportRanges = true;
+    /** When set, only the probe gets a partial response; later ranges get the whole file. */
+    private volatile boolean rangesOnlyForProbe;
+    /** When set, ranges after the probe are answered from this offset instead of the one requested. */
+    private volatile int misalignedStart = -1;
+    private volatile String etag = "\"v1\"";
+    private volatile String lastModified;
+    private volatile String reprDigest;
+
+    private HttpServer server;
+    private URI uri;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        new Random(42).nextBytes(payload);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/lucee.bin", this::serve);
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/lucee.bin");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadsInParallelRangesAndPublishesAtomically() throws Exception {
+        Path destination = dir.resolve("lucee.bin");
+
+        new RangeDownloader(RangeDownloader.newClient(), 4, 1, false).download(uri, destination, null);
+
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+        // The probe plus one request per segment.
+        assertEquals(5, rangeRequests.get());
+        assertFalse(Files.exists(dir.resolve("lucee.bin.part")));
+        assertFalse(Files.exists(dir.resolve("lucee.bin.part.json")));
+    }
+
+    @Test
+    void resumesAnInterruptedDownloadFromThePartFile() throws Exception {
+        Path destination = dir.resolve("lucee.bin");
+        RangeDownloader downloader = new RangeDownloader(RangeDownloader.newClient(), 4, 1, false);
+
+        truncate.set(true);
+        assertThrows(IOException.class, () -> downloader.download(uri, destination, null));
+        assertFalse(Files.exists(destination), "A failed download must not be published");
+        assertTrue(Files.exists(dir.resolve("lucee.bin.part.json")));
+
+        truncate.set(false);
+        bytesServed.set(0);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        downloader.download(uri, destination, sha256);
+
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+        assertTrue(bytesServed.get() < payload.length * 3L / 4,
+                "Resume should only fetch the missing bytes, fetched " + bytesServed.get());
+    }
+
+    @Test
+    void fallsBackToASingleStreamWhenRangesAreNotSupported() throws Exception {
+        supportRanges = false;
+        Path destination = dir.resolve("lucee.bin");
+
+        new RangeDownloader(RangeDownloader.newClient(), 4, 1, false).download(uri, destination, null);
+
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+        assertEquals(0, rangeRequests.get());
+    }
+
+    @Test
+    void streamsOnceWhenTheOnlyValidatorIsAWeakEtag() throws Exception {
+        etag = "W/\"v1\"";
+        Path destination = dir.resolve("lucee.bin");
+
+        new RangeDownloader(RangeDownloader.newClient(), 4, 1, false).download(uri, destination, null);
+
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+        assertEquals(1, rangeRequests.get(), "Only the probe should use a range");
+        assertFalse(Files.exists(dir.resolve("lucee.bin.part.json")));
+    }
+
+    @Test
+    void usesLastModifiedWhenTheEtagIsWeak() throws Exception {
+        etag = "W/\"v1\"";
+        lastModified = "Wed, 21 Oct 2026 07:28:00 GMT";
+        Path destination = dir.resolve("lucee.bin");
+
+        new RangeDownloader(RangeDownloader.newClient(), 4, 1, false).download(uri, destination, null);
+
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+        assertEquals(5, rangeRequests.get());
+        assertEquals(Set.of(lastModified), ifRangeValues);
+    }
+
+    @Test
+    void fallsBackToASingleStreamWhenARangeIsAnsweredWithTheWholeFile() throws Exception {
+        rangesOnlyForProbe = true;
+        Path destination = dir.resolve("lucee.bin");
+
+        new RangeDownloader(RangeDownloader.newClient(), 4, 1, false).download(uri, destination, null);
+
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+        assertFalse(Files.exists(dir.resolve("lucee.bin.part.json")));
+    }
+
+    @Test
+    void fallsBackToASingleStreamWhenARangeComesBackForOtherBytes() throws Exception {
+        misalignedStart = 0;
+        Path destination = dir.resolve("lucee.bin");
+
+        new RangeDownloader(RangeDownloader.newClient(), 4, 1, false).download(uri, destination, null);
+
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+        assertFalse(Files.exists(dir.resolve("lucee.bin.part.json")));
+    }
+
+    @Test
+    void checksTheDigestTheServerPublishes() throws Exception {
+        Path destination = dir.resolve("lucee.bin");
+        RangeDownloader downloader = new RangeDownloader(RangeDownloader.newClient(), 4, 1, false);
+
+        reprDigest = "sha-256=:" + Base64.getEncoder().encodeToString(new byte[32]) + ":";
+        IOException error = assertThrows(IOException.class, () -> downloader.download(uri, destination, null));
+        assertTrue(error.getMessage().contains("Checksum mismatch"), error.getMessage());
+        assertFalse(Files.exists(destination));
+
+        reprDigest = "sha-256=:" + Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-256").digest(payload)) + ":";
+        downloader.download(uri, destination, null);
+        assertArrayEquals(payload, Files.readAllBytes(destination));
+    }
+
+    @Test
+    void rejectsAChecksumMismatchWithoutPublishing() throws Exception {
+        Path destination = dir.resolve("lucee.bin");
+        String wrong = "0".repeat(64);
+
+        IOException error = assertThrows(IOException.class,
+                () -> new RangeDownloader(RangeDownloader.newClient(), 2, 1, false).download(uri, destination, wrong));
+
+        assertTrue(error.getMessage().contains("Checksum mismatch"), error.getMessage());
+        assertFalse(Files.exists(destination));
+        assertFalse(Files.exists(dir.resolve("lucee.bin.part")), "A corrupt part file should not be resumed");
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (etag != null) {
+                exchange.getResponseHeaders().add("ETag", etag);
+            }
+            if (lastModified != null) {
+                exchange.getResponseHeaders().add("Last-Modified", lastModified);
+            }
+            if (reprDigest != null) {
+                exchange.getResponseHeaders().add("Repr-Digest", reprDigest);
+            }
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            if (ifRange != null) {
+                ifRangeValues.add(ifRange);
+            }
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            boolean honour = supportRanges && (!rangesOnlyForProbe || "bytes=0-0".equals(range));
+            Matcher matcher = range != null && honour ? RANGE.matcher(range) : null;
+            if (matcher == null || !matcher.matches()) {
+                send(exchange, 200, 0, payload.length, payload.length);
+                return;
+            }
+            int start = misalignedStart >= 0 && !"bytes=0-0".equals(range)
+                    ? misalignedStart : Integer.parseInt(matcher.group(1));
+            int end = Math.min(Integer.parseInt(matcher.group(2)), payload.length - 1);
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + payload.length);
+            int length = end - start + 1;
+            rangeRequests.incrementAndGet();
+            send(exchange, 206, start, length, truncate.get() && length > 1 ? length / 2 : length);
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, int start, int length, int actual) throws IOException {
+        exchange.sendResponseHeaders(status, length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(payload, start, actual);
+        out.flush();
+        bytesServed.addAndGet(actual);
+        if (actual < length) {
+            // Leaves the response short, which the client sees as a dropped connection.
+            throw new IOException("truncated on purpose");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.lucee.lucli.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+class ServerReadinessTest {
+
+    @TempDir
+    Path serverDir;
+
+    @Test
+    void logMarkerMarksTomcatReady() throws Exception {
+        Files.createDirectories(serverDir.resolve("logs"));
+        Files.writeString(serverDir.resolve(".runtime-type"), "lucee-express");
+        Files.writeString(serverDir.resolve("logs/server.out"),
+                "INFO [main] org.apache.catalina.startup.Catalina.start Server startup in [1234] milliseconds\n");
+
+        ServerReadiness readiness = new ServerReadiness(unusedPort(), -1, null, null,
+                ServerReadiness.logTailsFor(serverDir));
+        ServerReadiness.Result result = readiness.await(5);
+
+        assertEquals(ServerReadiness.Signal.LOG, result.getSignal());
+    }
+
+    @Test
+    void appendedCatalinaOutOnlyCountsNewOutput() throws Exception {
+        Files.createDirectories(serverDir.resolve("logs"));
+        Path catalinaOut = serverDir.resolve("logs/catalina.out");
+        Files.writeString(catalinaOut, "Server startup in [900] milliseconds\n");
+
+        ServerReadiness readiness = new ServerReadiness(unusedPort(), -1, EnumSet.of(ServerReadiness.Signal.LOG), null,
+                ServerReadiness.logTailsFor(serverDir));
+        Exception timeout = assertThrows(Exception.class, () -> readiness.await(1));
+        assertTrue(timeout.getMessage().contains("timed out"), timeout.getMessage());
+
+        Files.writeString(catalinaOut, "Server startup in [800] milliseconds\n", java.nio.file.StandardOpenOption.APPEND);
+        assertEquals(ServerReadiness.Signal.LOG, readiness.await(5).getSignal());
+    }
+
+    @Test
+    void jettyStartedMarkerIsRecognised() throws Exception {
+        Files.createDirectories(serverDir.resolve("logs"));
+        Files.writeString(serverDir.resolve(".runtime-type"), "jetty");
+        Files.writeString(serverDir.resolve("logs/jetty.err"),
+                "2026-01-01 INFO :oejs.Server:main: Started oejs.Server@6f1fba17{STARTED}[12.0.16,sto=0] @2345ms\n");
+
+        ServerReadiness readiness = new ServerReadiness(unusedPort(), -1, null, null,
+                ServerReadiness.logTailsFor(serverDir));
+
+        assertEquals(ServerReadiness.Signal.LOG, readiness.await(5).getSignal());
+    }
+
+    @Test
+    void httpResponseMarksReadyAndReportsPhases() throws Exception {
+        HttpServer http = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        http.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        http.start();
+        try {
+            ServerReadiness readiness = new ServerReadiness(http.getAddress().getPort(), -1,
+                    EnumSet.of(ServerReadiness.Signal.HTTP), "health", List.of());
+            ServerReadiness.Result result = readiness.await(5);
+
+            assertEquals(ServerReadiness.Signal.HTTP, result.getSignal());
+            assertEquals(List.of(ServerReadiness.Signal.PORT, ServerReadiness.Signal.HTTP),
+                    List.copyOf(result.getPhases().keySet()));
+            assertTrue(result.describe().matches("in \\d+\\.\\d\\ds \\(port \\d+\\.\\d\\ds, http \\d+\\.\\d\\ds\\)"),
+                    result.describe());
+        } finally {
+            http.stop(0);
+        }
+    }
+
+    @Test
+    void portSignalAndFallbackWhenThereAreNoLogs() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            ServerReadiness readiness = new ServerReadiness(listener.getLocalPort(), -1,
+                    EnumSet.of(ServerReadiness.Signal.LOG), null, List.of());
+
+            assertEquals(EnumSet.of(ServerReadiness.Signal.PORT), readiness.signals());
+            assertEquals(ServerReadiness.Signal.PORT, readiness.await(5).getSignal());
+        }
+    }
+
+    @Test
+    void exitedTomcatLauncherIsNotMistakenForTheServer() throws Exception {
+        Files.createDirectories(serverDir.resolve("logs"));
+        // No process has this pid: the startup script that already exited.
+        LuceeServerManager.ServerInstance instance =
+                new LuceeServerManager.ServerInstance("t", Long.MAX_VALUE, unusedPort(), serverDir, serverDir);
+        ServerReadiness readiness = ServerReadiness.forInstance(instance, null);
+
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(300);
+                Files.writeString(serverDir.resolve("logs/server.out"), "Server startup in [5] milliseconds\n");
+            } catch (Exception ignored) {
+            }
+        });
+
+        assertEquals(ServerReadiness.Signal.LOG, readiness.await(5).getSignal());
+    }
+
+    @Test
+    void serverPidFromCatalinaPidIsWatchedOnceWritten() throws Exception {
+        LuceeServerManager.ServerInstance instance =
+                new LuceeServerManager.ServerInstance("t", ProcessHandle.current().pid(), unusedPort(), serverDir, serverDir);
+        ServerReadiness readiness = ServerReadiness.forInstance(instance, null);
+
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(300);
+                Files.writeString(serverDir.resolve("catalina.pid"), Long.MAX_VALUE + "\n");
+            } catch (Exception ignored) {
+            }
+        });
+
+        Exception exited = assertThrows(Exception.class, () -> readiness.await(5));
+        assertTrue(exited.getMessage().contains("exited before it was ready"), exited.getMessage());
+    }
+
+    @Test
+    void parseSignalsIgnoresUnknownNames() {
+        assertEquals(EnumSet.of(ServerReadiness.Signal.PORT, ServerReadiness.Signal.HTTP),
+                ServerReadiness.parseSignals(List.of("HTTP", " port ", "bogus")));
+        assertTrue(ServerReadiness.parseSignals(null).isEmpty());
+    }
+
+    private static int unusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
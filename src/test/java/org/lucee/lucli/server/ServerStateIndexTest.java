@@ -0,0 +1,178 @@
+package org.lucee.lucli.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ServerStateIndexTest {
+
+    @TempDir
+    Path serversDir;
+
+    @Test
+    void migratesLegacyMarkersAndThenAnswersFromTheIndex() throws Exception {
+        Path alpha = legacyServer("alpha", "1234:8080", "/projects/alpha");
+        Files.writeString(alpha.resolve(".environment"), "prod");
+        Files.writeString(alpha.resolve(".config-file"), "lucee-static.json");
+        Path docker = legacyServer("docker", "-1:9090", "/projects/docker");
+        Files.writeString(docker.resolve(".docker-container"), "lucli-docker");
+        Path empty = Files.createDirectories(serversDir.resolve("empty"));
+
+        ServerStateIndex index = new ServerStateIndex(serversDir);
+        Map<String, ServerStateIndex.Entry> entries = index.entries(List.of(alpha, docker, empty));
+
+        assertState(entries.get("alpha"), 1234, 8080, "/projects/alpha", "prod", null, "lucee-static.json");
+        assertState(entries.get("docker"), -1, 9090, "/projects/docker", null, "lucli-docker", null);
+        assertState(entries.get("empty"), -1, -1, null, null, null, null);
+        assertTrue(Files.isRegularFile(index.indexFile()), "Migration should write the index");
+
+        index.refresh(alpha);
+        assertState(new ServerStateIndex(serversDir).entry("alpha"), 1234, 8080, "/projects/alpha", "prod", null,
+                "lucee-static.json");
+    }
+
+    @Test
+    void trustsAnEntryOnlyWhileEveryMarkerIsUnchanged() throws Exception {
+        Path alpha = legacyServer("alpha", "1234:8080", "/projects/alpha");
+        Files.writeString(alpha.resolve(".environment"), "prod");
+        age(alpha);
+        ServerStateIndex index = new ServerStateIndex(serversDir);
+        ServerStateIndex.Entry indexed = index.entry("alpha");
+        assertFalse(ServerStateIndex.isOutdated(indexed, alpha), "Old, unchanged markers need no re-read");
+
+        // Hand edits to markers other than server.pid are picked up too.
+        Files.writeString(alpha.resolve(".environment"), "staging");
+        Files.writeString(alpha.resolve(".config-file"), "lucee-static.json");
+        assertTrue(ServerStateIndex.isOutdated(indexed, alpha));
+        ServerStateIndex.Entry revalidated = new ServerStateIndex(serversDir).entry("alpha");
+        assertState(revalidated, 1234, 8080, "/projects/alpha", "staging", null, "lucee-static.json");
+    }
+
+    @Test
+    void rereadsMarkersWrittenInTheSameClockTickAsTheRead() throws Exception {
+        Path alpha = legacyServer("alpha", "1111:8080", "/projects/alpha");
+        FileTime written = Files.getLastModifiedTime(alpha.resolve("server.pid"));
+        ServerStateIndex index = new ServerStateIndex(serversDir);
+        assertEquals(1111, index.entry("alpha").pid());
+
+        // Same size and, as far as the filesystem clock can tell, the same time.
+        Files.writeString(alpha.resolve("server.pid"), "2222:8080");
+        Files.setLastModifiedTime(alpha.resolve("server.pid"), written);
+
+        assertEquals(2222, index.entry("alpha").pid());
+    }
+
+    @Test
+    void revalidatesAnEntryWhoseServerPidChangedWithoutARefresh() throws Exception {
+        Path alpha = legacyServer("alpha", "1234:8080", "/projects/alpha");
+        Path beta = legacyServer("beta", "2:8081", null);
+        ServerStateIndex index = new ServerStateIndex(serversDir);
+        index.entries(List.of(alpha, beta));
+
+        // A writer that never reported its change, e.g. a process killed on exit.
+        Files.writeString(alpha.resolve("server.pid"), "5678:8082");
+        Files.delete(beta.resolve("server.pid"));
+
+        Map<String, ServerStateIndex.Entry> entries = index.entries(List.of(alpha, beta));
+        assertEquals(5678, entries.get("alpha").pid());
+        assertEquals(8082, entries.get("alpha").port());
+        assertEquals(-1, entries.get("beta").pid());
+
+        // The revalidated entries were written back.
+        assertEquals(5678, new ServerStateIndex(serversDir).entry("alpha").pid());
+        assertTrue(Files.readString(index.indexFile()).contains("5678"));
+    }
+
+    @Test
+    void dropsEntriesForDeletedServerDirectories() throws Exception {
+        Path alpha = legacyServer("alpha", "1:8080", null);
+        Path beta = legacyServer("beta", "2:8081", null);
+        ServerStateIndex index = new ServerStateIndex(serversDir);
+        index.entries(List.of(alpha, beta));
+
+        Files.delete(beta.resolve("server.pid"));
+        Files.delete(beta);
+        assertNull(index.entry("beta"));
+
+        assertEquals(List.of("alpha"), List.copyOf(index.entries(List.of(alpha)).keySet()));
+        assertFalse(Files.readString(index.indexFile()).contains("\"beta\""));
+    }
+
+    @Test
+    void rebuildsFromMarkersWhenTheIndexIsCorrupt() throws Exception {
+        Path alpha = legacyServer("alpha", "1234:8080", null);
+        Files.writeString(serversDir.resolve(ServerStateIndex.INDEX_FILE), "{not json");
+
+        ServerStateIndex index = new ServerStateIndex(serversDir);
+        assertEquals(1234, index.entry("alpha").pid());
+        assertTrue(Files.readString(index.indexFile()).contains("\"alpha\""));
+    }
+
+    @Test
+    void concurrentRefreshesKeepEveryServer() throws Exception {
+        int count = 32;
+        Path[] dirs = new Path[count];
+        for (int i = 0; i < count; i++) {
+            dirs[i] = legacyServer("server-" + i, (1000 + i) + ":" + (8000 + i), null);
+        }
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> refreshes = new ArrayList<>();
+            for (Path dir : dirs) {
+                refreshes.add(pool.submit(() -> new ServerStateIndex(serversDir).refresh(dir)));
+            }
+            for (Future<?> refresh : refreshes) {
+                refresh.get();
+            }
+        }
+
+        String json = Files.readString(serversDir.resolve(ServerStateIndex.INDEX_FILE));
+        for (int i = 0; i < count; i++) {
+            assertTrue(json.contains("\"server-" + i + "\""), "Index lost server-" + i);
+        }
+    }
+
+    private static void assertState(ServerStateIndex.Entry entry, long pid, int port, String projectPath,
+                                    String environment, String dockerContainer, String configFile) {
+        assertEquals(pid, entry.pid());
+        assertEquals(port, entry.port());
+        assertEquals(projectPath, entry.projectPath());
+        assertEquals(environment, entry.environment());
+        assertEquals(dockerContainer, entry.dockerContainer());
+        assertEquals(configFile, entry.configFile());
+    }
+
+    /** Move every marker's mtime well outside the racy window. */
+    private static void age(Path serverDir) throws Exception {
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+        for (String marker : ServerStateIndex.MARKERS) {
+            Path file = serverDir.resolve(marker);
+            if (Files.exists(file)) {
+                Files.setLastModifiedTime(file, old);
+            }
+        }
+    }
+
+    private Path legacyServer(String name, String pidRecord, String projectPath) throws Exception {
+        Path dir = Files.createDirectories(serversDir.resolve(name));
+        Files.writeString(dir.resolve("server.pid"), pidRecord);
+        if (projectPath != null) {
+            Files.writeString(dir.resolve(".project-path"), projectPath);
+        }
+        return dir;
+    }
+}
@@ -1,5 +1,6 @@
 package org.lucee.lucli.server;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -61,4 +62,108 @@ public class TomcatServerXmlPatcherTest {
         // Shutdown port should track the effective shutdown port
         assertTrue(result.contains("Server port=\"9100\""), "Server shutdown port should be updated to 9100");
     }
+
+    @Test
+    void patchContent_appliesHttpPerformanceToConnectorsAndAddsVirtualThreadExecutor() throws Exception {
+        String serverXml = """
+            <Server port="8005" shutdown="SHUTDOWN">
+              <Service name="Catalina">
+                <Connector port="8080" protocol="HTTP/1.1" />
+                <Connector protocol="AJP/1.3" port="8009" secretRequired="false" redirectPort="8443" />
+                <Engine name="Catalina" defaultHost="localhost">
+                  <Host name="localhost" appBase="webapps" />
+                </Engine>
+              </Service>
+            </Server>
+            """;
+
+        LuceeServerConfig.ServerConfig config = new LuceeServerConfig.ServerConfig();
+        config.ajp.enabled = true;
+        config.performance = new LuceeServerConfig.PerformanceConfig();
+        config.performance.http = new LuceeServerConfig.HttpPerformanceConfig();
+        config.performance.http.virtualThreads = true;
+        config.performance.http.maxThreads = 400;
+        config.performance.http.acceptCount = 250;
+        config.performance.http.maxConnections = 20000;
+        config.performance.http.keepAliveTimeout = 15000;
+        config.performance.http.maxKeepAliveRequests = 500;
+        config.performance.http.compression = "true";
+        config.performance.http.compressionMinSize = 1024;
+
+        Path projectDir = Paths.get(".").toAbsolutePath().normalize();
+        String result = new TomcatServerXmlPatcher(c -> 21).patchContent(serverXml, config, projectDir, null, false, "10.1.28");
+
+        assertTrue(result.contains("className=\"org.apache.catalina.core.StandardVirtualThreadExecutor\""), result);
+        assertTrue(result.indexOf("<Executor") < result.indexOf("<Connector"),
+                "Executor must be declared before the connectors that reference it");
+        assertTrue(result.contains("executor=\"lucliVirtualThreadExecutor\""), result);
+        assertTrue(result.contains("maxThreads=\"400\""), result);
+        assertTrue(result.contains("acceptCount=\"250\""), result);
+        assertTrue(result.contains("maxConnections=\"20000\""), result);
+        assertTrue(result.contains("keepAliveTimeout=\"15000\""), result);
+        assertTrue(result.contains("maxKeepAliveRequests=\"500\""), result);
+        assertTrue(result.contains("compression=\"on\""), result);
+        assertTrue(result.contains("compressionMinSize=\"1024\""), result);
+
+        // The AJP connector is not an HTTP connector and keeps the vendor defaults.
+        int ajpStart = result.indexOf("AJP/1.3");
+        String ajpConnector = result.substring(result.lastIndexOf("<Connector", ajpStart), result.indexOf("/>", ajpStart));
+        assertFalse(ajpConnector.contains("maxThreads"), ajpConnector);
+    }
+
+    @Test
+    void patchContent_skipsVirtualThreadExecutorBeforeTomcat101() throws Exception {
+        String serverXml = """
+            <Server port="8005" shutdown="SHUTDOWN">
+              <Service name="Catalina">
+                <Connector port="8080" protocol="HTTP/1.1" />
+              </Service>
+            </Server>
+            """;
+
+        LuceeServerConfig.ServerConfig config = new LuceeServerConfig.ServerConfig();
+        config.performance = new LuceeServerConfig.PerformanceConfig();
+        config.performance.http = new LuceeServerConfig.HttpPerformanceConfig();
+        config.performance.http.virtualThreads = true;
+        config.performance.http.maxThreads = 300;
+
+        Path projectDir = Paths.get(".").toAbsolutePath().normalize();
+        TomcatServerXmlPatcher patcher = new TomcatServerXmlPatcher(c -> 21);
+
+        for (String version : new String[] {"9.0.98", "10", null}) {
+            String result = patcher.patchContent(serverXml, config, projectDir, null, false, version);
+            assertFalse(result.contains("<Executor"), "No executor expected for Tomcat " + version);
+            assertFalse(result.contains("executor="), "No executor expected for Tomcat " + version);
+            assertTrue(result.contains("maxThreads=\"300\""), result);
+        }
+        assertTrue(TomcatServerXmlPatcher.supportsVirtualThreadExecutor("11.0.2"));
+        assertTrue(TomcatServerXmlPatcher.supportsVirtualThreadExecutor("10.1"));
+    }
+
+    @Test
+    void patchContent_keepsPlatformThreadsWhenServerJavaIsOlderThan21() throws Exception {
+        String serverXml = """
+            <Server port="8005" shutdown="SHUTDOWN">
+              <Service name="Catalina">
+                <Connector port="8080" protocol="HTTP/1.1" />
+              </Service>
+            </Server>
+            """;
+
+        LuceeServerConfig.ServerConfig config = new LuceeServerConfig.ServerConfig();
+        config.performance = new LuceeServerConfig.PerformanceConfig();
+        config.performance.http = new LuceeServerConfig.HttpPerformanceConfig();
+        config.performance.http.virtualThreads = true;
+        config.performance.http.maxThreads = 300;
+
+        Path projectDir = Paths.get(".").toAbsolutePath().normalize();
+
+        // 0 = the server's Java version could not be determined.
+        for (int javaVersion : new int[] {17, 0}) {
+            String result = new TomcatServerXmlPatcher(c -> javaVersion)
+                    .patchContent(serverXml, config, projectDir, null, false, "10.1.28");
+            assertFalse(result.contains("<Executor"), "No executor expected on Java " + javaVersion);
+            assertTrue(result.contains("maxThreads=\"300\""), result);
+        }
+    }
 }
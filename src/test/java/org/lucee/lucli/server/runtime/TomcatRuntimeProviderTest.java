@@ -5,8 +5,11 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -292,6 +295,30 @@ public class TomcatRuntimeProviderTest {
                 "lib directory should be created");
     }
 
+    // ── detectTomcatVersion ─────────────────────────────────────────────
+
+    @Test
+    void detectTomcatVersion_readsServerInfoFromCatalinaJar() throws Exception {
+        Path catalinaHome = createValidTomcatHome("versioned-tomcat");
+        try (JarOutputStream jar = new JarOutputStream(
+                Files.newOutputStream(catalinaHome.resolve("lib/catalina.jar")))) {
+            jar.putNextEntry(new JarEntry("org/apache/catalina/util/ServerInfo.properties"));
+            jar.write(("server.info=Apache Tomcat/10.1.28\n"
+                    + "server.number=10.1.28.0\n").getBytes(StandardCharsets.ISO_8859_1));
+            jar.closeEntry();
+        }
+
+        assertEquals("10.1.28", TomcatRuntimeProvider.detectTomcatVersion(catalinaHome));
+    }
+
+    @Test
+    void detectTomcatVersion_returnsNullWithoutCatalinaJar() throws Exception {
+        Path catalinaHome = createValidTomcatHome("no-jar-tomcat");
+
+        assertNull(TomcatRuntimeProvider.detectTomcatVersion(catalinaHome));
+        assertNull(TomcatRuntimeProvider.detectTomcatVersion(null));
+    }
+
     // ── Reflection helpers ──────────────────────────────────────────────
 
     private void invokeValidateTomcatInstallation(Path catalinaHome) throws Exception {
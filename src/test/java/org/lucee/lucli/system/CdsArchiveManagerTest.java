@@ -0,0 +1,57 @@
+package org.lucee.lucli.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.lucee.lucli.paths.LucliPaths;
+
+class CdsArchiveManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void archiveFileNameMatchesLauncherKey() {
+        // src/bin/lucli.sh: sed 's/[^A-Za-z0-9._-]/_/g' over "<size>-<mtime>-<java version>"
+        assertEquals("lucli-1234-1700000000-21.0.2.jsa",
+            CdsArchiveManager.archiveFileName(1234, 1700000000L, "21.0.2"));
+        assertEquals("lucli-1-2-21.0.2_13-LTS.jsa",
+            CdsArchiveManager.archiveFileName(1, 2, "21.0.2+13-LTS"));
+    }
+
+    @Test
+    void pruneKeepsOnlyTheRequestedArchive() throws Exception {
+        LucliPaths.ResolvedPaths paths = LucliPaths.forHome(tempDir.resolve("lucli-home"), "test");
+        Files.createDirectories(paths.cdsDir());
+        Path keep = Files.writeString(paths.cdsDir().resolve("lucli-2-2-21.jsa"), "new");
+        Path stale = Files.writeString(paths.cdsDir().resolve("lucli-1-1-21.jsa"), "old");
+        Path log = Files.writeString(paths.cdsDir().resolve("training.log"), "log");
+
+        CdsArchiveManager manager = new CdsArchiveManager(paths);
+        assertEquals(List.of(stale, keep), manager.listArchives());
+        assertEquals(1, manager.pruneExcept(keep));
+
+        assertTrue(Files.exists(keep));
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(log));
+    }
+
+    @Test
+    void trainingSplitsWorkloadsOnSeparator() {
+        List<List<String>> workloads = CdsTraining.split(
+            new String[] {"--version", "::", "cfml", "now()", "::", "::", "modules", "list"});
+
+        assertEquals(List.of(
+            List.of("--version"),
+            List.of("cfml", "now()"),
+            List.of("modules", "list")
+        ), workloads);
+    }
+}
@@ -0,0 +1,347 @@
+#!/bin/bash
+
+set -euo pipefail
+
+ROOT_DIR="$(cd "$(dirname "$0")/../.." && pwd)"
+PERF_DIR="${ROOT_DIR}/tests/perf"
+LUCLI_JAR="${ROOT_DIR}/target/lucli.jar"
+
+RUNS=10
+WARMUP=2
+OUTPUT_FILE="${PERF_DIR}/commands-latest.json"
+BASELINE_DIR=""
+SAVE_BASELINE_DIR=""
+MAX_REGRESSION_PCT=""
+MIN_REGRESSION_MS=0
+PERCENTILES="median_ms,p95_ms"
+ONLY=""
+SERVER_COUNT=200
+MODULE_COUNT=25
+
+usage() {
+    cat <<'EOF'
+Usage: tests/perf/benchmark-commands.sh [options]
+
+Runs end-to-end latency benchmarks for everyday commands, each in its own
+LUCLI_HOME built from a fixture under tests/perf/fixtures/:
+
+  modules_list          lucli modules list            (--module-count modules)
+  module_run            lucli modules run perf_module
+  server_list           lucli server list             (--server-count server dirs)
+  deps_install_dry_run  lucli deps install --dry-run  (50 git dependencies)
+  completion_bash       lucli completion bash
+  lucli_script          lucli run perf.lucli
+  server_start_dry_run  lucli server start --dry-run
+
+Baselines are kept per command as <name>.json in a directory, so commands can
+be added, dropped or re-baselined independently.
+
+Options:
+  --runs <n>                  Number of measured runs per command (default: 10)
+  --warmup <n>                Number of warmup runs per command (default: 2)
+  --output <path>             JSON output file (default: tests/perf/commands-latest.json)
+  --baselines <dir>           Compare against <dir>/<name>.json
+  --save-baselines <dir>      Write each result to <dir>/<name>.json
+  --percentiles <list>        Result fields to compare (default: median_ms,p95_ms)
+  --max-regression-pct <pct>  Fail if any compared percentile regresses by more than pct
+  --min-regression-ms <ms>    Ignore regressions smaller than ms (default: 0)
+  --only <list>               Comma-separated benchmark names to run
+  --server-count <n>          Server directories for server_list (default: 200)
+  --module-count <n>          Installed modules for modules_list (default: 25)
+  --help                      Show this help
+EOF
+}
+
+while [[ $# -gt 0 ]]; do
+    case "$1" in
+        --runs)
+            RUNS="$2"
+            shift 2
+            ;;
+        --warmup)
+            WARMUP="$2"
+            shift 2
+            ;;
+        --output)
+            OUTPUT_FILE="$2"
+            shift 2
+            ;;
+        --baselines)
+            BASELINE_DIR="$2"
+            shift 2
+            ;;
+        --save-baselines)
+            SAVE_BASELINE_DIR="$2"
+            shift 2
+            ;;
+        --percentiles)
+            PERCENTILES="$2"
+            shift 2
+            ;;
+        --max-regression-pct)
+            MAX_REGRESSION_PCT="$2"
+            shift 2
+            ;;
+        --min-regression-ms)
+            MIN_REGRESSION_MS="$2"
+            shift 2
+            ;;
+        --only)
+            ONLY="$2"
+            shift 2
+            ;;
+        --server-count)
+            SERVER_COUNT="$2"
+            shift 2
+            ;;
+        --module-count)
+            MODULE_COUNT="$2"
+            shift 2
+            ;;
+        --help|-h)
+            usage
+            exit 0
+            ;;
+        *)
+            echo "Unknown option: $1" >&2
+            usage
+            exit 1
+            ;;
+    esac
+done
+
+for pair in "runs:${RUNS}" "server-count:${SERVER_COUNT}" "module-count:${MODULE_COUNT}"; do
+    if ! [[ "${pair#*:}" =~ ^[0-9]+$ ]] || [[ "${pair#*:}" -le 0 ]]; then
+        echo "--${pair%%:*} must be a positive integer" >&2
+        exit 1
+    fi
+done
+
+if ! [[ "${WARMUP}" =~ ^[0-9]+$ ]]; then
+    echo "--warmup must be a non-negative integer" >&2
+    exit 1
+fi
+
+if [[ -n "${MAX_REGRESSION_PCT}" ]] && ! [[ "${MAX_REGRESSION_PCT}" =~ ^[0-9]+([.][0-9]+)?$ ]]; then
+    echo "--max-regression-pct must be a non-negative number" >&2
+    exit 1
+fi
+
+if ! [[ "${MIN_REGRESSION_MS}" =~ ^[0-9]+([.][0-9]+)?$ ]]; then
+    echo "--min-regression-ms must be a non-negative number" >&2
+    exit 1
+fi
+
+if [[ -n "${BASELINE_DIR}" && ! -d "${BASELINE_DIR}" ]]; then
+    echo "Baseline directory not found: ${BASELINE_DIR}" >&2
+    exit 1
+fi
+
+if ! command -v python3 >/dev/null 2>&1; then
+    echo "python3 is required for benchmarking" >&2
+    exit 1
+fi
+
+if [[ "${CI:-}" != "true" && -f "${ROOT_DIR}/.sdkmanrc" ]]; then
+    SDKMAN_JAVA_VERSION="$(grep '^java=' "${ROOT_DIR}/.sdkmanrc" | head -n 1 | cut -d'=' -f2- | xargs || true)"
+    if [[ -n "${SDKMAN_JAVA_VERSION}" && -d "${HOME}/.sdkman/candidates/java/${SDKMAN_JAVA_VERSION}" ]]; then
+        export JAVA_HOME="${HOME}/.sdkman/candidates/java/${SDKMAN_JAVA_VERSION}"
+        export PATH="${JAVA_HOME}/bin:${PATH}"
+    fi
+fi
+
+if [[ ! -f "${LUCLI_JAR}" ]] || ! java -jar "${LUCLI_JAR}" --version >/dev/null 2>&1; then
+    echo "ℹ️ LuCLI jar missing or not runnable with current Java, building target/lucli.jar..."
+    (
+        cd "${ROOT_DIR}"
+        mvn package -q -Dmaven.test.skip=true -Djreleaser.dry.run=true
+    )
+fi
+
+mkdir -p "$(dirname "${OUTPUT_FILE}")"
+
+python3 - "${LUCLI_JAR}" "${PERF_DIR}/fixtures" "${RUNS}" "${WARMUP}" "${OUTPUT_FILE}" "${BASELINE_DIR}" "${SAVE_BASELINE_DIR}" \
+    "${PERCENTILES}" "${MAX_REGRESSION_PCT}" "${MIN_REGRESSION_MS}" "${ONLY}" "${SERVER_COUNT}" "${MODULE_COUNT}" <<'PY'
+import datetime
+import json
+import math
+import os
+import shutil
+import statistics
+import subprocess
+import sys
+import tempfile
+import time
+from pathlib import Path
+
+jar = sys.argv[1]
+fixtures = Path(sys.argv[2])
+runs = int(sys.argv[3])
+warmup = int(sys.argv[4])
+output_file = sys.argv[5]
+baseline_dir = Path(sys.argv[6]) if sys.argv[6] else None
+save_baseline_dir = Path(sys.argv[7]) if sys.argv[7] else None
+percentiles = [p.strip() for p in sys.argv[8].split(",") if p.strip()]
+max_regression = float(sys.argv[9]) if sys.argv[9] else None
+min_regression_ms = float(sys.argv[10])
+only = {n.strip() for n in sys.argv[11].split(",") if n.strip()}
+server_count = int(sys.argv[12])
+module_count = int(sys.argv[13])
+
+
+# Each setup gets a fresh LUCLI_HOME and working directory and returns the
+# arguments to run there. Fixtures are copied so runs never modify the tree.
+def setup_modules_list(home, work):
+    for i in range(1, module_count + 1):
+        shutil.copytree(fixtures / "module-run" / "perf_module", home / "modules" / f"perf_module_{i:02d}")
+    return ["modules", "list"]
+
+def setup_module_run(home, work):
+    shutil.copytree(fixtures / "module-run" / "perf_module", home / "modules" / "perf_module")
+    return ["modules", "run", "perf_module", "count=200"]
+
+def setup_server_list(home, work):
+    for i in range(1, server_count + 1):
+        shutil.copytree(fixtures / "server-list" / "server-template", home / "servers" / f"perf-server-{i:03d}")
+    return ["server", "list"]
+
+def setup_deps_install_dry_run(home, work):
+    shutil.copy(fixtures / "deps-install" / "lucee.json", work / "lucee.json")
+    return ["deps", "install", "--dry-run"]
+
+def setup_completion_bash(home, work):
+    return ["completion", "bash"]
+
+def setup_lucli_script(home, work):
+    shutil.copy(fixtures / "lucli-script" / "perf.lucli", work / "perf.lucli")
+    return ["run", "perf.lucli"]
+
+def setup_server_start_dry_run(home, work):
+    shutil.copy(fixtures / "server-start" / "lucee.json", work / "lucee.json")
+    return ["server", "start", "--dry-run", str(work)]
+
+benchmarks = [
+    ("modules_list", setup_modules_list),
+    ("module_run", setup_module_run),
+    ("server_list", setup_server_list),
+    ("deps_install_dry_run", setup_deps_install_dry_run),
+    ("completion_bash", setup_completion_bash),
+    ("lucli_script", setup_lucli_script),
+    ("server_start_dry_run", setup_server_start_dry_run),
+]
+
+unknown = only - {name for name, _ in benchmarks}
+if unknown:
+    raise SystemExit(f"Unknown benchmark(s) for --only: {', '.join(sorted(unknown))}")
+
+def percentile(values, q):
+    if not values:
+        return 0.0
+    ordered = sorted(values)
+    idx = max(0, math.ceil(q * len(ordered)) - 1)
+    return ordered[idx]
+
+def run_benchmark(name, setup, scratch):
+    home = scratch / name / "home"
+    work = scratch / name / "work"
+    home.mkdir(parents=True)
+    work.mkdir(parents=True)
+    # Reuse downloaded Lucee Express distributions, as the BATS helpers do.
+    shared_express = Path.home() / ".lucli" / "express"
+    if shared_express.is_dir():
+        (home / "express").symlink_to(shared_express)
+    args = setup(home, work)
+    command = ["java", "-jar", jar, *args]
+    env = dict(os.environ, LUCLI_HOME=str(home))
+
+    def run_once():
+        proc = subprocess.run(command, cwd=work, env=env, stdout=subprocess.DEVNULL, stderr=subprocess.PIPE)
+        if proc.returncode != 0:
+            detail = proc.stderr.decode("utf-8", "replace").strip().splitlines()[-5:]
+            raise RuntimeError(f"{name} exited with {proc.returncode}: {' | '.join(detail)}")
+
+    for _ in range(warmup):
+        run_once()
+
+    durations = []
+    for _ in range(runs):
+        started = time.perf_counter()
+        run_once()
+        durations.append((time.perf_counter() - started) * 1000.0)
+
+    return {
+        "runs": runs,
+        "warmup_runs": warmup,
+        "command": " ".join(["lucli", *args]).replace(str(work), "<fixture>"),
+        "mean_ms": round(statistics.mean(durations), 3),
+        "median_ms": round(statistics.median(durations), 3),
+        "p95_ms": round(percentile(durations, 0.95), 3),
+        "p99_ms": round(percentile(durations, 0.99), 3),
+        "min_ms": round(min(durations), 3),
+        "max_ms": round(max(durations), 3),
+        "stddev_ms": round(statistics.pstdev(durations), 3),
+        "samples_ms": [round(v, 3) for v in durations],
+    }
+
+def document(results):
+    return {
+        "generated_at_utc": datetime.datetime.now(datetime.timezone.utc).isoformat(),
+        "runs": runs,
+        "warmup_runs": warmup,
+        "results": results,
+    }
+
+results = {}
+with tempfile.TemporaryDirectory(prefix="lucli-perf-") as tmp:
+    for name, setup in benchmarks:
+        if only and name not in only:
+            continue
+        print(f"Running {name}...", flush=True)
+        results[name] = run_benchmark(name, setup, Path(tmp))
+
+Path(output_file).write_text(json.dumps(document(results), indent=2) + "\n", encoding="utf-8")
+
+print(f"Saved benchmark JSON: {output_file}")
+for name, metrics in results.items():
+    print(
+        f"{name}: median={metrics['median_ms']}ms, p95={metrics['p95_ms']}ms, p99={metrics['p99_ms']}ms, "
+        f"mean={metrics['mean_ms']}ms, min={metrics['min_ms']}ms, max={metrics['max_ms']}ms"
+    )
+
+if save_baseline_dir:
+    save_baseline_dir.mkdir(parents=True, exist_ok=True)
+    for name, metrics in results.items():
+        (save_baseline_dir / f"{name}.json").write_text(
+            json.dumps(document({name: metrics}), indent=2) + "\n", encoding="utf-8")
+    print(f"Saved per-command baselines: {save_baseline_dir}")
+
+if baseline_dir:
+    failing = []
+    print("")
+    print(f"Comparison against baselines: {baseline_dir}")
+    for name, metrics in results.items():
+        baseline_file = baseline_dir / f"{name}.json"
+        if not baseline_file.is_file():
+            print(f"{name}: no baseline; skipped")
+            continue
+        baseline = json.loads(baseline_file.read_text(encoding="utf-8")).get("results", {}).get(name, {})
+        for field in percentiles:
+            current = metrics.get(field)
+            previous = baseline.get(field)
+            if current is None or not previous:
+                print(f"{name}.{field}: baseline value missing; skipped")
+                continue
+            delta_ms = current - previous
+            delta_pct = (delta_ms / previous) * 100.0
+            direction = "faster" if delta_ms < 0 else "slower"
+            print(
+                f"{name}.{field}: baseline={previous}ms -> current={current}ms "
+                f"({abs(delta_ms):.3f}ms, {abs(delta_pct):.2f}% {direction})"
+            )
+            if max_regression is not None and delta_pct > max_regression and delta_ms > min_regression_ms:
+                failing.append((f"{name}.{field}", delta_pct))
+
+    if failing:
+        labels = ", ".join([f"{label} ({pct:.2f}%)" for label, pct in failing])
+        raise SystemExit(f"Regression threshold exceeded ({max_regression}%): {labels}")
+PY
@@ -11,6 +11,7 @@ WARMUP=3
 OUTPUT_FILE="${ROOT_DIR}/tests/perf/benchmark-latest.json"
 BASELINE_FILE=""
 MAX_REGRESSION_PCT=""
+WITH_CDS=true
 
 usage() {
     cat <<'EOF'
@@ -20,12 +21,16 @@ Runs repeatable latency benchmarks for:
   1) startup/version command: lucli --version
   2) simple CFML command:     lucli cfml 'writeOutput(now())'
 
+Each command is measured cold and, unless --no-cds is given, again with an
+AppCDS archive generated by `lucli system cds` (rows suffixed with _cds).
+
 Options:
   --runs <n>                  Number of measured runs per command (default: 20)
   --warmup <n>                Number of warmup runs per command (default: 3)
   --output <path>             JSON output file (default: tests/perf/benchmark-latest.json)
   --baseline <path>           Baseline JSON to compare against
   --max-regression-pct <pct>  Fail if any median latency regression exceeds pct
+  --no-cds                    Skip AppCDS archive generation and the _cds rows
   --help                      Show this help
 EOF
 }
@@ -52,6 +57,10 @@ while [[ $# -gt 0 ]]; do
             MAX_REGRESSION_PCT="$2"
             shift 2
             ;;
+        --no-cds)
+            WITH_CDS=false
+            shift
+            ;;
         --help|-h)
             usage
             exit 0
@@ -117,7 +126,19 @@ fi
 
 mkdir -p "$(dirname "${OUTPUT_FILE}")"
 
-python3 - "${LUCLI_JAR}" "${RUNS}" "${WARMUP}" "${OUTPUT_FILE}" "${BASELINE_FILE}" "${MAX_REGRESSION_PCT}" <<'PY'
+CDS_ARCHIVE=""
+if [[ "${WITH_CDS}" == "true" ]]; then
+    echo "ℹ️ Generating AppCDS archive (lucli system cds)..."
+    if java -jar "${LUCLI_JAR}" system cds >/dev/null 2>&1; then
+        CDS_ARCHIVE="$(java -jar "${LUCLI_JAR}" system cds --path 2>/dev/null | tail -n 1)"
+    fi
+    if [[ -z "${CDS_ARCHIVE}" || ! -f "${CDS_ARCHIVE}" ]]; then
+        echo "⚠️ AppCDS archive generation failed; skipping _cds rows" >&2
+        CDS_ARCHIVE=""
+    fi
+fi
+
+python3 - "${LUCLI_JAR}" "${RUNS}" "${WARMUP}" "${OUTPUT_FILE}" "${BASELINE_FILE}" "${MAX_REGRESSION_PCT}" "${CDS_ARCHIVE}" <<'PY'
 import datetime
 import json
 import math
@@ -134,12 +155,20 @@ output_file = sys.argv[4]
 baseline_file = sys.argv[5]
 max_regression_raw = sys.argv[6]
 max_regression = float(max_regression_raw) if max_regression_raw else None
+cds_archive = sys.argv[7] if len(sys.argv) > 7 else ""
 
 benchmarks = [
     ("startup_version", ["java", "-jar", jar, "--version"]),
     ("cfml_now", ["java", "-jar", jar, "cfml", "writeOutput(now())"]),
 ]
 
+if cds_archive:
+    cds_flags = [f"-XX:SharedArchiveFile={cds_archive}", "-Xlog:cds=off", "-Xlog:cds+dynamic=off"]
+    benchmarks += [
+        ("startup_version_cds", ["java", *cds_flags, "-jar", jar, "--version"]),
+        ("cfml_now_cds", ["java", *cds_flags, "-jar", jar, "cfml", "writeOutput(now())"]),
+    ]
+
 def p95(values):
     if not values:
         return 0.0
@@ -182,19 +211,26 @@ payload = {
     "generated_at_utc": datetime.datetime.now(datetime.timezone.utc).isoformat(),
     "runs": runs,
     "warmup_runs": warmup,
+    "cds_archive": cds_archive or None,
     "results": results,
 }
 
 Path(output_file).write_text(json.dumps(payload, indent=2) + "\n", encoding="utf-8")
 
 print(f"Saved benchmark JSON: {output_file}")
-for name in ["startup_version", "cfml_now"]:
+for name in results:
     metrics = results[name]
     print(
         f"{name}: median={metrics['median_ms']}ms, p95={metrics['p95_ms']}ms, "
         f"mean={metrics['mean_ms']}ms, min={metrics['min_ms']}ms, max={metrics['max_ms']}ms"
     )
 
+for name in ["startup_version", "cfml_now"]:
+    cds_name = f"{name}_cds"
+    if cds_name in results and results[name]["median_ms"]:
+        gain_pct = (1 - results[cds_name]["median_ms"] / results[name]["median_ms"]) * 100.0
+        print(f"{name}: AppCDS median gain {gain_pct:.2f}%")
+
 if baseline_file:
     baseline = json.loads(Path(baseline_file).read_text(encoding="utf-8"))
     baseline_results = baseline.get("results", {})
@@ -202,7 +238,7 @@ if baseline_file:
 
     print("")
     print(f"Comparison against baseline: {baseline_file}")
-    for name in ["startup_version", "cfml_now"]:
+    for name in results:
         current_median = results[name]["median_ms"]
         baseline_median = baseline_results.get(name, {}).get("median_ms")
         if baseline_median is None or baseline_median == 0: